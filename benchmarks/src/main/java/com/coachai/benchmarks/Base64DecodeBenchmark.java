@@ -0,0 +1,59 @@
+package com.coachai.benchmarks;
+
+import com.coachai.util.Base64DataUri;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base64图片解析与解码基准测试
+ *
+ * 与 OssFileStorageService.saveBase64Image 上传前的处理一致：先拆分 data URI，再做Base64解码。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Base64DecodeBenchmark {
+
+    /**
+     * 解码后的图片大小（字节）
+     */
+    @Param({"102400", "1048576", "4194304"})
+    public int imageSize;
+
+    private String dataUri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] imageBytes = new byte[imageSize];
+        new Random(42).nextBytes(imageBytes);
+        dataUri = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(imageBytes);
+    }
+
+    @Benchmark
+    public String[] parseBase64Data() {
+        return Base64DataUri.parse(dataUri);
+    }
+
+    @Benchmark
+    public byte[] parseAndDecode() {
+        String[] base64Parts = Base64DataUri.parse(dataUri);
+        return Base64.getDecoder().decode(base64Parts[1]);
+    }
+}
@@ -0,0 +1,129 @@
+package com.coachai.benchmarks;
+
+import com.coachai.dto.CoachAiUserDTO;
+import com.coachai.dto.IssueAnalysisRecordDTO;
+import com.coachai.dto.PoseAnalysisRecordDTO;
+import com.coachai.entity.CoachAiUser;
+import com.coachai.entity.IssueAnalysisRecord;
+import com.coachai.entity.PoseAnalysisRecord;
+import com.coachai.repository.projection.IssueAnalysisRecordSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体到DTO映射基准测试
+ *
+ * 覆盖各DTO的 fromEntity，以及列表接口使用的摘要投影到 SummaryResponse 的转换。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    private CoachAiUser user;
+    private PoseAnalysisRecord poseRecord;
+    private IssueAnalysisRecord issueRecord;
+    private IssueAnalysisRecordSummary issueSummary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long now = System.currentTimeMillis();
+
+        user = CoachAiUser.builder()
+                .id(1L)
+                .username("benchmark_user")
+                .passwordHash("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5Zq4h6e1xk9nQvXo1d1m0Ey")
+                .preferredSport(CoachAiUser.PreferredSport.RUNNING)
+                .age(28)
+                .height(175)
+                .weight(new BigDecimal("68.5"))
+                .gender(CoachAiUser.Gender.MALE)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        poseRecord = PoseAnalysisRecord.builder()
+                .id(1L)
+                .username("benchmark_user")
+                .sport("健身")
+                .posture("深蹲")
+                .userPoseImage("https://coach-ai.oss-cn-shenzhen.aliyuncs.com/images/20250101/user-pose-3f2a9c.jpg")
+                .referencePoseImage("https://coach-ai.oss-cn-shenzhen.aliyuncs.com/images/20250101/reference-pose-8b1d44.jpg")
+                .analysisResults("[{\"problem\":\"下蹲时膝盖明显内扣\",\"suggestion\":\"下蹲过程中主动向外推膝\",\"isLastProblem\":true}]")
+                .improvementResults("[{\"problem\":\"下蹲时膝盖明显内扣\",\"evaluation\":\"内扣幅度有所减小\"}]")
+                .overallScore(72)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        issueRecord = IssueAnalysisRecord.builder()
+                .id(1L)
+                .username("benchmark_user")
+                .sport("跑步")
+                .posture("[\"前倾跑姿\",\"着地姿势\"]")
+                .riskLevel("中")
+                .primaryDiagnosis("髌股疼痛综合征（跑步膝）")
+                .confidence(82)
+                .isNormal(false)
+                .symptoms("[{\"name\":\"膝盖前侧疼痛\",\"severity\":\"中度\",\"cause\":\"髌骨与股骨之间压力过大\"}]")
+                .treatment("{\"prevention\":[\"控制跑量增幅\"],\"immediate\":[\"冰敷\"],\"recovery\":[\"臀中肌强化\"],\"followUp\":[\"两周后复评\"]}")
+                .poseReference("[{\"name\":\"正确的跑步着地姿势\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/landing-1.mp4\"}]")
+                .rehabilitationVideos("[{\"name\":\"靠墙静蹲\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/rehab-wallsit.mp4\"}]")
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        issueSummary = new IssueAnalysisRecordSummary(1L, "benchmark_user", "跑步", "中",
+                "髌股疼痛综合征（跑步膝）", 82, false, now, now);
+    }
+
+    @Benchmark
+    public CoachAiUserDTO userFromEntity() {
+        return CoachAiUserDTO.fromEntity(user);
+    }
+
+    @Benchmark
+    public CoachAiUserDTO.QueryResponse userQueryResponseFromEntity() {
+        return CoachAiUserDTO.QueryResponse.fromEntity(user);
+    }
+
+    @Benchmark
+    public PoseAnalysisRecordDTO poseRecordFromEntity() {
+        return PoseAnalysisRecordDTO.fromEntity(poseRecord);
+    }
+
+    @Benchmark
+    public PoseAnalysisRecordDTO.QueryResponse poseQueryResponseFromEntity() {
+        return PoseAnalysisRecordDTO.QueryResponse.fromEntity(poseRecord);
+    }
+
+    @Benchmark
+    public IssueAnalysisRecordDTO issueRecordFromEntity() {
+        return IssueAnalysisRecordDTO.fromEntity(issueRecord);
+    }
+
+    @Benchmark
+    public IssueAnalysisRecordDTO.QueryResponse issueQueryResponseFromEntity() {
+        return IssueAnalysisRecordDTO.QueryResponse.fromEntity(issueRecord);
+    }
+
+    @Benchmark
+    public IssueAnalysisRecordDTO.SummaryResponse issueSummaryFromProjection() {
+        return IssueAnalysisRecordDTO.SummaryResponse.fromProjection(issueSummary);
+    }
+}
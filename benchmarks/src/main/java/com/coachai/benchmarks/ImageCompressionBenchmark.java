@@ -0,0 +1,57 @@
+package com.coachai.benchmarks;
+
+import com.coachai.service.ImageCompressionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片智能压缩基准测试
+ *
+ * 按 smartCompressBytes 的四档策略（不压缩 / >500KB / >2MB / >5MB）各准备一张合成JPEG。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageCompressionBenchmark {
+
+    /**
+     * 宽x高@JPEG质量，生成的图片约为 128KB / 1.5MB / 2.5MB / 6MB，分别落在四个压缩档位
+     */
+    @Param({"640x480@0.85", "1920x1080@0.95", "2560x1920@0.9", "4000x3000@0.9"})
+    public String image;
+
+    private ImageCompressionService imageCompressionService;
+    private byte[] imageBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        imageCompressionService = new ImageCompressionService(new SimpleMeterRegistry());
+
+        String[] sizeAndQuality = image.split("@");
+        String[] size = sizeAndQuality[0].split("x");
+        imageBytes = SyntheticImages.jpeg(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                Float.parseFloat(sizeAndQuality[1]));
+    }
+
+    @Benchmark
+    public byte[] smartCompressBytes() throws IOException {
+        return imageCompressionService.smartCompressBytes(imageBytes);
+    }
+}
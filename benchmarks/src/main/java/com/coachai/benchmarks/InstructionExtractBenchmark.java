@@ -0,0 +1,139 @@
+package com.coachai.benchmarks;
+
+import com.coachai.dto.PoseImageInstructions;
+import com.coachai.json.JsonCodec;
+import com.coachai.json.JsonFieldExtractor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片生成指令接口（/data/pose-analysis）基准测试
+ *
+ * 对比构建 JsonNode 树后取字段与预编译字段提取器的流式提取，以及嵌套 HashMap 与预先序列化的响应片段。
+ * 数据为模拟的姿态分析工作流输出：answer 中包含分析结果和两条指令，
+ * position 为指令字段在 answer 中的位置（first：分析结果之前，last：之后）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstructionExtractBenchmark {
+
+    private static final JsonFieldExtractor USER_POSE_INSTRUCTIONS =
+            JsonFieldExtractor.compile("answer.userPoseImageInstructions", "userPoseImageInstructions");
+
+    private static final String IMAGE_URL = "https://coach-ai.oss-cn-shenzhen.aliyuncs.com/images/20250101/user-pose-3f2a9c.jpg";
+
+    @Param({"first", "last"})
+    public String position;
+
+    private ObjectMapper objectMapper;
+    private JsonCodec jsonCodec;
+    private String jsonString;
+    private String instructions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        jsonCodec = new JsonCodec(objectMapper);
+
+        String userInstructions = "在用户照片上用红色箭头标出膝盖内扣的位置，并用绿色虚线画出膝盖应与脚尖保持一致的方向。".repeat(4);
+        String referenceInstructions = "在标准动作图上标出膝盖与脚尖方向一致、背部保持中立的要点。".repeat(4);
+        List<Map<String, Object>> analysisResults = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("problem", "下蹲时膝盖明显内扣，膝关节承受额外的剪切力" + i);
+            result.put("suggestion", "下蹲时主动向外打开膝盖，使膝盖与第二、三脚趾方向一致，必要时减轻重量" + i);
+            result.put("targetArea", "膝关节");
+            result.put("severity", i % 3);
+            analysisResults.add(result);
+        }
+        Map<String, Object> answer = new LinkedHashMap<>();
+        if ("first".equals(position)) {
+            answer.put("userPoseImageInstructions", userInstructions);
+            answer.put("referencePoseImageInstructions", referenceInstructions);
+        }
+        answer.put("analysisResults", analysisResults);
+        answer.put("summary", "整体动作节奏良好，主要问题在膝关节稳定性。".repeat(5));
+        if ("last".equals(position)) {
+            answer.put("userPoseImageInstructions", userInstructions);
+            answer.put("referencePoseImageInstructions", referenceInstructions);
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("conversationId", "c-7d2a91");
+        root.put("answer", answer);
+        jsonString = objectMapper.writeValueAsString(root);
+        instructions = userInstructions;
+    }
+
+    /**
+     * 改造前：构建 JsonNode 树后取字段
+     */
+    @Benchmark
+    public String extractWithTree() throws IOException {
+        JsonNode jsonNode = objectMapper.readTree(jsonString);
+        JsonNode answerNode = jsonNode.get("answer");
+        JsonNode targetNode = answerNode != null ? answerNode : jsonNode;
+        return targetNode.get("userPoseImageInstructions").asText();
+    }
+
+    /**
+     * 预编译字段提取器流式提取
+     */
+    @Benchmark
+    public String extractWithExtractor() throws IOException {
+        return jsonCodec.extract(jsonString, USER_POSE_INSTRUCTIONS);
+    }
+
+    /**
+     * 改造前：嵌套 HashMap 构造响应并序列化
+     */
+    @Benchmark
+    public byte[] responseWithMaps() throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("role", "user");
+        List<Map<String, Object>> parts = new ArrayList<>();
+        Map<String, Object> textPart = new HashMap<>();
+        textPart.put("text", instructions);
+        parts.add(textPart);
+        Map<String, Object> filePart = new HashMap<>();
+        Map<String, Object> fileData = new HashMap<>();
+        fileData.put("mimeType", "image/jpeg");
+        fileData.put("fileUri", IMAGE_URL);
+        filePart.put("fileData", fileData);
+        parts.add(filePart);
+        response.put("parts", parts);
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * 预先序列化的响应片段
+     */
+    @Benchmark
+    public byte[] responseWithFragments() throws IOException {
+        return objectMapper.writeValueAsBytes(new PoseImageInstructions(instructions, IMAGE_URL));
+    }
+}
@@ -0,0 +1,219 @@
+package com.coachai.benchmarks;
+
+import com.coachai.dto.IssueAnalysisRecordDTO;
+import com.coachai.entity.IssueAnalysisRecord;
+import com.coachai.repository.IssueAnalysisRecordRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 症状分析记录列表查询基准测试：摘要投影查询与整行实体查询
+ *
+ * 使用与压测环境相同的内嵌H2（MySQL兼容模式）和主工程的 IssueAnalysisRecordRepository，
+ * 每个用户 recordsPerUser 条记录，JSON字段的内容和大小与录制的症状分析工作流响应相当。
+ * summaryPage 为列表接口当前的查询（摘要投影分页，含总数查询），entityPage 为读取相同行的整行实体，
+ * entityAll 为改为分页前列表接口的查询（用户全部记录的整行实体）。三者都转换为列表接口返回的DTO。
+ * 每页读取的列数据量在启动时输出。H2在进程内，不含网络传输，MySQL上JSON字段的读取与传输开销更大。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IssueRecordListQueryBenchmark {
+
+    private static final String USERNAME = "benchmark_user_0";
+    private static final int USERS = 10;
+
+    /**
+     * 与 findByUsernameOrderByCreatedAtDesc 相同的查询，按页读取
+     */
+    private static final String ENTITY_QUERY = "SELECT r FROM IssueAnalysisRecord r WHERE r.username = :username ORDER BY r.createdAt DESC";
+
+    private static final String SUMMARY_COLUMNS = "OCTET_LENGTH(username) + OCTET_LENGTH(sport) + OCTET_LENGTH(risk_level) "
+            + "+ OCTET_LENGTH(primary_diagnosis)";
+    private static final String JSON_COLUMNS = "OCTET_LENGTH(posture) + OCTET_LENGTH(symptoms) + OCTET_LENGTH(treatment) "
+            + "+ OCTET_LENGTH(pose_reference) + OCTET_LENGTH(rehabilitation_videos)";
+
+    private static final String POSTURE = "[\"前倾跑姿\",\"着地姿势\"]";
+    private static final String SYMPTOMS = "["
+            + "{\"name\":\"膝盖前侧疼痛\",\"severity\":\"中度\",\"cause\":\"髌骨与股骨之间压力过大，常见于跑量增加过快\"},"
+            + "{\"name\":\"下楼梯时疼痛加剧\",\"severity\":\"中度\",\"cause\":\"屈膝负重时髌股关节压力升高\"},"
+            + "{\"name\":\"久坐后起身膝盖僵硬\",\"severity\":\"轻度\",\"cause\":\"关节周围软组织紧张，髌骨活动受限\"},"
+            + "{\"name\":\"跑步后膝盖轻微肿胀\",\"severity\":\"轻度\",\"cause\":\"运动后关节内炎症反应\"}]";
+    private static final String TREATMENT = "{"
+            + "\"prevention\":[\"每周跑量增幅不超过10%\",\"跑前充分热身，激活臀部与大腿肌群\",\"选择缓冲性能良好的跑鞋并定期更换\"],"
+            + "\"immediate\":[\"暂停高强度跑步训练\",\"疼痛部位冰敷每次15分钟，每天3次\",\"必要时使用髌骨带减轻压力\"],"
+            + "\"recovery\":[\"臀中肌强化训练：侧卧抬腿每组15次\",\"股四头肌离心训练：靠墙静蹲每次30秒\",\"泡沫轴放松髂胫束和股四头肌\"],"
+            + "\"followUp\":[\"两周后复评疼痛程度\",\"恢复跑步从平路慢跑开始，逐步增加距离\",\"疼痛持续或加重时就医检查\"]}";
+    private static final String POSE_REFERENCE = "["
+            + "{\"name\":\"正确的跑步着地姿势\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/landing-1.mp4|https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/landing-2.mp4\"},"
+            + "{\"name\":\"跑步躯干前倾角度\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/lean-1.mp4\"},"
+            + "{\"name\":\"步频与步幅调整\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/cadence-1.mp4|https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/cadence-2.mp4|https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/cadence-3.mp4\"}]";
+    private static final String REHABILITATION_VIDEOS = "["
+            + "{\"name\":\"靠墙静蹲\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/rehab-wallsit.mp4\"},"
+            + "{\"name\":\"侧卧抬腿\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/rehab-side-leg-raise.mp4\"},"
+            + "{\"name\":\"臀桥\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/rehab-glute-bridge.mp4\"},"
+            + "{\"name\":\"泡沫轴放松\",\"video\":\"https://coach-ai.oss-cn-shenzhen.aliyuncs.com/videos/rehab-foam-roll.mp4\"}]";
+
+    @Param({"200"})
+    public int recordsPerUser;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private AnnotationConfigApplicationContext context;
+    private IssueAnalysisRecordRepository repository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private PageRequest firstPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(JpaConfig.class);
+        repository = context.getBean(IssueAnalysisRecordRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        // 与服务中列表查询的 @Transactional(readOnly = true) 一致
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        firstPage = PageRequest.of(0, pageSize);
+
+        JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>();
+        for (int user = 0; user < USERS; user++) {
+            for (int i = 0; i < recordsPerUser; i++) {
+                long createdAt = now - TimeUnit.HOURS.toMillis((long) i * USERS + user);
+                rows.add(new Object[]{"benchmark_user_" + user, "跑步", POSTURE, i % 3 == 0 ? "高" : "中",
+                        "髌股疼痛综合征（跑步膝）", 82, i % 4 == 0, SYMPTOMS, TREATMENT, POSE_REFERENCE,
+                        REHABILITATION_VIDEOS, createdAt, createdAt});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO issue_analysis_record (username, sport, posture, risk_level, primary_diagnosis, "
+                + "confidence, is_normal, symptoms, treatment, pose_reference, rehabilitation_videos, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        String page = "FROM (SELECT * FROM issue_analysis_record WHERE username = ? ORDER BY created_at DESC LIMIT ?) t";
+        Long summaryBytes = jdbc.queryForObject("SELECT SUM(" + SUMMARY_COLUMNS + ") " + page, Long.class, USERNAME, pageSize);
+        Long entityBytes = jdbc.queryForObject("SELECT SUM(" + SUMMARY_COLUMNS + " + " + JSON_COLUMNS + ") " + page,
+                Long.class, USERNAME, pageSize);
+        Long allBytes = jdbc.queryForObject("SELECT SUM(" + SUMMARY_COLUMNS + " + " + JSON_COLUMNS + ") " + page,
+                Long.class, USERNAME, recordsPerUser);
+        System.out.printf("每页读取的字符串列数据（字节）: summaryPage=%d, entityPage=%d, entityAll=%d%n",
+                summaryBytes, entityBytes, allBytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<IssueAnalysisRecordDTO.SummaryResponse> summaryPage() {
+        return readOnly.execute(status -> repository.findSummariesByUsername(USERNAME, firstPage).getContent().stream()
+                .map(IssueAnalysisRecordDTO.SummaryResponse::fromProjection)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<IssueAnalysisRecordDTO.QueryResponse> entityPage() {
+        return readOnly.execute(status -> entityManager.createQuery(ENTITY_QUERY, IssueAnalysisRecord.class)
+                .setParameter("username", USERNAME)
+                .setMaxResults(pageSize)
+                .getResultList().stream()
+                .map(IssueAnalysisRecordDTO.QueryResponse::fromEntity)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<IssueAnalysisRecordDTO.QueryResponse> entityAll() {
+        return readOnly.execute(status -> repository.findByUsernameOrderByCreatedAtDesc(USERNAME).stream()
+                .map(IssueAnalysisRecordDTO.QueryResponse::fromEntity)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 只包含症状分析记录实体和仓库的JPA环境，库表与压测环境相同（JSON列预先以VARCHAR创建，其余由Hibernate补齐）
+     */
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = IssueAnalysisRecordRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = IssueAnalysisRecordRepository.class))
+    static class JpaConfig {
+
+        @Bean(destroyMethod = "close")
+        HikariDataSource dataSource() {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:coach_ai_benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+                    + "INIT=RUNSCRIPT FROM 'classpath:loadtest/h2-schema.sql'");
+            dataSource.setUsername("sa");
+            dataSource.setPassword("");
+            dataSource.setMaximumPoolSize(4);
+            return dataSource;
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource,
+                                                                    ConfigurableListableBeanFactory beanFactory) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setPackagesToScan(IssueAnalysisRecord.class.getPackage().getName());
+            // 其他实体的监听器依赖服务中的其他组件，这里只保留症状分析记录
+            factory.setPersistenceUnitPostProcessors(unit -> unit.getManagedClassNames()
+                    .removeIf(name -> !name.equals(IssueAnalysisRecord.class.getName())));
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("hibernate.hbm2ddl.auto", "update");
+            properties.put("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName());
+            properties.put("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+            properties.put("hibernate.resource.beans.container", new SpringBeanContainer(beanFactory));
+            factory.setJpaPropertyMap(properties);
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+}
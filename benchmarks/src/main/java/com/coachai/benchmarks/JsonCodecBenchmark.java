@@ -0,0 +1,161 @@
+package com.coachai.benchmarks;
+
+import com.coachai.config.AiWorkflowConfig;
+import com.coachai.dto.AiWorkflowIssueResponse;
+import com.coachai.dto.AiWorkflowResponse;
+import com.coachai.json.JsonCodec;
+import com.coachai.resilience.EndpointBalancer;
+import com.coachai.resilience.WorkflowCallPolicy;
+import com.coachai.service.impl.AiWorkflowServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON编解码基准测试
+ *
+ * 对比改造前各处直接调用 ObjectMapper（objectMapper）和 JsonCodec（jsonCodec：Blackbird + 预先创建的读取器/写入器）：
+ * 工作流原始响应体反序列化、data.result / message 各层解析，以及保存记录时的字段序列化。
+ * 数据为主工程 src/test/resources/loadtest/workflow 下录制的工作流响应。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonCodecBenchmark {
+
+    @Param({"objectMapper", "jsonCodec"})
+    public String codec;
+
+    private ObjectMapper objectMapper;
+    private JsonCodec jsonCodec;
+
+    private String poseResponseBody;
+    private byte[] poseResponseBytes;
+    private String issueResponseBody;
+    private String poseResultJson;
+    private String diagnosisJson;
+    private List<AiWorkflowResponse.AnalysisResult> analysisResults;
+    private AiWorkflowIssueResponse.DiagnosisData diagnosisData;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // 与Spring Boot自动配置的ObjectMapper保持一致，jsonCodec 另外注册 Blackbird（JsonCodecConfig）
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        jsonCodec = new JsonCodec(Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build());
+
+        poseResponseBody = loadPayload("loadtest/workflow/pose-workflow-response.json");
+        poseResponseBytes = poseResponseBody.getBytes(StandardCharsets.UTF_8);
+        issueResponseBody = loadPayload("loadtest/workflow/issue-workflow-response.json");
+
+        AiWorkflowConfig aiWorkflowConfig = new AiWorkflowConfig();
+        AiWorkflowServiceImpl aiWorkflowService = new AiWorkflowServiceImpl(aiWorkflowConfig, jsonCodec,
+                new RestTemplateBuilder(), OpenTelemetry.noop().getTracer("benchmarks"),
+                new WorkflowCallPolicy(aiWorkflowConfig, new SimpleMeterRegistry()),
+                new EndpointBalancer(aiWorkflowConfig, new SimpleMeterRegistry()));
+        AiWorkflowResponse poseResponse = objectMapper.readValue(poseResponseBody, AiWorkflowResponse.class);
+        poseResultJson = poseResponse.getData().getResult();
+        analysisResults = aiWorkflowService.parseWorkflowResponse(poseResponse).getAnalysisResults();
+        AiWorkflowIssueResponse.StructData structData = aiWorkflowService.parseIssueWorkflowResponse(
+                objectMapper.readValue(issueResponseBody, AiWorkflowIssueResponse.class));
+        diagnosisJson = structData.getMessage();
+        diagnosisData = aiWorkflowService.parseDiagnosisData(structData);
+    }
+
+    /**
+     * 姿势分析工作流原始响应体（字符串，RestTemplate/WebClient 读取响应体）
+     */
+    @Benchmark
+    public AiWorkflowResponse readPoseResponse() throws IOException {
+        return isCodec() ? jsonCodec.readValue(poseResponseBody, AiWorkflowResponse.class)
+                : objectMapper.readValue(poseResponseBody, AiWorkflowResponse.class);
+    }
+
+    /**
+     * 姿势分析工作流原始响应体（字节数组，不经过中间字符串）
+     */
+    @Benchmark
+    public AiWorkflowResponse readPoseResponseBytes() throws IOException {
+        return isCodec() ? jsonCodec.readValue(poseResponseBytes, AiWorkflowResponse.class)
+                : objectMapper.readValue(poseResponseBytes, AiWorkflowResponse.class);
+    }
+
+    /**
+     * 症状诊断工作流原始响应体
+     */
+    @Benchmark
+    public AiWorkflowIssueResponse readIssueResponse() throws IOException {
+        return isCodec() ? jsonCodec.readValue(issueResponseBody, AiWorkflowIssueResponse.class)
+                : objectMapper.readValue(issueResponseBody, AiWorkflowIssueResponse.class);
+    }
+
+    /**
+     * 姿势分析 data.result 解析
+     */
+    @Benchmark
+    public AiWorkflowResponse.ParsedResult readPoseParsedResult() throws IOException {
+        return isCodec() ? jsonCodec.readValue(poseResultJson, AiWorkflowResponse.ParsedResult.class)
+                : objectMapper.readValue(poseResultJson, AiWorkflowResponse.ParsedResult.class);
+    }
+
+    /**
+     * 症状诊断 message 解析为 DiagnosisData
+     */
+    @Benchmark
+    public AiWorkflowIssueResponse.DiagnosisData readDiagnosisData() throws IOException {
+        return isCodec() ? jsonCodec.readValue(diagnosisJson, AiWorkflowIssueResponse.DiagnosisData.class)
+                : objectMapper.readValue(diagnosisJson, AiWorkflowIssueResponse.DiagnosisData.class);
+    }
+
+    /**
+     * 保存姿态分析记录时序列化 analysisResults
+     */
+    @Benchmark
+    public String writeAnalysisResults() throws IOException {
+        return isCodec() ? jsonCodec.writeValueAsString(analysisResults) : objectMapper.writeValueAsString(analysisResults);
+    }
+
+    /**
+     * 症状诊断结果序列化
+     */
+    @Benchmark
+    public byte[] writeDiagnosisData() throws IOException {
+        return isCodec() ? jsonCodec.writeValueAsBytes(diagnosisData) : objectMapper.writeValueAsBytes(diagnosisData);
+    }
+
+    private boolean isCodec() {
+        return "jsonCodec".equals(codec);
+    }
+
+    private static String loadPayload(String path) throws IOException {
+        try (InputStream inputStream = JsonCodecBenchmark.class.getClassLoader().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                throw new IOException("找不到录制的响应文件: " + path);
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
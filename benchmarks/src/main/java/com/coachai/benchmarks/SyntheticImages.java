@@ -0,0 +1,56 @@
+package com.coachai.benchmarks;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * 合成测试图片
+ * 图片内容为带噪点的渐变，压缩比接近真实拍摄的运动照片
+ */
+public final class SyntheticImages {
+
+    private SyntheticImages() {
+    }
+
+    /**
+     * 生成带噪点的渐变图片并按指定质量编码为JPEG
+     *
+     * @param width   宽度
+     * @param height  高度
+     * @param quality JPEG质量 (0-1)
+     * @return JPEG字节数组
+     */
+    public static byte[] jpeg(int width, int height, float quality) throws IOException {
+        BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(48)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(48)) & 0xFF;
+                int b = ((x + y) * 127 / (width + height) + random.nextInt(48)) & 0xFF;
+                bufferedImage.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+             ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(bufferedImage, null, null), param);
+            imageOutputStream.flush();
+            return outputStream.toByteArray();
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.coachai.benchmarks;
+
+import com.coachai.config.VirtualThreadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 虚拟线程与平台线程池处理阻塞任务的对比基准测试
+ *
+ * 一次操作同时提交 tasks 个任务并等待全部完成，每个任务以 Thread.sleep 模拟一次工作流/OSS调用的阻塞等待。
+ * platform 为与 Tomcat 默认 server.tomcat.threads.max 相同的200线程固定线程池，virtual 为每个任务一个虚拟线程
+ * （使用 VirtualThreadConfig 创建的线程工厂，与服务中的线程池一致）。
+ * monitor 为 synchronized 时在持有监视器期间阻塞，虚拟线程被固定在载体线程上，用于说明代码中为什么使用 ReentrantLock。
+ * virtual 需在 JDK 21 及以上运行，低版本JDK可用 -p threads=platform 只运行平台线程。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000"})
+    public int tasks;
+
+    @Param({"20"})
+    public long blockMillis;
+
+    @Param({"none", "synchronized"})
+    public String monitor;
+
+    private ExecutorService platformPool;
+    private Executor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("virtual".equals(threads)) {
+            ThreadFactory factory = VirtualThreadConfig.virtualThreadFactory("benchmark-virtual-");
+            executor = task -> factory.newThread(task).start();
+        } else {
+            platformPool = Executors.newFixedThreadPool(PLATFORM_THREADS);
+            executor = platformPool;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (platformPool != null) {
+            platformPool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        boolean synchronizedBlock = "synchronized".equals(monitor);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                try {
+                    if (synchronizedBlock) {
+                        blockHoldingMonitor(new Object());
+                    } else {
+                        block();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void blockHoldingMonitor(Object lock) {
+        synchronized (lock) {
+            block();
+        }
+    }
+
+    private void block() {
+        try {
+            Thread.sleep(blockMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.coachai.benchmarks;
+
+import com.coachai.config.AiWorkflowConfig;
+import com.coachai.dto.AiWorkflowIssueResponse;
+import com.coachai.dto.AiWorkflowResponse;
+import com.coachai.json.JsonCodec;
+import com.coachai.resilience.EndpointBalancer;
+import com.coachai.resilience.WorkflowCallPolicy;
+import com.coachai.service.impl.AiWorkflowServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI工作流响应解析基准测试
+ *
+ * 使用主工程 src/test/resources/loadtest/workflow 下录制的工作流原始响应（压测桩服务同样回放这两份响应），覆盖：
+ * 原始响应体反序列化、姿势分析的两层解析、症状诊断的三层解析，
+ * 以及 poseReference / rehabilitationVideos 的后处理（attachMediaReferences）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkflowResponseParseBenchmark {
+
+    private ObjectMapper objectMapper;
+    private AiWorkflowServiceImpl aiWorkflowService;
+
+    private String poseResponseBody;
+    private String issueResponseBody;
+    private AiWorkflowResponse poseResponse;
+    private AiWorkflowIssueResponse issueResponse;
+    private AiWorkflowIssueResponse.StructData issueStructData;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // 与Spring Boot自动配置的ObjectMapper保持一致（FAIL_ON_UNKNOWN_PROPERTIES=false）
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        AiWorkflowConfig aiWorkflowConfig = new AiWorkflowConfig();
+        aiWorkflowService = new AiWorkflowServiceImpl(aiWorkflowConfig, new JsonCodec(objectMapper), new RestTemplateBuilder(),
+                OpenTelemetry.noop().getTracer("benchmarks"),
+                new WorkflowCallPolicy(aiWorkflowConfig, new SimpleMeterRegistry()),
+                new EndpointBalancer(aiWorkflowConfig, new SimpleMeterRegistry()));
+
+        poseResponseBody = loadPayload("loadtest/workflow/pose-workflow-response.json");
+        issueResponseBody = loadPayload("loadtest/workflow/issue-workflow-response.json");
+        poseResponse = objectMapper.readValue(poseResponseBody, AiWorkflowResponse.class);
+        issueResponse = objectMapper.readValue(issueResponseBody, AiWorkflowIssueResponse.class);
+        issueStructData = aiWorkflowService.parseIssueWorkflowResponse(issueResponse);
+    }
+
+    /**
+     * 姿势分析：data.result 两层解析
+     */
+    @Benchmark
+    public AiWorkflowResponse.FinalMessage parseWorkflowResponse() {
+        return aiWorkflowService.parseWorkflowResponse(poseResponse);
+    }
+
+    /**
+     * 姿势分析：包含RestTemplate阶段的原始响应体反序列化
+     */
+    @Benchmark
+    public AiWorkflowResponse.FinalMessage parseWorkflowResponseFromBody() throws IOException {
+        return aiWorkflowService.parseWorkflowResponse(
+                objectMapper.readValue(poseResponseBody, AiWorkflowResponse.class));
+    }
+
+    /**
+     * 症状诊断：data.result 解析为 StructData
+     */
+    @Benchmark
+    public AiWorkflowIssueResponse.StructData parseIssueWorkflowResponse() {
+        return aiWorkflowService.parseIssueWorkflowResponse(issueResponse);
+    }
+
+    /**
+     * 症状诊断：StructData.message 解析为 DiagnosisData
+     */
+    @Benchmark
+    public AiWorkflowIssueResponse.DiagnosisData parseDiagnosisData() {
+        return aiWorkflowService.parseDiagnosisData(issueStructData);
+    }
+
+    /**
+     * 症状诊断：poseReference / rehabilitationVideos 后处理
+     */
+    @Benchmark
+    public AiWorkflowIssueResponse.DiagnosisData attachMediaReferences() {
+        AiWorkflowIssueResponse.DiagnosisData diagnosisData = new AiWorkflowIssueResponse.DiagnosisData();
+        aiWorkflowService.attachMediaReferences(diagnosisData, issueStructData);
+        return diagnosisData;
+    }
+
+    /**
+     * 症状诊断：IssueAnalysisRecordController 中的完整解析链路
+     */
+    @Benchmark
+    public AiWorkflowIssueResponse.DiagnosisData issueFullPipeline() {
+        AiWorkflowIssueResponse.StructData structData = aiWorkflowService.parseIssueWorkflowResponse(issueResponse);
+        AiWorkflowIssueResponse.DiagnosisData diagnosisData = aiWorkflowService.parseDiagnosisData(structData);
+        aiWorkflowService.attachMediaReferences(diagnosisData, structData);
+        return diagnosisData;
+    }
+
+    private static String loadPayload(String path) throws IOException {
+        try (InputStream inputStream = WorkflowResponseParseBenchmark.class.getClassLoader().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                throw new IOException("找不到录制的响应文件: " + path);
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
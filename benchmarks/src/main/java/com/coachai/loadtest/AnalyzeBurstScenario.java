@@ -0,0 +1,86 @@
+package com.coachai.loadtest;
+
+import com.coachai.benchmarks.SyntheticImages;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 分析突发场景
+ * 开环发送姿态分析和症状分析请求，在平稳速率上叠加一段突发流量，
+ * 观察长耗时工作流调用占满Tomcat线程和连接池时的排队与尾延迟。
+ */
+public class AnalyzeBurstScenario implements LoadScenario {
+
+    private static final String[][] POSES = {
+            {"健身", "深蹲"}, {"健身", "硬拉"}, {"健身", "俯卧撑"}, {"跑步", "前倾跑姿"}, {"瑜伽", "下犬式"}
+    };
+
+    private static final String[][] ISSUES = {
+            {"跑步", "膝盖", "前倾跑姿", "跑步时膝盖内侧疼痛，长距离跑后疼痛加剧"},
+            {"健身", "腰部", "硬拉", "硬拉后腰部酸痛，弯腰时有牵拉感"},
+            {"篮球", "脚踝", "起跳落地", "落地时脚踝外侧疼痛，有轻微肿胀"}
+    };
+
+    private final List<HttpRequest> poseRequests = new ArrayList<>();
+    private final List<HttpRequest> issueRequests = new ArrayList<>();
+    private double poseRatio;
+
+    @Override
+    public String name() {
+        return "analyze-burst";
+    }
+
+    @Override
+    public String description() {
+        return "姿态/症状分析请求，平稳速率上叠加突发流量（开环）";
+    }
+
+    @Override
+    public Map<String, String> defaults() {
+        Map<String, String> defaults = new HashMap<>();
+        defaults.put("rate", "2");
+        defaults.put("burst-rate", "25");
+        defaults.put("burst-start", "20s");
+        defaults.put("burst-duration", "10s");
+        defaults.put("duration", "60s");
+        defaults.put("warmup", "10s");
+        defaults.put("users", "200");
+        defaults.put("pose-ratio", "0.7");
+        // blocking: /analyze，reactive: /analyze/reactive
+        defaults.put("mode", "blocking");
+        return defaults;
+    }
+
+    @Override
+    public void prepare(ServiceClient client, LoadTestOptions options) throws Exception {
+        poseRatio = options.getDouble("pose-ratio");
+        String analyzePath = "reactive".equals(options.get("mode")) ? "/analyze/reactive" : "/analyze";
+        String imageUrl = client.uploadImageForUrl(SyntheticImages.jpeg(640, 480, 0.85f), "analyze.jpg");
+
+        for (int i = 0; i < options.getInt("users"); i++) {
+            String username = "loadtest_user_" + i;
+            String[] pose = POSES[i % POSES.length];
+            poseRequests.add(client.postJson("/pose-analysis-records" + analyzePath, String.format(
+                    "{\"imageLink\":\"%s\",\"username\":\"%s\",\"sport\":\"%s\",\"posture\":\"%s\"}",
+                    imageUrl, username, pose[0], pose[1])));
+
+            String[] issue = ISSUES[i % ISSUES.length];
+            issueRequests.add(client.postJson("/issue-analysis-records" + analyzePath, String.format(
+                    "{\"username\":\"%s\",\"sport\":\"%s\",\"bodyParts\":[\"%s\"],\"posture\":[\"%s\"],\"description\":\"%s\"}",
+                    username, issue[0], issue[1], issue[2], issue[3])));
+        }
+    }
+
+    @Override
+    public Call nextCall(ThreadLocalRandom random) {
+        if (random.nextDouble() < poseRatio) {
+            return new Call("pose-analyze", poseRequests.get(random.nextInt(poseRequests.size())));
+        }
+        return new Call("issue-analyze", issueRequests.get(random.nextInt(issueRequests.size())));
+    }
+}
@@ -0,0 +1,119 @@
+package com.coachai.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按操作统计延迟分布与吞吐量
+ * 只有成功请求计入延迟直方图（微秒精度），失败和因在途请求过多而未发送的请求分别计数
+ */
+public class LatencyStats {
+
+    /**
+     * 直方图可记录的最大延迟：10分钟
+     */
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    public void recordSuccess(String operation, long latencyNanos) {
+        long micros = Math.min(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)), HIGHEST_TRACKABLE_MICROS);
+        stats(operation).histogram.recordValue(micros);
+    }
+
+    public void recordError(String operation, int status) {
+        OperationStats stats = stats(operation);
+        stats.errors.increment();
+        stats.errorStatuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    public void recordDropped(String operation) {
+        stats(operation).dropped.increment();
+    }
+
+    private OperationStats stats(String operation) {
+        return operations.computeIfAbsent(operation, o -> new OperationStats());
+    }
+
+    /**
+     * 生成报告，包含各操作及汇总（TOTAL）的统计
+     *
+     * @param measuredSeconds 测量窗口时长（秒），用于计算吞吐量
+     */
+    public List<Map<String, Object>> report(double measuredSeconds) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+        long totalDropped = 0;
+        Map<Integer, Long> totalStatuses = new TreeMap<>();
+
+        for (Map.Entry<String, OperationStats> entry : new TreeMap<>(operations).entrySet()) {
+            OperationStats stats = entry.getValue();
+            Histogram histogram = stats.histogram.copy();
+            Map<Integer, Long> statuses = stats.statusSnapshot();
+            rows.add(row(entry.getKey(), histogram, stats.errors.sum(), stats.dropped.sum(), statuses, measuredSeconds));
+
+            total.add(histogram);
+            totalErrors += stats.errors.sum();
+            totalDropped += stats.dropped.sum();
+            statuses.forEach((status, count) -> totalStatuses.merge(status, count, Long::sum));
+        }
+        if (rows.size() > 1) {
+            rows.add(row("TOTAL", total, totalErrors, totalDropped, totalStatuses, measuredSeconds));
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> row(String operation, Histogram histogram, long errors, long dropped,
+                                           Map<Integer, Long> errorStatuses, double measuredSeconds) {
+        long succeeded = histogram.getTotalCount();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("operation", operation);
+        row.put("requests", succeeded + errors);
+        row.put("succeeded", succeeded);
+        row.put("errors", errors);
+        row.put("dropped", dropped);
+        row.put("errorStatuses", errorStatuses);
+        row.put("throughputPerSecond", round(succeeded / measuredSeconds));
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("mean", succeeded > 0 ? round(histogram.getMean() / 1000.0) : 0.0);
+        latency.put("p50", millis(histogram, 50.0));
+        latency.put("p90", millis(histogram, 90.0));
+        latency.put("p99", millis(histogram, 99.0));
+        latency.put("p999", millis(histogram, 99.9));
+        latency.put("max", succeeded > 0 ? round(histogram.getMaxValue() / 1000.0) : 0.0);
+        row.put("latencyMs", latency);
+        return row;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() > 0 ? round(histogram.getValueAtPercentile(percentile) / 1000.0) : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static final class OperationStats {
+        private final ConcurrentHistogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final Map<Integer, LongAdder> errorStatuses = new ConcurrentHashMap<>();
+
+        private Map<Integer, Long> statusSnapshot() {
+            Map<Integer, Long> snapshot = new TreeMap<>();
+            errorStatuses.forEach((status, count) -> snapshot.put(status, count.sum()));
+            return snapshot;
+        }
+    }
+}
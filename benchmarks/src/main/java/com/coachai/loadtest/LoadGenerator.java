@@ -0,0 +1,118 @@
+package com.coachai.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测执行器
+ *
+ * 闭环模式：固定并发数，每个线程发完一个请求再发下一个，延迟为请求的实际耗时。
+ * 开环模式：按目标到达速率（可叠加突发速率）发送请求，延迟从计划发送时间算起，
+ * 服务变慢时不会因客户端等待而少发请求（避免协调遗漏导致的尾延迟低估）。
+ * 预热期内的请求不计入统计。
+ */
+public class LoadGenerator {
+
+    private final ServiceClient client;
+    private final LoadScenario scenario;
+    private final LoadTestOptions options;
+    private final LatencyStats stats;
+
+    public LoadGenerator(ServiceClient client, LoadScenario scenario, LoadTestOptions options, LatencyStats stats) {
+        this.client = client;
+        this.scenario = scenario;
+        this.options = options;
+        this.stats = stats;
+    }
+
+    public void run() throws InterruptedException {
+        if (options.isOpenLoop()) {
+            runOpenLoop();
+        } else {
+            runClosedLoop();
+        }
+    }
+
+    private void runClosedLoop() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureStart = start + options.getDurationNanos("warmup");
+        long end = measureStart + options.getDurationNanos("duration");
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.getInt("concurrency"); i++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    LoadScenario.Call call = scenario.nextCall(random);
+                    long sendTime = System.nanoTime();
+                    ServiceClient.Outcome outcome = client.send(call.getRequest());
+                    long latency = System.nanoTime() - sendTime;
+                    if (sendTime >= measureStart) {
+                        record(call.getOperation(), outcome, latency);
+                    }
+                }
+            }, "loadtest-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void runOpenLoop() throws InterruptedException {
+        long warmup = options.getDurationNanos("warmup");
+        long total = warmup + options.getDurationNanos("duration");
+        int maxInFlight = options.getInt("max-in-flight");
+        AtomicInteger inFlight = new AtomicInteger();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        long start = System.nanoTime();
+        long offset = 0;
+        while (offset < total) {
+            long intendedTime = start + offset;
+            long wait = intendedTime - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            LoadScenario.Call call = scenario.nextCall(random);
+            boolean measured = offset >= warmup;
+            if (inFlight.get() >= maxInFlight) {
+                if (measured) {
+                    stats.recordDropped(call.getOperation());
+                }
+            } else {
+                inFlight.incrementAndGet();
+                client.sendAsync(call.getRequest()).thenAccept(outcome -> {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        record(call.getOperation(), outcome, System.nanoTime() - intendedTime);
+                    }
+                });
+            }
+
+            double rate = options.rateAt(offset - warmup);
+            offset += (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+
+        // 等待在途请求完成，最长等待一个请求超时时间
+        long deadline = System.nanoTime() + options.getDurationNanos("timeout");
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+    }
+
+    private void record(String operation, ServiceClient.Outcome outcome, long latencyNanos) {
+        if (outcome.isSuccess()) {
+            stats.recordSuccess(operation, latencyNanos);
+        } else {
+            stats.recordError(operation, outcome.getStatus());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.coachai.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测场景
+ */
+public interface LoadScenario {
+
+    /**
+     * 场景名称，对应命令行 --scenario
+     */
+    String name();
+
+    /**
+     * 场景说明
+     */
+    String description();
+
+    /**
+     * 场景默认参数
+     */
+    Map<String, String> defaults();
+
+    /**
+     * 正式压测前的准备，如预置对象、生成请求体
+     */
+    void prepare(ServiceClient client, LoadTestOptions options) throws Exception;
+
+    /**
+     * 生成下一次请求，多线程并发调用
+     */
+    Call nextCall(ThreadLocalRandom random);
+
+    /**
+     * 一次请求及其所属操作名
+     */
+    final class Call {
+        private final String operation;
+        private final HttpRequest request;
+
+        public Call(String operation, HttpRequest request) {
+            this.operation = operation;
+            this.request = request;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public HttpRequest getRequest() {
+            return request;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.coachai.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 压测参数
+ * 优先级：命令行参数 > 场景默认值 > 全局默认值
+ */
+public class LoadTestOptions {
+
+    private static final Map<String, String> GLOBAL_DEFAULTS = new HashMap<>();
+
+    static {
+        GLOBAL_DEFAULTS.put("base-url", "http://localhost:8080/api");
+        GLOBAL_DEFAULTS.put("duration", "60s");
+        GLOBAL_DEFAULTS.put("warmup", "10s");
+        GLOBAL_DEFAULTS.put("concurrency", "16");
+        GLOBAL_DEFAULTS.put("rate", "0");
+        GLOBAL_DEFAULTS.put("burst-rate", "0");
+        GLOBAL_DEFAULTS.put("burst-start", "0s");
+        GLOBAL_DEFAULTS.put("burst-duration", "0s");
+        GLOBAL_DEFAULTS.put("max-in-flight", "2000");
+        GLOBAL_DEFAULTS.put("timeout", "360s");
+        GLOBAL_DEFAULTS.put("out", "target/loadtest");
+    }
+
+    private final Map<String, String> args;
+    private final Map<String, String> scenarioDefaults;
+
+    public LoadTestOptions(Map<String, String> args, Map<String, String> scenarioDefaults) {
+        this.args = args;
+        this.scenarioDefaults = scenarioDefaults;
+    }
+
+    /**
+     * 解析 --key value 或 --key=value 形式的命令行参数
+     */
+    public static Map<String, String> parseArgs(String[] argv) {
+        Map<String, String> parsed = new HashMap<>();
+        for (int i = 0; i < argv.length; i++) {
+            String arg = argv[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            String key = arg.substring(2);
+            String value;
+            int eq = key.indexOf('=');
+            if (eq >= 0) {
+                value = key.substring(eq + 1);
+                key = key.substring(0, eq);
+            } else if (i + 1 < argv.length && !argv[i + 1].startsWith("--")) {
+                value = argv[++i];
+            } else {
+                value = "true";
+            }
+            parsed.put(key, value);
+        }
+        return parsed;
+    }
+
+    public String get(String key) {
+        String value = args.get(key);
+        if (value == null) {
+            value = scenarioDefaults.get(key);
+        }
+        if (value == null) {
+            value = GLOBAL_DEFAULTS.get(key);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("缺少参数: --" + key);
+        }
+        return value;
+    }
+
+    public int getInt(String key) {
+        return Integer.parseInt(get(key));
+    }
+
+    public double getDouble(String key) {
+        return Double.parseDouble(get(key));
+    }
+
+    /**
+     * 解析时长参数，支持 ms/s/m 后缀，无后缀按秒处理
+     *
+     * @return 纳秒
+     */
+    public long getDurationNanos(String key) {
+        String value = get(key).trim().toLowerCase();
+        if (value.endsWith("ms")) {
+            return Long.parseLong(value.substring(0, value.length() - 2)) * 1_000_000L;
+        }
+        if (value.endsWith("s")) {
+            return Long.parseLong(value.substring(0, value.length() - 1)) * 1_000_000_000L;
+        }
+        if (value.endsWith("m")) {
+            return Long.parseLong(value.substring(0, value.length() - 1)) * 60_000_000_000L;
+        }
+        return Long.parseLong(value) * 1_000_000_000L;
+    }
+
+    public String getBaseUrl() {
+        String baseUrl = get("base-url");
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * 是否为开环模式（按固定到达速率发请求，延迟从计划发送时间算起，不受协调遗漏影响）
+     */
+    public boolean isOpenLoop() {
+        return getDouble("rate") > 0;
+    }
+
+    /**
+     * 返回开始测量后第 elapsedNanos 纳秒时的目标到达速率（请求/秒）
+     */
+    public double rateAt(long elapsedNanos) {
+        double burstRate = getDouble("burst-rate");
+        if (burstRate > 0) {
+            long burstStart = getDurationNanos("burst-start");
+            long burstEnd = burstStart + getDurationNanos("burst-duration");
+            if (elapsedNanos >= burstStart && elapsedNanos < burstEnd) {
+                return burstRate;
+            }
+        }
+        return getDouble("rate");
+    }
+
+    /**
+     * 实际生效的参数，写入结果文件
+     */
+    public Map<String, String> effective() {
+        Map<String, String> effective = new HashMap<>(GLOBAL_DEFAULTS);
+        effective.putAll(scenarioDefaults);
+        effective.putAll(args);
+        return effective;
+    }
+}
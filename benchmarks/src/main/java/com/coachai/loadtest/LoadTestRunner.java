@@ -0,0 +1,116 @@
+package com.coachai.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端压测入口
+ *
+ * 用法：java -cp target/benchmarks.jar com.coachai.loadtest.LoadTestRunner --scenario analyze-burst [--key value ...]
+ * 被测服务以 loadtest Profile 启动（见 README），结果打印到控制台并写入 JSON 文件。
+ */
+public class LoadTestRunner {
+
+    private static final List<LoadScenario> SCENARIOS = Arrays.asList(
+            new AnalyzeBurstScenario(),
+            new UploadStormScenario(),
+            new ProxyReadHeavyScenario());
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = LoadTestOptions.parseArgs(argv);
+        LoadScenario scenario = SCENARIOS.stream()
+                .filter(s -> s.name().equals(args.get("scenario")))
+                .findFirst()
+                .orElse(null);
+        if (scenario == null || args.containsKey("help")) {
+            printUsage();
+            System.exit(scenario == null && !args.containsKey("help") ? 1 : 0);
+            return;
+        }
+
+        LoadTestOptions options = new LoadTestOptions(args, scenario.defaults());
+        LatencyStats stats = new LatencyStats();
+        String startedAt = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+        try (ServiceClient client = new ServiceClient(options.getBaseUrl(),
+                Duration.ofNanos(options.getDurationNanos("timeout")))) {
+            System.out.printf("场景: %s - %s%n", scenario.name(), scenario.description());
+            System.out.printf("参数: %s%n", new TreeMap<>(options.effective()));
+            System.out.println("准备中...");
+            scenario.prepare(client, options);
+
+            System.out.printf("开始压测: %s，预热 %ds，测量 %ds%n",
+                    options.isOpenLoop() ? "开环" : "闭环 并发" + options.getInt("concurrency"),
+                    TimeUnit.NANOSECONDS.toSeconds(options.getDurationNanos("warmup")),
+                    TimeUnit.NANOSECONDS.toSeconds(options.getDurationNanos("duration")));
+            new LoadGenerator(client, scenario, options, stats).run();
+        }
+
+        double measuredSeconds = options.getDurationNanos("duration") / 1e9;
+        List<Map<String, Object>> rows = stats.report(measuredSeconds);
+        printTable(rows);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", scenario.name());
+        result.put("startedAt", startedAt);
+        result.put("mode", options.isOpenLoop() ? "open-loop" : "closed-loop");
+        result.put("measuredSeconds", measuredSeconds);
+        result.put("options", new TreeMap<>(options.effective()));
+        result.put("operations", rows);
+
+        Path outDir = Paths.get(options.get("out"));
+        Files.createDirectories(outDir);
+        Path outFile = outDir.resolve(scenario.name() + "-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(outFile.toFile(), result);
+        System.out.println("结果已写入: " + outFile.toAbsolutePath());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printTable(List<Map<String, Object>> rows) {
+        System.out.printf("%n%-22s %9s %8s %8s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "dropped", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> latency = (Map<String, Object>) row.get("latencyMs");
+            System.out.printf("%-22s %9d %8d %8d %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    row.get("operation"), row.get("requests"), row.get("errors"), row.get("dropped"),
+                    row.get("throughputPerSecond"), latency.get("p50"), latency.get("p90"),
+                    latency.get("p99"), latency.get("p999"), latency.get("max"));
+        }
+        System.out.println();
+    }
+
+    private static void printUsage() {
+        System.out.println("用法: java -cp target/benchmarks.jar com.coachai.loadtest.LoadTestRunner --scenario <name> [options]");
+        System.out.println();
+        System.out.println("场景:");
+        for (LoadScenario scenario : SCENARIOS) {
+            System.out.printf("  %-18s %s%n", scenario.name(), scenario.description());
+            System.out.printf("  %-18s 默认参数: %s%n", "", new TreeMap<>(scenario.defaults()));
+        }
+        System.out.println();
+        System.out.println("通用参数:");
+        System.out.println("  --base-url        被测服务地址，默认 http://localhost:8080/api");
+        System.out.println("  --duration        测量时长，支持 ms/s/m 后缀，默认 60s");
+        System.out.println("  --warmup          预热时长，不计入统计，默认 10s");
+        System.out.println("  --concurrency     闭环模式并发数");
+        System.out.println("  --rate            开环模式到达速率（请求/秒），大于0时启用开环模式");
+        System.out.println("  --burst-rate      开环模式突发速率，配合 --burst-start / --burst-duration（相对测量开始）");
+        System.out.println("  --max-in-flight   开环模式最大在途请求数，超出的请求记为 dropped，默认 2000");
+        System.out.println("  --timeout         单个请求超时，默认 360s");
+        System.out.println("  --out             结果JSON输出目录，默认 target/loadtest");
+    }
+}
@@ -0,0 +1,87 @@
+package com.coachai.loadtest;
+
+import com.coachai.benchmarks.SyntheticImages;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 代理读为主场景
+ * 预置一批图片后，闭环并发通过 /files/proxy 读取（热点对象占大部分读取），夹带少量上传。
+ */
+public class ProxyReadHeavyScenario implements LoadScenario {
+
+    private final List<HttpRequest> hotReads = new ArrayList<>();
+    private final List<HttpRequest> coldReads = new ArrayList<>();
+    private HttpRequest uploadRequest;
+    private double hotRatio;
+    private double writeRatio;
+
+    @Override
+    public String name() {
+        return "proxy-read-heavy";
+    }
+
+    @Override
+    public String description() {
+        return "通过 /files/proxy 读取预置图片，热点倾斜，夹带少量上传（闭环）";
+    }
+
+    @Override
+    public Map<String, String> defaults() {
+        Map<String, String> defaults = new HashMap<>();
+        defaults.put("concurrency", "64");
+        defaults.put("seed-objects", "100");
+        // 热点对象占比及其读取占比：20%的对象承担80%的读取
+        defaults.put("hot-objects", "0.2");
+        defaults.put("hot-ratio", "0.8");
+        defaults.put("write-ratio", "0.05");
+        return defaults;
+    }
+
+    @Override
+    public void prepare(ServiceClient client, LoadTestOptions options) throws Exception {
+        hotRatio = options.getDouble("hot-ratio");
+        writeRatio = options.getDouble("write-ratio");
+
+        // 小图（不压缩）与中图（压缩后约数百KB）交替预置
+        byte[] small = SyntheticImages.jpeg(640, 480, 0.85f);
+        byte[] medium = SyntheticImages.jpeg(1920, 1080, 0.95f);
+        uploadRequest = client.uploadImage(small, "proxy-write.jpg");
+
+        int seedObjects = options.getInt("seed-objects");
+        int hotObjects = Math.max(1, (int) Math.round(seedObjects * options.getDouble("hot-objects")));
+        for (int i = 0; i < seedObjects; i++) {
+            String fileUrl = client.uploadImageForUrl(i % 2 == 0 ? small : medium, "seed-" + i + ".jpg");
+            HttpRequest read = client.get("/files/proxy/" + objectName(fileUrl));
+            (i < hotObjects ? hotReads : coldReads).add(read);
+        }
+        if (coldReads.isEmpty()) {
+            coldReads.addAll(hotReads);
+        }
+    }
+
+    @Override
+    public Call nextCall(ThreadLocalRandom random) {
+        if (random.nextDouble() < writeRatio) {
+            return new Call("upload-image", uploadRequest);
+        }
+        List<HttpRequest> reads = random.nextDouble() < hotRatio ? hotReads : coldReads;
+        return new Call("proxy-read", reads.get(random.nextInt(reads.size())));
+    }
+
+    /**
+     * 从文件URL中提取对象名（images/ 开头的部分）
+     */
+    private static String objectName(String fileUrl) {
+        int index = fileUrl.indexOf("/images/");
+        if (index < 0) {
+            throw new IllegalStateException("无法从文件URL提取对象名: " + fileUrl);
+        }
+        return fileUrl.substring(index + 1);
+    }
+}
@@ -0,0 +1,160 @@
+package com.coachai.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 被测服务的HTTP客户端
+ * 构造的请求对象不可变，场景在准备阶段生成后可被多个线程重复发送
+ */
+public class ServiceClient implements AutoCloseable {
+
+    private static final String SUCCESS_MARKER = "\"result\":\"SUCCESS\"";
+    private static final Pattern FILE_URL = Pattern.compile("\"fileUrl\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final Duration timeout;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+
+    public ServiceClient(String baseUrl, Duration timeout) {
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "loadtest-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+    }
+
+    public HttpRequest postJson(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    public HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .GET()
+                .build();
+    }
+
+    /**
+     * 构造 /files/upload/image 的 multipart 上传请求
+     */
+    public HttpRequest uploadImage(byte[] image, String fileName) throws IOException {
+        String boundary = "----loadtest" + UUID.randomUUID().toString().replace("-", "");
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 256);
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(image);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/files/upload/image"))
+                .timeout(timeout)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    public Outcome send(HttpRequest request) {
+        try {
+            return toOutcome(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()), null);
+        } catch (IOException e) {
+            return toOutcome(null, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return toOutcome(null, e);
+        }
+    }
+
+    public CompletableFuture<Outcome> sendAsync(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle(ServiceClient::toOutcome);
+    }
+
+    /**
+     * 上传图片并返回服务端生成的文件URL，用于场景准备阶段预置对象
+     */
+    public String uploadImageForUrl(byte[] image, String fileName) throws IOException {
+        Outcome outcome = send(uploadImage(image, fileName));
+        Matcher matcher = FILE_URL.matcher(outcome.getBody());
+        if (!outcome.isSuccess() || !matcher.find()) {
+            throw new IOException("预置图片上传失败: status=" + outcome.getStatus() + ", body=" + outcome.getBody());
+        }
+        return matcher.group(1);
+    }
+
+    private static Outcome toOutcome(HttpResponse<byte[]> response, Throwable error) {
+        if (error != null) {
+            return new Outcome(false, -1, error.getClass().getSimpleName() + ": " + error.getMessage(), 0);
+        }
+        int status = response.statusCode();
+        byte[] body = response.body();
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        // 业务接口统一返回HTTP 200，失败通过 ApiResponse.result 区分
+        boolean isJson = contentType.startsWith("application/json");
+        String text = isJson ? new String(body, StandardCharsets.UTF_8) : "";
+        boolean success = status >= 200 && status < 300 && (!isJson || text.contains(SUCCESS_MARKER));
+        return new Outcome(success, status, text, body.length);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 一次请求的结果
+     */
+    public static final class Outcome {
+        private final boolean success;
+        private final int status;
+        private final String body;
+        private final long bytes;
+
+        Outcome(boolean success, int status, String body, long bytes) {
+            this.success = success;
+            this.status = status;
+            this.body = body;
+            this.bytes = bytes;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.coachai.loadtest;
+
+import com.coachai.benchmarks.SyntheticImages;
+
+import java.net.http.HttpRequest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 上传风暴场景
+ * 闭环并发上传不同大小的图片，覆盖智能压缩的不同档位和对象存储写入。
+ */
+public class UploadStormScenario implements LoadScenario {
+
+    /**
+     * 图片规格：操作名、宽、高、JPEG质量，约为 128KB（不压缩）/ 1.5MB / 2.5MB
+     */
+    private static final Object[][] IMAGE_SIZES = {
+            {"upload-image-small", 640, 480, 0.85f},
+            {"upload-image-medium", 1920, 1080, 0.95f},
+            {"upload-image-large", 2560, 1920, 0.9f}
+    };
+
+    private final HttpRequest[] requests = new HttpRequest[IMAGE_SIZES.length];
+    private final double[] cumulativeWeights = new double[IMAGE_SIZES.length];
+
+    @Override
+    public String name() {
+        return "upload-storm";
+    }
+
+    @Override
+    public String description() {
+        return "并发上传小/中/大图片（闭环）";
+    }
+
+    @Override
+    public Map<String, String> defaults() {
+        Map<String, String> defaults = new HashMap<>();
+        defaults.put("concurrency", "32");
+        // 小/中/大图片的比例
+        defaults.put("image-mix", "60,30,10");
+        return defaults;
+    }
+
+    @Override
+    public void prepare(ServiceClient client, LoadTestOptions options) throws Exception {
+        String[] mix = options.get("image-mix").split(",");
+        if (mix.length != IMAGE_SIZES.length) {
+            throw new IllegalArgumentException("--image-mix 需要 " + IMAGE_SIZES.length + " 个权重");
+        }
+        double sum = 0;
+        for (int i = 0; i < IMAGE_SIZES.length; i++) {
+            Object[] size = IMAGE_SIZES[i];
+            byte[] image = SyntheticImages.jpeg((Integer) size[1], (Integer) size[2], (Float) size[3]);
+            requests[i] = client.uploadImage(image, size[0] + ".jpg");
+            sum += Double.parseDouble(mix[i].trim());
+            cumulativeWeights[i] = sum;
+        }
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            cumulativeWeights[i] /= sum;
+        }
+    }
+
+    @Override
+    public Call nextCall(ThreadLocalRandom random) {
+        double r = random.nextDouble();
+        int index = 0;
+        while (index < cumulativeWeights.length - 1 && r >= cumulativeWeights[index]) {
+            index++;
+        }
+        return new Call((String) IMAGE_SIZES[index][0], requests[index]);
+    }
+}
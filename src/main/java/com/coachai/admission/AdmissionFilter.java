@@ -0,0 +1,120 @@
+package com.coachai.admission;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.config.GlobalAdmissionConfig;
+import com.coachai.deadline.Deadline;
+import com.coachai.json.JsonCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 全局准入过滤器
+ * 按路径确定请求类别并获取该类别的处理名额，未获得时返回503和 Retry-After；
+ * 排队时间不超过请求剩余的截止时间。非阻塞接口在异步请求结束时归还名额
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+@RequiredArgsConstructor
+@Slf4j
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final GlobalAdmissionConfig globalAdmissionConfig;
+    private final GlobalAdmission globalAdmission;
+    private final JsonCodec jsonCodec;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !globalAdmissionConfig.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        GlobalAdmission.Pool pool = globalAdmission.classify(path);
+
+        GlobalAdmission.Ticket ticket;
+        try {
+            ticket = pool.acquire(maxWaitNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("等待处理名额被中断", e);
+        }
+        if (ticket == null) {
+            log.debug("请求未被准入: class={}, path={}", pool.getName(), path);
+            writeRejected(response);
+            return;
+        }
+
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(ticket));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                ticket.release();
+            }
+        }
+    }
+
+    private long maxWaitNanos() {
+        Deadline deadline = Deadline.current();
+        return deadline != null ? deadline.remaining().toNanos() : Long.MAX_VALUE;
+    }
+
+    private void writeRejected(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(globalAdmissionConfig.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        jsonCodec.writeValue(response.getOutputStream(), ApiResponse.error("服务繁忙，请稍后重试"));
+    }
+
+    /**
+     * 异步请求结束（含超时、出错）时归还名额
+     */
+    private static final class ReleasingListener implements AsyncListener {
+        private final GlobalAdmission.Ticket ticket;
+
+        private ReleasingListener(GlobalAdmission.Ticket ticket) {
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            ticket.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            ticket.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            ticket.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.coachai.admission;
+
+import com.coachai.config.GlobalAdmissionConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按请求类别的全局准入
+ * 每个类别一个并发池：有空闲名额且无人排队时直接进入，否则按到达顺序排队，队列已满立即拒绝。
+ * 排队时间按 CoDel 方式控制：一个周期内出队请求的最短排队时间超过目标值即判定为过载，
+ * 过载期间新请求最多等待目标时间，出队时排队已超过目标时间的请求直接丢弃；未过载时最多等待一个周期
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GlobalAdmission {
+
+    private static final String REQUESTS_COUNTER = "coachai.admission.class.requests";
+
+    private final GlobalAdmissionConfig globalAdmissionConfig;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final List<Pool> pools = new ArrayList<>();
+    private Pool defaultPool;
+
+    @PostConstruct
+    public void init() {
+        for (Map.Entry<String, GlobalAdmissionConfig.ClassConfig> entry : globalAdmissionConfig.getClasses().entrySet()) {
+            Pool pool = new Pool(entry.getKey(), entry.getValue());
+            pools.add(pool);
+            if (entry.getKey().equals(globalAdmissionConfig.getDefaultClass())) {
+                defaultPool = pool;
+            }
+        }
+        if (defaultPool == null) {
+            defaultPool = new Pool(globalAdmissionConfig.getDefaultClass(), new GlobalAdmissionConfig.ClassConfig());
+            pools.add(defaultPool);
+        }
+        pools.forEach(this::registerGauges);
+    }
+
+    /**
+     * 按路径确定请求类别，未匹配时为默认类别
+     *
+     * @param path 请求路径（不含context-path）
+     */
+    public Pool classify(String path) {
+        for (Pool pool : pools) {
+            for (String pattern : pool.config.getEndpoints()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return pool;
+                }
+            }
+        }
+        return defaultPool;
+    }
+
+    private void registerGauges(Pool pool) {
+        Gauge.builder("coachai.admission.class.in.flight", pool.inFlight, AtomicInteger::get)
+                .tag("class", pool.name)
+                .description("各类别正在处理的请求数")
+                .register(meterRegistry);
+        Gauge.builder("coachai.admission.class.queued", pool, p -> p.queued)
+                .tag("class", pool.name)
+                .description("各类别排队等待的请求数")
+                .register(meterRegistry);
+        Gauge.builder("coachai.admission.class.overloaded", pool, p -> p.overloaded ? 1 : 0)
+                .tag("class", pool.name)
+                .description("各类别是否处于过载状态（最短排队时间超过目标值）")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 一个请求类别的并发池
+     */
+    public final class Pool {
+        private final String name;
+        private final GlobalAdmissionConfig.ClassConfig config;
+        private final long targetNanos;
+        private final long intervalNanos;
+        private final Timer queueWaitTimer;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        /**
+         * 以下字段只在持有 lock 时修改
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private long intervalEnd;
+        private long intervalMinDelay = Long.MAX_VALUE;
+        private volatile boolean overloaded;
+        private volatile int queued;
+
+        private Pool(String name, GlobalAdmissionConfig.ClassConfig config) {
+            this.name = name;
+            this.config = config;
+            this.targetNanos = TimeUnit.MILLISECONDS.toNanos(config.getTargetDelayMs());
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getIntervalMs());
+            this.queueWaitTimer = Timer.builder("coachai.admission.class.queue.wait")
+                    .tag("class", name)
+                    .description("各类别排队等待的时间")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 获取处理名额，排队时阻塞当前线程
+         *
+         * @param maxWaitNanos 最长等待时间，通常为请求剩余的截止时间
+         * @return 名额，未获得（队列已满、排队超时或被丢弃）时返回 null
+         */
+        public Ticket acquire(long maxWaitNanos) throws InterruptedException {
+            if (config.getMaxConcurrent() <= 0) {
+                inFlight.incrementAndGet();
+                count("admitted");
+                return new Ticket(this);
+            }
+
+            Waiter waiter;
+            long waitNanos;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                if (queue.isEmpty() && inFlight.get() < config.getMaxConcurrent()) {
+                    inFlight.incrementAndGet();
+                    observeDelay(0, now);
+                    count("admitted");
+                    return new Ticket(this);
+                }
+                if (queue.size() >= config.getMaxQueue()) {
+                    count("rejected");
+                    return null;
+                }
+                waiter = new Waiter(now);
+                queue.addLast(waiter);
+                queued = queue.size();
+                waitNanos = Math.min(overloaded ? targetNanos : intervalNanos, maxWaitNanos);
+            } finally {
+                lock.unlock();
+            }
+
+            count("queued");
+            boolean granted;
+            try {
+                granted = waiter.result.get(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                granted = !waiter.result.complete(false) && waiter.result.join();
+            } catch (ExecutionException e) {
+                granted = false;
+            } catch (InterruptedException e) {
+                if (!waiter.result.complete(false) && waiter.result.join()) {
+                    release();
+                }
+                removeWaiter(waiter);
+                throw e;
+            }
+            if (!granted) {
+                removeWaiter(waiter);
+                count("shed");
+                return null;
+            }
+            queueWaitTimer.record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            count("admitted");
+            return new Ticket(this);
+        }
+
+        /**
+         * 归还名额：交给排队最久且未超时的请求，过载期间排队超过目标时间的请求直接丢弃
+         */
+        private void release() {
+            if (config.getMaxConcurrent() <= 0) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            lock.lock();
+            try {
+                inFlight.decrementAndGet();
+                Waiter next;
+                while ((next = queue.pollFirst()) != null) {
+                    long now = System.nanoTime();
+                    long delay = now - next.enqueuedAt;
+                    observeDelay(delay, now);
+                    if (overloaded && delay > targetNanos) {
+                        next.result.complete(false);
+                        continue;
+                    }
+                    if (next.result.complete(true)) {
+                        inFlight.incrementAndGet();
+                        break;
+                    }
+                }
+                queued = queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void removeWaiter(Waiter waiter) {
+            lock.lock();
+            try {
+                queue.remove(waiter);
+                queued = queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 记录出队请求的排队时间，每个周期结束时按该周期最短排队时间更新过载状态
+         */
+        private void observeDelay(long delay, long now) {
+            if (now - intervalEnd >= 0) {
+                boolean wasOverloaded = overloaded;
+                overloaded = intervalMinDelay != Long.MAX_VALUE && intervalMinDelay > targetNanos;
+                if (overloaded != wasOverloaded) {
+                    log.info("请求类别 {} {}过载状态: 周期内最短排队时间={}ms", name, overloaded ? "进入" : "退出",
+                            intervalMinDelay == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMillis(intervalMinDelay));
+                }
+                intervalMinDelay = delay;
+                intervalEnd = now + intervalNanos;
+            } else {
+                intervalMinDelay = Math.min(intervalMinDelay, delay);
+            }
+        }
+
+        private void count(String outcome) {
+            meterRegistry.counter(REQUESTS_COUNTER, "class", name, "outcome", outcome).increment();
+        }
+    }
+
+    /**
+     * 获得的处理名额，release 可重复调用
+     */
+    public static final class Ticket {
+        private final Pool pool;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Ticket(Pool pool) {
+            this.pool = pool;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                pool.release();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final long enqueuedAt;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Waiter(long enqueuedAt) {
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.coachai.admission;
+
+import com.coachai.config.UserAdmissionConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 分析请求按用户准入
+ * 每个用户先检查进行中请求上限和令牌桶（GCRA）限速，超出时立即拒绝；通过后占用一个全局并发名额，
+ * 名额已满时按加权公平排队（虚拟完成时间最小的先出队），同一用户连续的请求完成时间依次后移，
+ * 不会排在其他用户前面；排队请求超时或取消时撤销其占用的完成时间，不影响该用户之后的请求。
+ * 用户状态只用原子变量更新，空闲超过 admission.user.idle-evict-ms 后清除
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserAdmission {
+
+    private static final String REQUESTS_COUNTER = "coachai.admission.user.requests";
+    private static final long TAG_SCALE = 1_000_000L;
+    private static final int RETIRED = -1;
+    private static final long SWEEP_INTERVAL_MS = 60_000L;
+
+    private static final Permit NOOP_PERMIT = new Permit(null, null);
+
+    private final UserAdmissionConfig userAdmissionConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, UserState> users = new ConcurrentHashMap<>();
+
+    /**
+     * 可用的全局并发名额，排队为空时直接以CAS获取
+     */
+    private final AtomicInteger availableSlots = new AtomicInteger();
+
+    /**
+     * 排队的请求和虚拟时间，只在持有 queueLock 时访问
+     */
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.comparingLong((Waiter w) -> w.tag).thenComparingLong(w -> w.sequence));
+    private long virtualTime;
+    private long sequence;
+    private volatile int queued;
+
+    private ScheduledExecutorService scheduler;
+    private Timer queueWaitTimer;
+
+    @PostConstruct
+    public void init() {
+        availableSlots.set(userAdmissionConfig.getMaxConcurrent());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-admission");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::evictIdle, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        queueWaitTimer = Timer.builder("coachai.admission.user.queue.wait")
+                .description("全局并发已满时排队等待的时间")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("coachai.admission.user.users", users, Map::size)
+                .description("当前保留状态的用户数")
+                .register(meterRegistry);
+        Gauge.builder("coachai.admission.user.queued", this, a -> a.queued)
+                .description("排队等待全局并发名额的请求数")
+                .register(meterRegistry);
+        Gauge.builder("coachai.admission.user.available", availableSlots, AtomicInteger::get)
+                .description("可用的全局并发名额")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 阻塞获取准入许可，排队时等待到名额释放或超时
+     *
+     * @param username 用户名
+     * @return 许可，请求结束时必须调用 {@link Permit#release()}
+     * @throws AdmissionRejectedException 超出限速、进行中请求上限或排队超时
+     */
+    public Permit acquire(String username) {
+        CompletableFuture<Permit> future = acquireAsync(username);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!future.cancel(false)) {
+                future.join().release();
+            }
+            throw new AdmissionRejectedException("interrupted", userAdmissionConfig.getRetryAfterSeconds(), "请求已取消");
+        }
+    }
+
+    /**
+     * 在准入许可内执行非阻塞请求，请求完成、出错或取消时释放许可；排队不占用线程
+     *
+     * @param username 用户名
+     * @param body     获得许可后执行的请求
+     */
+    public <T> Mono<T> admit(String username, Supplier<Mono<T>> body) {
+        return Mono.usingWhen(acquireMono(username), permit -> body.get(),
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    /**
+     * 在准入许可内执行流式请求，流结束、出错或取消时释放许可
+     *
+     * @param username 用户名
+     * @param body     获得许可后执行的请求
+     */
+    public <T> Flux<T> admitMany(String username, Supplier<Flux<T>> body) {
+        return Flux.usingWhen(acquireMono(username), permit -> body.get(),
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    /**
+     * 订阅时申请许可；订阅在获得许可前取消时，排队的请求随之撤销，已获得的许可立即释放
+     */
+    private Mono<Permit> acquireMono(String username) {
+        return Mono.create(sink -> {
+            CompletableFuture<Permit> future = acquireAsync(username);
+            sink.onCancel(() -> {
+                if (!future.cancel(false) && !future.isCompletedExceptionally()) {
+                    future.join().release();
+                }
+            });
+            future.whenComplete((permit, error) -> {
+                if (error != null) {
+                    sink.error(error);
+                } else {
+                    sink.success(permit);
+                }
+            });
+        });
+    }
+
+    /**
+     * 申请准入许可：限速和进行中请求上限立即判断，全局名额已满时进入公平排队
+     */
+    private CompletableFuture<Permit> acquireAsync(String username) {
+        if (!userAdmissionConfig.isEnabled() || !StringUtils.hasText(username)) {
+            return CompletableFuture.completedFuture(NOOP_PERMIT);
+        }
+        UserState user = reserve(username);
+        if (queued == 0 && tryTakeSlot()) {
+            count("admitted");
+            return CompletableFuture.completedFuture(new Permit(this, user));
+        }
+        return enqueue(user);
+    }
+
+    /**
+     * 占用用户的进行中名额并消耗一个令牌，任一不满足时立即拒绝
+     */
+    private UserState reserve(String username) {
+        long now = System.nanoTime();
+        UserState user;
+        while (true) {
+            user = users.computeIfAbsent(username, this::newState);
+            int active = user.active.get();
+            if (active == RETIRED) {
+                // 状态刚被清除，移除后重新创建
+                users.remove(username, user);
+                continue;
+            }
+            if (active >= userAdmissionConfig.getMaxInFlight()) {
+                count("concurrency_limited");
+                throw new AdmissionRejectedException("concurrency_limited", userAdmissionConfig.getRetryAfterSeconds(),
+                        "进行中的分析请求过多，请稍后重试");
+            }
+            if (user.active.compareAndSet(active, active + 1)) {
+                break;
+            }
+        }
+        user.lastAccess = now;
+
+        long waitNanos = user.tryConsume(now);
+        if (waitNanos > 0) {
+            user.active.decrementAndGet();
+            count("rate_limited");
+            long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new AdmissionRejectedException("rate_limited", retryAfter, "请求过于频繁，请稍后重试");
+        }
+        return user;
+    }
+
+    private UserState newState(String username) {
+        double weight = userAdmissionConfig.getWeights().getOrDefault(username, 1.0);
+        long emissionNanos = (long) (TimeUnit.SECONDS.toNanos(1) / userAdmissionConfig.getRatePerSecond());
+        long toleranceNanos = emissionNanos * Math.max(0, userAdmissionConfig.getBurst() - 1);
+        return new UserState(emissionNanos, toleranceNanos, Math.max(1L, (long) (TAG_SCALE / weight)));
+    }
+
+    private boolean tryTakeSlot() {
+        while (true) {
+            int available = availableSlots.get();
+            if (available <= 0) {
+                return false;
+            }
+            if (availableSlots.compareAndSet(available, available - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private CompletableFuture<Permit> enqueue(UserState user) {
+        Waiter waiter;
+        queueLock.lock();
+        try {
+            if (tryTakeSlot()) {
+                count("admitted");
+                return CompletableFuture.completedFuture(new Permit(this, user));
+            }
+            // 加权公平排队：完成时间 = max(虚拟时间, 该用户上一个请求的完成时间) + 1/权重
+            long tag = Math.max(virtualTime, user.lastTag) + user.tagIncrement;
+            Waiter created = new Waiter(user, tag, sequence++, virtualTime, user.lastTag);
+            user.lastTag = tag;
+            created.timeout = scheduler.schedule(() -> created.future.completeExceptionally(
+                    new AdmissionRejectedException("queue_timeout", userAdmissionConfig.getRetryAfterSeconds(),
+                            "分析服务繁忙，请稍后重试")),
+                    userAdmissionConfig.getQueueTimeoutMs(), TimeUnit.MILLISECONDS);
+            queue.add(created);
+            queued = queue.size();
+            waiter = created;
+        } finally {
+            queueLock.unlock();
+        }
+
+        count("queued");
+        waiter.future.whenComplete((permit, error) -> {
+            if (error == null) {
+                return;
+            }
+            // 超时或取消：撤销排队和完成时间，归还用户的进行中名额
+            queueLock.lock();
+            try {
+                queue.remove(waiter);
+                rollbackTag(waiter);
+                queued = queue.size();
+            } finally {
+                queueLock.unlock();
+            }
+            waiter.user.active.decrementAndGet();
+            if (!(error instanceof CancellationException)) {
+                count("queue_timeout");
+            }
+        });
+        return waiter.future;
+    }
+
+    /**
+     * 撤销未获得名额就离开的请求的完成时间，调用时需持有 queueLock
+     * 该用户之后排队的请求（最多 max-in-flight 个）按原来的入队虚拟时间重新计算完成时间，不再排在被撤销的请求之后
+     */
+    private void rollbackTag(Waiter removed) {
+        UserState user = removed.user;
+        List<Waiter> later = new ArrayList<>();
+        for (Waiter waiter : queue) {
+            if (waiter.user == user && waiter.sequence > removed.sequence) {
+                later.add(waiter);
+            }
+        }
+        later.sort(Comparator.comparingLong(w -> w.sequence));
+        long previous = removed.previousTag;
+        for (Waiter waiter : later) {
+            queue.remove(waiter);
+            waiter.previousTag = previous;
+            waiter.tag = Math.max(waiter.enqueueVirtualTime, previous) + user.tagIncrement;
+            previous = waiter.tag;
+            queue.add(waiter);
+        }
+        user.lastTag = previous;
+    }
+
+    /**
+     * 释放全局名额：有排队请求时直接交给完成时间最小的请求，否则归还
+     * 在锁外完成排队请求的 future，避免在锁内执行其后续处理
+     */
+    private void releaseSlot() {
+        while (true) {
+            Waiter next;
+            queueLock.lock();
+            try {
+                next = queue.poll();
+                queued = queue.size();
+                if (next == null) {
+                    availableSlots.incrementAndGet();
+                    return;
+                }
+                if (next.future.isDone()) {
+                    // 已超时或取消，不推进虚拟时间
+                    continue;
+                }
+                virtualTime = Math.max(virtualTime, next.tag - next.user.tagIncrement);
+            } finally {
+                queueLock.unlock();
+            }
+            if (next.future.complete(new Permit(this, next.user))) {
+                next.timeout.cancel(false);
+                queueWaitTimer.record(System.nanoTime() - next.enqueuedAt, TimeUnit.NANOSECONDS);
+                count("admitted");
+                return;
+            }
+            // 已超时或取消，交给下一个
+        }
+    }
+
+    /**
+     * 清除空闲且没有进行中请求的用户状态；被清除的状态标记为 RETIRED，并发申请会改用新状态
+     */
+    void evictIdle() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(userAdmissionConfig.getIdleEvictMs());
+        long now = System.nanoTime();
+        users.forEach((username, state) -> {
+            if (now - state.lastAccess > idleNanos && state.active.compareAndSet(0, RETIRED)) {
+                users.remove(username, state);
+            }
+        });
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter(REQUESTS_COUNTER, "outcome", outcome).increment();
+    }
+
+    /**
+     * 准入许可，release 可重复调用
+     */
+    public static final class Permit {
+        private final UserAdmission owner;
+        private final UserState user;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(UserAdmission owner, UserState user) {
+            this.owner = owner;
+            this.user = user;
+        }
+
+        public void release() {
+            if (owner == null || !released.compareAndSet(false, true)) {
+                return;
+            }
+            user.lastAccess = System.nanoTime();
+            user.active.decrementAndGet();
+            owner.releaseSlot();
+        }
+    }
+
+    /**
+     * 单个用户的状态：进行中请求数、令牌桶理论到达时间（GCRA）和公平排队的完成时间
+     */
+    private static final class UserState {
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        private final long emissionNanos;
+        private final long toleranceNanos;
+        private final long tagIncrement;
+        private volatile long lastAccess;
+        /**
+         * 只在持有 queueLock 时访问
+         */
+        private long lastTag;
+
+        private UserState(long emissionNanos, long toleranceNanos, long tagIncrement) {
+            this.emissionNanos = emissionNanos;
+            this.toleranceNanos = toleranceNanos;
+            this.tagIncrement = tagIncrement;
+        }
+
+        /**
+         * 消耗一个令牌，成功返回0，否则返回需要等待的纳秒数
+         */
+        private long tryConsume(long now) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long base = tat == Long.MIN_VALUE || tat < now ? now : tat;
+                long wait = base - toleranceNanos - now;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(tat, base + emissionNanos)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * 排队的请求，tag 和 previousTag 只在持有 queueLock 且不在队列中时修改
+     */
+    private static final class Waiter {
+        private final UserState user;
+        private final long sequence;
+        private final long enqueueVirtualTime;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+        private long tag;
+        /**
+         * 入队前该用户的 lastTag，撤销时恢复
+         */
+        private long previousTag;
+        private ScheduledFuture<?> timeout;
+
+        private Waiter(UserState user, long tag, long sequence, long enqueueVirtualTime, long previousTag) {
+            this.user = user;
+            this.tag = tag;
+            this.sequence = sequence;
+            this.enqueueVirtualTime = enqueueVirtualTime;
+            this.previousTag = previousTag;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.coachai.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 统一分页响应格式
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResult<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+
+    /**
+     * 从Spring Data分页结果转换
+     */
+    public static <S, T> PageResult<T> from(Page<S> page, Function<S, T> mapper) {
+        List<T> content = page.getContent().stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        return new PageResult<>(content, page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -4,6 +4,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * AI工作流配置
  */
@@ -17,6 +21,16 @@ public class AiWorkflowConfig {
      */
     private String baseUrl;
     
+    /**
+     * 多个工作流地址（不同网关/地域），配置后按延迟负载均衡，忽略 baseUrl
+     */
+    private List<String> endpoints = new ArrayList<>();
+
+    /**
+     * 多地址负载均衡配置
+     */
+    private BalancerConfig balancer = new BalancerConfig();
+    
     /**
      * 连接超时时间（毫秒）
      */
@@ -26,6 +40,21 @@ public class AiWorkflowConfig {
      * 读取超时时间（毫秒）
      */
     private Long readTimeout = 300000L;       // 5分钟
+
+    /**
+     * 连接池最大连接数，即同时进行中的工作流调用上限
+     */
+    private Integer maxConnections = 200;
+
+    /**
+     * 请求带截止时间时，为工作流之后的解析和保存预留的时间（毫秒），工作流调用的超时为剩余时间减去该值
+     */
+    private Long deadlineReserve = 3000L;
+
+    /**
+     * 全局重试预算，姿态分析和症状分析共用
+     */
+    private RetryBudgetConfig retryBudget = new RetryBudgetConfig();
     
     /**
      * @deprecated 使用 connectionTimeout 和 readTimeout 替代
@@ -57,6 +86,11 @@ public class AiWorkflowConfig {
          * 访问密钥
          */
         private String ak;
+
+        /**
+         * 重试与对冲策略
+         */
+        private CallPolicy policy = new CallPolicy();
     }
 
     /**
@@ -73,5 +107,119 @@ public class AiWorkflowConfig {
          * 访问密钥
          */
         private String ak;
+
+        /**
+         * 重试与对冲策略
+         */
+        private CallPolicy policy = new CallPolicy();
+    }
+
+    /**
+     * 工作流调用的重试与对冲策略
+     * 只重试请求未被工作流处理的失败：建立连接失败，以及 retryOnStatus 中的状态码；
+     * 读取超时、其他错误响应和本地连接池等待超时不重试，避免在工作流过载时放大请求量
+     */
+    @Data
+    public static class CallPolicy {
+        /**
+         * 最大重试次数，0为不重试
+         */
+        private Integer maxRetries = 2;
+
+        /**
+         * 首次重试的退避上限（毫秒），之后每次翻倍，实际等待时间在 0 到上限之间随机
+         */
+        private Long initialBackoff = 200L;
+
+        /**
+         * 退避上限（毫秒）
+         */
+        private Long maxBackoff = 2000L;
+
+        /**
+         * 可重试的HTTP状态码，默认只有503（网关明确未转发给工作流）；
+         * 502/504 时工作流可能已经处理了请求，只在工作流对重复请求无副作用时按工作流加入
+         */
+        private List<Integer> retryOnStatus = new ArrayList<>(Collections.singletonList(503));
+
+        /**
+         * 是否发送对冲请求：首个请求超过近期延迟的 hedgePercentile 分位仍未返回时，再发送一个相同请求，
+         * 先成功的结果生效，另一个取消。仅非阻塞调用支持；对冲请求同样消耗重试预算
+         */
+        private Boolean hedgeEnabled = false;
+
+        /**
+         * 对冲延迟取近期成功调用延迟的分位数
+         */
+        private Double hedgePercentile = 0.95;
+
+        /**
+         * 对冲延迟下限（毫秒）
+         */
+        private Long hedgeMinDelay = 1000L;
+
+        /**
+         * 近期成功调用样本数少于该值时不发送对冲请求
+         */
+        private Integer hedgeMinSamples = 50;
+    }
+
+    /**
+     * 重试预算：最近 windowSeconds 秒内的重试和对冲请求数不超过原始请求数的 ratio 倍，
+     * 另外每秒保底允许 minRetriesPerSecond 次，低流量时也能重试
+     */
+    @Data
+    public static class RetryBudgetConfig {
+        private Double ratio = 0.1;
+
+        private Integer minRetriesPerSecond = 1;
+
+        private Integer windowSeconds = 10;
+    }
+
+    /**
+     * 多地址负载均衡：按延迟EWMA和进行中调用数二选一，连续失败的地址摘除后慢启动恢复
+     */
+    @Data
+    public static class BalancerConfig {
+        /**
+         * 延迟EWMA的衰减时间常数（毫秒），越大越平滑
+         */
+        private Long ewmaDecay = 30000L;
+
+        /**
+         * 没有样本时的延迟估计（毫秒），新地址和恢复的地址从该值开始
+         */
+        private Long initialLatency = 10000L;
+
+        /**
+         * 连续失败多少次后摘除地址
+         */
+        private Integer consecutiveFailures = 5;
+
+        /**
+         * 首次摘除时长（毫秒），之后每次摘除增加一倍基础时长
+         */
+        private Long baseEjectionTime = 30000L;
+
+        /**
+         * 摘除时长上限（毫秒）
+         */
+        private Long maxEjectionTime = 300000L;
+
+        /**
+         * 被摘除地址数占比上限，至少保留一个可用地址
+         */
+        private Integer maxEjectionPercent = 50;
+
+        /**
+         * 恢复后的慢启动时长（毫秒）
+         */
+        private Long slowStart = 30000L;
+
+        /**
+         * 慢启动开始时的权重
+         */
+        private Double slowStartMinWeight = 0.1;
     }
 }
@@ -0,0 +1,54 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分析记录预聚合配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "analytics.rollup")
+@Data
+public class AnalyticsRollupConfig {
+
+    /**
+     * 时间桶对齐使用的时区
+     */
+    private String zone = "Asia/Shanghai";
+
+    /**
+     * 每个聚合行最多跟踪的高频问题数
+     */
+    private Integer maxTrackedProblems = 50;
+
+    /**
+     * 查询未指定起始时间时默认回溯的天数
+     */
+    private Integer defaultRangeDays = 90;
+
+    /**
+     * 回填任务每批读取的记录数
+     */
+    private Integer backfillBatchSize = 500;
+
+    /**
+     * 等待执行的增量更新上限，超出时跳过，由定期对账修复
+     */
+    private Integer incrementalQueueSize = 10000;
+
+    /**
+     * 定期对账的间隔（分钟），为0时不对账
+     */
+    private Integer reconcileIntervalMinutes = 60;
+
+    /**
+     * 每次对账重算的最近周数（含本周），增量更新被跳过或失败的周另外重算
+     */
+    private Integer reconcileWeeks = 2;
+
+    /**
+     * 回填接口的管理令牌，为空时拒绝所有回填请求
+     */
+    private String adminToken;
+}
@@ -0,0 +1,43 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 二级缓存跨实例失效配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cache.invalidation")
+@Data
+public class CacheInvalidationConfig {
+
+    /**
+     * 是否向其他实例广播缓存失效
+     */
+    private boolean enabled = false;
+
+    /**
+     * 其他实例的基础地址，如 http://coach-ai-core-service-headless:8080/api
+     * 主机名解析出多个地址时（如Kubernetes Headless Service）逐个通知
+     */
+    private List<String> peers = new ArrayList<>();
+
+    /**
+     * 实例间通知使用的共享令牌，开启时必须配置；为空时不发送也不接受失效通知
+     */
+    private String token;
+
+    /**
+     * 连接超时时间（毫秒）
+     */
+    private Long connectionTimeout = 1000L;
+
+    /**
+     * 读取超时时间（毫秒）
+     */
+    private Long readTimeout = 2000L;
+}
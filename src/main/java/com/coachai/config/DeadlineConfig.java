@@ -0,0 +1,38 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求截止时间配置
+ * 客户端通过请求头传入可等待的毫秒数，未传入时按接口默认值；两者都没有的请求不设截止时间
+ */
+@Configuration
+@ConfigurationProperties(prefix = "deadline")
+@Data
+public class DeadlineConfig {
+
+    /**
+     * 是否启用截止时间
+     */
+    private boolean enabled = true;
+
+    /**
+     * 客户端可等待时间（毫秒）的请求头
+     */
+    private String header = "X-Request-Timeout";
+
+    /**
+     * 客户端传入值的上限（毫秒），超过时按上限处理
+     */
+    private Long maxTimeoutMs = 300000L;
+
+    /**
+     * 接口默认截止时间（毫秒），键为路径模式（不含context-path），按配置顺序匹配第一个
+     */
+    private Map<String, Long> endpoints = new LinkedHashMap<>();
+}
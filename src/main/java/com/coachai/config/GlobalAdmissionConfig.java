@@ -0,0 +1,71 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 全局准入配置
+ * 请求按路径分为若干类别，每类有独立的并发上限和等待队列，慢的分析、上传请求排满时不影响登录、查询等轻量请求；
+ * 排队时间持续超过目标值时按 CoDel 方式缩短等待时间、丢弃排队过久的请求
+ */
+@Configuration
+@ConfigurationProperties(prefix = "admission.global")
+@Data
+public class GlobalAdmissionConfig {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 未匹配任何类别路径的请求所属类别
+     */
+    private String defaultClass = "interactive";
+
+    /**
+     * 排队已满或被丢弃时建议的重试等待时间（秒）
+     */
+    private Integer retryAfterSeconds = 1;
+
+    /**
+     * 请求类别，键为类别名，按配置顺序匹配第一个包含请求路径的类别
+     */
+    private Map<String, ClassConfig> classes = new LinkedHashMap<>();
+
+    @Data
+    public static class ClassConfig {
+
+        /**
+         * 路径模式（不含context-path）
+         */
+        private List<String> endpoints = new ArrayList<>();
+
+        /**
+         * 同时处理的请求上限，0表示不限制（只统计）
+         */
+        private Integer maxConcurrent = 0;
+
+        /**
+         * 等待队列长度上限，已满时立即拒绝
+         */
+        private Integer maxQueue = 0;
+
+        /**
+         * 排队时间目标（毫秒）：一个周期内最短的排队时间仍超过该值时判定为过载，
+         * 过载期间排队超过该值的请求被丢弃
+         */
+        private Long targetDelayMs = 100L;
+
+        /**
+         * 判定周期（毫秒），未过载时也是最长的排队时间
+         */
+        private Long intervalMs = 500L;
+    }
+}
@@ -0,0 +1,79 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 幂等请求配置
+ * 客户端对分析、上传等接口的重发请求带相同的幂等键时，返回首次请求保存的响应，不再重复调用AI工作流或上传
+ */
+@Configuration
+@ConfigurationProperties(prefix = "idempotency")
+@Data
+public class IdempotencyConfig {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 幂等键请求头
+     */
+    private String header = "Idempotency-Key";
+
+    /**
+     * 幂等键最大长度
+     */
+    private Integer maxKeyLength = 128;
+
+    /**
+     * 响应保存时长（秒），期间相同幂等键的请求直接返回保存的响应
+     */
+    private Long ttlSeconds = 86400L;
+
+    /**
+     * 支持幂等键的接口路径模式（不含context-path），仅POST请求
+     */
+    private List<String> endpoints = new ArrayList<>();
+
+    /**
+     * 内存中保存的响应数上限
+     */
+    private Integer cacheMaxSize = 10000;
+
+    /**
+     * 保存的响应体大小上限（字节），超过时不保存
+     */
+    private Integer maxResponseBytes = 1048576;
+
+    /**
+     * 相同幂等键的请求正在处理时，重复请求等待的最长时间（毫秒），超时返回409。
+     * 等待期间占用全局准入名额和请求线程，不宜超过首次请求的常见耗时
+     */
+    private Long waitTimeoutMs = 2000L;
+
+    /**
+     * 等待超时返回409时的 Retry-After（秒）
+     */
+    private Integer retryAfterSeconds = 5;
+
+    /**
+     * 其他实例处理中时查询结果的间隔（毫秒）
+     */
+    private Long pollIntervalMs = 500L;
+
+    /**
+     * 处理中的记录超过该时间（毫秒）仍未完成视为已放弃（实例宕机），允许重新执行
+     */
+    private Long staleAfterMs = 600000L;
+
+    /**
+     * 过期记录清理间隔（毫秒）
+     */
+    private Long cleanupIntervalMs = 600000L;
+}
@@ -0,0 +1,31 @@
+package com.coachai.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JSON编解码配置
+ * 全服务共用 Spring Boot 自动配置的 ObjectMapper（接口请求响应、RestTemplate、WebClient 和 JsonCodec），
+ * 注册的 Module Bean 由自动配置加入该 ObjectMapper
+ */
+@Configuration
+@ConfigurationProperties(prefix = "json")
+@Data
+public class JsonCodecConfig {
+
+    /**
+     * 是否启用 Blackbird：以 LambdaMetafactory 生成的访问器代替反射读写字段和调用构造方法
+     */
+    private boolean blackbirdEnabled = true;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "json", name = "blackbird-enabled", havingValue = "true", matchIfMissing = true)
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
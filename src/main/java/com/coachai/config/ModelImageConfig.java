@@ -0,0 +1,75 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模型输入图片配置
+ * 姿态分析交给AI工作流的不是客户端上传的原图，而是按模型输入尺寸缩放、重新编码的派生图，
+ * 工作流下载和预处理的数据量随之减少；派生图保存在OSS中，以短期预签名URL交给工作流读取
+ */
+@Configuration
+@ConfigurationProperties(prefix = "analysis.model-image")
+@Data
+public class ModelImageConfig {
+
+    /**
+     * 是否启用，关闭时工作流直接读取请求中的图片链接
+     */
+    private boolean enabled = true;
+
+    /**
+     * 派生图长边像素，短边按比例缩放；原图不超过该尺寸时不放大
+     */
+    private Integer longEdge = 1024;
+
+    /**
+     * 派生图JPEG质量 (0.1-1.0)
+     */
+    private Double quality = 0.85;
+
+    /**
+     * 派生图存储路径，实际路径再按尺寸和质量分目录，修改参数后生成新的派生图而不会读到旧的
+     */
+    private String path = "derivatives/";
+
+    /**
+     * 交给AI工作流读取派生图的预签名URL有效期（秒）
+     */
+    private Integer presignExpirySeconds = 600;
+
+    /**
+     * 是否为非本系统OSS的图片链接生成派生图；关闭时这类链接原样交给工作流
+     * 外部链接由请求传入，开启后服务端会代为下载，因此只下载 foreignAllowedHosts 中的域名
+     */
+    private boolean foreignEnabled = false;
+
+    /**
+     * 允许下载的外部图片域名，匹配域名本身及其子域名，只支持 http/https 且不跟随重定向；为空时不下载任何外部链接
+     */
+    private List<String> foreignAllowedHosts = new ArrayList<>();
+
+    /**
+     * 外部图片下载大小上限（字节），超过时原样交给工作流
+     */
+    private Long foreignMaxBytes = 20L * 1024 * 1024;
+
+    /**
+     * 图片链接到派生图的缓存数量上限，命中时不再检查OSS
+     */
+    private Integer cacheMaxSize = 10000;
+
+    /**
+     * 上传后预生成派生图的线程数
+     */
+    private Integer prepareThreads = 2;
+
+    /**
+     * 预生成排队任务数上限，超出时跳过，分析时再按需生成
+     */
+    private Integer prepareQueueSize = 100;
+}
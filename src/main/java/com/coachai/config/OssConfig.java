@@ -75,6 +75,11 @@ public class OssConfig {
      */
     private PathsConfig paths = new PathsConfig();
 
+    /**
+     * 预签名URL配置
+     */
+    private PresignConfig presign = new PresignConfig();
+
     @Data
     public static class UploadConfig {
         /**
@@ -106,6 +111,26 @@ public class OssConfig {
         private String temp = "temp/";
     }
 
+    @Data
+    public static class PresignConfig {
+        /**
+         * 过期时间对齐窗口（秒）
+         * 过期时间向上取整到窗口边界，同一窗口内对同一对象的请求得到同一个URL并命中缓存，
+         * 实际有效期比请求的多出不超过一个窗口；设为0不缓存
+         */
+        private Integer windowSeconds = 300;
+
+        /**
+         * 缓存的URL数量上限
+         */
+        private Integer cacheMaxSize = 10000;
+
+        /**
+         * 批量生成时单次最多对象数
+         */
+        private Integer maxBatchSize = 200;
+    }
+
     /**
      * 创建OSS客户端Bean
      */
@@ -128,6 +153,13 @@ public class OssConfig {
         }
         
         // 默认使用OSS的外网域名
+        return getDefaultBaseUrl();
+    }
+
+    /**
+     * OSS默认外网域名的基础URL，配置了自定义域名或CDN域名时，原有的默认域名链接仍指向同一存储桶
+     */
+    public String getDefaultBaseUrl() {
         return "https://" + bucketName + "." + endpoint.replace("https://", "").replace("http://", "");
     }
 }
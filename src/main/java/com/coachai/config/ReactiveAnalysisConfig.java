@@ -0,0 +1,82 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 非阻塞分析接口配置
+ * 工作流调用在 Reactor Netty 事件循环上等待，查询上次问题、保存记录等JDBC操作仍是阻塞的，
+ * 放到有界线程池中执行，超出部分排队而不是无限创建线程
+ */
+@Configuration
+@ConfigurationProperties(prefix = "analysis.reactive")
+@Data
+public class ReactiveAnalysisConfig {
+
+    /**
+     * 数据库操作线程数上限
+     * 每个线程同时只占用一个主库连接，应小于主库连接池大小，为同步接口、用量写入等留出连接
+     */
+    private Integer persistThreads = 5;
+
+    /**
+     * 数据库操作排队任务数上限，超出时请求直接失败
+     */
+    private Integer persistQueueSize = 10000;
+
+    /**
+     * 批量姿态分析配置
+     */
+    private BatchConfig batch = new BatchConfig();
+
+    /**
+     * 上传并分析配置
+     */
+    private UploadConfig upload = new UploadConfig();
+
+    @Data
+    public static class BatchConfig {
+        /**
+         * 单次请求最多图片数
+         */
+        private Integer maxImages = 20;
+
+        /**
+         * 单次请求同时进行的工作流调用数
+         */
+        private Integer parallelism = 4;
+    }
+
+    @Data
+    public static class UploadConfig {
+        /**
+         * OSS上传线程数上限，上传不占用数据库连接，与数据库操作线程池分开；
+         * 准备模型输入图片（读写OSS、缩放）也在该线程池中执行
+         */
+        private Integer threads = 20;
+    }
+
+    /**
+     * 非阻塞分析接口执行数据库操作的调度器
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler analysisPersistScheduler() {
+        return Schedulers.newBoundedElastic(persistThreads, persistQueueSize, "analysis-persist");
+    }
+
+    /**
+     * 上传并分析接口执行OSS上传的调度器，开启虚拟线程时工作线程为虚拟线程
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler analysisUploadScheduler(VirtualThreadConfig virtualThreadConfig) {
+        if (virtualThreadConfig.isActive()) {
+            return Schedulers.newBoundedElastic(upload.getThreads(), persistQueueSize,
+                    VirtualThreadConfig.virtualThreadFactory("analysis-upload-"), 60);
+        }
+        return Schedulers.newBoundedElastic(upload.getThreads(), persistQueueSize, "analysis-upload");
+    }
+}
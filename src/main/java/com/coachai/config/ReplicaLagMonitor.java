@@ -0,0 +1,115 @@
+package com.coachai.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 副本库复制延迟监控
+ * 定期查询副本的复制状态，延迟超过阈值、复制中断或无法连接时标记为不可用，只读请求回退到主库
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final DataSource replicaDataSource;
+    private final long maxLagSeconds;
+    private final long checkIntervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean replicaAvailable;
+    private volatile Long lastLagSeconds;
+
+    /**
+     * MySQL 8.0.22 之前不支持 SHOW REPLICA STATUS，首次失败后改用旧语句
+     */
+    private volatile boolean legacyStatusQuery;
+
+    /**
+     * @param maxLagSeconds 允许的最大延迟秒数；小于0时不检查复制状态（如本地两个独立实例测试）
+     */
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagSeconds, long checkIntervalMillis) {
+        this.replicaDataSource = replicaDataSource;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        check();
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public Long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    private void check() {
+        boolean available;
+        try (Connection connection = replicaDataSource.getConnection()) {
+            if (maxLagSeconds < 0) {
+                available = connection.isValid(2);
+            } else {
+                Long lag = queryLagSeconds(connection);
+                lastLagSeconds = lag;
+                available = lag != null && lag <= maxLagSeconds;
+                if (!available) {
+                    log.warn("副本库复制延迟过大或复制未运行，只读请求回退主库: lag={}s, maxLag={}s", lag, maxLagSeconds);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("副本库检查失败，只读请求回退主库: {}", e.getMessage());
+            available = false;
+        }
+
+        if (available != replicaAvailable) {
+            log.info("副本库可用状态变更: {} -> {}", replicaAvailable, available);
+        }
+        replicaAvailable = available;
+    }
+
+    /**
+     * 查询复制延迟秒数；未配置复制或复制线程停止时返回null
+     */
+    private Long queryLagSeconds(Connection connection) throws SQLException {
+        if (!legacyStatusQuery) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                return rs.next() ? toLong(rs.getObject("Seconds_Behind_Source")) : null;
+            } catch (SQLException e) {
+                legacyStatusQuery = true;
+                log.info("副本库不支持 SHOW REPLICA STATUS，改用 SHOW SLAVE STATUS");
+            }
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+            return rs.next() ? toLong(rs.getObject("Seconds_Behind_Master")) : null;
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+}
@@ -0,0 +1,177 @@
+package com.coachai.config;
+
+import com.coachai.tracing.InMemorySpanExporter;
+import com.coachai.tracing.TailSamplingSpanProcessor;
+import com.coachai.tracing.TracingRestTemplateInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import lombok.Data;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 链路追踪配置
+ * 基于 OpenTelemetry SDK：入站请求、AI工作流调用、OSS操作及JPA Repository方法生成Span，
+ * 出站HTTP请求通过W3C traceparent头传播追踪上下文。
+ * 采用尾部采样：所有Span先在内存中缓冲，根Span结束后按耗时、是否出错决定整条链路是否导出。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tracing")
+@Data
+public class TracingConfig {
+
+    private static final String INSTRUMENTATION_NAME = "com.coachai";
+
+    /**
+     * 是否启用链路追踪，关闭时使用无操作实现
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 导出方式
+     */
+    private ExporterType exporter = ExporterType.NONE;
+
+    /**
+     * OTLP gRPC 接收地址
+     */
+    private String otlpEndpoint = "http://localhost:4317";
+
+    /**
+     * 尾部采样配置
+     */
+    private SamplingConfig sampling = new SamplingConfig();
+
+    /**
+     * 内存导出器保留的最大Span数（exporter 为 MEMORY 时生效）
+     */
+    private Integer memoryMaxSpans = 10000;
+
+    @Data
+    public static class SamplingConfig {
+        /**
+         * 慢链路阈值（毫秒），根Span耗时达到该值的链路全部保留
+         */
+        private Long slowThresholdMs = 3000L;
+
+        /**
+         * 未命中慢链路和错误规则的链路的保留比例 (0-1)
+         */
+        private Double ratio = 0.05;
+
+        /**
+         * 等待采样决策的最大链路数，超过后新链路直接丢弃
+         */
+        private Integer maxPendingTraces = 2048;
+
+        /**
+         * 等待决策的超时时间（毫秒），根Span迟迟未结束的链路超时后丢弃
+         */
+        private Long pendingTimeoutMs = 600000L;
+    }
+
+    public enum ExporterType {
+        /**
+         * 不导出，仍生成追踪上下文和传播头
+         */
+        NONE,
+        /**
+         * 输出到日志
+         */
+        LOGGING,
+        /**
+         * OTLP gRPC 导出到 Collector/Jaeger/Tempo 等
+         */
+        OTLP,
+        /**
+         * 保存在内存中，用于本地测试和压测环境查看
+         */
+        MEMORY
+    }
+
+    /**
+     * 关闭时由容器调用 OpenTelemetrySdk#close，导出缓冲中的Span
+     */
+    @Bean
+    public OpenTelemetry openTelemetry(@Value("${spring.application.name}") String serviceName,
+                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        if (!Boolean.TRUE.equals(enabled)) {
+            return OpenTelemetry.noop();
+        }
+
+        Resource resource = Resource.getDefault().merge(Resource.create(
+                Attributes.of(AttributeKey.stringKey("service.name"), serviceName)));
+
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .setResource(resource)
+                // 全部记录，由尾部采样决定是否导出
+                .setSampler(Sampler.alwaysOn())
+                .addSpanProcessor(new TailSamplingSpanProcessor(
+                        exportProcessor(), sampling, meterRegistry.getIfAvailable(SimpleMeterRegistry::new)))
+                .build();
+
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider)
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+    }
+
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+
+    /**
+     * 内存导出器，exporter 不是 MEMORY 时容量为0，不保存任何Span
+     */
+    @Bean
+    public InMemorySpanExporter inMemorySpanExporter() {
+        return new InMemorySpanExporter(exporter == ExporterType.MEMORY ? memoryMaxSpans : 0);
+    }
+
+    /**
+     * 为 RestTemplateBuilder 构建的 RestTemplate 添加出站追踪
+     */
+    @Bean
+    public RestTemplateCustomizer tracingRestTemplateCustomizer(OpenTelemetry openTelemetry, Tracer tracer) {
+        return restTemplate -> restTemplate.getInterceptors().add(new TracingRestTemplateInterceptor(openTelemetry, tracer));
+    }
+
+    private SpanProcessor exportProcessor() {
+        switch (exporter) {
+            case LOGGING:
+                return SimpleSpanProcessor.create(LoggingSpanExporter.create());
+            case OTLP:
+                SpanExporter otlpExporter = OtlpGrpcSpanExporter.builder()
+                        .setEndpoint(otlpEndpoint)
+                        .build();
+                return BatchSpanProcessor.builder(otlpExporter).build();
+            case MEMORY:
+                // 同步导出，请求返回时Span已可查询
+                return SimpleSpanProcessor.create(inMemorySpanExporter());
+            case NONE:
+            default:
+                return SpanProcessor.composite();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AI工作流用量统计与配额配置
+ * 工作流响应中的 usage/usageMap 按 用户 + 工作流 + 自然日 累加，定期写入数据库；
+ * 用户当日用量接近或超过配额时限制其发起新的分析，避免少数重度用户占满工作流的处理能力
+ */
+@Configuration
+@ConfigurationProperties(prefix = "usage")
+@Data
+public class UsageConfig {
+
+    /**
+     * 是否启用用量统计和配额检查
+     */
+    private boolean enabled = true;
+
+    /**
+     * 自然日划分使用的时区
+     */
+    private String zone = "Asia/Shanghai";
+
+    /**
+     * 内存中的用量写入数据库的间隔（毫秒）
+     */
+    private Long flushIntervalMs = 10000L;
+
+    /**
+     * 用户当日已用量（数据库部分）的缓存时间（毫秒），多实例部署时其他实例的用量最多延迟 写入间隔 + 缓存时间 可见
+     */
+    private Long quotaCacheMs = 5000L;
+
+    /**
+     * 单价配置
+     */
+    private PricingConfig pricing = new PricingConfig();
+
+    /**
+     * 配额配置
+     */
+    private QuotaConfig quota = new QuotaConfig();
+
+    @Data
+    public static class PricingConfig {
+        /**
+         * 每百万输入token的费用（元），usageMap 未区分输入输出的用量也按此计费
+         */
+        private Double inputPerMillion = 2.0;
+
+        /**
+         * 每百万输出token的费用（元）
+         */
+        private Double outputPerMillion = 8.0;
+    }
+
+    @Data
+    public static class QuotaConfig {
+        /**
+         * 每个用户每日token上限，0表示不限制
+         */
+        private Long dailyTokens = 0L;
+
+        /**
+         * 按用户覆盖的每日token上限，0表示不限制
+         */
+        private Map<String, Long> overrides = new HashMap<>();
+
+        /**
+         * 当日用量达到上限的该比例后进入限流：每 throttle-interval-seconds 只允许发起一次分析
+         */
+        private Double throttleRatio = 0.8;
+
+        /**
+         * 限流期间两次分析的最小间隔（秒）
+         */
+        private Integer throttleIntervalSeconds = 60;
+    }
+}
@@ -0,0 +1,64 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分析接口按用户准入配置
+ * 每个用户有独立的令牌桶限速和进行中请求上限，超出时立即返回429；
+ * 全局分析并发已满时，等待的请求按用户加权公平排队，单个用户的大量请求不会挤占其他用户
+ */
+@Configuration
+@ConfigurationProperties(prefix = "admission.user")
+@Data
+public class UserAdmissionConfig {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个用户每秒补充的令牌数（持续请求速率）
+     */
+    private Double ratePerSecond = 1.0;
+
+    /**
+     * 令牌桶容量（允许的突发请求数）
+     */
+    private Integer burst = 10;
+
+    /**
+     * 每个用户进行中（含排队）的分析请求上限
+     */
+    private Integer maxInFlight = 4;
+
+    /**
+     * 所有用户同时进行的分析请求上限，超出后排队；应小于全局准入 ai 类别的并发上限，公平排队才会生效
+     */
+    private Integer maxConcurrent = 60;
+
+    /**
+     * 排队等待的最长时间（毫秒），超时返回429
+     */
+    private Long queueTimeoutMs = 2000L;
+
+    /**
+     * 因进行中请求数或排队超时被拒绝时建议的重试等待时间（秒）
+     */
+    private Integer retryAfterSeconds = 1;
+
+    /**
+     * 用户状态空闲多久后清除（毫秒）
+     */
+    private Long idleEvictMs = 600000L;
+
+    /**
+     * 按用户设置的公平排队权重，默认1；权重为2的用户排队时获得两倍的份额
+     */
+    private Map<String, Double> weights = new HashMap<>();
+}
@@ -0,0 +1,88 @@
+package com.coachai.config;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程配置
+ * 开启后Tomcat为每个请求创建一个虚拟线程，同步接口在请求线程上进行的AI工作流、OSS、数据库等阻塞调用期间不再占用平台线程，
+ * 并发请求数不再受 server.tomcat.threads.max 限制，改由 server.tomcat.max-connections、
+ * 数据库连接池和 ai.workflow.max-connections 约束。
+ * 请求线程之外执行OSS读写和图片缩放的线程池（analysis-upload、model-image-prepare）同样改用虚拟线程，线程数上限和排队上限不变；
+ * analysis-persist 的并发受主库连接池限制，继续使用平台线程，非阻塞接口的工作流调用本身不占用线程，不受影响。
+ * 需要 JDK 21 及以上运行，低版本JDK下忽略该配置并继续使用平台线程池。
+ * 配置项与 Spring Boot 3.2 的 spring.threads.virtual.enabled 一致，升级后无需修改部署配置。
+ */
+@Configuration
+@ConfigurationProperties(prefix = "spring.threads.virtual")
+@Data
+@Slf4j
+public class VirtualThreadConfig {
+
+    /**
+     * 虚拟线程最低支持的JDK版本
+     */
+    private static final int MIN_FEATURE_VERSION = 21;
+
+    /**
+     * 是否使用虚拟线程处理请求
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= MIN_FEATURE_VERSION;
+    }
+
+    /**
+     * 是否已开启且当前JDK支持，为 false 时各线程池保持平台线程
+     */
+    public boolean isActive() {
+        return Boolean.TRUE.equals(enabled) && isSupported();
+    }
+
+    /**
+     * 创建虚拟线程工厂，线程名称为 前缀 + 序号
+     * 主工程以 Java 11 编译，通过反射调用 Thread.ofVirtual()，仅在 isSupported() 为 true 时可用
+     *
+     * @param namePrefix 线程名称前缀
+     */
+    public static ThreadFactory virtualThreadFactory(String namePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("当前JDK版本 " + Runtime.version().feature() + " 不支持虚拟线程");
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程工厂失败", e);
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.threads.virtual", name = "enabled", havingValue = "true")
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+        return factory -> {
+            if (!isSupported()) {
+                log.warn("当前JDK版本 {} 不支持虚拟线程（需要 {} 及以上），继续使用平台线程池处理请求",
+                        Runtime.version().feature(), MIN_FEATURE_VERSION);
+                return;
+            }
+            // 使用Tomcat内置的虚拟线程执行器，替代 server.tomcat.threads 配置的工作线程池
+            factory.addConnectorCustomizers(connector -> connector.setProperty("useVirtualThreads", "true"));
+            log.info("Tomcat请求处理已切换为虚拟线程");
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.coachai.controller;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.dto.AnalyticsDTO;
+import com.coachai.entity.AnalysisRollup;
+import com.coachai.service.AnalysisRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 分析趋势统计Controller（基于预聚合数据）
+ */
+@RestController
+@RequestMapping("/analytics")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsController {
+
+    private final AnalysisRollupService analysisRollupService;
+
+    /**
+     * 查询用户进步趋势（按天或按周）
+     */
+    @GetMapping("/users/{username}/progress")
+    public ResponseEntity<ApiResponse<List<AnalyticsDTO.ProgressPoint>>> getProgress(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "POSE") AnalysisRollup.AnalysisType type,
+            @RequestParam(defaultValue = "DAY") AnalysisRollup.Granularity granularity,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) String sport,
+            @RequestParam(required = false) String posture) {
+        log.info("接收到查询分析趋势请求: username={}, type={}, granularity={}", username, type, granularity);
+        try {
+            return ResponseEntity.ok(analysisRollupService.getProgress(
+                    username, type, granularity, startTime, endTime, sport, posture));
+        } catch (Exception e) {
+            log.error("查询分析趋势失败: username={}", username, e);
+            return ResponseEntity.ok(ApiResponse.error("查询分析趋势失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询用户时间范围内的汇总统计
+     */
+    @GetMapping("/users/{username}/summary")
+    public ResponseEntity<ApiResponse<AnalyticsDTO.Summary>> getSummary(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "POSE") AnalysisRollup.AnalysisType type,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(required = false) String sport,
+            @RequestParam(required = false) String posture) {
+        log.info("接收到查询分析汇总请求: username={}, type={}", username, type);
+        try {
+            return ResponseEntity.ok(analysisRollupService.getSummary(
+                    username, type, startTime, endTime, sport, posture));
+        } catch (Exception e) {
+            log.error("查询分析汇总失败: username={}", username, e);
+            return ResponseEntity.ok(ApiResponse.error("查询分析汇总失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 启动预聚合回填任务（不指定类型时回填全部类型）
+     */
+    @PostMapping("/rollups/backfill")
+    public ResponseEntity<ApiResponse<AnalyticsDTO.BackfillStatus>> startBackfill(
+            @RequestParam(required = false) AnalysisRollup.AnalysisType type,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestHeader(value = AnalysisRollupService.ADMIN_TOKEN_HEADER, required = false) String token) {
+        if (!analysisRollupService.isAdminTokenValid(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error("无效的管理令牌"));
+        }
+        log.info("接收到预聚合回填请求: type={}, startTime={}, endTime={}", type, startTime, endTime);
+        try {
+            return ResponseEntity.ok(analysisRollupService.startBackfill(type, startTime, endTime));
+        } catch (Exception e) {
+            log.error("启动预聚合回填任务失败", e);
+            return ResponseEntity.ok(ApiResponse.error("启动预聚合回填任务失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询预聚合回填任务进度
+     */
+    @GetMapping("/rollups/backfill/status")
+    public ResponseEntity<ApiResponse<AnalyticsDTO.BackfillStatus>> getBackfillStatus(
+            @RequestHeader(value = AnalysisRollupService.ADMIN_TOKEN_HEADER, required = false) String token) {
+        if (!analysisRollupService.isAdminTokenValid(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error("无效的管理令牌"));
+        }
+        return ResponseEntity.ok(analysisRollupService.getBackfillStatus());
+    }
+}
@@ -0,0 +1,40 @@
+package com.coachai.controller;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.service.UserCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 缓存管理Controller（实例间缓存失效通知）
+ */
+@RestController
+@RequestMapping("/internal/cache")
+@Slf4j
+public class CacheController {
+
+    @Autowired
+    private UserCacheService userCacheService;
+
+    /**
+     * 失效本实例中指定用户的缓存
+     */
+    @PostMapping("/users/{id}/evict")
+    public ResponseEntity<ApiResponse<Void>> evictUser(
+            @PathVariable Long id,
+            @RequestHeader(value = UserCacheService.TOKEN_HEADER, required = false) String token) {
+        if (!userCacheService.isTokenValid(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error("无效的缓存失效令牌"));
+        }
+        try {
+            userCacheService.evictLocal(id);
+            return ResponseEntity.ok(ApiResponse.success("用户缓存已失效", null));
+        } catch (Exception e) {
+            log.error("失效用户缓存失败: {}", id, e);
+            return ResponseEntity.ok(ApiResponse.error("失效用户缓存失败: " + e.getMessage()));
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.coachai.common.ApiResponse;
 import com.coachai.dto.CoachAiUserDTO;
 import com.coachai.entity.CoachAiUser;
 import com.coachai.service.CoachAiUserService;
+import com.coachai.service.UsernameSearchIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -122,13 +123,19 @@ public class CoachAiUserController {
     }
 
     /**
-     * 根据用户名模糊查询
+     * 根据用户名搜索用户
+     *
+     * @param username 关键字
+     * @param mode     搜索模式：CONTAINS（默认，包含匹配）、PREFIX（前缀匹配）、FUZZY（模糊匹配）
+     * @param limit    最多返回条数（默认50）
      */
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<List<CoachAiUserDTO.QueryResponse>>> searchUsersByUsername(
-            @RequestParam String username) {
-        log.info("接收到根据用户名模糊查询用户请求: {}", username);
-        ApiResponse<List<CoachAiUserDTO.QueryResponse>> response = coachAiUserService.searchUsersByUsername(username);
+            @RequestParam String username,
+            @RequestParam(defaultValue = "CONTAINS") UsernameSearchIndex.Mode mode,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("接收到根据用户名搜索用户请求: username={}, mode={}, limit={}", username, mode, limit);
+        ApiResponse<List<CoachAiUserDTO.QueryResponse>> response = coachAiUserService.searchUsersByUsername(username, mode, limit);
         return ResponseEntity.ok(response);
     }
 
@@ -1,26 +1,39 @@
 package com.coachai.controller;
 
-import com.alibaba.fastjson.JSONObject;
 import com.coachai.common.ApiResponse;
 import com.coachai.dto.*;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.coachai.json.JsonCodec;
+import com.coachai.json.JsonFieldExtractor;
+import com.coachai.logging.LogPayloads;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.*;
+import java.util.Collections;
 
 /**
  * 数据处理Controller
  */
 @RestController
 @RequestMapping("/data")
+@RequiredArgsConstructor
 @Slf4j
 public class DataController {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFieldExtractor NEXT_NODE_INSTRUCTIONS =
+            JsonFieldExtractor.compile("nextNodeImageInstructions");
+
+    /**
+     * 有answer字段时只在answer中查找，否则在顶层查找
+     */
+    private static final JsonFieldExtractor USER_POSE_INSTRUCTIONS =
+            JsonFieldExtractor.compile("answer.userPoseImageInstructions", "userPoseImageInstructions");
+    private static final JsonFieldExtractor REFERENCE_POSE_INSTRUCTIONS =
+            JsonFieldExtractor.compile("answer.referencePoseImageInstructions", "referencePoseImageInstructions");
+
+    private final JsonCodec jsonCodec;
 
     /**
      * 数据处理方法
@@ -62,7 +75,7 @@ public class DataController {
      * @return 根据类型返回不同格式的JSON响应
      */
     @PostMapping("/pose-analysis")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> processPoseAnalysis(
+    public ResponseEntity<ApiResponse<PoseImageInstructions>> processPoseAnalysis(
             @RequestBody @Valid PoseAnalysisDataProcessRequest request) {
 
         log.info("接收到姿态分析处理请求，类型: {}", request.getType());
@@ -80,7 +93,7 @@ public class DataController {
             String imageUrl = request.getImageUrl();
 
             // 构造响应
-            Map<String, Object>  poseImageInstructions = generatePoseImageInstructions(instructions, imageUrl);
+            PoseImageInstructions poseImageInstructions = new PoseImageInstructions(instructions, imageUrl);
 
             log.info("姿态分析处理完成，类型: {}", request.getType());
             return ResponseEntity.ok(ApiResponse.success("姿态分析处理成功", poseImageInstructions));
@@ -91,33 +104,6 @@ public class DataController {
         }
     }
 
-    private Map<String, Object>  generatePoseImageInstructions(String instructions, String imageUrl) {
-        // 构建期望的数据结构
-        Map<String, Object> response = new HashMap<>();
-        response.put("role", "user");
-
-        List<Map<String, Object>> parts = new ArrayList<>();
-
-        // 添加文本部分
-        Map<String, Object> textPart = new HashMap<>();
-        textPart.put("text", instructions);
-        parts.add(textPart);
-
-        // 添加文件数据部分
-        Map<String, Object> filePart = new HashMap<>();
-        Map<String, Object> fileData = new HashMap<>();
-        fileData.put("mimeType", "image/jpeg");
-        fileData.put("fileUri", imageUrl);
-        filePart.put("fileData", fileData);
-        parts.add(filePart);
-
-        response.put("parts", parts);
-
-        return response;
-
-    }
-
-
     /**
      * 从JSON字符串中提取nextNodeImageInstructions字段
      * 
@@ -127,16 +113,15 @@ public class DataController {
      */
     private String extractNextNodeImageInstructions(String jsonString) throws Exception {
         try {
-            JsonNode jsonNode = objectMapper.readTree(jsonString);
-            JsonNode instructionsNode = jsonNode.get("nextNodeImageInstructions");
-            
-            if (instructionsNode == null) {
+            String instructions = jsonCodec.extract(jsonString, NEXT_NODE_INSTRUCTIONS);
+
+            if (instructions == null) {
                 throw new IllegalArgumentException("JSON中未找到nextNodeImageInstructions字段");
             }
-            
-            return instructionsNode.asText();
+
+            return instructions;
         } catch (Exception e) {
-            log.error("解析JSON字符串失败: {}", jsonString, e);
+            log.error("解析JSON字符串失败: {}", LogPayloads.truncate(jsonString), e);
             throw new Exception("解析JSON字符串失败: " + e.getMessage());
         }
     }
@@ -152,38 +137,25 @@ public class DataController {
      */
     private String extractInstructionsByType(String jsonString, String type) throws Exception {
         try {
-            JsonNode jsonNode = objectMapper.readTree(jsonString);
-            // 首先检查是否有answer字段
-            JsonNode answerNode = jsonNode.get("answer");
-            JsonNode targetNode;
-
-            if (answerNode != null) {
-                // 如果有answer字段，解析其中的JSON字符串
-                targetNode = answerNode;
-            } else {
-                // 如果没有answer字段，直接在顶层查找
-                targetNode = jsonNode;
-            }
-
-            JsonNode instructionsNode;
+            String instructions;
 
             if ("userPoseImage".equals(type)) {
-                instructionsNode = targetNode.get("userPoseImageInstructions");
-                if (instructionsNode == null) {
+                instructions = jsonCodec.extract(jsonString, USER_POSE_INSTRUCTIONS);
+                if (instructions == null) {
                     throw new IllegalArgumentException("JSON中未找到userPoseImageInstructions字段");
                 }
             } else if ("referencePoseImage".equals(type)) {
-                instructionsNode = targetNode.get("referencePoseImageInstructions");
-                if (instructionsNode == null) {
+                instructions = jsonCodec.extract(jsonString, REFERENCE_POSE_INSTRUCTIONS);
+                if (instructions == null) {
                     throw new IllegalArgumentException("JSON中未找到referencePoseImageInstructions字段");
                 }
             } else {
                 throw new IllegalArgumentException("不支持的类型: " + type);
             }
 
-            return instructionsNode.asText();
+            return instructions;
         } catch (Exception e) {
-            log.error("解析JSON字符串失败，类型: {}, JSON: {}", type, jsonString, e);
+            log.error("解析JSON字符串失败，类型: {}, JSON: {}", type, LogPayloads.truncate(jsonString), e);
             throw new Exception("解析JSON字符串失败: " + e.getMessage());
         }
     }
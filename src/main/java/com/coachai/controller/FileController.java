@@ -1,9 +1,13 @@
 package com.coachai.controller;
 
 import com.coachai.common.ApiResponse;
+import com.coachai.config.OssConfig;
 import com.coachai.dto.Base64ImageRequest;
+import com.coachai.dto.PresignedUrlBatchRequest;
+import com.coachai.logging.LogPayloads;
 import com.coachai.service.FileStorageService;
 import com.coachai.service.ImageCompressionService;
+import com.coachai.service.ModelImageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
@@ -12,6 +16,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+
+import javax.validation.Valid;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,9 +32,12 @@ public class FileController {
 
     private final FileStorageService fileStorageService;
     private final ImageCompressionService imageCompressionService;
+    private final ModelImageService modelImageService;
+    private final OssConfig ossConfig;
 
     /**
      * 上传图片文件
+     * 上传成功后在后台预生成姿态分析用的模型输入图片，之后以返回的 fileUrl 分析时直接使用
      *
      * @param file 图片文件
      * @return 上传结果
@@ -43,7 +52,9 @@ public class FileController {
                 return ApiResponse.error("文件不能为空");
             }
 
-            String fileUrl = fileStorageService.uploadImage(file);
+            String objectName = fileStorageService.uploadImageObject(file);
+            String fileUrl = fileStorageService.getFileUrl(objectName);
+            modelImageService.prepareAsync(objectName, file.getBytes());
             
             Map<String, String> result = new HashMap<>();
             result.put("fileName", file.getOriginalFilename());
@@ -154,10 +165,8 @@ public class FileController {
                 return ApiResponse.error("Base64图片数据不能为空");
             }
             
-            // 优化日志输出，避免打印完整的base64数据
-            String logData = base64Image.length() > 100 ? 
-                base64Image.substring(0, 100) + "... (长度: " + base64Image.length() + ")" : base64Image;
-            log.info("上传base64图片: {}", logData);
+            // 避免打印完整的base64数据
+            log.info("上传base64图片: {}", LogPayloads.truncate(base64Image, 100));
             
             String savedFileUrl = fileStorageService.saveBase64Image(base64Image);
             
@@ -195,10 +204,8 @@ public class FileController {
             
             String base64ImageData = request.getBase64Image();
             
-            // 优化日志输出，避免打印完整的数据
-            String logData = base64ImageData.length() > 100 ? 
-                base64ImageData.substring(0, 100) + "... (字符串长度: " + base64ImageData.length() + ")" : base64ImageData;
-            log.info("上传base64图片(JSON): {}, 文件名提示: {}", logData, request.getFileName());
+            // 避免打印完整的数据
+            log.info("上传base64图片(JSON): {}, 文件名提示: {}", LogPayloads.truncate(base64ImageData, 100), request.getFileName());
             
             // 判断是直接的base64字符串还是JSON字符串
             String savedFileUrl;
@@ -323,6 +330,30 @@ public class FileController {
         }
     }
 
+    /**
+     * 批量获取预签名URL
+     * 历史记录列表等需要展示多张图片的页面一次请求获取全部URL
+     *
+     * @param request 对象名称列表和过期时间
+     * @return 对象名称到预签名URL的映射
+     */
+    @PostMapping("/presigned-urls")
+    public ApiResponse<Map<String, String>> getPresignedUrls(@RequestBody @Valid PresignedUrlBatchRequest request) {
+        try {
+            int maxBatchSize = ossConfig.getPresign().getMaxBatchSize();
+            if (request.getObjectNames().size() > maxBatchSize) {
+                return ApiResponse.error("单次最多获取" + maxBatchSize + "个预签名URL");
+            }
+
+            Map<String, String> result = fileStorageService.getPresignedUrls(request.getObjectNames(), request.getExpiry());
+
+            return ApiResponse.success("生成预签名URL成功", result);
+        } catch (Exception e) {
+            log.error("批量生成预签名URL失败: count={}", request.getObjectNames().size(), e);
+            return ApiResponse.error("批量生成预签名URL失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 图片代理访问接口
      * 通过应用服务器代理OSS图片，设置正确的Content-Disposition
@@ -330,8 +361,10 @@ public class FileController {
      * @param objectName 对象名称（如：images/20250921123044_dd060b89.png）
      * @return 图片数据流
      */
-    @GetMapping("/proxy/{path:.+}")
-    public ResponseEntity<byte[]> proxyImage(@PathVariable("path") String objectName) {
+    @GetMapping("/proxy/{*path}")
+    public ResponseEntity<byte[]> proxyImage(@PathVariable("path") String path) {
+        // {*path} 捕获包含目录的完整对象名，去掉开头的"/"
+        String objectName = path.startsWith("/") ? path.substring(1) : path;
         try {
             log.info("代理访问图片: {}", objectName);
             
@@ -1,21 +1,26 @@
 package com.coachai.controller;
 
+import com.coachai.admission.UserAdmission;
 import com.coachai.common.ApiResponse;
+import com.coachai.common.PageResult;
 import com.coachai.config.AiWorkflowConfig;
 import com.coachai.dto.*;
+import com.coachai.json.JsonCodec;
+import com.coachai.metrics.AnalysisMetrics;
 import com.coachai.service.AiWorkflowService;
 import com.coachai.service.IssueAnalysisRecordService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.coachai.service.ReactiveAiWorkflowService;
+import com.coachai.service.UsageAccountingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import javax.validation.Valid;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
 /**
  * 症状分析记录Controller
@@ -27,9 +32,14 @@ import java.util.List;
 public class IssueAnalysisRecordController {
 
     private final AiWorkflowService aiWorkflowService;
+    private final ReactiveAiWorkflowService reactiveAiWorkflowService;
     private final AiWorkflowConfig aiWorkflowConfig;
-    private final ObjectMapper objectMapper;
+    private final JsonCodec jsonCodec;
     private final IssueAnalysisRecordService issueAnalysisRecordService;
+    private final AnalysisMetrics analysisMetrics;
+    private final Scheduler analysisPersistScheduler;
+    private final UsageAccountingService usageAccountingService;
+    private final UserAdmission userAdmission;
 
 
 //    {
@@ -49,137 +59,230 @@ public class IssueAnalysisRecordController {
         
         log.info("接收到姿态分析请求: username={}, sport={}, posture={}, imageLink={}", 
                 request.getBodyParts(), request.getSport(), request.getPosture(), request.getDescription());
+
+        UsageDTO.QuotaDecision quota = usageAccountingService.checkQuota(usernameOf(request));
+        if (!quota.isAllowed()) {
+            return quotaRejected(quota);
+        }
+        UserAdmission.Permit permit = userAdmission.acquire(usernameOf(request));
         
+        AnalysisMetrics.Pipeline pipeline = analysisMetrics.start(AnalysisMetrics.WORKFLOW_ISSUE, request.getSport());
         try {
             // 2. 构建AI工作流请求
-            AiWorkflowIssueRequest.ParamJson paramJson = AiWorkflowIssueRequest.ParamJson.builder()
-                    .bodyParts(request.getBodyParts())
-                    .sport(request.getSport())
-                    .posture(request.getPosture())
-                    .description(request.getDescription())
-                    .build();
-            
-            AiWorkflowIssueRequest aiRequest = AiWorkflowIssueRequest.builder()
-                    .apiCode(aiWorkflowConfig.getIssueAnalysis().getApiCode())
-                    .stream(false)
-                    .paramJson(paramJson)
-                    .build();
+            AiWorkflowIssueRequest aiRequest = buildWorkflowRequest(request);
             
             // 3. 调用AI工作流
             log.info("开始调用AI工作流进行姿态分析");
-            AiWorkflowIssueResponse aiResponse = aiWorkflowService.callIssueAnalysisWorkflow(aiRequest);
-            
-            // 4. 解析AI工作流响应
-            AiWorkflowIssueResponse.StructData structData = aiWorkflowService.parseIssueWorkflowResponse(aiResponse);
-            
-            // 5. 解析DiagnosisData
-            AiWorkflowIssueResponse.DiagnosisData diagnosisData = aiWorkflowService.parseDiagnosisData(structData);
+            AiWorkflowIssueResponse aiResponse = pipeline.stage(AnalysisMetrics.STAGE_WORKFLOW_CALL,
+                    () -> aiWorkflowService.callIssueAnalysisWorkflow(aiRequest));
+            recordUsage(request, aiResponse);
             
-            // 6. 重新组合数据，将StructData中的poseReference和rehabilitationVideos解析为结构体并设置到DiagnosisData中
-            if (diagnosisData != null) {
-                // 解析poseReference JSON字符串为结构体
-                List<AiWorkflowIssueResponse.PoseReference> parsedPoseReferences = new ArrayList<>();
-                if (structData.getPoseReference() != null) {
-                    for (String poseRefJson : structData.getPoseReference()) {
-                        try {
-                            // 先解析为JsonNode以便处理video字段
-                            JsonNode poseRefNode = objectMapper.readTree(poseRefJson);
-                            String name = poseRefNode.get("name").asText();
-                            String videoString = poseRefNode.get("video").asText();
-                            
-                            // 将video字符串按"|"分割，只取第一个URL
-                            String firstVideo = Arrays.stream(videoString.split("\\|"))
-                                    .map(String::trim)
-                                    .filter(s -> !s.isEmpty())
-                                    .findFirst()
-                                    .orElse("");
-                            
-                            AiWorkflowIssueResponse.PoseReference poseRef = AiWorkflowIssueResponse.PoseReference.builder()
-                                    .name(name)
-                                    .video(firstVideo)
-                                    .build();
-                            parsedPoseReferences.add(poseRef);
-                        } catch (Exception e) {
-                            log.warn("解析poseReference失败: {}, JSON: {}", e.getMessage(), poseRefJson);
-                        }
-                    }
-                }
-                
-                // 解析rehabilitationVideos JSON字符串为结构体
-                List<AiWorkflowIssueResponse.RehabilitationVideo> parsedRehabVideos = new ArrayList<>();
-                if (structData.getRehabilitationVideos() != null) {
-                    for (String rehabVideoJson : structData.getRehabilitationVideos()) {
-                        try {
-                            // 先解析为JsonNode以便处理video字段
-                            JsonNode rehabVideoNode = objectMapper.readTree(rehabVideoJson);
-                            String name = rehabVideoNode.get("name").asText();
-                            String videoString = rehabVideoNode.get("video").asText();
-                            
-                            // 将video字符串按"|"分割，只取第一个URL
-                            String firstVideo = Arrays.stream(videoString.split("\\|"))
-                                    .map(String::trim)
-                                    .filter(s -> !s.isEmpty())
-                                    .findFirst()
-                                    .orElse("");
-                            
-                            AiWorkflowIssueResponse.RehabilitationVideo rehabVideo = AiWorkflowIssueResponse.RehabilitationVideo.builder()
-                                    .name(name)
-                                    .video(firstVideo)
-                                    .build();
-                            parsedRehabVideos.add(rehabVideo);
-                        } catch (Exception e) {
-                            log.warn("解析rehabilitationVideo失败: {}, JSON: {}", e.getMessage(), rehabVideoJson);
-                        }
-                    }
-                }
-                
-                diagnosisData.setPoseReference(parsedPoseReferences);
-                diagnosisData.setRehabilitationVideos(parsedRehabVideos);
-            }
-            
-            log.info("症状分析完成，诊断结果: {}, 风险等级: {}, 置信度: {}%, poseReference数量: {}, rehabilitationVideos数量: {}", 
-                    diagnosisData.getPrimaryDiagnosis(), 
-                    diagnosisData.getRiskLevel(), 
-                    diagnosisData.getConfidence(),
-                    diagnosisData.getPoseReference() != null ? diagnosisData.getPoseReference().size() : 0,
-                    diagnosisData.getRehabilitationVideos() != null ? diagnosisData.getRehabilitationVideos().size() : 0);
+            // 4~6. 解析AI工作流响应
+            AiWorkflowIssueResponse.DiagnosisData diagnosisData = pipeline.stage(AnalysisMetrics.STAGE_PARSE,
+                    () -> parseDiagnosis(aiResponse));
             
             // 7. 将结果存储到数据库
-            String username = request.getUsername() != null ? request.getUsername() : "anonymous_user";
-            
-            IssueAnalysisRecordDTO.CreateRequest createRequest = IssueAnalysisRecordDTO.CreateRequest.builder()
-                    .username(username)
-                    .sport(diagnosisData.getSport())
-                    .posture(objectMapper.writeValueAsString(diagnosisData.getPosture()))
-                    .riskLevel(diagnosisData.getRiskLevel())
-                    .primaryDiagnosis(diagnosisData.getPrimaryDiagnosis())
-                    .confidence(diagnosisData.getConfidence())
-                    .isNormal(diagnosisData.isNormal())
-                    .symptoms(objectMapper.writeValueAsString(diagnosisData.getSymptoms()))
-                    .treatment(objectMapper.writeValueAsString(diagnosisData.getTreatment()))
-                    .poseReference(objectMapper.writeValueAsString(diagnosisData.getPoseReference()))
-                    .rehabilitationVideos(objectMapper.writeValueAsString(diagnosisData.getRehabilitationVideos()))
-                    .build();
+            IssueAnalysisRecordDTO.CreateRequest createRequest = buildCreateRequest(request, diagnosisData);
+            ApiResponse<IssueAnalysisRecordDTO.ApiResponse> saveResponse = pipeline.stage(AnalysisMetrics.STAGE_PERSIST,
+                    () -> issueAnalysisRecordService.createRecordWithParsedResults(createRequest),
+                    response -> "SUCCESS".equals(response.getResult()));
             
-            ApiResponse<IssueAnalysisRecordDTO.ApiResponse> saveResponse =
-                    issueAnalysisRecordService.createRecordWithParsedResults(createRequest);
-            
-            if (!"SUCCESS".equals(saveResponse.getResult())) {
-                log.error("保存症状分析记录失败: {}", saveResponse.getMessage());
-                return ResponseEntity.ok(ApiResponse.error("症状分析完成但保存失败: " + saveResponse.getMessage()));
-            }
-
-            log.info("症状分析完成并保存成功: recordId={}, 诊断结果: {}, 风险等级: {}",
-                    saveResponse.getData().getId(), 
-                    saveResponse.getData().getPrimaryDiagnosis(),
-                    saveResponse.getData().getRiskLevel());
-
-            return ResponseEntity.ok(ApiResponse.success("症状分析完成", saveResponse.getData()));
+            return ResponseEntity.ok(toAnalyzeResult(pipeline, saveResponse));
             
         } catch (Exception e) {
+            pipeline.error();
             log.error("姿态分析失败", e);
             return ResponseEntity.ok(ApiResponse.error("姿态分析失败: " + e.getMessage()));
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * 症状分析接口（非阻塞）
+     * 与 /analyze 流程和返回结构相同，等待AI工作流期间不占用请求线程，
+     * 保存记录在有界线程池 analysisPersistScheduler 中执行
+     */
+    @PostMapping("/analyze/reactive")
+    public Mono<ResponseEntity<ApiResponse<IssueAnalysisRecordDTO.ApiResponse>>> processIssueAnalysisReactive(
+            @RequestBody @Valid IssueAnalysisRequest request) {
+
+        log.info("接收到症状分析请求（非阻塞）: bodyParts={}, sport={}, posture={}",
+                request.getBodyParts(), request.getSport(), request.getPosture());
+
+        UsageDTO.QuotaDecision quota = usageAccountingService.checkQuota(usernameOf(request));
+        if (!quota.isAllowed()) {
+            return Mono.just(quotaRejected(quota));
+        }
+
+        return userAdmission.admit(usernameOf(request), () -> {
+            AnalysisMetrics.Pipeline pipeline = analysisMetrics.start(AnalysisMetrics.WORKFLOW_ISSUE, request.getSport());
+            AiWorkflowIssueRequest aiRequest = buildWorkflowRequest(request);
+            return pipeline.reactiveStage(AnalysisMetrics.STAGE_WORKFLOW_CALL,
+                            () -> reactiveAiWorkflowService.callIssueAnalysisWorkflow(aiRequest))
+                    .doOnNext(aiResponse -> recordUsage(request, aiResponse))
+                    .flatMap(aiResponse -> pipeline.reactiveStage(AnalysisMetrics.STAGE_PARSE,
+                            () -> Mono.fromCallable(() -> parseDiagnosis(aiResponse))))
+                    .flatMap(diagnosisData -> Mono.fromCallable(() -> buildCreateRequest(request, diagnosisData)))
+                    .flatMap(createRequest -> pipeline.blockingStage(AnalysisMetrics.STAGE_PERSIST, analysisPersistScheduler,
+                            () -> issueAnalysisRecordService.createRecordWithParsedResults(createRequest),
+                            response -> "SUCCESS".equals(response.getResult())))
+                    .map(saveResponse -> ResponseEntity.ok(toAnalyzeResult(pipeline, saveResponse)))
+                    .onErrorResume(e -> {
+                        pipeline.error();
+                        log.error("症状分析失败", e);
+                        return Mono.just(ResponseEntity.ok(ApiResponse.error("症状分析失败: " + e.getMessage())));
+                    });
+        });
+    }
+
+    /**
+     * 构建AI工作流请求
+     */
+    private AiWorkflowIssueRequest buildWorkflowRequest(IssueAnalysisRequest request) {
+        AiWorkflowIssueRequest.ParamJson paramJson = AiWorkflowIssueRequest.ParamJson.builder()
+                .bodyParts(request.getBodyParts())
+                .sport(request.getSport())
+                .posture(request.getPosture())
+                .description(request.getDescription())
+                .build();
+
+        return AiWorkflowIssueRequest.builder()
+                .apiCode(aiWorkflowConfig.getIssueAnalysis().getApiCode())
+                .stream(false)
+                .paramJson(paramJson)
+                .build();
+    }
+
+    /**
+     * 解析AI工作流响应为诊断数据
+     */
+    private AiWorkflowIssueResponse.DiagnosisData parseDiagnosis(AiWorkflowIssueResponse aiResponse) {
+        // 解析AI工作流响应
+        AiWorkflowIssueResponse.StructData structData = aiWorkflowService.parseIssueWorkflowResponse(aiResponse);
+
+        // 解析DiagnosisData
+        AiWorkflowIssueResponse.DiagnosisData parsed = aiWorkflowService.parseDiagnosisData(structData);
+
+        // 重新组合数据，将StructData中的poseReference和rehabilitationVideos解析为结构体并设置到DiagnosisData中
+        aiWorkflowService.attachMediaReferences(parsed, structData);
+
+        log.info("症状分析完成，诊断结果: {}, 风险等级: {}, 置信度: {}%, poseReference数量: {}, rehabilitationVideos数量: {}", 
+                parsed.getPrimaryDiagnosis(), 
+                parsed.getRiskLevel(), 
+                parsed.getConfidence(),
+                parsed.getPoseReference() != null ? parsed.getPoseReference().size() : 0,
+                parsed.getRehabilitationVideos() != null ? parsed.getRehabilitationVideos().size() : 0);
+        return parsed;
+    }
+
+    /**
+     * 由诊断数据构建待保存的分析记录
+     */
+    private IssueAnalysisRecordDTO.CreateRequest buildCreateRequest(IssueAnalysisRequest request,
+                                                                    AiWorkflowIssueResponse.DiagnosisData diagnosisData) throws Exception {
+        return IssueAnalysisRecordDTO.CreateRequest.builder()
+                .username(usernameOf(request))
+                .sport(diagnosisData.getSport())
+                .posture(jsonCodec.writeValueAsString(diagnosisData.getPosture()))
+                .riskLevel(diagnosisData.getRiskLevel())
+                .primaryDiagnosis(diagnosisData.getPrimaryDiagnosis())
+                .confidence(diagnosisData.getConfidence())
+                .isNormal(diagnosisData.isNormal())
+                .symptoms(jsonCodec.writeValueAsString(diagnosisData.getSymptoms()))
+                .treatment(jsonCodec.writeValueAsString(diagnosisData.getTreatment()))
+                .poseReference(jsonCodec.writeValueAsString(diagnosisData.getPoseReference()))
+                .rehabilitationVideos(jsonCodec.writeValueAsString(diagnosisData.getRehabilitationVideos()))
+                .build();
+    }
+
+    /**
+     * 请求未带用户名时记为匿名用户
+     */
+    private static String usernameOf(IssueAnalysisRequest request) {
+        return request.getUsername() != null ? request.getUsername() : "anonymous_user";
+    }
+
+    /**
+     * 记录工作流响应中的用量
+     */
+    private void recordUsage(IssueAnalysisRequest request, AiWorkflowIssueResponse aiResponse) {
+        if (aiResponse.getData() != null) {
+            usageAccountingService.record(usernameOf(request), AnalysisMetrics.WORKFLOW_ISSUE,
+                    aiResponse.getData().getUsage(), aiResponse.getData().getUsageMap());
         }
     }
 
+    /**
+     * 用户用量超出配额时返回429，Retry-After 为建议的重试等待秒数
+     */
+    private static <T> ResponseEntity<ApiResponse<T>> quotaRejected(UsageDTO.QuotaDecision quota) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(quota.getRetryAfterSeconds()))
+                .body(ApiResponse.error(quota.getMessage()));
+    }
+
+    /**
+     * 按保存结果生成接口响应并结束流程计时
+     */
+    private ApiResponse<IssueAnalysisRecordDTO.ApiResponse> toAnalyzeResult(AnalysisMetrics.Pipeline pipeline,
+                                                                            ApiResponse<IssueAnalysisRecordDTO.ApiResponse> saveResponse) {
+        if (!"SUCCESS".equals(saveResponse.getResult())) {
+            pipeline.error();
+            log.error("保存症状分析记录失败: {}", saveResponse.getMessage());
+            return ApiResponse.error("症状分析完成但保存失败: " + saveResponse.getMessage());
+        }
+
+        log.info("症状分析完成并保存成功: recordId={}, 诊断结果: {}, 风险等级: {}",
+                saveResponse.getData().getId(), 
+                saveResponse.getData().getPrimaryDiagnosis(),
+                saveResponse.getData().getRiskLevel());
+
+        pipeline.success();
+        return ApiResponse.success("症状分析完成", saveResponse.getData());
+    }
+
+    /**
+     * 根据ID查询症状分析记录详情
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<IssueAnalysisRecordDTO.ApiResponse>> getRecordById(@PathVariable Long id) {
+        log.info("接收到查询症状分析记录详情请求: id={}", id);
+        return ResponseEntity.ok(issueAnalysisRecordService.getRecordById(id));
+    }
+
+    /**
+     * 分页查询用户的症状分析记录列表（摘要）
+     */
+    @GetMapping("/user/{username}")
+    public ResponseEntity<ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>>> getRecordsByUsername(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("接收到查询用户症状分析记录列表请求: username={}, page={}, size={}", username, page, size);
+        return ResponseEntity.ok(issueAnalysisRecordService.getRecordsByUsername(username, page, size));
+    }
+
+    /**
+     * 分页查询异常症状分析记录列表（摘要）
+     */
+    @GetMapping("/abnormal")
+    public ResponseEntity<ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>>> getAbnormalRecords(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("接收到查询异常症状分析记录列表请求: page={}, size={}", page, size);
+        return ResponseEntity.ok(issueAnalysisRecordService.getAbnormalRecords(page, size));
+    }
+
+    /**
+     * 根据风险等级分页查询症状分析记录列表（摘要）
+     */
+    @GetMapping("/risk-level/{riskLevel}")
+    public ResponseEntity<ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>>> getRecordsByRiskLevel(
+            @PathVariable String riskLevel,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("接收到根据风险等级查询症状分析记录列表请求: riskLevel={}, page={}, size={}", riskLevel, page, size);
+        return ResponseEntity.ok(issueAnalysisRecordService.getRecordsByRiskLevel(riskLevel, page, size));
+    }
 }
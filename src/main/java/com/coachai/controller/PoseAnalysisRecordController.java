@@ -1,21 +1,46 @@
 package com.coachai.controller;
 
+import com.coachai.admission.AdmissionRejectedException;
+import com.coachai.admission.UserAdmission;
 import com.coachai.common.ApiResponse;
 import com.coachai.config.AiWorkflowConfig;
+import com.coachai.config.ReactiveAnalysisConfig;
 import com.coachai.dto.*;
+import com.coachai.json.JsonCodec;
+import com.coachai.metrics.AnalysisMetrics;
 import com.coachai.service.AiWorkflowService;
+import com.coachai.service.FileStorageService;
+import com.coachai.service.ModelImageService;
 import com.coachai.service.PoseAnalysisRecordService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.coachai.service.ReactiveAiWorkflowService;
+import com.coachai.service.UsageAccountingService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 import javax.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 姿态分析记录Controller
@@ -26,10 +51,26 @@ import java.util.Map;
 @Slf4j
 public class PoseAnalysisRecordController {
 
+    /**
+     * 批量分析SSE事件名
+     */
+    private static final String BATCH_EVENT_ITEM = "item";
+    private static final String BATCH_EVENT_COMPLETE = "complete";
+    private static final String BATCH_EVENT_ERROR = "error";
+
     private final PoseAnalysisRecordService poseAnalysisRecordService;
     private final AiWorkflowService aiWorkflowService;
+    private final ReactiveAiWorkflowService reactiveAiWorkflowService;
     private final AiWorkflowConfig aiWorkflowConfig;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AnalysisMetrics analysisMetrics;
+    private final Scheduler analysisPersistScheduler;
+    private final Scheduler analysisUploadScheduler;
+    private final FileStorageService fileStorageService;
+    private final ModelImageService modelImageService;
+    private final UsageAccountingService usageAccountingService;
+    private final UserAdmission userAdmission;
+    private final ReactiveAnalysisConfig reactiveAnalysisConfig;
+    private final JsonCodec jsonCodec;
 
 //    {
 //        "imageLink": "https://guli-edu-ydw.oss-cn-beijing.aliyuncs.com/CoachAI/921.JPG",
@@ -50,89 +91,431 @@ public class PoseAnalysisRecordController {
         
         log.info("接收到姿态分析请求: username={}, sport={}, posture={}, imageLink={}", 
                 request.getUsername(), request.getSport(), request.getPosture(), request.getImageLink());
+
+        UsageDTO.QuotaDecision quota = usageAccountingService.checkQuota(request.getUsername());
+        if (!quota.isAllowed()) {
+            return quotaRejected(quota);
+        }
+        UserAdmission.Permit permit = userAdmission.acquire(request.getUsername());
         
+        AnalysisMetrics.Pipeline pipeline = analysisMetrics.start(AnalysisMetrics.WORKFLOW_POSE, request.getSport());
         try {
             // 1. 获取用户上一次的问题列表
-            List<AiWorkflowRequest.LastProblem> lastProblems = 
-                    poseAnalysisRecordService.getLastProblemsForUser(request.getUsername(), request.getPosture());
-
-            log.info("获取用户上一次的问题列表: {}", lastProblems);
-
-            // 2. 将lastProblems转换为前端需要的对象格式
-            AiWorkflowRequest.LastProblemObject lastProblemObject = null;
-            if (lastProblems != null && !lastProblems.isEmpty()) {
-                List<String> problemStrings = lastProblems.stream()
-                        .map(AiWorkflowRequest.LastProblem::getProblem)
-                        .collect(java.util.stream.Collectors.toList());
-                
-                lastProblemObject = AiWorkflowRequest.LastProblemObject.builder()
-                        .problem(problemStrings)
-                        .build();
-                
-                log.info("转换后的lastProblem对象: {}", lastProblemObject);
-            }
-            
+            List<AiWorkflowRequest.LastProblem> lastProblems = pipeline.stage(AnalysisMetrics.STAGE_LAST_PROBLEMS,
+                    () -> poseAnalysisRecordService.getLastProblemsForUser(request.getUsername(), request.getPosture()));
+
+            // 2. 获取按模型输入尺寸缩放的图片
+            String workflowImage = pipeline.stage(AnalysisMetrics.STAGE_MODEL_IMAGE,
+                    () -> modelImageService.resolveWorkflowImage(request.getImageLink()));
+
             // 3. 构建AI工作流请求
-            AiWorkflowRequest.ParamJson paramJson = AiWorkflowRequest.ParamJson.builder()
-                    .username(request.getUsername())
-                    .sport(request.getSport())
-                    .posture(request.getPosture())
-                    .image(request.getImageLink())
-                    .lastProblem(lastProblemObject)
-                    .build();
-            
-            AiWorkflowRequest aiRequest = AiWorkflowRequest.builder()
-                    .apiCode(aiWorkflowConfig.getPoseAnalysis().getApiCode())
-                    .stream(false)
-                    .paramJson(paramJson)
-                    .build();
+            AiWorkflowRequest aiRequest = buildWorkflowRequest(request, workflowImage, lastProblems);
             
             // 4. 调用AI工作流
             log.info("开始调用AI工作流进行姿态分析");
-            AiWorkflowResponse aiResponse = aiWorkflowService.callPoseAnalysisWorkflow(aiRequest);
+            AiWorkflowResponse aiResponse = pipeline.stage(AnalysisMetrics.STAGE_WORKFLOW_CALL,
+                    () -> aiWorkflowService.callPoseAnalysisWorkflow(aiRequest));
+            recordUsage(request.getUsername(), aiResponse);
             
             // 5. 解析AI工作流响应
-            AiWorkflowResponse.FinalMessage finalMessage = aiWorkflowService.parseWorkflowResponse(aiResponse);
-            
-            // 6. 提取图片链接（从解析结果中获取）
-            AiWorkflowResponse.ParsedResult parsedResult = objectMapper.readValue(
-                    aiResponse.getData().getResult(), AiWorkflowResponse.ParsedResult.class);
-            String userPoseImage = parsedResult.getData().getStructData().getUserPoseImage();
-            String referencePoseImage = parsedResult.getData().getStructData().getReferencePoseImage();
-            
-            // 7. 将结果存储到数据库
-            PoseAnalysisRecordDTO.CreateRequest createRequest = PoseAnalysisRecordDTO.CreateRequest.builder()
-                    .username(request.getUsername())
-                    .sport(request.getSport())
-                    .posture(request.getPosture())
-                    .userPoseImage(userPoseImage != null ? userPoseImage : request.getImageLink())
-                    .referencePoseImage(referencePoseImage != null ? referencePoseImage : request.getImageLink())
-                    .analysisResults(objectMapper.writeValueAsString(finalMessage.getAnalysisResults()))
-                    .improvementResults(objectMapper.writeValueAsString(finalMessage.getImprovementResults()))
-                    .build();
+            AiWorkflowResponse.FinalMessage finalMessage = pipeline.stage(AnalysisMetrics.STAGE_PARSE,
+                    () -> aiWorkflowService.parseWorkflowResponse(aiResponse));
             
-            ApiResponse<PoseAnalysisRecordDTO.ApiResponse> saveResponse = 
-                    poseAnalysisRecordService.createRecordWithParsedResults(createRequest);
+            // 6~7. 将结果存储到数据库
+            PoseAnalysisRecordDTO.CreateRequest createRequest = buildCreateRequest(request, aiResponse, finalMessage);
+            ApiResponse<PoseAnalysisRecordDTO.ApiResponse> saveResponse = pipeline.stage(AnalysisMetrics.STAGE_PERSIST,
+                    () -> poseAnalysisRecordService.createRecordWithParsedResults(createRequest),
+                    response -> "SUCCESS".equals(response.getResult()));
             
-            if (!"SUCCESS".equals(saveResponse.getResult())) {
-                log.error("保存姿态分析记录失败: {}", saveResponse.getMessage());
-                return ResponseEntity.ok(ApiResponse.error("姿态分析完成但保存失败: " + saveResponse.getMessage()));
-            }
-            
-            log.info("姿态分析完成并保存成功: recordId={}, overallScore={}, analysisResults数量={}, improvementResults数量={}", 
-                    saveResponse.getData().getId(), finalMessage.getOverallScore(),
-                    saveResponse.getData().getAnalysisResults().size(),
-                    saveResponse.getData().getImprovementResults().size());
-            saveResponse.getData().setOverallScore(finalMessage.getOverallScore());
-            
-            return ResponseEntity.ok(ApiResponse.success("姿态分析完成", saveResponse.getData()));
+            return ResponseEntity.ok(toAnalyzeResult(pipeline, saveResponse, finalMessage));
             
         } catch (Exception e) {
+            pipeline.error();
             log.error("姿态分析失败", e);
             return ResponseEntity.ok(ApiResponse.error("姿态分析失败: " + e.getMessage()));
+        } finally {
+            permit.release();
         }
     }
 
+    /**
+     * 姿态分析接口（非阻塞）
+     * 与 /analyze 流程和返回结构相同，等待AI工作流期间不占用请求线程，
+     * 查询上次问题和保存记录在有界线程池 analysisPersistScheduler 中执行
+     *
+     * @param request 姿态分析请求，包含imageLink、username、sport、posture
+     * @return 姿态分析结果
+     */
+    @PostMapping("/analyze/reactive")
+    public Mono<ResponseEntity<ApiResponse<PoseAnalysisRecordDTO.ApiResponse>>> processPoseAnalysisReactive(
+            @RequestBody @Valid PoseAnalysisRequest request) {
+
+        log.info("接收到姿态分析请求（非阻塞）: username={}, sport={}, posture={}, imageLink={}",
+                request.getUsername(), request.getSport(), request.getPosture(), request.getImageLink());
+
+        UsageDTO.QuotaDecision quota = usageAccountingService.checkQuota(request.getUsername());
+        if (!quota.isAllowed()) {
+            return Mono.just(quotaRejected(quota));
+        }
+
+        return userAdmission.admit(request.getUsername(), () -> {
+            AnalysisMetrics.Pipeline pipeline = analysisMetrics.start(AnalysisMetrics.WORKFLOW_POSE, request.getSport());
+            Mono<String> workflowImage = pipeline.blockingStage(AnalysisMetrics.STAGE_MODEL_IMAGE, analysisUploadScheduler,
+                    () -> modelImageService.resolveWorkflowImage(request.getImageLink()));
+            Mono<List<AiWorkflowRequest.LastProblem>> lastProblems = pipeline.blockingStage(
+                    AnalysisMetrics.STAGE_LAST_PROBLEMS, analysisPersistScheduler,
+                    () -> poseAnalysisRecordService.getLastProblemsForUser(request.getUsername(), request.getPosture()));
+            return Mono.zip(workflowImage, lastProblems)
+                    .flatMap(prepared -> analyzeReactive(pipeline, request,
+                            buildWorkflowRequest(request, prepared.getT1(), prepared.getT2())))
+                    .map(ResponseEntity::ok)
+                    .onErrorResume(e -> {
+                        pipeline.error();
+                        log.error("姿态分析失败", e);
+                        return Mono.just(ResponseEntity.ok(ApiResponse.error("姿态分析失败: " + e.getMessage())));
+                    });
+        });
+    }
+
+    /**
+     * 上传并分析接口
+     * 一次请求完成图片上传和姿态分析，省去客户端先上传图片再调用 /analyze 的一次往返。
+     * 图片上传（含压缩）与上次问题查询并行执行，上传完成后由上传内容生成模型输入图片，
+     * 以其预签名URL调用AI工作流（私有Bucket同样可读），
+     * 保存的记录和返回的 fileUrl 使用上传后的访问URL
+     *
+     * @param file     图片文件
+     * @param username 用户名
+     * @param sport    运动类型
+     * @param posture  姿势
+     * @return 图片访问URL和姿态分析结果
+     */
+    @PostMapping(value = "/analyze/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<ApiResponse<PoseAnalysisRecordDTO.UploadAnalysisResult>>> processPoseAnalysisUpload(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("username") String username,
+            @RequestParam("sport") String sport,
+            @RequestParam("posture") String posture) {
+
+        log.info("接收到上传并分析请求: username={}, sport={}, posture={}, fileName={}, size={}",
+                username, sport, posture, file.getOriginalFilename(), file.getSize());
+
+        if (file.isEmpty()) {
+            return Mono.just(ResponseEntity.ok(ApiResponse.error("文件不能为空")));
+        }
+        if (!StringUtils.hasText(username) || !StringUtils.hasText(sport) || !StringUtils.hasText(posture)) {
+            return Mono.just(ResponseEntity.ok(ApiResponse.error("用户名、运动类型和姿势不能为空")));
+        }
+        UsageDTO.QuotaDecision quota = usageAccountingService.checkQuota(username);
+        if (!quota.isAllowed()) {
+            return Mono.just(quotaRejected(quota));
+        }
+
+        return userAdmission.admit(username, () -> {
+            AnalysisMetrics.Pipeline pipeline = analysisMetrics.start(AnalysisMetrics.WORKFLOW_POSE, sport);
+            Mono<String> upload = pipeline.blockingStage(AnalysisMetrics.STAGE_UPLOAD, analysisUploadScheduler,
+                    () -> fileStorageService.uploadImageObject(file));
+            Mono<Tuple2<String, String>> uploadedImage = upload.flatMap(objectName -> pipeline.blockingStage(
+                    AnalysisMetrics.STAGE_MODEL_IMAGE, analysisUploadScheduler,
+                    () -> Tuples.of(objectName, modelImageService.prepareWorkflowImage(objectName, file.getBytes()))));
+            Mono<List<AiWorkflowRequest.LastProblem>> lastProblems = pipeline.blockingStage(
+                    AnalysisMetrics.STAGE_LAST_PROBLEMS, analysisPersistScheduler,
+                    () -> poseAnalysisRecordService.getLastProblemsForUser(username, posture));
+
+            return Mono.zip(uploadedImage, lastProblems)
+                    .flatMap(uploaded -> {
+                        String fileUrl = fileStorageService.getFileUrl(uploaded.getT1().getT1());
+                        PoseAnalysisRequest request = PoseAnalysisRequest.builder()
+                                .imageLink(fileUrl)
+                                .username(username)
+                                .sport(sport)
+                                .posture(posture)
+                                .build();
+                        return analyzeReactive(pipeline, request,
+                                buildWorkflowRequest(request, uploaded.getT1().getT2(), uploaded.getT2()))
+                                .map(result -> {
+                                    PoseAnalysisRecordDTO.UploadAnalysisResult data = PoseAnalysisRecordDTO.UploadAnalysisResult.builder()
+                                            .fileUrl(fileUrl)
+                                            .record(result.getData())
+                                            .build();
+                                    return "SUCCESS".equals(result.getResult())
+                                            ? ApiResponse.success(result.getMessage(), data)
+                                            : ApiResponse.error(result.getMessage(), data);
+                                });
+                    })
+                    .map(ResponseEntity::ok)
+                    .onErrorResume(e -> {
+                        pipeline.error();
+                        log.error("上传并分析失败", e);
+                        return Mono.just(ResponseEntity.ok(ApiResponse.error("上传并分析失败: " + e.getMessage())));
+                    });
+        });
+    }
+
+    /**
+     * 非阻塞调用工作流、解析并保存记录，返回接口响应并结束流程计时
+     * request 中的图片链接作为记录的默认图片，aiRequest 为已构建好的工作流请求
+     */
+    private Mono<ApiResponse<PoseAnalysisRecordDTO.ApiResponse>> analyzeReactive(AnalysisMetrics.Pipeline pipeline,
+                                                                               PoseAnalysisRequest request,
+                                                                               AiWorkflowRequest aiRequest) {
+        return pipeline.reactiveStage(AnalysisMetrics.STAGE_WORKFLOW_CALL,
+                        () -> reactiveAiWorkflowService.callPoseAnalysisWorkflow(aiRequest))
+                .doOnNext(aiResponse -> recordUsage(request.getUsername(), aiResponse))
+                .flatMap(aiResponse -> pipeline.reactiveStage(AnalysisMetrics.STAGE_PARSE,
+                                () -> Mono.fromCallable(() -> aiWorkflowService.parseWorkflowResponse(aiResponse)))
+                        .flatMap(finalMessage -> Mono.fromCallable(() -> buildCreateRequest(request, aiResponse, finalMessage))
+                                .flatMap(createRequest -> pipeline.blockingStage(AnalysisMetrics.STAGE_PERSIST, analysisPersistScheduler,
+                                        () -> poseAnalysisRecordService.createRecordWithParsedResults(createRequest),
+                                        response -> "SUCCESS".equals(response.getResult())))
+                                .map(saveResponse -> toAnalyzeResult(pipeline, saveResponse, finalMessage))));
+    }
+
+    /**
+     * 批量姿态分析接口
+     * 同一用户、同一姿势的多张图片共用一次上次问题查询，工作流调用按 analysis.reactive.batch.parallelism 并行，
+     * 每张图片分析完成即推送一个 item 事件（按完成顺序，data.index 为图片序号），单张失败不影响其他图片；
+     * 全部完成后在一个事务中保存成功的记录，推送 complete 事件返回汇总
+     *
+     * @param request 批量姿态分析请求，包含imageLinks、username、sport、posture
+     * @return SSE事件流
+     */
+    @PostMapping(value = "/analyze/batch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ApiResponse<?>>> processPoseAnalysisBatch(
+            @RequestBody @Valid PoseAnalysisBatchRequest request) {
+
+        int total = request.getImageLinks().size();
+        log.info("接收到批量姿态分析请求: username={}, sport={}, posture={}, 图片数={}",
+                request.getUsername(), request.getSport(), request.getPosture(), total);
+
+        ReactiveAnalysisConfig.BatchConfig batchConfig = reactiveAnalysisConfig.getBatch();
+        if (total > batchConfig.getMaxImages()) {
+            return Flux.just(batchEvent(BATCH_EVENT_ERROR,
+                    ApiResponse.error("单次最多分析" + batchConfig.getMaxImages() + "张图片")));
+        }
+        UsageDTO.QuotaDecision quota = usageAccountingService.checkQuota(request.getUsername());
+        if (!quota.isAllowed()) {
+            return Flux.just(batchEvent(BATCH_EVENT_ERROR, ApiResponse.error(quota.getMessage())));
+        }
+
+        return userAdmission.admitMany(request.getUsername(), () -> {
+            AnalysisMetrics.Pipeline pipeline = analysisMetrics.start(AnalysisMetrics.WORKFLOW_POSE_BATCH, request.getSport());
+            List<BatchItem> finished = Collections.synchronizedList(new ArrayList<>());
+            return pipeline.blockingStage(AnalysisMetrics.STAGE_LAST_PROBLEMS, analysisPersistScheduler,
+                            () -> poseAnalysisRecordService.getLastProblemsForUser(request.getUsername(), request.getPosture()))
+                    .flatMapMany(lastProblems -> Flux.range(0, total)
+                            .flatMap(index -> analyzeBatchItem(pipeline, request, index, lastProblems),
+                                    batchConfig.getParallelism()))
+                    .doOnNext(finished::add)
+                    .map(item -> batchEvent(BATCH_EVENT_ITEM, item.toApiResponse()))
+                    .concatWith(Mono.defer(() -> persistBatch(pipeline, total, finished)))
+                    .onErrorResume(e -> {
+                        pipeline.error();
+                        log.error("批量姿态分析失败", e);
+                        return Mono.just(batchEvent(BATCH_EVENT_ERROR, ApiResponse.error("批量姿态分析失败: " + e.getMessage())));
+                    });
+        }).onErrorResume(AdmissionRejectedException.class,
+                e -> Mono.just(batchEvent(BATCH_EVENT_ERROR, ApiResponse.error(e.getMessage()))));
+    }
+
+    /**
+     * 分析批量请求中的一张图片，失败时转为失败项而不是中断整个批次
+     */
+    private Mono<BatchItem> analyzeBatchItem(AnalysisMetrics.Pipeline pipeline,
+                                             PoseAnalysisBatchRequest batchRequest,
+                                             int index,
+                                             List<AiWorkflowRequest.LastProblem> lastProblems) {
+        PoseAnalysisRequest request = PoseAnalysisRequest.builder()
+                .imageLink(batchRequest.getImageLinks().get(index))
+                .username(batchRequest.getUsername())
+                .sport(batchRequest.getSport())
+                .posture(batchRequest.getPosture())
+                .build();
+        return pipeline.blockingStage(AnalysisMetrics.STAGE_MODEL_IMAGE, analysisUploadScheduler,
+                        () -> modelImageService.resolveWorkflowImage(request.getImageLink()))
+                .flatMap(workflowImage -> pipeline.reactiveStage(AnalysisMetrics.STAGE_WORKFLOW_CALL,
+                        () -> reactiveAiWorkflowService.callPoseAnalysisWorkflow(
+                                buildWorkflowRequest(request, workflowImage, lastProblems))))
+                .doOnNext(aiResponse -> recordUsage(request.getUsername(), aiResponse))
+                .flatMap(aiResponse -> pipeline.reactiveStage(AnalysisMetrics.STAGE_PARSE,
+                        () -> Mono.fromCallable(() -> {
+                            AiWorkflowResponse.FinalMessage finalMessage = aiWorkflowService.parseWorkflowResponse(aiResponse);
+                            return BatchItem.succeeded(index, request.getImageLink(),
+                                    buildCreateRequest(request, aiResponse, finalMessage), finalMessage);
+                        })))
+                .onErrorResume(e -> {
+                    log.warn("批量姿态分析第{}张图片失败: {}", index, e.getMessage());
+                    return Mono.just(BatchItem.failed(index, request.getImageLink(), e.getMessage()));
+                });
+    }
+
+    /**
+     * 在一个事务中保存批量分析成功的记录，生成 complete 事件并结束流程计时
+     * 有图片分析失败时流程结果记为 error，已成功的记录仍会保存
+     */
+    private Mono<ServerSentEvent<ApiResponse<?>>> persistBatch(AnalysisMetrics.Pipeline pipeline,
+                                                               int total,
+                                                               List<BatchItem> finished) {
+        List<BatchItem> succeeded;
+        List<Integer> failedIndexes;
+        synchronized (finished) {
+            succeeded = finished.stream()
+                    .filter(BatchItem::isSuccess)
+                    .sorted(Comparator.comparingInt(BatchItem::getIndex))
+                    .collect(Collectors.toList());
+            failedIndexes = finished.stream()
+                    .filter(item -> !item.isSuccess())
+                    .map(BatchItem::getIndex)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        PoseAnalysisRecordDTO.BatchResult.BatchResultBuilder result = PoseAnalysisRecordDTO.BatchResult.builder()
+                .total(total)
+                .succeeded(succeeded.size())
+                .failed(failedIndexes.size())
+                .failedIndexes(failedIndexes);
+        if (succeeded.isEmpty()) {
+            pipeline.error();
+            return Mono.just(batchEvent(BATCH_EVENT_COMPLETE,
+                    ApiResponse.error("批量姿态分析全部失败", result.records(Collections.emptyList()).build())));
+        }
+
+        List<PoseAnalysisRecordDTO.CreateRequest> createRequests = succeeded.stream()
+                .map(BatchItem::getCreateRequest)
+                .collect(Collectors.toList());
+        return pipeline.blockingStage(AnalysisMetrics.STAGE_PERSIST, analysisPersistScheduler,
+                        () -> poseAnalysisRecordService.createRecordsWithParsedResults(createRequests),
+                        response -> "SUCCESS".equals(response.getResult()))
+                .map(saveResponse -> {
+                    if (!"SUCCESS".equals(saveResponse.getResult())) {
+                        pipeline.error();
+                        log.error("保存批量姿态分析记录失败: {}", saveResponse.getMessage());
+                        return batchEvent(BATCH_EVENT_COMPLETE,
+                                ApiResponse.error("批量姿态分析完成但保存失败: " + saveResponse.getMessage(),
+                                        result.records(Collections.emptyList()).build()));
+                    }
+
+                    log.info("批量姿态分析完成并保存成功: 图片数={}, 成功={}, 失败={}",
+                            total, succeeded.size(), failedIndexes.size());
+                    if (failedIndexes.isEmpty()) {
+                        pipeline.success();
+                    } else {
+                        pipeline.error();
+                    }
+                    return batchEvent(BATCH_EVENT_COMPLETE,
+                            ApiResponse.success("批量姿态分析完成", result.records(saveResponse.getData()).build()));
+                });
+    }
+
+    /**
+     * 记录工作流响应中的用量
+     */
+    private void recordUsage(String username, AiWorkflowResponse aiResponse) {
+        if (aiResponse.getData() != null) {
+            usageAccountingService.record(username, AnalysisMetrics.WORKFLOW_POSE,
+                    aiResponse.getData().getUsage(), aiResponse.getData().getUsageMap());
+        }
+    }
+
+    /**
+     * 用户用量超出配额时返回429，Retry-After 为建议的重试等待秒数
+     */
+    private static <T> ResponseEntity<ApiResponse<T>> quotaRejected(UsageDTO.QuotaDecision quota) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(quota.getRetryAfterSeconds()))
+                .body(ApiResponse.error(quota.getMessage()));
+    }
+
+    private static ServerSentEvent<ApiResponse<?>> batchEvent(String event, ApiResponse<?> data) {
+        return ServerSentEvent.<ApiResponse<?>>builder()
+                .event(event)
+                .data(data)
+                .build();
+    }
+
+    /**
+     * 以用户上一次的问题列表构建AI工作流请求，workflowImage 为工作流读取的图片链接
+     */
+    private AiWorkflowRequest buildWorkflowRequest(PoseAnalysisRequest request,
+                                                   String workflowImage,
+                                                   List<AiWorkflowRequest.LastProblem> lastProblems) {
+        log.info("获取用户上一次的问题列表: {}", lastProblems);
+
+        // 将lastProblems转换为前端需要的对象格式
+        AiWorkflowRequest.LastProblemObject lastProblemObject = null;
+        if (lastProblems != null && !lastProblems.isEmpty()) {
+            List<String> problemStrings = lastProblems.stream()
+                    .map(AiWorkflowRequest.LastProblem::getProblem)
+                    .collect(java.util.stream.Collectors.toList());
+
+            lastProblemObject = AiWorkflowRequest.LastProblemObject.builder()
+                    .problem(problemStrings)
+                    .build();
+
+            log.info("转换后的lastProblem对象: {}", lastProblemObject);
+        }
+
+        AiWorkflowRequest.ParamJson paramJson = AiWorkflowRequest.ParamJson.builder()
+                .username(request.getUsername())
+                .sport(request.getSport())
+                .posture(request.getPosture())
+                .image(workflowImage)
+                .lastProblem(lastProblemObject)
+                .build();
+
+        return AiWorkflowRequest.builder()
+                .apiCode(aiWorkflowConfig.getPoseAnalysis().getApiCode())
+                .stream(false)
+                .paramJson(paramJson)
+                .build();
+    }
+
+    /**
+     * 由工作流结果构建待保存的分析记录
+     */
+    private PoseAnalysisRecordDTO.CreateRequest buildCreateRequest(PoseAnalysisRequest request,
+                                                                   AiWorkflowResponse aiResponse,
+                                                                   AiWorkflowResponse.FinalMessage finalMessage) throws Exception {
+        // 提取图片链接（从解析结果中获取）
+        AiWorkflowResponse.ParsedResult parsedResult = jsonCodec.readValue(
+                aiResponse.getData().getResult(), AiWorkflowResponse.ParsedResult.class);
+        String userPoseImage = parsedResult.getData().getStructData().getUserPoseImage();
+        String referencePoseImage = parsedResult.getData().getStructData().getReferencePoseImage();
+
+        return PoseAnalysisRecordDTO.CreateRequest.builder()
+                .username(request.getUsername())
+                .sport(request.getSport())
+                .posture(request.getPosture())
+                .userPoseImage(userPoseImage != null ? userPoseImage : request.getImageLink())
+                .referencePoseImage(referencePoseImage != null ? referencePoseImage : request.getImageLink())
+                .analysisResults(jsonCodec.writeValueAsString(finalMessage.getAnalysisResults()))
+                .improvementResults(jsonCodec.writeValueAsString(finalMessage.getImprovementResults()))
+                .overallScore(finalMessage.getOverallScore())
+                .build();
+    }
+
+    /**
+     * 按保存结果生成接口响应并结束流程计时
+     */
+    private ApiResponse<PoseAnalysisRecordDTO.ApiResponse> toAnalyzeResult(AnalysisMetrics.Pipeline pipeline,
+                                                                           ApiResponse<PoseAnalysisRecordDTO.ApiResponse> saveResponse,
+                                                                           AiWorkflowResponse.FinalMessage finalMessage) {
+        if (!"SUCCESS".equals(saveResponse.getResult())) {
+            pipeline.error();
+            log.error("保存姿态分析记录失败: {}", saveResponse.getMessage());
+            return ApiResponse.error("姿态分析完成但保存失败: " + saveResponse.getMessage());
+        }
+
+        log.info("姿态分析完成并保存成功: recordId={}, overallScore={}, analysisResults数量={}, improvementResults数量={}", 
+                saveResponse.getData().getId(), finalMessage.getOverallScore(),
+                saveResponse.getData().getAnalysisResults().size(),
+                saveResponse.getData().getImprovementResults().size());
+
+        pipeline.success();
+        return ApiResponse.success("姿态分析完成", saveResponse.getData());
+    }
+
     /**
      * 创建姿态分析记录
      */
@@ -169,4 +552,50 @@ public class PoseAnalysisRecordController {
         response.put("timestamp", LocalDateTime.now());
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * 批量分析中单张图片的中间结果，成功时携带待保存的记录
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class BatchItem {
+        private final int index;
+        private final String imageLink;
+        private final PoseAnalysisRecordDTO.CreateRequest createRequest;
+        private final AiWorkflowResponse.FinalMessage finalMessage;
+        private final String errorMessage;
+
+        static BatchItem succeeded(int index, String imageLink,
+                                   PoseAnalysisRecordDTO.CreateRequest createRequest,
+                                   AiWorkflowResponse.FinalMessage finalMessage) {
+            return new BatchItem(index, imageLink, createRequest, finalMessage, null);
+        }
+
+        static BatchItem failed(int index, String imageLink, String errorMessage) {
+            return new BatchItem(index, imageLink, null, null, errorMessage);
+        }
+
+        boolean isSuccess() {
+            return createRequest != null;
+        }
+
+        ApiResponse<PoseAnalysisRecordDTO.BatchItemResult> toApiResponse() {
+            if (!isSuccess()) {
+                return ApiResponse.error("第" + index + "张图片分析失败: " + errorMessage,
+                        PoseAnalysisRecordDTO.BatchItemResult.builder()
+                                .index(index)
+                                .imageLink(imageLink)
+                                .build());
+            }
+            return ApiResponse.success("图片分析完成", PoseAnalysisRecordDTO.BatchItemResult.builder()
+                    .index(index)
+                    .imageLink(imageLink)
+                    .userPoseImage(createRequest.getUserPoseImage())
+                    .referencePoseImage(createRequest.getReferencePoseImage())
+                    .analysisResults(finalMessage.getAnalysisResults())
+                    .improvementResults(finalMessage.getImprovementResults())
+                    .overallScore(finalMessage.getOverallScore())
+                    .build());
+        }
+    }
 }
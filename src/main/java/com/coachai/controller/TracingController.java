@@ -0,0 +1,102 @@
+package com.coachai.controller;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.tracing.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 链路查询Controller
+ * 仅在 tracing.exporter=memory 时启用，查看内存导出器中保留的链路（本地测试及压测环境）
+ */
+@RestController
+@RequestMapping("/internal/traces")
+@ConditionalOnProperty(prefix = "tracing", name = "exporter", havingValue = "memory")
+@RequiredArgsConstructor
+@Slf4j
+public class TracingController {
+
+    private final InMemorySpanExporter inMemorySpanExporter;
+
+    /**
+     * 最近的链路，按根Span耗时过滤
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> recentTraces(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "0") long minDurationMs) {
+        try {
+            List<Map<String, Object>> traces = new ArrayList<>();
+            for (Map.Entry<String, List<SpanData>> entry : inMemorySpanExporter.getTraces().entrySet()) {
+                if (traces.size() >= limit) {
+                    break;
+                }
+                SpanData root = entry.getValue().stream()
+                        .filter(span -> !span.getParentSpanContext().isValid() || span.getParentSpanContext().isRemote())
+                        .findFirst()
+                        .orElse(null);
+                if (root == null || durationMs(root) < minDurationMs) {
+                    continue;
+                }
+                Map<String, Object> trace = new LinkedHashMap<>();
+                trace.put("traceId", entry.getKey());
+                trace.put("name", root.getName());
+                trace.put("durationMs", durationMs(root));
+                trace.put("status", root.getStatus().getStatusCode().name());
+                trace.put("spanCount", entry.getValue().size());
+                traces.add(trace);
+            }
+            return ResponseEntity.ok(ApiResponse.success(traces));
+        } catch (Exception e) {
+            log.error("查询链路失败", e);
+            return ResponseEntity.ok(ApiResponse.error("查询链路失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 指定链路的全部Span，按开始时间排序
+     */
+    @GetMapping("/{traceId}")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getTrace(@PathVariable String traceId) {
+        try {
+            List<SpanData> spans = inMemorySpanExporter.getTrace(traceId);
+            if (spans.isEmpty()) {
+                return ResponseEntity.ok(ApiResponse.error("链路不存在: " + traceId));
+            }
+            long traceStart = spans.get(0).getStartEpochNanos();
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (SpanData span : spans) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("spanId", span.getSpanId());
+                item.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+                item.put("name", span.getName());
+                item.put("kind", span.getKind().name());
+                item.put("offsetMs", TimeUnit.NANOSECONDS.toMillis(span.getStartEpochNanos() - traceStart));
+                item.put("durationMs", durationMs(span));
+                item.put("status", span.getStatus().getStatusCode().name());
+                Map<String, Object> attributes = new LinkedHashMap<>();
+                span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+                item.put("attributes", attributes);
+                result.add(item);
+            }
+            return ResponseEntity.ok(ApiResponse.success(result));
+        } catch (Exception e) {
+            log.error("查询链路失败: {}", traceId, e);
+            return ResponseEntity.ok(ApiResponse.error("查询链路失败: " + e.getMessage()));
+        }
+    }
+
+    private static long durationMs(SpanData span) {
+        return TimeUnit.NANOSECONDS.toMillis(span.getEndEpochNanos() - span.getStartEpochNanos());
+    }
+}
@@ -0,0 +1,37 @@
+package com.coachai.controller;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.dto.UsageDTO;
+import com.coachai.service.UsageAccountingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * AI工作流用量Controller
+ */
+@RestController
+@RequestMapping("/usage")
+@RequiredArgsConstructor
+@Slf4j
+public class UsageController {
+
+    private final UsageAccountingService usageAccountingService;
+
+    /**
+     * 查询用户最近若干天的用量及当日配额
+     */
+    @GetMapping("/users/{username}")
+    public ResponseEntity<ApiResponse<UsageDTO.UserUsage>> getUserUsage(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "7") int days) {
+        log.info("接收到查询用户用量请求: username={}, days={}", username, days);
+        try {
+            return ResponseEntity.ok(usageAccountingService.getUserUsage(username, days));
+        } catch (Exception e) {
+            log.error("查询用户用量失败: username={}", username, e);
+            return ResponseEntity.ok(ApiResponse.error("查询用户用量失败: " + e.getMessage()));
+        }
+    }
+}
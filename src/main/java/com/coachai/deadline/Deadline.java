@@ -0,0 +1,107 @@
+package com.coachai.deadline;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.ImplicitContextKeyed;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+/**
+ * 请求截止时间
+ * 由 {@link DeadlineFilter} 按请求头或接口默认值创建，随 OpenTelemetry Context 传递，
+ * 与追踪上下文一样跟随分析流程进入调度器线程和 Reactor 线程。
+ * 客户端断开或异步请求超时时被取消，取消后视同已超时。
+ */
+public final class Deadline implements ImplicitContextKeyed {
+
+    private static final ContextKey<Deadline> KEY = ContextKey.named("coachai-deadline");
+
+    private final long expiresAtNanos;
+    private final Sinks.Empty<Void> cancellation = Sinks.empty();
+    private volatile String cancelReason;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * 从现在起 timeout 后到期
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * 当前上下文中的截止时间，未设置时返回 null
+     */
+    public static Deadline current() {
+        return fromContext(Context.current());
+    }
+
+    public static Deadline fromContext(Context context) {
+        return context.get(KEY);
+    }
+
+    @Override
+    public Context storeInContext(Context context) {
+        return context.with(KEY, this);
+    }
+
+    /**
+     * 剩余时间，已到期或已取消时为0
+     */
+    public Duration remaining() {
+        if (cancelReason != null) {
+            return Duration.ZERO;
+        }
+        long remaining = expiresAtNanos - System.nanoTime();
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    public boolean isExpired() {
+        return remaining().isZero();
+    }
+
+    /**
+     * 可分配给一次下游调用的时间：剩余时间扣除为后续阶段预留的部分，且不超过 max；可能为0
+     */
+    public Duration budget(Duration reserve, Duration max) {
+        Duration budget = remaining().minus(reserve);
+        if (budget.isNegative()) {
+            return Duration.ZERO;
+        }
+        return budget.compareTo(max) < 0 ? budget : max;
+    }
+
+    /**
+     * 已到期或已取消时抛出 {@link DeadlineExceededException}
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            throw exceeded(stage);
+        }
+    }
+
+    public DeadlineExceededException exceeded(String stage) {
+        return new DeadlineExceededException(stage, cancelReason);
+    }
+
+    /**
+     * 取消，进行中的非阻塞下游调用随之取消，后续阶段不再执行
+     */
+    public void cancel(String reason) {
+        if (cancelReason == null) {
+            cancelReason = reason;
+            cancellation.tryEmitEmpty();
+        }
+    }
+
+    /**
+     * 取消时完成的信号
+     */
+    public Mono<Void> cancelled() {
+        return cancellation.asMono();
+    }
+}
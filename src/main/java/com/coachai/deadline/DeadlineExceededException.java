@@ -0,0 +1,18 @@
+package com.coachai.deadline;
+
+/**
+ * 请求已超过截止时间（或客户端已断开），剩余阶段不再执行
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage, String cancelReason) {
+        super("请求已超过截止时间，未完成阶段: " + stage + (cancelReason != null ? "（" + cancelReason + "）" : ""));
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
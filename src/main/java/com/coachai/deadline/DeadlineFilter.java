@@ -0,0 +1,112 @@
+package com.coachai.deadline;
+
+import com.coachai.config.DeadlineConfig;
+import io.opentelemetry.context.Scope;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 为请求设置截止时间
+ * 截止时间放入当前上下文，分析流程各阶段开始前检查，工作流调用的超时按剩余时间收紧；
+ * 异步请求（返回 Mono/Flux 的接口）在客户端断开或超时时取消截止时间，进行中的工作流调用随之取消
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final DeadlineConfig deadlineConfig;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !deadlineConfig.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Long timeoutMs = resolveTimeout(request);
+        if (timeoutMs == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Deadline deadline = Deadline.after(Duration.ofMillis(timeoutMs));
+        try (Scope ignored = deadline.makeCurrent()) {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new DeadlineCancellingListener(deadline));
+            }
+        }
+    }
+
+    /**
+     * 请求头优先（不超过上限），否则取第一个匹配的接口默认值
+     */
+    private Long resolveTimeout(HttpServletRequest request) {
+        String header = request.getHeader(deadlineConfig.getHeader());
+        if (header != null && !header.trim().isEmpty()) {
+            try {
+                long timeoutMs = Long.parseLong(header.trim());
+                if (timeoutMs > 0) {
+                    return Math.min(timeoutMs, deadlineConfig.getMaxTimeoutMs());
+                }
+            } catch (NumberFormatException e) {
+                log.debug("忽略无效的截止时间请求头: {}", header);
+            }
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, Long> entry : deadlineConfig.getEndpoints().entrySet()) {
+            if (pathMatcher.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 客户端断开（onError）或异步请求超时时取消截止时间
+     */
+    private static final class DeadlineCancellingListener implements AsyncListener {
+        private final Deadline deadline;
+
+        private DeadlineCancellingListener(Deadline deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            deadline.cancel("异步请求超时");
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            deadline.cancel("客户端已断开");
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.coachai.dto;
+
+import com.coachai.entity.AnalysisRollup;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分析趋势统计数据传输对象
+ */
+public class AnalyticsDTO {
+
+    /**
+     * 趋势图中的单个时间桶
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ProgressPoint {
+        private Long bucketStart;
+        private Long recordCount;
+        /**
+         * 只按有评分的记录计算，overall_score 列上线前的历史记录没有评分
+         */
+        private Double averageScore;
+        private Integer minScore;
+        private Integer maxScore;
+        private Long abnormalCount;
+        private Map<String, Long> riskLevelCounts;
+        private List<ProblemCount> topProblems;
+    }
+
+    /**
+     * 时间范围内的汇总统计
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Summary {
+        private String username;
+        private AnalysisRollup.AnalysisType analysisType;
+        private Long startTime;
+        private Long endTime;
+        private Long recordCount;
+        /**
+         * 只按有评分的记录计算，overall_score 列上线前的历史记录没有评分
+         */
+        private Double averageScore;
+        private Integer minScore;
+        private Integer maxScore;
+        private Long abnormalCount;
+        private Map<String, Long> riskLevelCounts;
+        private List<ProblemCount> topProblems;
+    }
+
+    /**
+     * 问题及出现次数
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ProblemCount {
+        private String problem;
+        private Long count;
+    }
+
+    /**
+     * 回填任务进度
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BackfillStatus {
+        private Boolean running;
+        private List<AnalysisRollup.AnalysisType> analysisTypes;
+        private Long startTime;
+        private Long endTime;
+        private AnalysisRollup.AnalysisType currentType;
+        private Long currentWeekStart;
+        private Long processedWeeks;
+        private Long totalWeeks;
+        private Long processedRecords;
+        private Long startedAt;
+        private Long finishedAt;
+        private String error;
+    }
+}
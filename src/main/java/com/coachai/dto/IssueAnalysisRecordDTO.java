@@ -1,6 +1,7 @@
 package com.coachai.dto;
 
 import com.coachai.entity.IssueAnalysisRecord;
+import com.coachai.repository.projection.IssueAnalysisRecordSummary;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -158,6 +159,39 @@ public class IssueAnalysisRecordDTO {
         }
     }
 
+    /**
+     * 用于列表查询的摘要DTO，不包含JSON字段
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class SummaryResponse {
+        private Long id;
+        private String username;
+        private String sport;
+        private String riskLevel;
+        private String primaryDiagnosis;
+        private Integer confidence;
+        private Boolean isNormal;
+        private Long createdAt;
+        private Long updatedAt;
+
+        public static SummaryResponse fromProjection(IssueAnalysisRecordSummary summary) {
+            return SummaryResponse.builder()
+                    .id(summary.getId())
+                    .username(summary.getUsername())
+                    .sport(summary.getSport())
+                    .riskLevel(summary.getRiskLevel())
+                    .primaryDiagnosis(summary.getPrimaryDiagnosis())
+                    .confidence(summary.getConfidence())
+                    .isNormal(summary.getIsNormal())
+                    .createdAt(summary.getCreatedAt())
+                    .updatedAt(summary.getUpdatedAt())
+                    .build();
+        }
+    }
+
     /**
      * 用于API响应的DTO，包含解析后的结构体
      */
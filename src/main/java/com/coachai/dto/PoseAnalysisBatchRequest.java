@@ -0,0 +1,45 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * 批量姿态分析请求DTO
+ * 同一用户、同一运动和姿势的一组训练图片（如一次训练中的多帧），一次请求完成全部分析
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PoseAnalysisBatchRequest {
+
+    /**
+     * 图片链接列表
+     */
+    @NotEmpty(message = "图片链接不能为空")
+    private List<@NotBlank(message = "图片链接不能为空") String> imageLinks;
+
+    /**
+     * 用户名
+     */
+    @NotBlank(message = "用户名不能为空")
+    private String username;
+
+    /**
+     * 运动类型
+     */
+    @NotBlank(message = "运动类型不能为空")
+    private String sport;
+
+    /**
+     * 姿势
+     */
+    @NotBlank(message = "姿势不能为空")
+    private String posture;
+}
@@ -41,6 +41,8 @@ public class PoseAnalysisRecordDTO {
     
     private String improvementResults;
     
+    private Integer overallScore;
+    
     private Long createdAt;
     private Long updatedAt;
 
@@ -57,6 +59,7 @@ public class PoseAnalysisRecordDTO {
                 .referencePoseImage(entity.getReferencePoseImage())
                 .analysisResults(entity.getAnalysisResults())
                 .improvementResults(entity.getImprovementResults())
+                .overallScore(entity.getOverallScore())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
                 .build();
@@ -74,6 +77,7 @@ public class PoseAnalysisRecordDTO {
                 .referencePoseImage(this.referencePoseImage)
                 .analysisResults(this.analysisResults)
                 .improvementResults(this.improvementResults)
+                .overallScore(this.overallScore)
                 .build();
     }
 
@@ -103,6 +107,8 @@ public class PoseAnalysisRecordDTO {
         private String analysisResults;
         
         private String improvementResults;
+        
+        private Integer overallScore;
     }
 
     /**
@@ -121,6 +127,7 @@ public class PoseAnalysisRecordDTO {
         private String referencePoseImage;
         private String analysisResults;
         private String improvementResults;
+        private Integer overallScore;
         private Long createdAt;
         private Long updatedAt;
 
@@ -134,6 +141,7 @@ public class PoseAnalysisRecordDTO {
                     .referencePoseImage(entity.getReferencePoseImage())
                     .analysisResults(entity.getAnalysisResults())
                     .improvementResults(entity.getImprovementResults())
+                    .overallScore(entity.getOverallScore())
                     .createdAt(entity.getCreatedAt())
                     .updatedAt(entity.getUpdatedAt())
                     .build();
@@ -160,4 +168,51 @@ public class PoseAnalysisRecordDTO {
         private Long updatedAt;
         private Integer overallScore;
     }
+
+    /**
+     * 批量分析中单张图片的分析结果（保存前，不含记录ID）
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchItemResult {
+        /**
+         * 图片在请求中的序号（从0开始）
+         */
+        private Integer index;
+        private String imageLink;
+        private String userPoseImage;
+        private String referencePoseImage;
+        private List<AiWorkflowResponse.AnalysisResult> analysisResults;
+        private List<AiWorkflowResponse.ImprovementResult> improvementResults;
+        private Integer overallScore;
+    }
+
+    /**
+     * 批量分析汇总，records 为保存成功的记录，按图片序号排列
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchResult {
+        private Integer total;
+        private Integer succeeded;
+        private Integer failed;
+        private List<Integer> failedIndexes;
+        private List<ApiResponse> records;
+    }
+
+    /**
+     * 上传并分析结果，fileUrl 为上传后的图片访问URL
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class UploadAnalysisResult {
+        private String fileUrl;
+        private ApiResponse record;
+    }
 }
@@ -0,0 +1,85 @@
+package com.coachai.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * 姿态图片生成指令DTO（图片生成工作流的用户消息）
+ * 结构固定为 {"role":"user","parts":[{"text":指令},{"fileData":{"mimeType":"image/jpeg","fileUri":图片链接}}]}，
+ * 字段名和固定值预先编码，序列化时直接写出，只有指令和图片链接需要转义
+ */
+public class PoseImageInstructions extends JsonSerializable.Base {
+
+    private static final SerializableString ROLE = new SerializedString("role");
+    private static final SerializableString ROLE_USER = new SerializedString("user");
+    private static final SerializableString PARTS = new SerializedString("parts");
+    private static final SerializableString TEXT = new SerializedString("text");
+    private static final SerializableString FILE_DATA = new SerializedString("fileData");
+    private static final SerializableString MIME_TYPE = new SerializedString("mimeType");
+    private static final SerializableString MIME_TYPE_JPEG = new SerializedString("image/jpeg");
+    private static final SerializableString FILE_URI = new SerializedString("fileUri");
+
+    static {
+        // 预先生成UTF-8编码结果，序列化时直接复制
+        for (SerializableString s : new SerializableString[]{ROLE, ROLE_USER, PARTS, TEXT, FILE_DATA,
+                MIME_TYPE, MIME_TYPE_JPEG, FILE_URI}) {
+            s.asQuotedUTF8();
+            s.asUnquotedUTF8();
+        }
+    }
+
+    private final String instructions;
+    private final String imageUrl;
+
+    public PoseImageInstructions(String instructions, String imageUrl) {
+        this.instructions = instructions;
+        this.imageUrl = imageUrl;
+    }
+
+    public String getInstructions() {
+        return instructions;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(ROLE);
+        gen.writeString(ROLE_USER);
+        gen.writeFieldName(PARTS);
+        gen.writeStartArray();
+
+        gen.writeStartObject();
+        gen.writeFieldName(TEXT);
+        gen.writeString(instructions);
+        gen.writeEndObject();
+
+        gen.writeStartObject();
+        gen.writeFieldName(FILE_DATA);
+        gen.writeStartObject();
+        gen.writeFieldName(MIME_TYPE);
+        gen.writeString(MIME_TYPE_JPEG);
+        gen.writeFieldName(FILE_URI);
+        gen.writeString(imageUrl);
+        gen.writeEndObject();
+        gen.writeEndObject();
+
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+}
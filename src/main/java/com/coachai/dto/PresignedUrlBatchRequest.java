@@ -0,0 +1,27 @@
+package com.coachai.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
+import java.util.List;
+
+/**
+ * 批量获取预签名URL请求DTO
+ */
+@Data
+public class PresignedUrlBatchRequest {
+
+    /**
+     * 对象名称列表（如：images/20250921123044_dd060b89.png）
+     */
+    @NotEmpty(message = "对象名称不能为空")
+    private List<@NotBlank(message = "对象名称不能为空") String> objectNames;
+
+    /**
+     * 过期时间（秒，默认3600秒）
+     */
+    @Positive(message = "过期时间必须大于0")
+    private Integer expiry = 3600;
+}
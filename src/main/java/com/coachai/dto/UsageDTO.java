@@ -0,0 +1,100 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * AI工作流用量数据传输对象
+ */
+public class UsageDTO {
+
+    /**
+     * 配额检查结果
+     */
+    public enum Decision {
+        /**
+         * 允许发起分析
+         */
+        ALLOWED,
+        /**
+         * 用量接近上限，距上次分析未满限流间隔
+         */
+        THROTTLED,
+        /**
+         * 当日用量已达上限
+         */
+        EXCEEDED
+    }
+
+    /**
+     * 发起分析前的配额检查结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class QuotaDecision {
+        private Decision decision;
+        private Long usedTokens;
+        /**
+         * 当日token上限，0表示不限制
+         */
+        private Long limitTokens;
+        /**
+         * 被拒绝时建议的重试等待时间（秒）
+         */
+        private Long retryAfterSeconds;
+        private String message;
+
+        public boolean isAllowed() {
+            return decision == Decision.ALLOWED;
+        }
+    }
+
+    /**
+     * 单个工作流的每日用量
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DailyUsage {
+        private LocalDate date;
+        private String workflow;
+        private Long requestCount;
+        private Long inputTokens;
+        private Long outputTokens;
+        private Long totalTokens;
+        /**
+         * 费用（元）
+         */
+        private Double cost;
+    }
+
+    /**
+     * 用户用量及配额
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class UserUsage {
+        private String username;
+        private LocalDate today;
+        private Long usedTokensToday;
+        /**
+         * 当日token上限，0表示不限制
+         */
+        private Long limitTokens;
+        private Double costToday;
+        /**
+         * 按日期、工作流的用量（含尚未写入数据库的部分）
+         */
+        private List<DailyUsage> daily;
+    }
+}
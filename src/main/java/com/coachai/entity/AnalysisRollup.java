@@ -0,0 +1,148 @@
+package com.coachai.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import javax.persistence.*;
+
+/**
+ * 分析记录预聚合实体类
+ * 按 分析类型 + 时间粒度 + 时间桶 + 用户 + 运动类型 + 姿势 维度增量维护
+ */
+@Entity
+@Table(name = "analysis_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_analysis_rollup_key",
+                columnNames = {"analysis_type", "granularity", "bucket_start", "username", "sport", "posture"})
+}, indexes = {
+        @Index(name = "idx_analysis_rollup_user_bucket", columnList = "username, analysis_type, granularity, bucket_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalysisRollup {
+
+    /**
+     * 症状分析记录无单一姿势维度，使用空字符串占位
+     */
+    public static final String ALL_POSTURES = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "analysis_type", nullable = false, length = 16)
+    private AnalysisType analysisType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Granularity granularity;
+
+    /**
+     * 时间桶起始时间（毫秒时间戳，按配置时区的自然日/自然周对齐）
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private Long bucketStart;
+
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    @Column(nullable = false)
+    private String sport;
+
+    @Column(nullable = false)
+    private String posture;
+
+    @Column(name = "record_count", nullable = false)
+    private Long recordCount;
+
+    /**
+     * 带评分的记录数（评分统计仅针对姿态分析）
+     */
+    @Column(name = "score_count", nullable = false)
+    private Long scoreCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private Long scoreSum;
+
+    @Column(name = "score_min")
+    private Integer scoreMin;
+
+    @Column(name = "score_max")
+    private Integer scoreMax;
+
+    /**
+     * 异常记录数（仅症状分析）
+     */
+    @Column(name = "abnormal_count", nullable = false)
+    private Long abnormalCount;
+
+    /**
+     * 风险等级分布，JSON对象：{"高": 3, "低": 1}
+     */
+    @Column(name = "risk_level_counts", columnDefinition = "JSON")
+    private String riskLevelCounts;
+
+    /**
+     * 高频问题计数，JSON对象；姿态分析统计问题项，症状分析统计主要诊断
+     */
+    @Column(name = "problem_counts", columnDefinition = "JSON")
+    private String problemCounts;
+
+    @Column(name = "created_at", nullable = false)
+    private Long createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Long updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        long now = System.currentTimeMillis();
+        createdAt = now;
+        updatedAt = now;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 分析类型枚举
+     */
+    public enum AnalysisType {
+        POSE("姿态分析"),
+        ISSUE("症状分析");
+
+        private final String description;
+
+        AnalysisType(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 时间粒度枚举
+     */
+    public enum Granularity {
+        DAY("按天"),
+        WEEK("按周");
+
+        private final String description;
+
+        Granularity(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.coachai.entity;
 
+import com.coachai.entity.listener.CoachAiUserCacheListener;
+import com.coachai.entity.listener.CoachAiUserSearchIndexListener;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -16,14 +22,30 @@ import java.math.BigDecimal;
 
 /**
  * CoachAI用户实体类
+ * 
+ * 实体及用户名自然主键均启用二级缓存，缓存区域配置见 application.conf
  */
 @Entity
 @Table(name = "coach_ai_users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CoachAiUser.CACHE_REGION)
+@NaturalIdCache(region = CoachAiUser.NATURAL_ID_CACHE_REGION)
+@EntityListeners({CoachAiUserSearchIndexListener.class, CoachAiUserCacheListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class CoachAiUser {
+
+    /**
+     * 实体二级缓存区域
+     */
+    public static final String CACHE_REGION = "coachAiUser";
+
+    /**
+     * 用户名自然主键缓存区域
+     */
+    public static final String NATURAL_ID_CACHE_REGION = "coachAiUserNaturalId";
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -31,6 +53,7 @@ public class CoachAiUser {
 
     @NotBlank(message = "用户昵称不能为空")
     @Size(max = 50, message = "用户昵称长度不能超过50个字符")
+    @NaturalId(mutable = true)
     @Column(unique = true, nullable = false)
     private String username;
 
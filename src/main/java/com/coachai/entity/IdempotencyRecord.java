@@ -0,0 +1,78 @@
+package com.coachai.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * 幂等请求记录实体类
+ * 首次请求开始处理时以 IN_PROGRESS 插入（唯一键保证只有一个请求执行），成功后保存响应并改为 COMPLETED
+ */
+@Entity
+@Table(name = "idempotency_record", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_request_key", columnNames = {"request_key"})
+}, indexes = {
+        @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 接口路径 + 幂等键 + 调用方
+     */
+    @Column(name = "request_key", nullable = false, length = 320)
+    private String requestKey;
+
+    /**
+     * 首次请求内容（查询参数和请求体）的 SHA-256
+     */
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type", length = 128)
+    private String contentType;
+
+    @Column(name = "response_body", columnDefinition = "MEDIUMBLOB")
+    private byte[] responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Long createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+
+    /**
+     * 处理状态枚举
+     */
+    public enum Status {
+        IN_PROGRESS("处理中"),
+        COMPLETED("已完成");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 
+import com.coachai.entity.listener.AnalysisRollupListener;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
@@ -15,7 +17,13 @@ import javax.validation.constraints.Min;
  * 症状分析记录实体类
  */
 @Entity
-@Table(name = "issue_analysis_record")
+@Table(name = "issue_analysis_record", indexes = {
+        @Index(name = "idx_issue_record_username_created", columnList = "username, created_at"),
+        @Index(name = "idx_issue_record_risk_created", columnList = "risk_level, created_at"),
+        @Index(name = "idx_issue_record_normal_created", columnList = "is_normal, created_at"),
+        @Index(name = "idx_issue_record_created", columnList = "created_at")
+})
+@EntityListeners(AnalysisRollupListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -5,6 +5,8 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 
+import com.coachai.entity.listener.AnalysisRollupListener;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
@@ -13,7 +15,10 @@ import javax.validation.constraints.Size;
  * 姿态分析记录实体类
  */
 @Entity
-@Table(name = "pose_analysis_record_flat")
+@Table(name = "pose_analysis_record_flat", indexes = {
+        @Index(name = "idx_pose_record_created", columnList = "created_at")
+})
+@EntityListeners(AnalysisRollupListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,6 +56,9 @@ public class PoseAnalysisRecord {
     @Column(name = "improvement_results", columnDefinition = "JSON")
     private String improvementResults;
 
+    @Column(name = "overall_score")
+    private Integer overallScore;
+
     @Column(name = "created_at", nullable = false)
     private Long createdAt;
 
@@ -0,0 +1,63 @@
+package com.coachai.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 用户每日AI工作流用量实体类
+ * 按 用户 + 工作流 + 自然日 累加，由内存中的用量定期增量写入
+ */
+@Entity
+@Table(name = "user_usage_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_usage_daily_key", columnNames = {"username", "workflow", "usage_date"})
+}, indexes = {
+        @Index(name = "idx_user_usage_daily_date", columnList = "usage_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserUsageDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    /**
+     * 工作流：pose / issue
+     */
+    @Column(nullable = false, length = 16)
+    private String workflow;
+
+    @Column(name = "usage_date", nullable = false)
+    private LocalDate usageDate;
+
+    @Column(name = "request_count", nullable = false)
+    private Long requestCount;
+
+    @Column(name = "input_tokens", nullable = false)
+    private Long inputTokens;
+
+    @Column(name = "output_tokens", nullable = false)
+    private Long outputTokens;
+
+    @Column(name = "total_tokens", nullable = false)
+    private Long totalTokens;
+
+    /**
+     * 费用（百万分之一元）
+     */
+    @Column(name = "cost_micros", nullable = false)
+    private Long costMicros;
+
+    @Column(name = "updated_at", nullable = false)
+    private Long updatedAt;
+}
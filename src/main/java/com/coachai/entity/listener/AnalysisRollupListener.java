@@ -0,0 +1,85 @@
+package com.coachai.entity.listener;
+
+import com.coachai.entity.IssueAnalysisRecord;
+import com.coachai.entity.PoseAnalysisRecord;
+import com.coachai.service.AnalysisRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分析记录预聚合监听器
+ * 姿态/症状分析记录新增并提交后，增量更新对应的天级与周级聚合数据。
+ * 同一事务新增的记录（如批量分析）只注册一个事务回调，提交后合并为一次更新；
+ * 事务完成时保存记录的连接仍未归还，增量更新交给聚合服务的后台线程执行，不在此处再获取连接
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalysisRollupListener {
+
+    /**
+     * 监听器在 EntityManagerFactory 构建期间实例化，而聚合服务依赖仓库，故延迟获取
+     */
+    private final ObjectProvider<AnalysisRollupService> analysisRollupService;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        if (!(entity instanceof PoseAnalysisRecord) && !(entity instanceof IssueAnalysisRecord)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingRecords pending = new PendingRecords();
+            pending.add(entity);
+            pending.submit();
+            return;
+        }
+        currentPending().add(entity);
+    }
+
+    /**
+     * 当前事务的待聚合记录；嵌套的新事务有各自的回调列表，因此从回调列表中查找而不是绑定为事务资源
+     */
+    private PendingRecords currentPending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingRecords) {
+                return (PendingRecords) synchronization;
+            }
+        }
+        PendingRecords pending = new PendingRecords();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private final class PendingRecords implements TransactionSynchronization {
+        private final List<PoseAnalysisRecord> poseRecords = new ArrayList<>();
+        private final List<IssueAnalysisRecord> issueRecords = new ArrayList<>();
+
+        void add(Object entity) {
+            if (entity instanceof PoseAnalysisRecord) {
+                poseRecords.add((PoseAnalysisRecord) entity);
+            } else {
+                issueRecords.add((IssueAnalysisRecord) entity);
+            }
+        }
+
+        void submit() {
+            analysisRollupService.getObject().onRecordsCreated(
+                    poseRecords.isEmpty() ? Collections.emptyList() : poseRecords,
+                    issueRecords.isEmpty() ? Collections.emptyList() : issueRecords);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                submit();
+            }
+        }
+    }
+}
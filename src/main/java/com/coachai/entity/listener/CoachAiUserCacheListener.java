@@ -0,0 +1,46 @@
+package com.coachai.entity.listener;
+
+import com.coachai.entity.CoachAiUser;
+import com.coachai.service.UserCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * CoachAI用户缓存失效监听器
+ * 用户更新、删除并提交后清理本地自然主键缓存，并通知其他实例失效对应缓存
+ */
+@Component
+@RequiredArgsConstructor
+public class CoachAiUserCacheListener {
+
+    /**
+     * 监听器在 EntityManagerFactory 构建期间实例化，而缓存服务依赖 EntityManagerFactory，故延迟获取
+     */
+    private final ObjectProvider<UserCacheService> userCacheService;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(CoachAiUser user) {
+        Long id = user.getId();
+        runAfterCommit(() -> userCacheService.getObject().onUserChanged(id));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
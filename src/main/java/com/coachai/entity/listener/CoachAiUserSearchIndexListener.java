@@ -0,0 +1,50 @@
+package com.coachai.entity.listener;
+
+import com.coachai.entity.CoachAiUser;
+import com.coachai.service.UsernameSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * CoachAI用户实体监听器
+ * 在用户注册、更新、删除后同步用户名搜索索引；存在事务时等到提交后再更新，避免回滚产生脏数据
+ */
+@Component
+@RequiredArgsConstructor
+public class CoachAiUserSearchIndexListener {
+
+    private final UsernameSearchIndex usernameSearchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(CoachAiUser user) {
+        Long id = user.getId();
+        String username = user.getUsername();
+        runAfterCommit(() -> usernameSearchIndex.put(id, username));
+    }
+
+    @PostRemove
+    public void onRemove(CoachAiUser user) {
+        Long id = user.getId();
+        runAfterCommit(() -> usernameSearchIndex.remove(id));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.coachai.idempotency;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.config.IdempotencyConfig;
+import com.coachai.deadline.Deadline;
+import com.coachai.json.JsonCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 幂等请求过滤器
+ * 配置的接口带幂等键请求头时：已有成功响应则原样返回（响应头 Idempotent-Replayed: true）；
+ * 相同幂等键的请求正在处理时等待其完成后返回同一响应；否则执行请求，成功（HTTP 2xx 且 result=SUCCESS）时保存响应。
+ * 幂等键按调用方区分，请求内容与首次请求不同时返回422。失败的请求不保存，客户端用同一幂等键重试时重新执行。
+ * 非阻塞接口在异步分派结束时保存响应；SSE等流式接口不适用。
+ * 位于全局准入之后，等待首次请求结果的重复请求占用所属类别的处理名额和请求线程，因此只短暂等待，
+ * 超时返回409和 Retry-After，由客户端稍后重发取得保存的响应，重发请求不能长时间占满处理名额
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 4)
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String EXECUTION_ATTRIBUTE = IdempotencyFilter.class.getName() + ".EXECUTION";
+    private static final String REQUESTS_COUNTER = "coachai.idempotency.requests";
+
+    /**
+     * acquire 的结果：请求内容与相同幂等键的首次请求不同
+     */
+    private static final Object MISMATCH = new Object();
+
+    /**
+     * 调用方超过该长度时以摘要代替，请求键不超过数据库字段长度
+     */
+    private static final int MAX_CALLER_LENGTH = 64;
+
+    private final IdempotencyConfig idempotencyConfig;
+    private final IdempotencyStore idempotencyStore;
+    private final JsonCodec jsonCodec;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 本实例正在处理的请求，重复请求直接等待其结果，不必轮询数据库
+     */
+    private final Map<String, Inflight> inflight = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!idempotencyConfig.isEnabled() || !"POST".equalsIgnoreCase(request.getMethod())
+                || request.getHeader(idempotencyConfig.getHeader()) == null) {
+            return true;
+        }
+        String path = requestPath(request);
+        return idempotencyConfig.getEndpoints().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            Execution execution = (Execution) request.getAttribute(EXECUTION_ATTRIBUTE);
+            filterChain.doFilter(request, response);
+            if (execution != null && !request.isAsyncStarted()) {
+                finish(execution, WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class));
+            }
+            return;
+        }
+
+        String key = request.getHeader(idempotencyConfig.getHeader()).trim();
+        if (key.isEmpty() || key.length() > idempotencyConfig.getMaxKeyLength()) {
+            count("rejected");
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    idempotencyConfig.getHeader() + " 不能为空且长度不超过 " + idempotencyConfig.getMaxKeyLength());
+            return;
+        }
+
+        RequestFingerprint fingerprint;
+        try {
+            fingerprint = RequestFingerprint.of(request, jsonCodec);
+        } catch (IOException | ServletException | IllegalStateException e) {
+            // 请求体无法读取或解析（如超过上传大小限制）时不做幂等处理，由后续处理返回错误
+            log.debug("读取幂等请求内容失败，按普通请求处理: {}", e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+        request = fingerprint.getRequest();
+        String requestKey = requestPath(request) + " " + key + "@" + callerKey(fingerprint.getCaller());
+
+        Execution execution;
+        try {
+            Object acquired = acquire(requestKey, fingerprint.getHash());
+            if (acquired == MISMATCH) {
+                count("mismatch");
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "幂等键已用于内容不同的请求，请为新的请求生成新的幂等键");
+                return;
+            }
+            if (acquired instanceof StoredResponse) {
+                count("replayed");
+                replay(response, (StoredResponse) acquired);
+                return;
+            }
+            if (acquired == null) {
+                count("conflict");
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(idempotencyConfig.getRetryAfterSeconds()));
+                writeError(response, HttpStatus.CONFLICT, "相同幂等键的请求仍在处理中，请稍后重试");
+                return;
+            }
+            execution = (Execution) acquired;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("等待幂等请求结果被中断", e);
+        }
+
+        count("executed");
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            finish(execution, null);
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            request.setAttribute(EXECUTION_ATTRIBUTE, execution);
+            request.getAsyncContext().addListener(new ReleasingListener(execution));
+        } else {
+            finish(execution, wrapper);
+        }
+    }
+
+    /**
+     * 获取执行权或已有响应：返回 Execution 表示由当前请求执行，StoredResponse 表示直接返回，null 表示等待超时，
+     * MISMATCH 表示请求内容与首次请求不同
+     */
+    private Object acquire(String requestKey, String requestHash) throws InterruptedException {
+        long waitUntil = System.nanoTime() + waitBudget().toNanos();
+        while (true) {
+            StoredResponse stored = idempotencyStore.find(requestKey);
+            if (stored != null) {
+                return mismatches(stored.getRequestHash(), requestHash) ? MISMATCH : stored;
+            }
+            CompletableFuture<StoredResponse> future = new CompletableFuture<>();
+            Inflight existing = inflight.putIfAbsent(requestKey, new Inflight(requestHash, future));
+            if (existing != null) {
+                if (mismatches(existing.requestHash, requestHash)) {
+                    return MISMATCH;
+                }
+                // 本实例正在处理，等待其结果；原请求失败时重新尝试执行
+                long remaining = waitUntil - System.nanoTime();
+                try {
+                    StoredResponse result = existing.future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                    if (result != null) {
+                        return result;
+                    }
+                } catch (TimeoutException e) {
+                    return null;
+                } catch (ExecutionException e) {
+                    log.debug("等待幂等请求结果失败: requestKey={}", requestKey, e);
+                }
+                continue;
+            }
+
+            IdempotencyStore.Claim claim;
+            try {
+                claim = idempotencyStore.claim(requestKey, requestHash);
+            } catch (RuntimeException e) {
+                removeInflight(requestKey, future);
+                future.complete(null);
+                throw e;
+            }
+            switch (claim.getState()) {
+                case CLAIMED:
+                    return new Execution(requestKey, requestHash, future);
+                case COMPLETED:
+                    removeInflight(requestKey, future);
+                    future.complete(claim.getResponse());
+                    return mismatches(claim.getRequestHash(), requestHash) ? MISMATCH : claim.getResponse();
+                case IN_PROGRESS:
+                default:
+                    // 其他实例正在处理，轮询数据库直到完成、释放或等待超时
+                    removeInflight(requestKey, future);
+                    future.complete(null);
+                    if (mismatches(claim.getRequestHash(), requestHash)) {
+                        return MISMATCH;
+                    }
+                    long pollNanos = TimeUnit.MILLISECONDS.toNanos(idempotencyConfig.getPollIntervalMs());
+                    if (waitUntil - System.nanoTime() < pollNanos) {
+                        return null;
+                    }
+                    TimeUnit.NANOSECONDS.sleep(pollNanos);
+            }
+        }
+    }
+
+    /**
+     * 等待时间不超过配置值和请求剩余的截止时间
+     */
+    private Duration waitBudget() {
+        Duration wait = Duration.ofMillis(idempotencyConfig.getWaitTimeoutMs());
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.remaining().compareTo(wait) < 0) {
+            return deadline.remaining();
+        }
+        return wait;
+    }
+
+    /**
+     * 请求结束：成功响应保存后通知等待的重复请求，否则释放幂等键；最后写出缓存的响应体
+     */
+    private void finish(Execution execution, ContentCachingResponseWrapper wrapper) throws IOException {
+        if (execution.finished.compareAndSet(false, true)) {
+            StoredResponse stored = null;
+            try {
+                if (wrapper != null && isStorable(wrapper)) {
+                    stored = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(),
+                            wrapper.getContentAsByteArray(), execution.requestHash);
+                    idempotencyStore.complete(execution.requestKey, stored);
+                } else {
+                    idempotencyStore.release(execution.requestKey);
+                }
+            } catch (Exception e) {
+                log.warn("保存幂等请求结果失败: requestKey={}, error={}", execution.requestKey, e.getMessage());
+                stored = null;
+            } finally {
+                removeInflight(execution.requestKey, execution.future);
+                execution.future.complete(stored);
+            }
+        }
+        if (wrapper != null) {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean isStorable(ContentCachingResponseWrapper wrapper) {
+        int status = wrapper.getStatus();
+        byte[] body = wrapper.getContentAsByteArray();
+        if (status < 200 || status >= 300 || body.length > idempotencyConfig.getMaxResponseBytes()) {
+            return false;
+        }
+        try {
+            JsonNode node = jsonCodec.readTree(body);
+            return "SUCCESS".equals(node.path("result").asText());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = stored.getBody() != null ? stored.getBody() : new byte[0];
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        jsonCodec.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter(REQUESTS_COUNTER, "outcome", outcome).increment();
+    }
+
+    private void removeInflight(String requestKey, CompletableFuture<StoredResponse> future) {
+        inflight.computeIfPresent(requestKey, (k, current) -> current.future == future ? null : current);
+    }
+
+    /**
+     * 首次请求的内容摘要未知（其他实例刚插入处理中记录）时不判定为不同
+     */
+    private static boolean mismatches(String originalHash, String requestHash) {
+        return originalHash != null && !originalHash.equals(requestHash);
+    }
+
+    private static String callerKey(String caller) {
+        return caller.length() > MAX_CALLER_LENGTH ? DigestUtils.md5DigestAsHex(caller.getBytes(StandardCharsets.UTF_8)) : caller;
+    }
+
+    private static String requestPath(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * 本实例正在处理的请求及其内容摘要
+     */
+    private static final class Inflight {
+        private final String requestHash;
+        private final CompletableFuture<StoredResponse> future;
+
+        private Inflight(String requestHash, CompletableFuture<StoredResponse> future) {
+            this.requestHash = requestHash;
+            this.future = future;
+        }
+    }
+
+    /**
+     * 当前请求持有的执行权
+     */
+    private static final class Execution {
+        private final String requestKey;
+        private final String requestHash;
+        private final CompletableFuture<StoredResponse> future;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Execution(String requestKey, String requestHash, CompletableFuture<StoredResponse> future) {
+            this.requestKey = requestKey;
+            this.requestHash = requestHash;
+            this.future = future;
+        }
+    }
+
+    /**
+     * 异步请求超时、出错或未经异步分派结束时释放幂等键
+     */
+    private final class ReleasingListener implements AsyncListener {
+        private final Execution execution;
+
+        private ReleasingListener(Execution execution) {
+            this.execution = execution;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            finish(execution, null);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            finish(execution, null);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            finish(execution, null);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.coachai.idempotency;
+
+import com.coachai.config.IdempotencyConfig;
+import com.coachai.entity.IdempotencyRecord;
+import com.coachai.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 幂等请求结果存储
+ * 已完成的响应保存在数据库中（多实例共享），最近的响应同时缓存在内存LRU中；
+ * 处理中的请求以 IN_PROGRESS 记录占位，唯一键保证同一幂等键只有一个请求执行
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private final IdempotencyConfig idempotencyConfig;
+    private final IdempotencyRecordRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService cleanupScheduler;
+
+    private Cache<String, StoredResponse> cache;
+
+    public IdempotencyStore(IdempotencyConfig idempotencyConfig,
+                            IdempotencyRecordRepository repository,
+                            MeterRegistry meterRegistry) {
+        this.idempotencyConfig = idempotencyConfig;
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.cleanupScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idempotency-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(idempotencyConfig.getCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(idempotencyConfig.getTtlSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+        if (idempotencyConfig.isEnabled()) {
+            long interval = idempotencyConfig.getCleanupIntervalMs();
+            cleanupScheduler.scheduleWithFixedDelay(this::cleanup, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        cleanupScheduler.shutdownNow();
+    }
+
+    /**
+     * 查询已完成的响应，不存在或已过期时返回 null
+     */
+    public StoredResponse find(String requestKey) {
+        StoredResponse cached = cache.getIfPresent(requestKey);
+        if (cached != null) {
+            return cached;
+        }
+        return repository.findByRequestKey(requestKey)
+                .filter(record -> record.getStatus() == IdempotencyRecord.Status.COMPLETED)
+                .filter(record -> record.getExpiresAt() > System.currentTimeMillis())
+                .map(this::cacheRecord)
+                .orElse(null);
+    }
+
+    /**
+     * 尝试占用请求键
+     * 已有过期记录或已放弃的处理中记录时先删除再占用；其他请求已占用时返回 IN_PROGRESS（带该请求的内容摘要），已完成时返回保存的响应
+     */
+    public Claim claim(String requestKey, String requestHash) {
+        long now = System.currentTimeMillis();
+        Optional<IdempotencyRecord> existing = repository.findByRequestKey(requestKey);
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            boolean expired = record.getExpiresAt() <= now;
+            boolean abandoned = record.getStatus() == IdempotencyRecord.Status.IN_PROGRESS
+                    && record.getCreatedAt() + idempotencyConfig.getStaleAfterMs() <= now;
+            if (!expired && !abandoned) {
+                return record.getStatus() == IdempotencyRecord.Status.COMPLETED
+                        ? Claim.completed(cacheRecord(record))
+                        : Claim.inProgress(record.getRequestHash());
+            }
+            if (abandoned) {
+                log.warn("幂等请求处理中记录超时未完成，重新执行: requestKey={}", requestKey);
+            }
+            repository.deleteByIdAndStatus(record.getId(), record.getStatus());
+        }
+        try {
+            repository.saveAndFlush(IdempotencyRecord.builder()
+                    .requestKey(requestKey)
+                    .requestHash(requestHash)
+                    .status(IdempotencyRecord.Status.IN_PROGRESS)
+                    .createdAt(now)
+                    .expiresAt(now + TimeUnit.SECONDS.toMillis(idempotencyConfig.getTtlSeconds()))
+                    .build());
+            return Claim.claimed();
+        } catch (DataIntegrityViolationException e) {
+            // 其他实例同时插入了相同的请求键，内容摘要在下次查询时比较
+            return Claim.inProgress(null);
+        }
+    }
+
+    /**
+     * 保存成功的响应
+     */
+    public void complete(String requestKey, StoredResponse response) {
+        long now = System.currentTimeMillis();
+        IdempotencyRecord record = repository.findByRequestKey(requestKey)
+                .orElseGet(() -> IdempotencyRecord.builder().requestKey(requestKey).createdAt(now).build());
+        record.setStatus(IdempotencyRecord.Status.COMPLETED);
+        record.setRequestHash(response.getRequestHash());
+        record.setResponseStatus(response.getStatus());
+        record.setContentType(response.getContentType());
+        record.setResponseBody(response.getBody());
+        record.setExpiresAt(now + TimeUnit.SECONDS.toMillis(idempotencyConfig.getTtlSeconds()));
+        repository.save(record);
+        cache.put(requestKey, response);
+    }
+
+    /**
+     * 释放未成功完成的请求键，客户端重试时重新执行
+     */
+    public void release(String requestKey) {
+        repository.findByRequestKey(requestKey)
+                .filter(record -> record.getStatus() == IdempotencyRecord.Status.IN_PROGRESS)
+                .ifPresent(record -> repository.deleteByIdAndStatus(record.getId(), IdempotencyRecord.Status.IN_PROGRESS));
+    }
+
+    private void cleanup() {
+        try {
+            int deleted = repository.deleteExpired(System.currentTimeMillis());
+            if (deleted > 0) {
+                log.info("清理过期幂等请求记录: {} 条", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理过期幂等请求记录失败: {}", e.getMessage());
+        }
+    }
+
+    private StoredResponse cacheRecord(IdempotencyRecord record) {
+        StoredResponse response = new StoredResponse(record.getResponseStatus(), record.getContentType(),
+                record.getResponseBody(), record.getRequestHash());
+        cache.put(record.getRequestKey(), response);
+        return response;
+    }
+
+    /**
+     * 占用请求键的结果
+     */
+    @Getter
+    public static final class Claim {
+
+        public enum State {
+            CLAIMED,
+            IN_PROGRESS,
+            COMPLETED
+        }
+
+        private final State state;
+        private final StoredResponse response;
+        /**
+         * IN_PROGRESS 时为处理中请求的内容摘要，未知时为 null
+         */
+        private final String requestHash;
+
+        private Claim(State state, StoredResponse response, String requestHash) {
+            this.state = state;
+            this.response = response;
+            this.requestHash = requestHash;
+        }
+
+        static Claim claimed() {
+            return new Claim(State.CLAIMED, null, null);
+        }
+
+        static Claim inProgress(String requestHash) {
+            return new Claim(State.IN_PROGRESS, null, requestHash);
+        }
+
+        static Claim completed(StoredResponse response) {
+            return new Claim(State.COMPLETED, response, response.getRequestHash());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.coachai.idempotency;
+
+import com.coachai.json.JsonCodec;
+import com.coachai.json.JsonFieldExtractor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.Part;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 带幂等键请求的调用方和请求内容摘要
+ * 调用方为认证用户，未认证时为请求中的 username（JSON字段或表单参数），用于区分不同用户的相同幂等键；
+ * 摘要为查询参数和请求体的 SHA-256：JSON等请求体按原始字节计算（读取后由 getRequest() 返回的包装请求重复提供），
+ * 表单按参数计算，multipart 按各部分的名称、文件名和内容计算（由Servlet容器解析并缓存，之后的处理直接使用）
+ */
+@Getter
+final class RequestFingerprint {
+
+    private static final JsonFieldExtractor USERNAME = JsonFieldExtractor.compile("username");
+    private static final String USERNAME_PARAMETER = "username";
+
+    private final String caller;
+    private final String hash;
+    private final HttpServletRequest request;
+
+    private RequestFingerprint(String caller, String hash, HttpServletRequest request) {
+        this.caller = caller;
+        this.hash = hash;
+        this.request = request;
+    }
+
+    static RequestFingerprint of(HttpServletRequest request, JsonCodec jsonCodec) throws IOException, ServletException {
+        MessageDigest digest = sha256();
+        update(digest, request.getQueryString());
+        String contentType = request.getContentType();
+
+        if (contentType != null && contentType.toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            for (Part part : request.getParts()) {
+                update(digest, part.getName());
+                update(digest, part.getSubmittedFileName());
+                try (InputStream in = part.getInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+            return new RequestFingerprint(caller(request, request.getParameter(USERNAME_PARAMETER)), hex(digest), request);
+        }
+        if (contentType != null && contentType.toLowerCase().startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)) {
+            for (Map.Entry<String, String[]> entry : new TreeMap<>(request.getParameterMap()).entrySet()) {
+                update(digest, entry.getKey());
+                for (String value : entry.getValue()) {
+                    update(digest, value);
+                }
+            }
+            return new RequestFingerprint(caller(request, request.getParameter(USERNAME_PARAMETER)), hex(digest), request);
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        digest.update(body);
+        String username = null;
+        if (body.length > 0 && contentType != null && contentType.toLowerCase().contains("json")) {
+            try {
+                username = jsonCodec.extract(body, USERNAME);
+            } catch (IOException e) {
+                // 请求体不是合法JSON时由后续处理返回错误
+            }
+        }
+        return new RequestFingerprint(caller(request, username), hex(digest), new CachedBodyRequest(request, body));
+    }
+
+    private static String caller(HttpServletRequest request, String username) {
+        if (request.getUserPrincipal() != null) {
+            return request.getUserPrincipal().getName();
+        }
+        return StringUtils.hasText(username) ? username.trim() : "";
+    }
+
+    /**
+     * 写入长度前缀，避免不同的分段方式得到相同的摘要
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(MessageDigest digest) {
+        StringBuilder builder = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 请求体已读取的请求，后续处理从缓存的字节数组读取
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.coachai.idempotency;
+
+import lombok.Value;
+
+/**
+ * 保存的响应：状态码、Content-Type 和原始响应体，重复请求原样返回；
+ * requestHash 为首次请求内容的摘要，重复请求内容不同时不返回
+ */
+@Value
+public class StoredResponse {
+    int status;
+    String contentType;
+    byte[] body;
+    String requestHash;
+}
@@ -0,0 +1,162 @@
+package com.coachai.json;
+
+import com.coachai.dto.AiWorkflowIssueResponse;
+import com.coachai.dto.AiWorkflowResponse;
+import com.coachai.dto.IssueAnalysisRecordDTO;
+import com.coachai.dto.PoseAnalysisRecordDTO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全服务共用的JSON编解码
+ * 基于 Spring Boot 配置的 ObjectMapper（含 Blackbird 等模块），按类型缓存 ObjectReader / ObjectWriter：
+ * 根类型的序列化器、反序列化器在创建时解析一次，之后每次调用不再查找。
+ * 工作流响应和分析记录的各层DTO在启动时预先创建。
+ * 缓冲区沿用 Jackson 按线程回收的 BufferRecycler，读写优先直接使用字节数组和流，不经过中间字符串
+ */
+@Component
+public class JsonCodec {
+
+    /**
+     * 启动时预先创建读取器的类型：工作流响应各层结构、记录中以JSON字符串保存的字段
+     */
+    private static final List<Class<?>> PREBUILT_READ_TYPES = Arrays.asList(
+            AiWorkflowResponse.class,
+            AiWorkflowResponse.ParsedResult.class,
+            AiWorkflowResponse.AnalysisResult[].class,
+            AiWorkflowResponse.ImprovementResult[].class,
+            AiWorkflowIssueResponse.class,
+            AiWorkflowIssueResponse.ParsedResult.class,
+            AiWorkflowIssueResponse.DiagnosisData.class,
+            AiWorkflowIssueResponse.Symptom[].class,
+            AiWorkflowIssueResponse.Treatment.class,
+            AiWorkflowIssueResponse.PoseReference[].class,
+            AiWorkflowIssueResponse.RehabilitationVideo[].class,
+            String[].class);
+
+    /**
+     * 启动时预先创建写入器的类型：保存记录时序列化的字段、接口返回的记录DTO
+     */
+    private static final List<Class<?>> PREBUILT_WRITE_TYPES = Arrays.asList(
+            AiWorkflowResponse.AnalysisResult[].class,
+            AiWorkflowResponse.ImprovementResult[].class,
+            AiWorkflowIssueResponse.Symptom[].class,
+            AiWorkflowIssueResponse.Treatment.class,
+            AiWorkflowIssueResponse.PoseReference[].class,
+            AiWorkflowIssueResponse.RehabilitationVideo[].class,
+            PoseAnalysisRecordDTO.ApiResponse.class,
+            PoseAnalysisRecordDTO.QueryResponse.class,
+            IssueAnalysisRecordDTO.ApiResponse.class,
+            IssueAnalysisRecordDTO.QueryResponse.class);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader treeReader;
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JsonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.treeReader = objectMapper.readerFor(JsonNode.class);
+        PREBUILT_READ_TYPES.forEach(this::reader);
+        PREBUILT_WRITE_TYPES.forEach(this::writer);
+    }
+
+    /**
+     * 底层 ObjectMapper，供需要直接配置Jackson的组件使用
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public <T> T readValue(String json, Class<T> type) throws JsonProcessingException {
+        return reader(type).readValue(json);
+    }
+
+    public <T> T readValue(byte[] json, Class<T> type) throws IOException {
+        return reader(type).readValue(json);
+    }
+
+    public <T> T readValue(InputStream json, Class<T> type) throws IOException {
+        return reader(type).readValue(json);
+    }
+
+    public <T> T readValue(String json, TypeReference<T> type) throws JsonProcessingException {
+        return reader(type).readValue(json);
+    }
+
+    public JsonNode readTree(String json) throws JsonProcessingException {
+        return treeReader.readTree(json);
+    }
+
+    public JsonNode readTree(byte[] json) throws IOException {
+        return treeReader.readTree(json);
+    }
+
+    public JsonNode readTree(InputStream json) throws IOException {
+        return treeReader.readTree(json);
+    }
+
+    /**
+     * 流式提取字段，跳过无关的字段，不构建 JsonNode 树
+     *
+     * @param json      JSON字符串
+     * @param extractor 预编译的字段提取器
+     * @return 字段的值，未找到时返回 null
+     */
+    public String extract(String json, JsonFieldExtractor extractor) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return extractor.extract(parser);
+        }
+    }
+
+    public String extract(byte[] json, JsonFieldExtractor extractor) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return extractor.extract(parser);
+        }
+    }
+
+    public String writeValueAsString(Object value) throws JsonProcessingException {
+        return value == null ? "null" : writer(value.getClass()).writeValueAsString(value);
+    }
+
+    public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+        return value == null ? objectMapper.writeValueAsBytes(null) : writer(value.getClass()).writeValueAsBytes(value);
+    }
+
+    public void writeValue(OutputStream out, Object value) throws IOException {
+        if (value == null) {
+            objectMapper.writeValue(out, null);
+        } else {
+            writer(value.getClass()).writeValue(out, value);
+        }
+    }
+
+    private ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, t -> objectMapper.readerFor(type));
+    }
+
+    private ObjectReader reader(TypeReference<?> type) {
+        JavaType javaType = objectMapper.getTypeFactory().constructType(type);
+        return readers.computeIfAbsent(javaType, t -> objectMapper.readerFor(javaType));
+    }
+
+    private ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, t -> objectMapper.writerFor(type));
+    }
+}
@@ -0,0 +1,184 @@
+package com.coachai.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的JSON字段提取器
+ * 字段路径（如 answer.userPoseImageInstructions）在创建时编译为按字段名查找的前缀树，
+ * 提取时流式读取，只进入路径经过的对象，其余字段整体跳过，不构建 JsonNode 树。
+ * 结果与先 readTree 再逐级 get 的写法一致：
+ * 多个路径按优先级排列，取第一个父级存在的路径的值，例如 answer 存在时（无论是否为对象）只在 answer 中查找，不存在时退回顶层字段；
+ * 重复的字段名以最后出现的为准，重复的父级整体替换之前读到的内容；顶层值读完才给出结果，格式错误同样抛出异常。
+ * 取值规则与默认配置下的 JsonNode.asText() 一致：标量返回文本（null 为 "null"，数字按解析后的数值输出），对象、数组返回空字符串
+ */
+public final class JsonFieldExtractor {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte FOUND = 1;
+    private static final byte ABSENT = 2;
+
+    private final String[] paths;
+    private final Node root = new Node();
+
+    private JsonFieldExtractor(String[] paths) {
+        this.paths = paths;
+        for (int i = 0; i < paths.length; i++) {
+            Node node = root;
+            String[] segments = paths[i].split("\\.");
+            for (String segment : segments) {
+                if (segment.isEmpty() || node.pathIndex >= 0) {
+                    throw new IllegalArgumentException("无效的字段路径: " + paths[i]);
+                }
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+                node.descendantPaths.add(i);
+            }
+            if (node.pathIndex >= 0 || !node.children.isEmpty()) {
+                throw new IllegalArgumentException("字段路径重复或互为前缀: " + paths[i]);
+            }
+            node.pathIndex = i;
+            Node parent = root;
+            for (int j = 0; j < segments.length - 1; j++) {
+                parent = parent.children.get(segments[j]);
+            }
+            parent.childPaths.add(i);
+        }
+    }
+
+    /**
+     * 编译字段路径
+     *
+     * @param paths 以 . 分隔的字段路径，按优先级排列
+     */
+    public static JsonFieldExtractor compile(String... paths) {
+        if (paths.length == 0) {
+            throw new IllegalArgumentException("至少需要一个字段路径");
+        }
+        return new JsonFieldExtractor(paths.clone());
+    }
+
+    /**
+     * 从解析器当前位置读取一个完整的JSON值并提取字段
+     *
+     * @param parser 尚未读取或当前位于顶层值开始处的解析器
+     * @return 字段的值，未找到时返回 null
+     */
+    public String extract(JsonParser parser) throws IOException {
+        JsonToken token = parser.hasCurrentToken() ? parser.currentToken() : parser.nextToken();
+        Extraction extraction = new Extraction(paths.length);
+        if (token == JsonToken.START_OBJECT) {
+            walk(parser, root, extraction);
+        } else {
+            parser.skipChildren();
+        }
+        extraction.close(root);
+        return extraction.resolve();
+    }
+
+    /**
+     * 读取当前对象的全部字段
+     */
+    private void walk(JsonParser parser, Node node, Extraction extraction) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Node child = node.children.get(parser.getCurrentName());
+            JsonToken value = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+            } else if (child.pathIndex >= 0) {
+                extraction.found(child.pathIndex, text(parser, value));
+                parser.skipChildren();
+            } else {
+                extraction.reset(child);
+                if (value == JsonToken.START_OBJECT) {
+                    walk(parser, child, extraction);
+                } else {
+                    parser.skipChildren();
+                }
+                extraction.close(child);
+            }
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        switch (value) {
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue().toString();
+            case VALUE_NUMBER_FLOAT:
+                return Double.toString(parser.getDoubleValue());
+            case VALUE_NULL:
+                return "null";
+            default:
+                return value.isScalarValue() ? parser.getValueAsString() : "";
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        /**
+         * 以该节点为父级的路径
+         */
+        private final List<Integer> childPaths = new ArrayList<>();
+        /**
+         * 经过该节点的路径，节点重复出现时清空这些路径已读到的结果
+         */
+        private final List<Integer> descendantPaths = new ArrayList<>();
+        private int pathIndex = -1;
+    }
+
+    /**
+     * 一次提取的状态，数组下标为路径优先级
+     */
+    private static final class Extraction {
+        private final byte[] states;
+        private final String[] values;
+
+        private Extraction(int size) {
+            this.states = new byte[size];
+            this.values = new String[size];
+        }
+
+        private void found(int index, String value) {
+            states[index] = FOUND;
+            values[index] = value;
+        }
+
+        /**
+         * 父级再次出现，之前读到的内容被替换
+         */
+        private void reset(Node parent) {
+            for (int index : parent.descendantPaths) {
+                states[index] = UNKNOWN;
+                values[index] = null;
+            }
+        }
+
+        /**
+         * 父级已读取完毕，其中未出现的路径确定为不存在
+         */
+        private void close(Node parent) {
+            for (int index : parent.childPaths) {
+                if (states[index] == UNKNOWN) {
+                    states[index] = ABSENT;
+                }
+            }
+        }
+
+        /**
+         * 按优先级取第一个父级存在的路径，父级一直未出现的路径跳过
+         */
+        private String resolve() {
+            for (int i = 0; i < states.length; i++) {
+                if (states[i] != UNKNOWN) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+    }
+}
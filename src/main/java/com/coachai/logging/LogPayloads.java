@@ -0,0 +1,90 @@
+package com.coachai.logging;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 日志载荷处理
+ * 大字段（工作流响应JSON、Base64图片、用户输入等）不直接写入日志，按字段截断或只记录摘要。
+ * 返回的对象在日志真正输出时才计算 toString，级别未开启或被限流丢弃时不产生截断和哈希开销。
+ */
+public final class LogPayloads {
+
+    /**
+     * 默认保留的最大字符数
+     */
+    public static final int DEFAULT_MAX_CHARS = 256;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 摘要保留的字节数（12位十六进制），用于在日志中比对是否为同一载荷
+     */
+    private static final int DIGEST_BYTES = 6;
+
+    private LogPayloads() {
+    }
+
+    /**
+     * 截断为默认长度，超出部分以长度和摘要代替
+     */
+    public static Object truncate(String value) {
+        return truncate(value, DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * 截断为指定长度，超出部分以长度和摘要代替
+     */
+    public static Object truncate(String value, int maxChars) {
+        return new Truncated(value, maxChars);
+    }
+
+    /**
+     * 只记录长度和摘要，不输出内容
+     */
+    public static Object hash(String value) {
+        return new Truncated(value, 0);
+    }
+
+    static String digest(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[DIGEST_BYTES * 2];
+            for (int i = 0; i < DIGEST_BYTES; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+
+    private static final class Truncated {
+        private final String value;
+        private final int maxChars;
+
+        private Truncated(String value, int maxChars) {
+            this.value = value;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public String toString() {
+            if (value == null) {
+                return "null";
+            }
+            if (value.length() <= maxChars) {
+                return value;
+            }
+            StringBuilder builder = new StringBuilder(maxChars + 48);
+            if (maxChars > 0) {
+                builder.append(value, 0, maxChars).append("...");
+            }
+            return builder.append("(长度: ").append(value.length())
+                    .append(", sha256: ").append(digest(value)).append(')')
+                    .toString();
+        }
+    }
+}
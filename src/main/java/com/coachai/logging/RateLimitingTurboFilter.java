@@ -0,0 +1,106 @@
+package com.coachai.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 日志限流
+ * 按日志语句（消息模板）限制每秒输出条数，超出部分丢弃，下一个时间窗口输出一条汇总说明丢弃数量。
+ * 在日志事件创建之前执行，被丢弃的语句不会格式化参数，也不会进入异步队列。
+ * 只作用于指定包下不高于 maxLevel 的日志，WARN/ERROR 默认不受限。
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.coachai";
+    private Level maxLevel = Level.INFO;
+    private int permitsPerSecond = 50;
+    private int maxTrackedTemplates = 10000;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final String reportLoggerName = RateLimitingTurboFilter.class.getName();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || format == null || level == null || level.toInt() > maxLevel.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        String loggerName = logger.getName();
+        if (!loggerName.startsWith(loggerPrefix) || loggerName.equals(reportLoggerName)) {
+            return FilterReply.NEUTRAL;
+        }
+        // 级别未开启的语句由 Logger 自行过滤，不占用配额
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        Window window = windows.get(format);
+        if (window == null) {
+            if (windows.size() >= maxTrackedTemplates) {
+                return FilterReply.NEUTRAL;
+            }
+            window = windows.computeIfAbsent(format, key -> new Window());
+        }
+        return window.tryAcquire(logger, format) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private void reportSuppressed(Logger logger, String format, int suppressed) {
+        logger.getLoggerContext().getLogger(reportLoggerName)
+                .warn("日志限流: 上一窗口丢弃 {} 条, logger={}, 模板: {}", suppressed, logger.getName(), format);
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setMaxLevel(String maxLevel) {
+        this.maxLevel = Level.toLevel(maxLevel, Level.INFO);
+    }
+
+    public void setPermitsPerSecond(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public void setMaxTrackedTemplates(int maxTrackedTemplates) {
+        this.maxTrackedTemplates = maxTrackedTemplates;
+    }
+
+    /**
+     * 单个日志语句的固定时间窗口计数
+     */
+    private class Window {
+        private volatile long windowStart = System.nanoTime();
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger suppressed = new AtomicInteger();
+
+        boolean tryAcquire(Logger logger, String format) {
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                int dropped = 0;
+                synchronized (this) {
+                    if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                        windowStart = now;
+                        count.set(0);
+                        dropped = suppressed.getAndSet(0);
+                    }
+                }
+                // 汇总日志在锁外输出，同步输出到控制台时不阻塞其他线程切换窗口
+                if (dropped > 0) {
+                    reportSuppressed(logger, format, dropped);
+                }
+            }
+            if (count.incrementAndGet() <= permitsPerSecond) {
+                return true;
+            }
+            suppressed.incrementAndGet();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.coachai.metrics;
+
+import com.coachai.deadline.Deadline;
+import com.coachai.deadline.DeadlineExceededException;
+import com.coachai.entity.CoachAiUser;
+import com.coachai.tracing.Spans;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 分析流程指标
+ * 记录姿态分析、症状分析整体及各阶段（准备模型输入图片、查询上次问题、调用工作流、解析、保存）的耗时，
+ * 标签：workflow（pose/issue/pose_batch）、sport、outcome（success/error），阶段计时另带 stage 标签。
+ * 每个阶段同时生成一个 analysis.{stage} Span，失败的分析将当前请求Span标记为错误，尾部采样时整条链路保留。
+ * 非阻塞接口的阶段通过 reactiveStage 记录，追踪上下文在 start 时捕获，不依赖执行阶段的线程。
+ * 请求设置了截止时间时，每个阶段开始前检查，已到期则不再执行并计入 coachai.analysis.deadline.exceeded。
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalysisMetrics {
+
+    public static final String WORKFLOW_POSE = "pose";
+    public static final String WORKFLOW_ISSUE = "issue";
+    public static final String WORKFLOW_POSE_BATCH = "pose_batch";
+
+    public static final String STAGE_UPLOAD = "upload";
+    public static final String STAGE_MODEL_IMAGE = "model_image";
+    public static final String STAGE_LAST_PROBLEMS = "last_problems";
+    public static final String STAGE_WORKFLOW_CALL = "workflow_call";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_PERSIST = "persist";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+
+    private static final String PIPELINE_TIMER = "coachai.analysis";
+    private static final String STAGE_TIMER = "coachai.analysis.stage";
+    private static final String DEADLINE_EXCEEDED_COUNTER = "coachai.analysis.deadline.exceeded";
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofMinutes(6);
+
+    /**
+     * sport 由请求传入，只保留已知运动类型，其余归为 other，避免标签基数失控
+     */
+    private static final Set<String> KNOWN_SPORTS = new HashSet<>();
+
+    static {
+        for (CoachAiUser.PreferredSport sport : CoachAiUser.PreferredSport.values()) {
+            KNOWN_SPORTS.add(sport.getDescription());
+            KNOWN_SPORTS.add(sport.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Tracer tracer;
+
+    /**
+     * 开始一次分析流程计时，需在请求线程上调用
+     */
+    public Pipeline start(String workflow, String sport) {
+        return new Pipeline(workflow, normalizeSport(sport), Timer.start(meterRegistry), Context.current());
+    }
+
+    static String normalizeSport(String sport) {
+        if (sport == null || sport.trim().isEmpty()) {
+            return "unknown";
+        }
+        String trimmed = sport.trim();
+        if (KNOWN_SPORTS.contains(trimmed)) {
+            return trimmed;
+        }
+        String lower = trimmed.toLowerCase(Locale.ROOT);
+        return KNOWN_SPORTS.contains(lower) ? lower : "other";
+    }
+
+    private Timer timer(String name, String workflow, String sport, String outcome, String... extraTags) {
+        return Timer.builder(name)
+                .tags("workflow", workflow, "sport", sport, "outcome", outcome)
+                .tags(extraTags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 一次分析流程
+     */
+    public class Pipeline {
+
+        private final String workflow;
+        private final String sport;
+        private final Timer.Sample sample;
+        private final Context parent;
+        private final Deadline deadline;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Pipeline(String workflow, String sport, Timer.Sample sample, Context parent) {
+            this.workflow = workflow;
+            this.sport = sport;
+            this.sample = sample;
+            this.parent = parent;
+            this.deadline = Deadline.fromContext(parent);
+        }
+
+        /**
+         * 执行并记录一个阶段，抛出异常时记为 error
+         */
+        public <T> T stage(String stage, Callable<T> body) throws Exception {
+            return stage(stage, body, result -> true);
+        }
+
+        /**
+         * 执行并记录一个阶段，抛出异常或结果不满足 isSuccess 时记为 error
+         */
+        public <T> T stage(String stage, Callable<T> body, Predicate<T> isSuccess) throws Exception {
+            checkDeadline(stage);
+            Timer.Sample stageSample = Timer.start(meterRegistry);
+            Span span = stageSpan(stage);
+            String outcome = OUTCOME_ERROR;
+            try {
+                T result = Spans.call(span, () -> {
+                    T value = body.call();
+                    if (!isSuccess.test(value)) {
+                        span.setStatus(StatusCode.ERROR);
+                    }
+                    return value;
+                });
+                if (isSuccess.test(result)) {
+                    outcome = OUTCOME_SUCCESS;
+                }
+                return result;
+            } catch (DeadlineExceededException e) {
+                countDeadlineExceeded(e);
+                throw e;
+            } finally {
+                stageSample.stop(timer(STAGE_TIMER, workflow, sport, outcome, "stage", stage));
+            }
+        }
+
+        /**
+         * 非阻塞阶段，订阅时开始计时，完成、出错或取消时结束；取消及结果为空均记为 error
+         */
+        public <T> Mono<T> reactiveStage(String stage, Supplier<Mono<T>> body) {
+            return reactiveStage(stage, body, result -> true);
+        }
+
+        /**
+         * 非阻塞阶段，结果不满足 isSuccess 时记为 error
+         */
+        public <T> Mono<T> reactiveStage(String stage, Supplier<Mono<T>> body, Predicate<T> isSuccess) {
+            return Mono.defer(() -> {
+                if (deadline != null && deadline.isExpired()) {
+                    DeadlineExceededException exceeded = deadline.exceeded(stage);
+                    countDeadlineExceeded(exceeded);
+                    return Mono.error(exceeded);
+                }
+                Timer.Sample stageSample = Timer.start(meterRegistry);
+                Span span = stageSpan(stage);
+                AtomicBoolean succeeded = new AtomicBoolean();
+                Mono<T> mono;
+                // 阶段内组装的下游调用（如工作流Span）以阶段Span为父，并能取到请求的截止时间
+                try (Scope ignored = parent.with(span).makeCurrent()) {
+                    mono = body.get();
+                }
+                return mono
+                        .doOnNext(value -> {
+                            if (isSuccess.test(value)) {
+                                succeeded.set(true);
+                            } else {
+                                span.setStatus(StatusCode.ERROR);
+                            }
+                        })
+                        .doOnError(e -> {
+                            Spans.recordError(span, e);
+                            if (e instanceof DeadlineExceededException) {
+                                countDeadlineExceeded((DeadlineExceededException) e);
+                            }
+                        })
+                        .doFinally(signal -> {
+                            span.end();
+                            stageSample.stop(timer(STAGE_TIMER, workflow, sport,
+                                    succeeded.get() ? OUTCOME_SUCCESS : OUTCOME_ERROR, "stage", stage));
+                        });
+            });
+        }
+
+        /**
+         * 在指定调度器上执行阻塞操作（如JDBC）的非阻塞阶段，追踪上下文随任务传递到调度器线程
+         */
+        public <T> Mono<T> blockingStage(String stage, Scheduler scheduler, Callable<T> body) {
+            return blockingStage(stage, scheduler, body, result -> true);
+        }
+
+        /**
+         * 在指定调度器上执行阻塞操作的非阻塞阶段，结果不满足 isSuccess 时记为 error
+         */
+        public <T> Mono<T> blockingStage(String stage, Scheduler scheduler, Callable<T> body, Predicate<T> isSuccess) {
+            return reactiveStage(stage, () -> Mono.fromCallable(Context.current().wrap(body)).subscribeOn(scheduler), isSuccess);
+        }
+
+        private void checkDeadline(String stage) {
+            if (deadline != null && deadline.isExpired()) {
+                DeadlineExceededException exceeded = deadline.exceeded(stage);
+                countDeadlineExceeded(exceeded);
+                throw exceeded;
+            }
+        }
+
+        private void countDeadlineExceeded(DeadlineExceededException e) {
+            meterRegistry.counter(DEADLINE_EXCEEDED_COUNTER, "workflow", workflow, "stage", e.getStage()).increment();
+        }
+
+        private Span stageSpan(String stage) {
+            return tracer.spanBuilder("analysis." + stage)
+                    .setParent(parent)
+                    .setAttribute("analysis.workflow", workflow)
+                    .setAttribute("analysis.sport", sport)
+                    .startSpan();
+        }
+
+        public void success() {
+            finish(OUTCOME_SUCCESS);
+        }
+
+        public void error() {
+            finish(OUTCOME_ERROR);
+        }
+
+        private void finish(String outcome) {
+            if (finished.compareAndSet(false, true)) {
+                sample.stop(timer(PIPELINE_TIMER, workflow, sport, outcome));
+                if (OUTCOME_ERROR.equals(outcome)) {
+                    Span.fromContext(parent).setStatus(StatusCode.ERROR, workflow + " analysis failed");
+                }
+            }
+        }
+    }
+}
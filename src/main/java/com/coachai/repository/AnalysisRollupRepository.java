@@ -0,0 +1,57 @@
+package com.coachai.repository;
+
+import com.coachai.entity.AnalysisRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 分析记录预聚合数据访问层
+ */
+@Repository
+public interface AnalysisRollupRepository extends JpaRepository<AnalysisRollup, Long> {
+
+    /**
+     * 按聚合键查询并加写锁，用于增量更新
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM AnalysisRollup r WHERE r.analysisType = :type AND r.granularity = :granularity " +
+           "AND r.bucketStart = :bucketStart AND r.username = :username AND r.sport = :sport AND r.posture = :posture")
+    Optional<AnalysisRollup> findForUpdate(@Param("type") AnalysisRollup.AnalysisType type,
+                                           @Param("granularity") AnalysisRollup.Granularity granularity,
+                                           @Param("bucketStart") Long bucketStart,
+                                           @Param("username") String username,
+                                           @Param("sport") String sport,
+                                           @Param("posture") String posture);
+
+    /**
+     * 查询用户在时间范围内的聚合数据，运动类型和姿势为空时不限
+     */
+    @Query("SELECT r FROM AnalysisRollup r WHERE r.username = :username AND r.analysisType = :type " +
+           "AND r.granularity = :granularity AND r.bucketStart >= :startTime AND r.bucketStart < :endTime " +
+           "AND (:sport IS NULL OR r.sport = :sport) AND (:posture IS NULL OR r.posture = :posture) " +
+           "ORDER BY r.bucketStart ASC")
+    List<AnalysisRollup> findForUser(@Param("username") String username,
+                                     @Param("type") AnalysisRollup.AnalysisType type,
+                                     @Param("granularity") AnalysisRollup.Granularity granularity,
+                                     @Param("startTime") Long startTime,
+                                     @Param("endTime") Long endTime,
+                                     @Param("sport") String sport,
+                                     @Param("posture") String posture);
+
+    /**
+     * 删除时间范围内的聚合数据（回填重算前使用）
+     */
+    @Modifying
+    @Query("DELETE FROM AnalysisRollup r WHERE r.analysisType = :type AND r.bucketStart >= :startTime AND r.bucketStart < :endTime")
+    int deleteByTypeAndBucketRange(@Param("type") AnalysisRollup.AnalysisType type,
+                                   @Param("startTime") Long startTime,
+                                   @Param("endTime") Long endTime);
+}
@@ -1,28 +1,26 @@
 package com.coachai.repository;
 
 import com.coachai.entity.CoachAiUser;
+import com.coachai.repository.projection.UsernameProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
  * CoachAI用户数据访问层
  */
 @Repository
-public interface CoachAiUserRepository extends JpaRepository<CoachAiUser, Long> {
+public interface CoachAiUserRepository extends JpaRepository<CoachAiUser, Long>, CoachAiUserRepositoryCustom {
     
     /**
-     * 根据用户名查找用户
-     */
-    Optional<CoachAiUser> findByUsername(String username);
-    
-    /**
-     * 检查用户名是否存在
+     * 检查用户名是否存在（结果进入查询缓存，表有写入时自动失效）
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     boolean existsByUsername(String username);
     
     /**
@@ -50,4 +48,10 @@ public interface CoachAiUserRepository extends JpaRepository<CoachAiUser, Long>
      * 根据用户名模糊查询
      */
     List<CoachAiUser> findByUsernameContaining(String username);
+
+    /**
+     * 查询所有用户的ID和用户名（用于构建用户名搜索索引）
+     */
+    @Query("SELECT u.id AS id, u.username AS username FROM CoachAiUser u")
+    List<UsernameProjection> findAllUsernames();
 }
@@ -0,0 +1,16 @@
+package com.coachai.repository;
+
+import com.coachai.entity.CoachAiUser;
+
+import java.util.Optional;
+
+/**
+ * CoachAI用户数据访问层自定义扩展
+ */
+public interface CoachAiUserRepositoryCustom {
+
+    /**
+     * 根据用户名查找用户（优先命中自然主键缓存与实体二级缓存）
+     */
+    Optional<CoachAiUser> findByUsername(String username);
+}
@@ -0,0 +1,44 @@
+package com.coachai.repository;
+
+import com.coachai.entity.CoachAiUser;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * CoachAI用户数据访问层自定义实现
+ */
+public class CoachAiUserRepositoryImpl implements CoachAiUserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CoachAiUser> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+
+        // 通过自然主键加载：用户名 -> ID 的解析结果与实体本身均可命中二级缓存
+        Optional<CoachAiUser> user = entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(CoachAiUser.class)
+                .loadOptional(username);
+
+        // 自然主键缓存按入参原样作为键，而数据库比较规则可能不区分大小写，
+        // 用户改名后旧的解析结果可能指向其他用户名，此时回退到数据库查询
+        if (user.isPresent() && user.get().getUsername().equalsIgnoreCase(username)) {
+            return user;
+        }
+        List<CoachAiUser> users = entityManager
+                .createQuery("SELECT u FROM CoachAiUser u WHERE u.username = :username", CoachAiUser.class)
+                .setParameter("username", username)
+                .setMaxResults(1)
+                .getResultList();
+        return users.stream().findFirst();
+    }
+}
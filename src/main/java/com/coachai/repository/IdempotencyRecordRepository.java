@@ -0,0 +1,40 @@
+package com.coachai.repository;
+
+import com.coachai.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 幂等请求记录数据访问层
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    /**
+     * 按请求键查询；在读写事务中执行，始终读主库，不受副本复制延迟影响
+     */
+    @Transactional
+    Optional<IdempotencyRecord> findByRequestKey(String requestKey);
+
+    /**
+     * 删除指定状态的记录，用于释放未成功的请求和清除已放弃的记录
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = :status")
+    int deleteByIdAndStatus(@Param("id") Long id, @Param("status") IdempotencyRecord.Status status);
+
+    /**
+     * 删除过期记录
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Long now);
+}
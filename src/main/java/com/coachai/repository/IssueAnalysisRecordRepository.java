@@ -1,6 +1,9 @@
 package com.coachai.repository;
 
 import com.coachai.entity.IssueAnalysisRecord;
+import com.coachai.repository.projection.IssueAnalysisRecordSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +17,10 @@ import java.util.Optional;
  */
 @Repository
 public interface IssueAnalysisRecordRepository extends JpaRepository<IssueAnalysisRecord, Long> {
+
+    String SUMMARY_SELECT = "SELECT new com.coachai.repository.projection.IssueAnalysisRecordSummary("
+            + "r.id, r.username, r.sport, r.riskLevel, r.primaryDiagnosis, r.confidence, r.isNormal, "
+            + "r.createdAt, r.updatedAt) FROM IssueAnalysisRecord r ";
     
     /**
      * 根据用户名查询最新的症状分析记录
@@ -45,4 +52,40 @@ public interface IssueAnalysisRecordRepository extends JpaRepository<IssueAnalys
     List<IssueAnalysisRecord> findByUsernameAndTimeRange(@Param("username") String username, 
                                                          @Param("startTime") Long startTime, 
                                                          @Param("endTime") Long endTime);
+
+    /**
+     * 分页查询用户的症状分析记录摘要（不加载JSON字段）
+     */
+    @Query(value = SUMMARY_SELECT + "WHERE r.username = :username ORDER BY r.createdAt DESC",
+            countQuery = "SELECT COUNT(r) FROM IssueAnalysisRecord r WHERE r.username = :username")
+    Page<IssueAnalysisRecordSummary> findSummariesByUsername(@Param("username") String username, Pageable pageable);
+
+    /**
+     * 分页查询异常记录摘要（isNormal = false）
+     */
+    @Query(value = SUMMARY_SELECT + "WHERE r.isNormal = false ORDER BY r.createdAt DESC",
+            countQuery = "SELECT COUNT(r) FROM IssueAnalysisRecord r WHERE r.isNormal = false")
+    Page<IssueAnalysisRecordSummary> findAbnormalSummaries(Pageable pageable);
+
+    /**
+     * 根据风险等级分页查询记录摘要
+     */
+    @Query(value = SUMMARY_SELECT + "WHERE r.riskLevel = :riskLevel ORDER BY r.createdAt DESC",
+            countQuery = "SELECT COUNT(r) FROM IssueAnalysisRecord r WHERE r.riskLevel = :riskLevel")
+    Page<IssueAnalysisRecordSummary> findSummariesByRiskLevel(@Param("riskLevel") String riskLevel, Pageable pageable);
+
+    /**
+     * 按ID游标分批查询时间范围内的记录摘要（用于预聚合回填）
+     */
+    @Query(SUMMARY_SELECT + "WHERE r.createdAt >= :startTime AND r.createdAt < :endTime AND r.id > :afterId ORDER BY r.id ASC")
+    List<IssueAnalysisRecordSummary> findRollupBatch(@Param("startTime") Long startTime,
+                                                     @Param("endTime") Long endTime,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
+    /**
+     * 查询最早的记录创建时间
+     */
+    @Query("SELECT MIN(r.createdAt) FROM IssueAnalysisRecord r")
+    Long findMinCreatedAt();
 }
@@ -1,6 +1,7 @@
 package com.coachai.repository;
 
 import com.coachai.entity.PoseAnalysisRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -46,4 +47,19 @@ public interface PoseAnalysisRecordRepository extends JpaRepository<PoseAnalysis
      */
     @Query("SELECT p FROM PoseAnalysisRecord p WHERE p.createdAt BETWEEN :startTime AND :endTime ORDER BY p.createdAt DESC")
     List<PoseAnalysisRecord> findByCreatedAtBetween(@Param("startTime") Long startTime, @Param("endTime") Long endTime);
+
+    /**
+     * 按ID游标分批查询时间范围内的记录（用于预聚合回填）
+     */
+    @Query("SELECT p FROM PoseAnalysisRecord p WHERE p.createdAt >= :startTime AND p.createdAt < :endTime AND p.id > :afterId ORDER BY p.id ASC")
+    List<PoseAnalysisRecord> findRollupBatch(@Param("startTime") Long startTime,
+                                             @Param("endTime") Long endTime,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    /**
+     * 查询最早的记录创建时间
+     */
+    @Query("SELECT MIN(p.createdAt) FROM PoseAnalysisRecord p")
+    Long findMinCreatedAt();
 }
@@ -0,0 +1,44 @@
+package com.coachai.repository;
+
+import com.coachai.entity.UserUsageDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 用户每日用量数据访问层
+ */
+@Repository
+public interface UserUsageDailyRepository extends JpaRepository<UserUsageDaily, Long> {
+
+    /**
+     * 按统计键查询并加写锁，用于增量更新
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM UserUsageDaily u WHERE u.username = :username AND u.workflow = :workflow AND u.usageDate = :usageDate")
+    Optional<UserUsageDaily> findForUpdate(@Param("username") String username,
+                                           @Param("workflow") String workflow,
+                                           @Param("usageDate") LocalDate usageDate);
+
+    /**
+     * 用户当日各工作流token合计；在读写事务中执行，始终读主库，配额检查不受副本复制延迟影响
+     */
+    @Transactional
+    @Query("SELECT COALESCE(SUM(u.totalTokens), 0) FROM UserUsageDaily u WHERE u.username = :username AND u.usageDate = :usageDate")
+    long sumTotalTokens(@Param("username") String username, @Param("usageDate") LocalDate usageDate);
+
+    /**
+     * 查询用户在日期范围内的用量
+     */
+    List<UserUsageDaily> findByUsernameAndUsageDateBetweenOrderByUsageDateAscWorkflowAsc(String username,
+                                                                                         LocalDate startDate,
+                                                                                         LocalDate endDate);
+}
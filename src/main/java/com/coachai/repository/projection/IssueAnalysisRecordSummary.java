@@ -0,0 +1,32 @@
+package com.coachai.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * 症状分析记录摘要投影
+ * 仅包含列表页展示所需的标量字段，不加载symptoms/treatment等JSON大字段。
+ * 查询中以构造器表达式直接创建，不使用接口投影：接口投影每行创建一个代理，列表查询的大部分耗时在代理上
+ */
+@Value
+@AllArgsConstructor
+public class IssueAnalysisRecordSummary {
+
+    Long id;
+
+    String username;
+
+    String sport;
+
+    String riskLevel;
+
+    String primaryDiagnosis;
+
+    Integer confidence;
+
+    Boolean isNormal;
+
+    Long createdAt;
+
+    Long updatedAt;
+}
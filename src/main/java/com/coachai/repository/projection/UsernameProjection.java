@@ -0,0 +1,11 @@
+package com.coachai.repository.projection;
+
+/**
+ * 用户ID与用户名投影，用于构建用户名搜索索引
+ */
+public interface UsernameProjection {
+
+    Long getId();
+
+    String getUsername();
+}
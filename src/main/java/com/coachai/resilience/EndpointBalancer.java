@@ -0,0 +1,368 @@
+package com.coachai.resilience;
+
+import com.coachai.config.AiWorkflowConfig;
+import com.coachai.deadline.DeadlineExceededException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * AI工作流多地址负载均衡
+ * 每次调用随机取两个可用地址，选择 延迟EWMA × (进行中调用数 + 1) 较小的一个（power of two choices）。
+ * 连续失败达到阈值的地址被摘除一段时间（按摘除次数递增），恢复后在慢启动期内逐步提高权重。
+ * 只配置了 ai.workflow.base-url 时只有一个地址，不做选择。
+ * 指标：coachai.workflow.endpoint.*（endpoint 标签为 host:port）
+ */
+@Component
+@Slf4j
+public class EndpointBalancer {
+
+    private static final String REQUESTS_COUNTER = "coachai.workflow.endpoint.requests";
+    private static final String EJECTIONS_COUNTER = "coachai.workflow.endpoint.ejections";
+
+    private final AiWorkflowConfig.BalancerConfig config;
+    private final MeterRegistry meterRegistry;
+    @Getter
+    private final List<Endpoint> endpoints;
+
+    public EndpointBalancer(AiWorkflowConfig aiWorkflowConfig, MeterRegistry meterRegistry) {
+        this.config = aiWorkflowConfig.getBalancer();
+        this.meterRegistry = meterRegistry;
+        List<String> urls = aiWorkflowConfig.getEndpoints() != null && !aiWorkflowConfig.getEndpoints().isEmpty()
+                ? aiWorkflowConfig.getEndpoints()
+                : Collections.singletonList(aiWorkflowConfig.getBaseUrl());
+        List<Endpoint> list = new ArrayList<>();
+        for (String url : urls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            Endpoint endpoint = new Endpoint(url.trim(), TimeUnit.MILLISECONDS.toNanos(config.getInitialLatency()));
+            Tags tags = Tags.of("endpoint", endpoint.getName());
+            Gauge.builder("coachai.workflow.endpoint.latency.ewma", endpoint, e -> e.cost(System.nanoTime()) / 1e9)
+                    .tags(tags)
+                    .baseUnit("seconds")
+                    .description("工作流地址延迟的指数加权平均")
+                    .register(meterRegistry);
+            Gauge.builder("coachai.workflow.endpoint.inflight", endpoint, e -> e.inflight.get())
+                    .tags(tags)
+                    .description("工作流地址进行中的调用数")
+                    .register(meterRegistry);
+            Gauge.builder("coachai.workflow.endpoint.ejected", endpoint, e -> e.isEjected(System.nanoTime()) ? 1 : 0)
+                    .tags(tags)
+                    .description("工作流地址是否被摘除")
+                    .register(meterRegistry);
+            list.add(endpoint);
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+        log.info("AI工作流地址: {}", endpoints);
+    }
+
+    /**
+     * 选择本次调用的地址；所有地址都被摘除时选择最早恢复的一个
+     */
+    public Endpoint select() {
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException("未配置AI工作流地址");
+        }
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+        long now = System.nanoTime();
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+        Endpoint soonest = null;
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected(now)) {
+                available.add(endpoint);
+            } else if (soonest == null || endpoint.ejectedUntil < soonest.ejectedUntil) {
+                soonest = endpoint;
+            }
+        }
+        if (available.isEmpty()) {
+            return soonest;
+        }
+        if (available.size() == 1) {
+            return available.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = available.get(first);
+        Endpoint b = available.get(second);
+        return score(a, now) <= score(b, now) ? a : b;
+    }
+
+    /**
+     * 阻塞调用：选择地址并记录结果
+     */
+    public <T> T execute(EndpointCall<T> call) throws Exception {
+        Endpoint endpoint = select();
+        long start = endpoint.begin();
+        try {
+            T result = call.call(endpoint);
+            complete(endpoint, start, Outcome.SUCCESS);
+            return result;
+        } catch (Exception e) {
+            complete(endpoint, start, classify(e));
+            throw e;
+        }
+    }
+
+    /**
+     * 非阻塞调用：订阅时选择地址，在组装时的上下文中创建调用；取消（对冲落败、客户端断开）不计入地址的延迟和失败。
+     * 对冲时 next() 会在收到结果后取消胜出的调用，成功和取消信号先后到达，每次订阅只按先到的信号结束一次
+     */
+    public <T> Mono<T> executeReactive(Function<Endpoint, Mono<T>> call) {
+        Context context = Context.current();
+        return Mono.defer(() -> {
+            Endpoint endpoint = select();
+            long start = endpoint.begin();
+            AtomicBoolean completed = new AtomicBoolean();
+            Mono<T> mono;
+            try (Scope ignored = context.makeCurrent()) {
+                mono = call.apply(endpoint);
+            }
+            return mono
+                    .doOnSuccess(value -> completeOnce(completed, endpoint, start, Outcome.SUCCESS))
+                    .doOnError(e -> completeOnce(completed, endpoint, start, classify(e)))
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            completeOnce(completed, endpoint, start, Outcome.IGNORED);
+                        }
+                    });
+        });
+    }
+
+    private double score(Endpoint endpoint, long now) {
+        return endpoint.cost(now) * (endpoint.inflight.get() + 1) / endpoint.weight(now, config);
+    }
+
+    private void completeOnce(AtomicBoolean completed, Endpoint endpoint, long start, Outcome outcome) {
+        if (completed.compareAndSet(false, true)) {
+            complete(endpoint, start, outcome);
+        }
+    }
+
+    private void complete(Endpoint endpoint, long start, Outcome outcome) {
+        long now = System.nanoTime();
+        endpoint.inflight.decrementAndGet();
+        meterRegistry.counter(REQUESTS_COUNTER, "endpoint", endpoint.getName(), "outcome", outcome.tag).increment();
+        switch (outcome) {
+            case SUCCESS:
+                endpoint.onSuccess(now - start, now, config);
+                break;
+            case FAILURE:
+                if (endpoint.onFailure(now - start, now, config) && tryEject(endpoint, now)) {
+                    meterRegistry.counter(EJECTIONS_COUNTER, "endpoint", endpoint.getName()).increment();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 摘除地址，被摘除的地址数不超过 maxEjectionPercent（至少保留一个可用地址）
+     */
+    private synchronized boolean tryEject(Endpoint endpoint, long now) {
+        if (endpoint.isEjected(now)) {
+            return false;
+        }
+        int ejected = 0;
+        for (Endpoint e : endpoints) {
+            if (e.isEjected(now)) {
+                ejected++;
+            }
+        }
+        int maxEjected = Math.min(endpoints.size() - 1, endpoints.size() * config.getMaxEjectionPercent() / 100);
+        if (ejected >= maxEjected) {
+            log.warn("AI工作流地址连续失败，但已摘除 {} 个地址，不再摘除: {}", ejected, endpoint.getName());
+            return false;
+        }
+        long duration = endpoint.eject(now, config);
+        log.warn("AI工作流地址连续失败 {} 次，摘除 {}ms: {}",
+                config.getConsecutiveFailures(), TimeUnit.NANOSECONDS.toMillis(duration), endpoint.getName());
+        return true;
+    }
+
+    /**
+     * 连接失败、连接断开、读取超时和5xx计为地址失败；截止时间到期、本地连接池等待超时与地址无关，4xx不计为失败
+     */
+    static Outcome classify(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof DeadlineExceededException || t instanceof ConnectionPoolTimeoutException) {
+                return Outcome.IGNORED;
+            }
+            if (t instanceof IOException || t instanceof ReadTimeoutException) {
+                return Outcome.FAILURE;
+            }
+            if (t instanceof RestClientResponseException) {
+                return ((RestClientResponseException) t).getRawStatusCode() >= 500 ? Outcome.FAILURE : Outcome.SUCCESS;
+            }
+            if (t instanceof WebClientResponseException) {
+                return ((WebClientResponseException) t).getRawStatusCode() >= 500 ? Outcome.FAILURE : Outcome.SUCCESS;
+            }
+        }
+        return Outcome.IGNORED;
+    }
+
+    enum Outcome {
+        SUCCESS("success"),
+        FAILURE("failure"),
+        IGNORED("ignored");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EndpointCall<T> {
+        T call(Endpoint endpoint) throws Exception;
+    }
+
+    /**
+     * 工作流地址及其延迟、失败、摘除状态
+     */
+    public static final class Endpoint {
+
+        @Getter
+        private final String url;
+        @Getter
+        private final URI uri;
+        /**
+         * host:port，用作指标标签
+         */
+        @Getter
+        private final String name;
+        private final long initialCost;
+        private final AtomicInteger inflight = new AtomicInteger();
+
+        private long cost;
+        private boolean sampled;
+        private long lastUpdate;
+        private int consecutiveFailures;
+        private int ejections;
+        private volatile long ejectedUntil;
+        private volatile long recoveredAt;
+
+        Endpoint(String url, long initialCost) {
+            this.url = url;
+            this.uri = URI.create(url);
+            this.name = uri.getPort() > 0 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+            this.initialCost = initialCost;
+            this.cost = initialCost;
+            this.lastUpdate = System.nanoTime();
+        }
+
+        long begin() {
+            inflight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil != 0 && now - ejectedUntil < 0;
+        }
+
+        /**
+         * 当前延迟估计（纳秒），长时间没有新样本时向初始值衰减，延迟曾经偏高的地址会被重新尝试
+         */
+        synchronized double cost(long now) {
+            double idle = Math.exp(-(double) Math.max(0, now - lastUpdate) / TimeUnit.SECONDS.toNanos(60));
+            return cost * idle + initialCost * (1 - idle);
+        }
+
+        /**
+         * 慢启动权重：恢复后在 slowStart 时间内从 slowStartMinWeight 线性增加到1
+         */
+        double weight(long now, AiWorkflowConfig.BalancerConfig config) {
+            long slowStart = TimeUnit.MILLISECONDS.toNanos(config.getSlowStart());
+            long since = recoveredAt == 0 ? slowStart : Math.max(0, now - recoveredAt);
+            if (since >= slowStart) {
+                return 1.0;
+            }
+            double min = config.getSlowStartMinWeight();
+            return min + (1 - min) * since / slowStart;
+        }
+
+        /**
+         * 峰值敏感的EWMA：首个样本或样本高于当前估计时直接取样本，否则按距上次样本的时间衰减
+         */
+        synchronized void onSuccess(long latency, long now, AiWorkflowConfig.BalancerConfig config) {
+            update(latency, now, config);
+            consecutiveFailures = 0;
+            if (recoveredAt != 0 && now - recoveredAt >= TimeUnit.MILLISECONDS.toNanos(config.getSlowStart())) {
+                ejections = 0;
+            }
+        }
+
+        /**
+         * 失败只在耗时高于当前估计时计入延迟，快速失败不会让地址显得更快。返回是否达到摘除阈值
+         */
+        synchronized boolean onFailure(long latency, long now, AiWorkflowConfig.BalancerConfig config) {
+            if (latency > cost) {
+                update(latency, now, config);
+            }
+            return ++consecutiveFailures >= config.getConsecutiveFailures();
+        }
+
+        private void update(long latency, long now, AiWorkflowConfig.BalancerConfig config) {
+            if (!sampled || latency > cost) {
+                cost = latency;
+                sampled = true;
+            } else {
+                double w = Math.exp(-(double) Math.max(0, now - lastUpdate) / TimeUnit.MILLISECONDS.toNanos(config.getEwmaDecay()));
+                cost = (long) (cost * w + latency * (1 - w));
+            }
+            lastUpdate = now;
+        }
+
+        /**
+         * 摘除时长按摘除次数递增，恢复后延迟估计重置为初始值并开始慢启动
+         */
+        synchronized long eject(long now, AiWorkflowConfig.BalancerConfig config) {
+            ejections++;
+            long duration = TimeUnit.MILLISECONDS.toNanos(
+                    Math.min(config.getMaxEjectionTime(), config.getBaseEjectionTime() * ejections));
+            ejectedUntil = now + duration;
+            recoveredAt = ejectedUntil;
+            consecutiveFailures = 0;
+            cost = initialCost;
+            sampled = false;
+            lastUpdate = ejectedUntil;
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return url;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.coachai.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 最近若干次成功调用的延迟，用于计算对冲延迟
+ * 工作流调用以秒计，记录和计算频率都很低，直接在环形缓冲区上加锁并排序副本
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int count;
+    private int next;
+
+    public LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * 近期延迟的分位数，样本数少于 minSamples 时返回 null
+     */
+    public Duration percentile(double percentile, int minSamples) {
+        long[] copy;
+        synchronized (this) {
+            if (count == 0 || count < minSamples) {
+                return null;
+            }
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(percentile * copy.length) - 1;
+        return Duration.ofNanos(copy[Math.max(0, Math.min(index, copy.length - 1))]);
+    }
+}
@@ -0,0 +1,72 @@
+package com.coachai.resilience;
+
+/**
+ * 滑动窗口重试预算
+ * 按秒分桶统计最近一个窗口内的原始请求数和重试数，重试数达到 max(ratio × 请求数, 每秒保底 × 窗口秒数) 时拒绝。
+ * 只在请求开始和决定重试时各加锁一次，锁内不做阻塞操作
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final int minRetriesPerSecond;
+    private final int windowSeconds;
+    private final long[] bucketSeconds;
+    private final long[] requests;
+    private final long[] retries;
+
+    public RetryBudget(double ratio, int minRetriesPerSecond, int windowSeconds) {
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.windowSeconds = Math.max(1, windowSeconds);
+        this.bucketSeconds = new long[this.windowSeconds];
+        this.requests = new long[this.windowSeconds];
+        this.retries = new long[this.windowSeconds];
+    }
+
+    /**
+     * 记录一次原始请求
+     */
+    public synchronized void recordRequest() {
+        requests[bucket(nowSeconds())]++;
+    }
+
+    /**
+     * 尝试占用一次重试（含对冲请求）额度
+     */
+    public synchronized boolean tryAcquire() {
+        long now = nowSeconds();
+        int current = bucket(now);
+        long windowRequests = 0;
+        long windowRetries = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            if (now - bucketSeconds[i] < windowSeconds) {
+                windowRequests += requests[i];
+                windowRetries += retries[i];
+            }
+        }
+        double allowed = Math.max(ratio * windowRequests, (double) minRetriesPerSecond * windowSeconds);
+        if (windowRetries >= allowed) {
+            return false;
+        }
+        retries[current]++;
+        return true;
+    }
+
+    /**
+     * 当前秒对应的桶，桶中是上一轮窗口的旧数据时先清零
+     * nanoTime 的起点任意，可能为负数，因此用 floorMod 而不是 % 取下标
+     */
+    private int bucket(long now) {
+        int index = (int) Math.floorMod(now, (long) windowSeconds);
+        if (bucketSeconds[index] != now) {
+            bucketSeconds[index] = now;
+            requests[index] = 0;
+            retries[index] = 0;
+        }
+        return index;
+    }
+
+    private static long nowSeconds() {
+        return System.nanoTime() / 1_000_000_000L;
+    }
+}
@@ -0,0 +1,223 @@
+package com.coachai.resilience;
+
+import com.coachai.config.AiWorkflowConfig;
+import com.coachai.deadline.Deadline;
+import com.coachai.deadline.DeadlineExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * AI工作流调用的重试与对冲策略
+ * 策略按工作流（pose/issue）配置在 ai.workflow.*.policy，重试和对冲请求共用一个全局重试预算；
+ * 请求带截止时间时，剩余时间不足以等待退避的不再重试。
+ * 指标：coachai.workflow.retries（type=retry/hedge）、coachai.workflow.retry.budget.exhausted
+ */
+@Component
+@Slf4j
+public class WorkflowCallPolicy {
+
+    public static final String WORKFLOW_POSE = "pose";
+    public static final String WORKFLOW_ISSUE = "issue";
+
+    private static final String RETRIES_COUNTER = "coachai.workflow.retries";
+    private static final String BUDGET_EXHAUSTED_COUNTER = "coachai.workflow.retry.budget.exhausted";
+    private static final int LATENCY_SAMPLES = 512;
+
+    private final AiWorkflowConfig aiWorkflowConfig;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget retryBudget;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    public WorkflowCallPolicy(AiWorkflowConfig aiWorkflowConfig, MeterRegistry meterRegistry) {
+        this.aiWorkflowConfig = aiWorkflowConfig;
+        this.meterRegistry = meterRegistry;
+        AiWorkflowConfig.RetryBudgetConfig budget = aiWorkflowConfig.getRetryBudget();
+        this.retryBudget = new RetryBudget(budget.getRatio(), budget.getMinRetriesPerSecond(), budget.getWindowSeconds());
+    }
+
+    /**
+     * 阻塞调用：按策略重试，不支持对冲
+     */
+    public <T> T executeBlocking(String workflow, Callable<T> attempt) throws Exception {
+        AiWorkflowConfig.CallPolicy policy = policyFor(workflow);
+        LatencyTracker latency = latencyFor(workflow);
+        Deadline deadline = Deadline.current();
+        retryBudget.recordRequest();
+        for (int retry = 0; ; retry++) {
+            long start = System.nanoTime();
+            try {
+                T result = attempt.call();
+                latency.record(System.nanoTime() - start);
+                return result;
+            } catch (Exception e) {
+                Duration backoff = shouldRetry(workflow, policy, deadline, Span.current(), retry, e);
+                if (backoff == null) {
+                    throw e;
+                }
+                Thread.sleep(backoff.toMillis());
+            }
+        }
+    }
+
+    /**
+     * 非阻塞调用：按策略重试，开启对冲时超过近期延迟分位数再发送一个相同请求
+     * attempt 每次重新订阅时在调用方的上下文中组装，工作流Span和截止时间不会丢失
+     */
+    public <T> Mono<T> executeReactive(String workflow, Supplier<Mono<T>> attempt) {
+        AiWorkflowConfig.CallPolicy policy = policyFor(workflow);
+        LatencyTracker latency = latencyFor(workflow);
+        Context context = Context.current();
+        Deadline deadline = Deadline.fromContext(context);
+        Mono<T> single = Mono.defer(() -> {
+            long start = System.nanoTime();
+            Mono<T> mono;
+            try (Scope ignored = context.makeCurrent()) {
+                mono = attempt.get();
+            }
+            return mono.doOnNext(value -> latency.record(System.nanoTime() - start));
+        });
+        Mono<T> hedgedOrSingle = Boolean.TRUE.equals(policy.getHedgeEnabled()) ? hedged(workflow, policy, latency, single) : single;
+        return Mono.defer(() -> {
+            retryBudget.recordRequest();
+            return hedgedOrSingle.retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                Duration backoff = shouldRetry(workflow, policy, deadline, Span.fromContext(context),
+                        (int) signal.totalRetries(), signal.failure());
+                if (backoff == null) {
+                    return Mono.error(signal.failure());
+                }
+                return Mono.delay(backoff);
+            })));
+        });
+    }
+
+    /**
+     * 首个请求超过对冲延迟仍未返回时再发送一个，先成功的生效、另一个取消；两者都失败时返回先出现的错误。
+     * 首个请求在对冲前已失败则不再对冲，交给重试处理
+     */
+    private <T> Mono<T> hedged(String workflow, AiWorkflowConfig.CallPolicy policy, LatencyTracker latency, Mono<T> single) {
+        return Mono.defer(() -> {
+            Duration delay = latency.percentile(policy.getHedgePercentile(), policy.getHedgeMinSamples());
+            if (delay == null) {
+                return single;
+            }
+            Duration minDelay = Duration.ofMillis(policy.getHedgeMinDelay());
+            Duration hedgeDelay = delay.compareTo(minDelay) > 0 ? delay : minDelay;
+
+            AtomicReference<Throwable> firstError = new AtomicReference<>();
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+            Mono<T> primary = single.onErrorResume(e -> {
+                firstError.compareAndSet(null, e);
+                primaryFailed.tryEmitValue(true);
+                return Mono.empty();
+            });
+            Mono<T> hedge = Mono.delay(hedgeDelay)
+                    .takeUntilOther(primaryFailed.asMono())
+                    .filter(tick -> acquireBudget(workflow))
+                    .flatMap(tick -> {
+                        meterRegistry.counter(RETRIES_COUNTER, "workflow", workflow, "type", "hedge").increment();
+                        log.info("AI工作流调用超过 {}ms 未返回，发送对冲请求: workflow={}", hedgeDelay.toMillis(), workflow);
+                        return single.onErrorResume(e -> {
+                            firstError.compareAndSet(null, e);
+                            return Mono.empty();
+                        });
+                    });
+            return Flux.merge(primary, hedge)
+                    .next()
+                    .switchIfEmpty(Mono.error(() -> firstError.get() != null
+                            ? firstError.get() : new RuntimeException("AI工作流返回空响应")));
+        });
+    }
+
+    /**
+     * 判断失败后是否重试，重试时返回退避时间，否则返回 null
+     */
+    private Duration shouldRetry(String workflow, AiWorkflowConfig.CallPolicy policy, Deadline deadline, Span span,
+                                 int retry, Throwable failure) {
+        if (retry >= policy.getMaxRetries() || !isRetryable(policy, failure)) {
+            return null;
+        }
+        long cap = Math.min(policy.getMaxBackoff(), policy.getInitialBackoff() << Math.min(retry, 20));
+        Duration backoff = Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+        if (deadline != null && deadline.budget(Duration.ofMillis(aiWorkflowConfig.getDeadlineReserve()),
+                Duration.ofMillis(aiWorkflowConfig.getReadTimeout())).compareTo(backoff) <= 0) {
+            return null;
+        }
+        if (!acquireBudget(workflow)) {
+            return null;
+        }
+        meterRegistry.counter(RETRIES_COUNTER, "workflow", workflow, "type", "retry").increment();
+        log.warn("AI工作流调用失败，{}ms 后第{}次重试: workflow={}, error={}",
+                backoff.toMillis(), retry + 1, workflow, failure.getMessage());
+        span.addEvent("ai.workflow.retry", Attributes.of(
+                AttributeKey.longKey("retry"), (long) retry + 1,
+                AttributeKey.stringKey("error"), String.valueOf(failure.getMessage())));
+        return backoff;
+    }
+
+    private boolean acquireBudget(String workflow) {
+        if (retryBudget.tryAcquire()) {
+            return true;
+        }
+        meterRegistry.counter(BUDGET_EXHAUSTED_COUNTER, "workflow", workflow).increment();
+        return false;
+    }
+
+    /**
+     * 只有请求未被工作流处理的失败可以重试：连接失败，或配置的状态码（网关错误、服务不可用等）。
+     * 本地连接池等待超时说明已有大量调用在进行中，不重试
+     */
+    static boolean isRetryable(AiWorkflowConfig.CallPolicy policy, Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof DeadlineExceededException || t instanceof ConnectionPoolTimeoutException) {
+                return false;
+            }
+            if (t instanceof ConnectException || t instanceof ConnectTimeoutException) {
+                return true;
+            }
+            if (t instanceof RestClientResponseException) {
+                return policy.getRetryOnStatus().contains(((RestClientResponseException) t).getRawStatusCode());
+            }
+            if (t instanceof WebClientResponseException) {
+                return policy.getRetryOnStatus().contains(((WebClientResponseException) t).getRawStatusCode());
+            }
+        }
+        return false;
+    }
+
+    private AiWorkflowConfig.CallPolicy policyFor(String workflow) {
+        if (WORKFLOW_POSE.equals(workflow) && aiWorkflowConfig.getPoseAnalysis() != null) {
+            return aiWorkflowConfig.getPoseAnalysis().getPolicy();
+        }
+        if (WORKFLOW_ISSUE.equals(workflow) && aiWorkflowConfig.getIssueAnalysis() != null) {
+            return aiWorkflowConfig.getIssueAnalysis().getPolicy();
+        }
+        return new AiWorkflowConfig.CallPolicy();
+    }
+
+    private LatencyTracker latencyFor(String workflow) {
+        return latencies.computeIfAbsent(workflow, key -> new LatencyTracker(LATENCY_SAMPLES));
+    }
+}
@@ -49,4 +49,13 @@ public interface AiWorkflowService {
      * @return 解析后的诊断数据
      */
     AiWorkflowIssueResponse.DiagnosisData parseDiagnosisData(AiWorkflowIssueResponse.StructData structData);
+
+    /**
+     * 将StructData中的poseReference和rehabilitationVideos解析为结构体并设置到DiagnosisData中
+     * （video字段可能包含以"|"分隔的多个URL，只保留第一个）
+     *
+     * @param diagnosisData 诊断数据
+     * @param structData 结构化数据
+     */
+    void attachMediaReferences(AiWorkflowIssueResponse.DiagnosisData diagnosisData, AiWorkflowIssueResponse.StructData structData);
 }
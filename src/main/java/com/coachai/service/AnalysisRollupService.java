@@ -0,0 +1,55 @@
+package com.coachai.service;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.dto.AnalyticsDTO;
+import com.coachai.entity.AnalysisRollup;
+import com.coachai.entity.IssueAnalysisRecord;
+import com.coachai.entity.PoseAnalysisRecord;
+
+import java.util.List;
+
+/**
+ * 分析记录预聚合服务接口
+ */
+public interface AnalysisRollupService {
+
+    /**
+     * 回填管理令牌请求头
+     */
+    String ADMIN_TOKEN_HEADER = "X-Analytics-Admin-Token";
+
+    /**
+     * 同一事务新增的分析记录提交后增量更新聚合数据（提交到后台线程合并执行，不在调用线程访问数据库）
+     */
+    void onRecordsCreated(List<PoseAnalysisRecord> poseRecords, List<IssueAnalysisRecord> issueRecords);
+
+    /**
+     * 查询用户在时间范围内的趋势数据（按时间桶）
+     */
+    ApiResponse<List<AnalyticsDTO.ProgressPoint>> getProgress(String username, AnalysisRollup.AnalysisType type,
+                                                             AnalysisRollup.Granularity granularity,
+                                                             Long startTime, Long endTime,
+                                                             String sport, String posture);
+
+    /**
+     * 查询用户在时间范围内的汇总统计
+     */
+    ApiResponse<AnalyticsDTO.Summary> getSummary(String username, AnalysisRollup.AnalysisType type,
+                                                 Long startTime, Long endTime,
+                                                 String sport, String posture);
+
+    /**
+     * 启动回填任务，按自然周从原始记录重算聚合数据
+     */
+    ApiResponse<AnalyticsDTO.BackfillStatus> startBackfill(AnalysisRollup.AnalysisType type, Long startTime, Long endTime);
+
+    /**
+     * 查询回填任务进度
+     */
+    ApiResponse<AnalyticsDTO.BackfillStatus> getBackfillStatus();
+
+    /**
+     * 校验回填管理令牌（未配置令牌时拒绝所有请求）
+     */
+    boolean isAdminTokenValid(String token);
+}
@@ -51,6 +51,11 @@ public interface CoachAiUserService {
      */
     ApiResponse<List<CoachAiUserDTO.QueryResponse>> searchUsersByUsername(String username);
     
+    /**
+     * 根据用户名搜索用户（基于内存索引，支持包含/前缀/模糊模式）
+     */
+    ApiResponse<List<CoachAiUserDTO.QueryResponse>> searchUsersByUsername(String username, UsernameSearchIndex.Mode mode, int limit);
+    
     /**
      * 更新用户信息
      */
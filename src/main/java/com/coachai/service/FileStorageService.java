@@ -1,6 +1,7 @@
 package com.coachai.service;
 
 import org.springframework.web.multipart.MultipartFile;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,6 +17,15 @@ public interface FileStorageService {
      */
     String uploadImage(MultipartFile file);
 
+    /**
+     * 上传图片文件，返回对象名称
+     * 供需要在上传后继续生成预签名URL的调用方使用，访问URL通过 {@link #getFileUrl(String)} 获取
+     *
+     * @param file 图片文件
+     * @return 对象名称
+     */
+    String uploadImageObject(MultipartFile file);
+
     /**
      * 上传文档文件
      *
@@ -56,6 +66,32 @@ public interface FileStorageService {
      */
     String downloadAndSaveImage(String imageUrl);
 
+    /**
+     * 从URL下载图片为字节数组，不跟随重定向（调用方已检查的链接不会被转到其他地址）
+     *
+     * @param imageUrl 图片URL
+     * @param maxBytes 大小上限（字节），超过时抛出异常；小于等于0不限制
+     * @return 图片字节数组
+     */
+    byte[] downloadUrlAsBytes(String imageUrl, long maxBytes);
+
+    /**
+     * 以指定对象名称保存图片字节数组
+     *
+     * @param objectName  对象名称
+     * @param imageBytes  图片字节数组
+     * @param contentType 图片类型
+     */
+    void putImageObject(String objectName, byte[] imageBytes, String contentType);
+
+    /**
+     * 由文件访问URL解析对象名称
+     *
+     * @param fileUrl 文件访问URL
+     * @return 对象名称，URL不指向本系统存储桶时返回 null
+     */
+    String resolveObjectName(String fileUrl);
+
     /**
      * 下载文件为字节数组
      *
@@ -95,4 +131,21 @@ public interface FileStorageService {
      * @return 预签名URL
      */
     String getPresignedUrl(String objectName, int expiry);
+
+    /**
+     * 批量获取预签名URL
+     *
+     * @param objectNames 对象名称列表
+     * @param expiry      过期时间（秒）
+     * @return 对象名称到预签名URL的映射，顺序与请求一致
+     */
+    Map<String, String> getPresignedUrls(List<String> objectNames, int expiry);
+
+    /**
+     * 获取文件访问URL
+     *
+     * @param objectName 对象名称
+     * @return 文件访问URL
+     */
+    String getFileUrl(String objectName);
 }
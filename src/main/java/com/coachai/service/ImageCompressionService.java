@@ -1,22 +1,33 @@
 package com.coachai.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.coobird.thumbnailator.Thumbnails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 
 /**
  * 图片压缩服务
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class ImageCompressionService {
 
+    private final MeterRegistry meterRegistry;
+
     /**
      * 压缩图片文件
      *
@@ -30,20 +41,16 @@ public class ImageCompressionService {
         log.info("开始压缩图片: fileName={}, originalSize={} bytes, quality={}, maxSize={}x{}", 
                 file.getOriginalFilename(), file.getSize(), quality, maxWidth, maxHeight);
 
-        try (InputStream inputStream = file.getInputStream();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-            Thumbnails.of(inputStream)
-                    .size(maxWidth, maxHeight)
-                    .outputQuality(quality)
-                    .outputFormat("jpg") // 统一输出为JPEG格式以获得更好的压缩效果
-                    .toOutputStream(outputStream);
+        try (InputStream inputStream = file.getInputStream()) {
 
-            byte[] compressedBytes = outputStream.toByteArray();
+            byte[] compressedBytes = thumbnail(inputStream, file.getSize(), quality, maxWidth, maxHeight);
             
-            log.info("图片压缩完成: originalSize={} bytes, compressedSize={} bytes, compression={}%", 
-                    file.getSize(), compressedBytes.length, 
-                    String.format("%.1f", (1 - (double) compressedBytes.length / file.getSize()) * 100));
+            // 压缩率格式化开销较大，仅在输出时计算
+            if (log.isInfoEnabled()) {
+                log.info("图片压缩完成: originalSize={} bytes, compressedSize={} bytes, compression={}%", 
+                        file.getSize(), compressedBytes.length, 
+                        String.format("%.1f", (1 - (double) compressedBytes.length / file.getSize()) * 100));
+            }
 
             return compressedBytes;
         }
@@ -62,25 +69,58 @@ public class ImageCompressionService {
         log.info("开始压缩图片字节数组: originalSize={} bytes, quality={}, maxSize={}x{}", 
                 imageBytes.length, quality, maxWidth, maxHeight);
 
-        try (InputStream inputStream = new ByteArrayInputStream(imageBytes);
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+        try (InputStream inputStream = new ByteArrayInputStream(imageBytes)) {
 
-            Thumbnails.of(inputStream)
-                    .size(maxWidth, maxHeight)
-                    .outputQuality(quality)
-                    .outputFormat("jpg") // 统一输出为JPEG格式
-                    .toOutputStream(outputStream);
-
-            byte[] compressedBytes = outputStream.toByteArray();
+            byte[] compressedBytes = thumbnail(inputStream, imageBytes.length, quality, maxWidth, maxHeight);
             
-            log.info("图片字节数组压缩完成: originalSize={} bytes, compressedSize={} bytes, compression={}%", 
-                    imageBytes.length, compressedBytes.length, 
-                    String.format("%.1f", (1 - (double) compressedBytes.length / imageBytes.length) * 100));
+            // 压缩率格式化开销较大，仅在输出时计算
+            if (log.isInfoEnabled()) {
+                log.info("图片字节数组压缩完成: originalSize={} bytes, compressedSize={} bytes, compression={}%", 
+                        imageBytes.length, compressedBytes.length, 
+                        String.format("%.1f", (1 - (double) compressedBytes.length / imageBytes.length) * 100));
+            }
 
             return compressedBytes;
         }
     }
 
+    /**
+     * 按长边缩放图片，用于生成模型输入图片
+     * 只读取图片头获取尺寸，长边不超过 longEdge 时保持原尺寸，仅按指定质量重新编码为JPEG
+     *
+     * @param imageBytes 原始图片字节数组
+     * @param longEdge   长边像素
+     * @param quality    压缩质量 (0.1-1.0)
+     * @return 缩放后的图片字节数组
+     */
+    public byte[] resizeToLongEdge(byte[] imageBytes, int longEdge, double quality) throws IOException {
+        int width;
+        int height;
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        // EXIF方向可能交换宽高，长边不受影响
+        int target = Math.min(longEdge, Math.max(width, height));
+        try (InputStream inputStream = new ByteArrayInputStream(imageBytes)) {
+            byte[] resizedBytes = thumbnail(inputStream, imageBytes.length, quality, target, target);
+            log.debug("图片按长边缩放完成: {}x{} -> 长边{}, originalSize={} bytes, resizedSize={} bytes",
+                    width, height, target, imageBytes.length, resizedBytes.length);
+            return resizedBytes;
+        }
+    }
+
     /**
      * 智能压缩 - 根据图片大小自动选择压缩参数
      *
@@ -167,4 +207,37 @@ public class ImageCompressionService {
     public boolean needsCompression(long fileSize) {
         return fileSize > 500 * 1024; // 大于500KB需要压缩
     }
+
+    /**
+     * 缩放并统一输出为JPEG格式以获得更好的压缩效果，记录压缩耗时及压缩前后大小
+     */
+    private byte[] thumbnail(InputStream inputStream, long originalSize, double quality, int maxWidth, int maxHeight) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            Thumbnails.of(inputStream)
+                    .size(maxWidth, maxHeight)
+                    .outputQuality(quality)
+                    .outputFormat("jpg")
+                    .toOutputStream(outputStream);
+
+            byte[] compressedBytes = outputStream.toByteArray();
+            bytesSummary("input").record(originalSize);
+            bytesSummary("output").record(compressedBytes.length);
+            outcome = "success";
+            return compressedBytes;
+        } finally {
+            sample.stop(Timer.builder("coachai.image.compression")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private DistributionSummary bytesSummary(String direction) {
+        return DistributionSummary.builder("coachai.image.compression.bytes")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
 }
@@ -1,10 +1,9 @@
 package com.coachai.service;
 
 import com.coachai.common.ApiResponse;
+import com.coachai.common.PageResult;
 import com.coachai.dto.IssueAnalysisRecordDTO;
 
-import java.util.List;
-
 /**
  * 症状分析记录服务接口
  */
@@ -26,17 +25,22 @@ public interface IssueAnalysisRecordService {
     ApiResponse<IssueAnalysisRecordDTO.QueryResponse> getLatestRecordByUsernameAndSport(String username, String sport);
     
     /**
-     * 根据用户名查询所有记录
+     * 根据ID查询记录详情（包含解析后的结构体）
+     */
+    ApiResponse<IssueAnalysisRecordDTO.ApiResponse> getRecordById(Long id);
+    
+    /**
+     * 根据用户名分页查询记录摘要
      */
-    ApiResponse<List<IssueAnalysisRecordDTO.QueryResponse>> getRecordsByUsername(String username);
+    ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>> getRecordsByUsername(String username, int page, int size);
     
     /**
-     * 查询所有异常记录
+     * 分页查询异常记录摘要
      */
-    ApiResponse<List<IssueAnalysisRecordDTO.QueryResponse>> getAbnormalRecords();
+    ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>> getAbnormalRecords(int page, int size);
     
     /**
-     * 根据风险等级查询记录
+     * 根据风险等级分页查询记录摘要
      */
-    ApiResponse<List<IssueAnalysisRecordDTO.QueryResponse>> getRecordsByRiskLevel(String riskLevel);
+    ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>> getRecordsByRiskLevel(String riskLevel, int page, int size);
 }
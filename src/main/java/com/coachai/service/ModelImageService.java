@@ -0,0 +1,268 @@
+package com.coachai.service;
+
+import com.coachai.config.ModelImageConfig;
+import com.coachai.config.VirtualThreadConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.opentelemetry.context.Context;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 模型输入图片服务
+ * 姿态分析工作流读取按 analysis.model-image 缩放的派生图而不是原图：本系统OSS中的图片在上传时预生成，
+ * 未生成的（历史图片、其他来源的链接）在首次分析时下载原图生成。派生图对象名称由原图和缩放参数确定，
+ * 已存在时直接复用，以短期预签名URL交给工作流读取。任何一步失败都退回原图片链接，不影响分析
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ModelImageService {
+
+    private static final String RESOLUTIONS_COUNTER = "coachai.model.image.resolutions";
+    private static final String SOURCE_OWN = "own";
+    private static final String SOURCE_FOREIGN = "foreign";
+
+    private final ModelImageConfig modelImageConfig;
+    private final FileStorageService fileStorageService;
+    private final ImageCompressionService imageCompressionService;
+    private final MeterRegistry meterRegistry;
+    private final VirtualThreadConfig virtualThreadConfig;
+
+    /**
+     * 原图对象名称（外部图片为链接）到工作流读取对象的缓存
+     */
+    private Cache<String, Derivative> derivativeCache;
+
+    private ThreadPoolExecutor prepareExecutor;
+
+    @PostConstruct
+    public void init() {
+        // 派生图生成后不再变化，过期只是为了派生图被清理后能重新生成
+        derivativeCache = Caffeine.newBuilder()
+                .maximumSize(modelImageConfig.getCacheMaxSize())
+                .expireAfterWrite(Duration.ofDays(1))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, derivativeCache, "model.image");
+        ThreadFactory threadFactory = virtualThreadConfig.isActive()
+                ? VirtualThreadConfig.virtualThreadFactory("model-image-prepare-")
+                : r -> {
+                    Thread thread = new Thread(r, "model-image-prepare");
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        prepareExecutor = new ThreadPoolExecutor(modelImageConfig.getPrepareThreads(), modelImageConfig.getPrepareThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(modelImageConfig.getPrepareQueueSize()), threadFactory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prepareExecutor.shutdownNow();
+    }
+
+    /**
+     * 获取交给AI工作流读取的图片链接
+     * 本系统OSS中的图片和允许的外部图片返回派生图（或已足够小的原图）的预签名URL，其他情况返回原链接
+     *
+     * @param imageLink 请求中的图片链接
+     * @return 工作流读取的图片链接
+     */
+    public String resolveWorkflowImage(String imageLink) {
+        if (!modelImageConfig.isEnabled() || !StringUtils.hasText(imageLink)) {
+            return imageLink;
+        }
+        String objectName = fileStorageService.resolveObjectName(imageLink);
+        String source = objectName != null ? SOURCE_OWN : SOURCE_FOREIGN;
+        if (objectName == null && !isAllowedForeign(imageLink)) {
+            count(source, "original");
+            return imageLink;
+        }
+
+        try {
+            Derivative derivative = lookup(objectName != null ? objectName : imageLink, source,
+                    () -> load(objectName, imageLink));
+            return derivative.getObjectName() != null ? presign(derivative.getObjectName()) : imageLink;
+        } catch (Exception e) {
+            count(source, "fallback");
+            log.warn("获取模型输入图片失败，使用原图片链接: imageLink={}, error={}", imageLink, e.getMessage());
+            return imageLink;
+        }
+    }
+
+    /**
+     * 外部图片链接是否允许下载：需开启外部图片，且为 http/https 链接、域名在允许列表中
+     * 链接由客户端传入，不在列表中的地址（包括内网地址）一律不下载，原样交给工作流
+     */
+    private boolean isAllowedForeign(String imageLink) {
+        if (!modelImageConfig.isForeignEnabled() || modelImageConfig.getForeignAllowedHosts().isEmpty()) {
+            return false;
+        }
+        URI uri;
+        try {
+            uri = new URI(imageLink.trim());
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if (host == null || uri.getUserInfo() != null
+                || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            return false;
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        for (String allowed : modelImageConfig.getForeignAllowedHosts()) {
+            String domain = allowed.trim().toLowerCase(Locale.ROOT);
+            if (!domain.isEmpty() && (host.equals(domain) || host.endsWith("." + domain))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 由刚上传的原图生成派生图，返回交给AI工作流读取的预签名URL
+     * 生成失败或未启用时返回原图的预签名URL
+     *
+     * @param objectName  原图对象名称
+     * @param sourceBytes 原图字节数组（压缩前的上传内容）
+     * @return 工作流读取的预签名URL
+     */
+    public String prepareWorkflowImage(String objectName, byte[] sourceBytes) {
+        if (!modelImageConfig.isEnabled()) {
+            return presign(objectName);
+        }
+        try {
+            Derivative derivative = lookup(objectName, SOURCE_OWN,
+                    () -> create(derivativeName(objectName, null), objectName, sourceBytes));
+            return presign(derivative.getObjectName());
+        } catch (Exception e) {
+            count(SOURCE_OWN, "fallback");
+            log.warn("生成模型输入图片失败，使用原图: objectName={}, error={}", objectName, e.getMessage());
+            return presign(objectName);
+        }
+    }
+
+    /**
+     * 在后台线程中预生成派生图，排队任务已满时跳过，分析时再按需生成
+     *
+     * @param objectName  原图对象名称
+     * @param sourceBytes 原图字节数组
+     */
+    public void prepareAsync(String objectName, byte[] sourceBytes) {
+        if (!modelImageConfig.isEnabled()) {
+            return;
+        }
+        try {
+            prepareExecutor.execute(Context.current().wrap(() -> {
+                prepareWorkflowImage(objectName, sourceBytes);
+            }));
+        } catch (RejectedExecutionException e) {
+            count(SOURCE_OWN, "skipped");
+            log.debug("预生成模型输入图片排队已满，跳过: {}", objectName);
+        }
+    }
+
+    /**
+     * 查询缓存，未命中时生成；同一图片的并发请求只生成一次
+     */
+    private Derivative lookup(String key, String source, DerivativeLoader loader) {
+        AtomicBoolean loaded = new AtomicBoolean();
+        Derivative derivative = derivativeCache.get(key, k -> {
+            loaded.set(true);
+            try {
+                return loader.load();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        count(source, loaded.get() ? derivative.getOutcome() : "cached");
+        return derivative;
+    }
+
+    /**
+     * 派生图已存在时直接使用，否则下载原图生成
+     */
+    private Derivative load(String objectName, String imageLink) throws IOException {
+        String derivativeName = derivativeName(objectName, imageLink);
+        if (fileStorageService.fileExists(derivativeName)) {
+            return new Derivative(derivativeName, "existing");
+        }
+        byte[] sourceBytes = objectName != null
+                ? fileStorageService.downloadFileAsBytes(objectName)
+                : fileStorageService.downloadUrlAsBytes(imageLink, modelImageConfig.getForeignMaxBytes());
+        return create(derivativeName, objectName, sourceBytes);
+    }
+
+    /**
+     * 缩放并保存派生图；缩放后不比原图小时不保存，工作流直接读取原图
+     */
+    private Derivative create(String derivativeName, String sourceObjectName, byte[] sourceBytes) throws IOException {
+        byte[] resized = imageCompressionService.resizeToLongEdge(sourceBytes,
+                modelImageConfig.getLongEdge(), modelImageConfig.getQuality());
+        if (resized.length >= sourceBytes.length) {
+            log.debug("原图已不大于派生图，直接使用原图: source={}, size={} bytes",
+                    sourceObjectName, sourceBytes.length);
+            return new Derivative(sourceObjectName, "original");
+        }
+        fileStorageService.putImageObject(derivativeName, resized, "image/jpeg");
+        log.info("模型输入图片生成完成: {} ({} bytes -> {} bytes)", derivativeName, sourceBytes.length, resized.length);
+        return new Derivative(derivativeName, "created");
+    }
+
+    /**
+     * 派生图对象名称：按长边和质量分目录，本系统图片沿用原对象名称，外部图片以链接的摘要命名
+     */
+    private String derivativeName(String objectName, String imageLink) {
+        String prefix = modelImageConfig.getPath() + "model-" + modelImageConfig.getLongEdge()
+                + "-q" + Math.round(modelImageConfig.getQuality() * 100) + "/";
+        if (objectName != null) {
+            return prefix + (objectName.endsWith(".jpg") ? objectName : objectName + ".jpg");
+        }
+        return prefix + "external/" + DigestUtils.md5DigestAsHex(imageLink.getBytes(StandardCharsets.UTF_8)) + ".jpg";
+    }
+
+    private String presign(String objectName) {
+        return fileStorageService.getPresignedUrl(objectName, modelImageConfig.getPresignExpirySeconds());
+    }
+
+    private void count(String source, String outcome) {
+        meterRegistry.counter(RESOLUTIONS_COUNTER, "source", source, "outcome", outcome).increment();
+    }
+
+    @FunctionalInterface
+    private interface DerivativeLoader {
+        Derivative load() throws IOException;
+    }
+
+    /**
+     * 工作流读取的对象，objectName 为 null 时使用原图片链接
+     */
+    @Value
+    private static class Derivative {
+        String objectName;
+        String outcome;
+    }
+}
@@ -4,23 +4,45 @@ import com.aliyun.oss.OSS;
 import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.model.*;
 import com.coachai.config.OssConfig;
+import com.coachai.json.JsonCodec;
+import com.coachai.tracing.Spans;
+import com.coachai.util.Base64DataUri;
 import com.coachai.util.CompressedMultipartFile;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriUtils;
 
+import javax.annotation.PostConstruct;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * 阿里云OSS文件存储服务
@@ -33,10 +55,23 @@ public class OssFileStorageService implements FileStorageService {
     private final OSS ossClient;
     private final OssConfig ossConfig;
     private final ImageCompressionService imageCompressionService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry;
+    private final OpenTelemetry openTelemetry;
+    private final Tracer tracer;
+    private final JsonCodec jsonCodec;
+
+    /**
+     * 预签名URL缓存，键为对象名称和对齐后的过期时间
+     */
+    private Cache<PresignKey, String> presignCache;
 
     @Override
     public String uploadImage(MultipartFile file) {
+        return getFileUrl(uploadImageObject(file));
+    }
+
+    @Override
+    public String uploadImageObject(MultipartFile file) {
         try {
             if (!isImageFile(file)) {
                 throw new IllegalArgumentException("文件类型不支持，仅支持图片文件");
@@ -101,10 +136,10 @@ public class OssFileStorageService implements FileStorageService {
                     metadata
             );
 
-            ossClient.putObject(putRequest);
+            putObject(putRequest);
 
             log.info("图片上传成功: {} (最终大小: {} bytes)", objectName, processedFile.getSize());
-            return getFileUrl(objectName);
+            return objectName;
 
         } catch (Exception e) {
             log.error("图片上传失败", e);
@@ -140,7 +175,7 @@ public class OssFileStorageService implements FileStorageService {
                     metadata
             );
 
-            ossClient.putObject(putRequest);
+            putObject(putRequest);
 
             log.info("文档上传成功: {}", objectName);
             return getFileUrl(objectName);
@@ -181,7 +216,7 @@ public class OssFileStorageService implements FileStorageService {
                     metadata
             );
 
-            ossClient.putObject(putRequest);
+            putObject(putRequest);
 
             log.info("临时文件上传成功: {}", objectName);
             return getFileUrl(objectName);
@@ -198,7 +233,7 @@ public class OssFileStorageService implements FileStorageService {
             log.info("开始保存Base64图片");
 
             // 解析base64数据
-            String[] base64Parts = parseBase64Data(base64Image);
+            String[] base64Parts = Base64DataUri.parse(base64Image);
             String mimeType = base64Parts[0];
             String base64Content = base64Parts[1];
 
@@ -227,7 +262,7 @@ public class OssFileStorageService implements FileStorageService {
                     metadata
             );
 
-            ossClient.putObject(putRequest);
+            putObject(putRequest);
 
             log.info("Base64图片保存成功: {} (大小: {} bytes)", objectName, imageBytes.length);
             return getFileUrl(objectName);
@@ -244,7 +279,7 @@ public class OssFileStorageService implements FileStorageService {
             log.info("开始从JSON保存Base64图片");
 
             // 解析JSON
-            JsonNode jsonNode = objectMapper.readTree(jsonString);
+            JsonNode jsonNode = jsonCodec.readTree(jsonString);
             
             // 尝试多种可能的JSON结构来查找base64图片数据
             String base64Image = null;
@@ -323,20 +358,9 @@ public class OssFileStorageService implements FileStorageService {
             log.info("开始从URL下载图片: {}", imageUrl);
 
             // 下载图片
-            URL url = new URL(imageUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(30000);
-            connection.setRequestProperty("User-Agent", "CoachAI/1.0");
-
-            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
-                throw new RuntimeException("下载图片失败，HTTP状态码: " + connection.getResponseCode());
-            }
-
-            // 读取图片数据
-            byte[] imageBytes = IOUtils.toByteArray(connection.getInputStream());
-            String contentType = connection.getContentType();
+            DownloadedImage downloaded = download(imageUrl, 0, true);
+            byte[] imageBytes = downloaded.getBytes();
+            String contentType = downloaded.getContentType();
 
             // 生成文件名
             String extension = getFileExtensionFromUrl(imageUrl, contentType);
@@ -366,7 +390,7 @@ public class OssFileStorageService implements FileStorageService {
                     metadata
             );
 
-            ossClient.putObject(putRequest);
+            putObject(putRequest);
 
             log.info("从URL下载图片成功: {} -> {}", imageUrl, objectName);
             return getFileUrl(objectName);
@@ -377,14 +401,62 @@ public class OssFileStorageService implements FileStorageService {
         }
     }
 
+    @Override
+    public byte[] downloadUrlAsBytes(String imageUrl, long maxBytes) {
+        try {
+            return download(imageUrl, maxBytes, false).getBytes();
+        } catch (Exception e) {
+            throw new RuntimeException("从URL下载图片失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void putImageObject(String objectName, byte[] imageBytes, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(imageBytes.length);
+        metadata.setContentType(contentType);
+        metadata.setCacheControl("public, max-age=31536000"); // 1年缓存
+        metadata.setContentDisposition("inline");
+
+        putObject(new PutObjectRequest(
+                ossConfig.getBucketName(),
+                objectName,
+                new ByteArrayInputStream(imageBytes),
+                metadata
+        ));
+        log.info("图片保存成功: {} (大小: {} bytes)", objectName, imageBytes.length);
+    }
+
+    @Override
+    public String resolveObjectName(String fileUrl) {
+        if (fileUrl == null || fileUrl.trim().isEmpty()) {
+            return null;
+        }
+        String url = fileUrl.trim();
+        int queryIndex = url.indexOf('?');
+        if (queryIndex >= 0) {
+            url = url.substring(0, queryIndex);
+        }
+        int fragmentIndex = url.indexOf('#');
+        if (fragmentIndex >= 0) {
+            url = url.substring(0, fragmentIndex);
+        }
+        for (String baseUrl : new String[]{ossConfig.getBaseUrl(), ossConfig.getDefaultBaseUrl()}) {
+            String prefix = baseUrl + "/";
+            if (url.startsWith(prefix) && url.length() > prefix.length()) {
+                return UriUtils.decode(url.substring(prefix.length()), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
     @Override
     public byte[] downloadFileAsBytes(String objectName) {
         try {
             log.info("开始下载文件: {}", objectName);
 
             // 下载文件
-            OSSObject ossObject = ossClient.getObject(ossConfig.getBucketName(), objectName);
-            byte[] fileBytes = IOUtils.toByteArray(ossObject.getObjectContent());
+            byte[] fileBytes = getObjectBytes(objectName);
 
             log.info("文件下载成功: {} (大小: {} bytes)", objectName, fileBytes.length);
             return fileBytes;
@@ -401,7 +473,8 @@ public class OssFileStorageService implements FileStorageService {
             log.info("获取文件信息: {}", objectName);
 
             // 获取文件元数据
-            ObjectMetadata metadata = ossClient.getObjectMetadata(ossConfig.getBucketName(), objectName);
+            ObjectMetadata metadata = ossCall("head", objectName,
+                    () -> ossClient.getObjectMetadata(ossConfig.getBucketName(), objectName));
 
             Map<String, Object> fileInfo = new HashMap<>();
             fileInfo.put("objectName", objectName);
@@ -423,7 +496,8 @@ public class OssFileStorageService implements FileStorageService {
     @Override
     public boolean fileExists(String objectName) {
         try {
-            return ossClient.doesObjectExist(ossConfig.getBucketName(), objectName);
+            return ossCall("exists", objectName,
+                    () -> ossClient.doesObjectExist(ossConfig.getBucketName(), objectName));
         } catch (Exception e) {
             log.error("检查文件存在性失败: {}", objectName, e);
             return false;
@@ -435,7 +509,8 @@ public class OssFileStorageService implements FileStorageService {
         try {
             log.info("开始删除文件: {}", objectName);
 
-            ossClient.deleteObject(ossConfig.getBucketName(), objectName);
+            ossCall("delete", objectName,
+                    () -> ossClient.deleteObject(ossConfig.getBucketName(), objectName));
 
             log.info("文件删除成功: {}", objectName);
 
@@ -447,19 +522,59 @@ public class OssFileStorageService implements FileStorageService {
 
     @Override
     public String getPresignedUrl(String objectName, int expiry) {
+        if (expiry <= 0) {
+            throw new IllegalArgumentException("过期时间必须大于0");
+        }
+        long window = ossConfig.getPresign().getWindowSeconds();
+        long expiresAt = System.currentTimeMillis() / 1000 + expiry;
+        if (window <= 0 || presignCache == null) {
+            return signUrl(objectName, expiresAt);
+        }
+        // 过期时间向上取整到窗口边界，剩余有效期不少于 expiry；同一窗口内的请求签名参数相同，直接复用
+        long alignedExpiresAt = (expiresAt + window - 1) / window * window;
+        return presignCache.get(new PresignKey(objectName, alignedExpiresAt),
+                key -> signUrl(key.getObjectName(), key.getExpiresAt()));
+    }
+
+    @Override
+    public Map<String, String> getPresignedUrls(List<String> objectNames, int expiry) {
+        Map<String, String> presignedUrls = new LinkedHashMap<>();
+        for (String objectName : objectNames) {
+            presignedUrls.put(objectName, getPresignedUrl(objectName, expiry));
+        }
+        return presignedUrls;
+    }
+
+    /**
+     * 初始化预签名URL缓存
+     * 缓存条目在一个对齐窗口后过期，此后的请求会对齐到下一个窗口边界，不会再使用旧条目
+     */
+    @PostConstruct
+    public void initPresignCache() {
+        OssConfig.PresignConfig presign = ossConfig.getPresign();
+        if (presign.getWindowSeconds() <= 0) {
+            return;
+        }
+        presignCache = Caffeine.newBuilder()
+                .maximumSize(presign.getCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(presign.getWindowSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, presignCache, "oss.presign");
+    }
+
+    /**
+     * 按指定的过期时间（秒级时间戳）签名
+     */
+    private String signUrl(String objectName, long expiresAt) {
         try {
-            log.info("生成预签名URL: {}, 过期时间: {}秒", objectName, expiry);
+            log.debug("生成预签名URL: {}, 过期时间: {}", objectName, expiresAt);
 
-            // 生成预签名URL
-            Date expiration = new Date(System.currentTimeMillis() + expiry * 1000L);
             GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(
                     ossConfig.getBucketName(), objectName, HttpMethod.GET);
-            request.setExpiration(expiration);
-
-            URL presignedUrl = ossClient.generatePresignedUrl(request);
+            request.setExpiration(new Date(expiresAt * 1000L));
 
-            log.info("预签名URL生成成功: {}", objectName);
-            return presignedUrl.toString();
+            return ossClient.generatePresignedUrl(request).toString();
 
         } catch (Exception e) {
             log.error("生成预签名URL失败: {}", objectName, e);
@@ -499,37 +614,13 @@ public class OssFileStorageService implements FileStorageService {
      * 获取文件访问URL
      * 返回阿里云OSS的直接访问URL
      */
-    private String getFileUrl(String objectName) {
+    @Override
+    public String getFileUrl(String objectName) {
         // 使用OSS配置中的基础URL生成完整的文件访问URL
         // 格式: https://bucket-name.oss-region.aliyuncs.com/path/filename.jpg
         return ossConfig.getBaseUrl() + "/" + objectName;
     }
 
-    /**
-     * 解析base64数据，提取MIME类型和内容
-     */
-    private String[] parseBase64Data(String base64Data) {
-        if (base64Data.startsWith("data:")) {
-            // 格式: data:image/jpeg;base64,/9j/4AAQSkZJRgABAQAAAQ...
-            int commaIndex = base64Data.indexOf(",");
-            if (commaIndex != -1) {
-                String header = base64Data.substring(5, commaIndex); // 去掉"data:"
-                String content = base64Data.substring(commaIndex + 1);
-
-                // 提取MIME类型
-                String mimeType = "image/jpeg"; // 默认值
-                if (header.contains(";")) {
-                    mimeType = header.substring(0, header.indexOf(";"));
-                }
-
-                return new String[]{mimeType, content};
-            }
-        }
-
-        // 如果不是标准格式，假设是纯base64内容
-        return new String[]{"image/jpeg", base64Data};
-    }
-
     /**
      * 根据MIME类型获取文件扩展名
      */
@@ -616,4 +707,172 @@ public class OssFileStorageService implements FileStorageService {
                 return "application/octet-stream";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 下载URL内容；maxBytes 大于0时先按 Content-Length 检查，读取时超出上限同样失败
+     * 追踪上下文只写入本系统OSS域名的请求头，不传给第三方站点
+     */
+    private DownloadedImage download(String imageUrl, long maxBytes, boolean followRedirects) throws Exception {
+        URL url = new URL(imageUrl);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setInstanceFollowRedirects(followRedirects);
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(30000);
+        connection.setRequestProperty("User-Agent", "CoachAI/1.0");
+
+        Span downloadSpan = tracer.spanBuilder("HTTP GET")
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute("http.method", "GET")
+                .setAttribute("http.url", url.getProtocol() + "://" + url.getAuthority() + url.getPath())
+                .startSpan();
+        byte[] imageBytes = Spans.call(downloadSpan, () -> {
+            if (isOwnHost(url)) {
+                openTelemetry.getPropagators().getTextMapPropagator().inject(Context.current(), connection,
+                        HttpURLConnection::setRequestProperty);
+            }
+            int status = connection.getResponseCode();
+            downloadSpan.setAttribute("http.status_code", (long) status);
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new RuntimeException("下载图片失败，HTTP状态码: " + status);
+            }
+            if (maxBytes > 0 && connection.getContentLengthLong() > maxBytes) {
+                throw new IllegalArgumentException("图片大小超过上限: " + connection.getContentLengthLong() + " bytes");
+            }
+
+            // 读取图片数据
+            try (InputStream inputStream = connection.getInputStream()) {
+                byte[] bytes = maxBytes > 0
+                        ? IOUtils.toByteArray(new BoundedInputStream(inputStream, maxBytes + 1))
+                        : IOUtils.toByteArray(inputStream);
+                if (maxBytes > 0 && bytes.length > maxBytes) {
+                    throw new IllegalArgumentException("图片大小超过上限: " + maxBytes + " bytes");
+                }
+                return bytes;
+            }
+        });
+        String contentType = connection.getContentType();
+        return new DownloadedImage(imageBytes, contentType);
+    }
+
+    /**
+     * URL是否指向本系统OSS的访问域名（自定义域名、CDN域名或默认域名）
+     */
+    private boolean isOwnHost(URL url) {
+        for (String baseUrl : new String[]{ossConfig.getBaseUrl(), ossConfig.getDefaultBaseUrl()}) {
+            try {
+                if (url.getHost().equalsIgnoreCase(new URL(baseUrl).getHost())) {
+                    return true;
+                }
+            } catch (MalformedURLException e) {
+                log.debug("OSS访问域名格式错误: {}", baseUrl);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 上传对象，记录OSS请求耗时和对象大小
+     */
+    private void putObject(PutObjectRequest putRequest) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Span span = ossSpan("put", putRequest.getKey());
+        String outcome = "error";
+        try (Scope ignored = span.makeCurrent()) {
+            injectTraceContext(putRequest);
+            ossClient.putObject(putRequest);
+            outcome = "success";
+        } catch (RuntimeException e) {
+            Spans.recordError(span, e);
+            throw e;
+        } finally {
+            span.end();
+            sample.stop(ossTimer("put", outcome));
+        }
+        long contentLength = putRequest.getMetadata() != null ? putRequest.getMetadata().getContentLength() : 0;
+        if (contentLength > 0) {
+            ossBytes("put").record(contentLength);
+        }
+    }
+
+    /**
+     * 下载对象内容，耗时包含读取响应体
+     */
+    private byte[] getObjectBytes(String objectName) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Span span = ossSpan("get", objectName);
+        String outcome = "error";
+        try (Scope ignored = span.makeCurrent()) {
+            GetObjectRequest getRequest = new GetObjectRequest(ossConfig.getBucketName(), objectName);
+            injectTraceContext(getRequest);
+            try (OSSObject ossObject = ossClient.getObject(getRequest)) {
+                byte[] fileBytes = IOUtils.toByteArray(ossObject.getObjectContent());
+                span.setAttribute("oss.object_size", (long) fileBytes.length);
+                ossBytes("get").record(fileBytes.length);
+                outcome = "success";
+                return fileBytes;
+            }
+        } catch (IOException | RuntimeException e) {
+            Spans.recordError(span, e);
+            throw e;
+        } finally {
+            span.end();
+            sample.stop(ossTimer("get", outcome));
+        }
+    }
+
+    /**
+     * 在OSS操作Span内执行
+     */
+    private <T> T ossCall(String operation, String objectName, Callable<T> body) throws Exception {
+        return Spans.call(ossSpan(operation, objectName), body);
+    }
+
+    private Span ossSpan(String operation, String objectName) {
+        return tracer.spanBuilder("oss." + operation)
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute("oss.bucket", ossConfig.getBucketName())
+                .setAttribute("oss.key", objectName)
+                .startSpan();
+    }
+
+    /**
+     * 追踪上下文写入OSS请求头，OSS访问日志可按 traceparent 关联
+     */
+    private void injectTraceContext(WebServiceRequest request) {
+        openTelemetry.getPropagators().getTextMapPropagator().inject(Context.current(), request,
+                WebServiceRequest::addHeader);
+    }
+
+    private Timer ossTimer(String operation, String outcome) {
+        return Timer.builder("coachai.oss.requests")
+                .tags("operation", operation, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary ossBytes(String operation) {
+        return DistributionSummary.builder("coachai.oss.object.bytes")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 下载的图片内容及类型
+     */
+    @Value
+    private static class DownloadedImage {
+        byte[] bytes;
+        String contentType;
+    }
+
+    /**
+     * 预签名URL缓存键
+     */
+    @Value
+    private static class PresignKey {
+        String objectName;
+        long expiresAt;
+    }
+}
@@ -30,4 +30,9 @@ public interface PoseAnalysisRecordService {
      * 创建姿态分析记录并返回解析后的结构体响应
      */
     ApiResponse<PoseAnalysisRecordDTO.ApiResponse> createRecordWithParsedResults(PoseAnalysisRecordDTO.CreateRequest createRequest);
+
+    /**
+     * 在同一事务中批量创建姿态分析记录，返回顺序与请求顺序一致；任一记录保存失败则全部回滚
+     */
+    ApiResponse<List<PoseAnalysisRecordDTO.ApiResponse>> createRecordsWithParsedResults(List<PoseAnalysisRecordDTO.CreateRequest> createRequests);
 }
@@ -0,0 +1,30 @@
+package com.coachai.service;
+
+import com.coachai.dto.AiWorkflowIssueRequest;
+import com.coachai.dto.AiWorkflowIssueResponse;
+import com.coachai.dto.AiWorkflowRequest;
+import com.coachai.dto.AiWorkflowResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * AI工作流非阻塞调用接口
+ * 基于 WebClient，等待工作流响应期间不占用线程；响应解析复用 {@link AiWorkflowService} 的解析方法
+ */
+public interface ReactiveAiWorkflowService {
+
+    /**
+     * 调用姿态分析工作流
+     *
+     * @param request 工作流请求
+     * @return 工作流响应
+     */
+    Mono<AiWorkflowResponse> callPoseAnalysisWorkflow(AiWorkflowRequest request);
+
+    /**
+     * 调用症状分析工作流
+     *
+     * @param request 工作流请求
+     * @return 工作流响应
+     */
+    Mono<AiWorkflowIssueResponse> callIssueAnalysisWorkflow(AiWorkflowIssueRequest request);
+}
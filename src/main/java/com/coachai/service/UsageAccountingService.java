@@ -0,0 +1,37 @@
+package com.coachai.service;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.dto.UsageDTO;
+
+/**
+ * AI工作流用量统计与配额服务接口
+ */
+public interface UsageAccountingService {
+
+    /**
+     * 记录一次工作流调用的用量
+     *
+     * @param username 用户名
+     * @param workflow 工作流（pose / issue）
+     * @param usage    响应中的 usage（token总数）
+     * @param usageMap 响应中的 usageMap（输入、输出token数）
+     */
+    void record(String username, String workflow, Integer usage, Object usageMap);
+
+    /**
+     * 发起分析前检查用户配额
+     *
+     * @param username 用户名
+     * @return 配额检查结果
+     */
+    UsageDTO.QuotaDecision checkQuota(String username);
+
+    /**
+     * 查询用户最近若干天的用量及当日配额
+     *
+     * @param username 用户名
+     * @param days     天数（含当天）
+     * @return 用户用量
+     */
+    ApiResponse<UsageDTO.UserUsage> getUserUsage(String username, int days);
+}
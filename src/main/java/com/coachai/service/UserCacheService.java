@@ -0,0 +1,139 @@
+package com.coachai.service;
+
+import com.coachai.config.CacheInvalidationConfig;
+import com.coachai.entity.CoachAiUser;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 用户二级缓存管理服务
+ * 负责本地缓存失效以及向其他实例广播失效通知
+ */
+@Service
+@Slf4j
+public class UserCacheService {
+
+    /**
+     * 实例间通知令牌请求头
+     */
+    public static final String TOKEN_HEADER = "X-Cache-Invalidation-Token";
+
+    private final Cache cache;
+    private final CacheInvalidationConfig config;
+    private final RestTemplate restTemplate;
+    private final ExecutorService broadcastExecutor;
+
+    public UserCacheService(EntityManagerFactory entityManagerFactory,
+                            CacheInvalidationConfig config,
+                            RestTemplateBuilder restTemplateBuilder) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.config = config;
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(config.getConnectionTimeout()))
+                .setReadTimeout(Duration.ofMillis(config.getReadTimeout()))
+                .build();
+        this.broadcastExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "user-cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.isEnabled() && !StringUtils.hasText(config.getToken())) {
+            log.warn("已开启跨实例缓存失效但未配置令牌，失效通知不会发送，也不接受其他实例的通知");
+        }
+    }
+
+    /**
+     * 用户数据已提交变更：清理本地自然主键缓存并通知其他实例
+     * 实体缓存本身由 READ_WRITE 策略在本实例内自动维护
+     */
+    public void onUserChanged(Long id) {
+        cache.evictNaturalIdData(CoachAiUser.class);
+        if (config.isEnabled() && !config.getPeers().isEmpty() && StringUtils.hasText(config.getToken())) {
+            broadcastExecutor.execute(() -> broadcastEviction(id));
+        }
+    }
+
+    /**
+     * 失效本实例中指定用户相关的缓存（由其他实例通知触发）
+     */
+    public void evictLocal(Long id) {
+        cache.evictEntityData(CoachAiUser.class, id);
+        cache.evictNaturalIdData(CoachAiUser.class);
+        // 其他实例的写入不会更新本地表时间戳，查询缓存需一并清理
+        cache.evictDefaultQueryRegion();
+        log.debug("已失效本地用户缓存: {}", id);
+    }
+
+    /**
+     * 校验实例间通知令牌；未开启跨实例失效或未配置令牌时一律拒绝
+     */
+    public boolean isTokenValid(String token) {
+        String expected = config.getToken();
+        if (!config.isEnabled() || !StringUtils.hasText(expected) || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void broadcastEviction(Long id) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TOKEN_HEADER, config.getToken());
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        for (String peer : config.getPeers()) {
+            for (String target : resolvePeer(peer)) {
+                String url = target + "/internal/cache/users/" + id + "/evict";
+                try {
+                    restTemplate.postForEntity(url, request, Void.class);
+                } catch (Exception e) {
+                    // 通知失败时依赖缓存过期时间兜底
+                    log.warn("通知实例失效用户缓存失败: url={}, error={}", url, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 将主机名解析为全部地址，使 Headless Service 后的每个实例都能收到通知
+     */
+    private List<String> resolvePeer(String peer) {
+        List<String> targets = new ArrayList<>();
+        UriComponents uri = UriComponentsBuilder.fromHttpUrl(peer).build();
+        try {
+            for (InetAddress address : InetAddress.getAllByName(uri.getHost())) {
+                targets.add(UriComponentsBuilder.fromHttpUrl(peer)
+                        .host(address.getHostAddress())
+                        .toUriString());
+            }
+        } catch (UnknownHostException e) {
+            log.warn("解析缓存失效通知地址失败: {}", peer);
+        }
+        return targets;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcastExecutor.shutdown();
+    }
+}
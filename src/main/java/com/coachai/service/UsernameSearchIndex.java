@@ -0,0 +1,327 @@
+package com.coachai.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 用户名内存搜索索引
+ * <p>
+ * 维护三部分结构：
+ * <ul>
+ *     <li>ID到用户名（小写）的映射，用于结果校验</li>
+ *     <li>有序前缀表（跳表），用于前缀搜索</li>
+ *     <li>1~3字符n-gram倒排索引，用于包含搜索和模糊搜索</li>
+ * </ul>
+ * n-gram按字符打包为long作为键，查询时取最短的倒排链再逐个校验，
+ * 因此不会返回假阳性结果。大小写不敏感，与MySQL默认排序规则下的LIKE行为一致。
+ */
+@Component
+@Slf4j
+public class UsernameSearchIndex {
+
+    /**
+     * 搜索模式
+     */
+    public enum Mode {
+        /** 包含匹配，等价于 LIKE '%x%' */
+        CONTAINS,
+        /** 前缀匹配，等价于 LIKE 'x%' */
+        PREFIX,
+        /** 模糊匹配，容忍少量拼写错误 */
+        FUZZY
+    }
+
+    /**
+     * 倒排索引的最大n-gram长度
+     */
+    private static final int MAX_GRAM = 3;
+
+    /**
+     * 模糊匹配时查询n-gram在用户名中出现比例的最低要求
+     */
+    private static final double FUZZY_MIN_CONTAINMENT = 0.6;
+
+    private volatile IndexState state = new IndexState();
+
+    /**
+     * 重建期间的增量变更，重建完成后回放到新索引上
+     */
+    private final Queue<Runnable> pendingChanges = new ConcurrentLinkedQueue<>();
+    private volatile boolean rebuilding = false;
+    private volatile boolean ready = false;
+
+    /**
+     * 重建期间需要全量加载用户名（数据库查询），使用显式锁而非 synchronized，避免虚拟线程在查询期间占住载体线程
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * 新增或更新用户名
+     */
+    public void put(Long id, String username) {
+        if (id == null || username == null) {
+            return;
+        }
+        if (rebuilding) {
+            pendingChanges.add(() -> state.put(id, username));
+        }
+        state.put(id, username);
+    }
+
+    /**
+     * 删除用户
+     */
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        if (rebuilding) {
+            pendingChanges.add(() -> state.remove(id));
+        }
+        state.remove(id);
+    }
+
+    /**
+     * 用全量数据重建索引，加载期间发生的增量变更会在切换后回放
+     *
+     * @param loader 全量用户名加载器（ID -> 用户名）
+     */
+    public void rebuild(Supplier<Map<Long, String>> loader) {
+        long start = System.nanoTime();
+        rebuildLock.lock();
+        rebuilding = true;
+        try {
+            Map<Long, String> usernames = loader.get();
+            IndexState newState = new IndexState();
+            usernames.forEach(newState::put);
+            state = newState;
+            Runnable change;
+            while ((change = pendingChanges.poll()) != null) {
+                change.run();
+            }
+            ready = true;
+        } finally {
+            rebuilding = false;
+            rebuildLock.unlock();
+        }
+        log.info("用户名搜索索引重建完成: 用户数={}, 耗时={}ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 搜索用户名，返回按ID升序（模糊模式按相似度降序）排列的用户ID
+     *
+     * @param keyword 关键字
+     * @param mode    搜索模式
+     * @param limit   最多返回条数
+     * @return 用户ID列表
+     */
+    public List<Long> search(String keyword, Mode mode, int limit) {
+        String query = keyword == null ? "" : keyword.toLowerCase(Locale.ROOT);
+        IndexState current = state;
+        switch (mode) {
+            case PREFIX:
+                return current.searchPrefix(query, limit);
+            case FUZZY:
+                return current.searchFuzzy(query, limit);
+            case CONTAINS:
+            default:
+                return current.searchContains(query, limit);
+        }
+    }
+
+    /**
+     * 索引是否已完成首次构建
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 当前索引中的用户数
+     */
+    public int size() {
+        return state.namesById.size();
+    }
+
+    /**
+     * 索引数据
+     */
+    private static final class IndexState {
+        private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Long> prefixes = new ConcurrentSkipListMap<>();
+        private final Map<Long, Set<Long>> postings = new ConcurrentHashMap<>();
+
+        void put(Long id, String username) {
+            String name = username.toLowerCase(Locale.ROOT);
+            String previous = namesById.put(id, name);
+            if (name.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            prefixes.put(prefixKey(name, id), id);
+            for (long gram : grams(name, 1, MAX_GRAM)) {
+                postings.compute(gram, (k, ids) -> {
+                    Set<Long> set = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    set.add(id);
+                    return set;
+                });
+            }
+        }
+
+        void remove(Long id) {
+            String previous = namesById.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        }
+
+        private void unindex(Long id, String name) {
+            prefixes.remove(prefixKey(name, id));
+            for (long gram : grams(name, 1, MAX_GRAM)) {
+                postings.computeIfPresent(gram, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+
+        List<Long> searchContains(String query, int limit) {
+            if (query.isEmpty()) {
+                return firstIds(namesById.keySet(), limit);
+            }
+            Set<Long> candidates = null;
+            for (long gram : grams(query, Math.min(query.length(), MAX_GRAM), MAX_GRAM)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    return Collections.emptyList();
+                }
+                if (candidates == null || ids.size() < candidates.size()) {
+                    candidates = ids;
+                }
+            }
+            List<Long> result = new ArrayList<>();
+            for (Long id : candidates) {
+                String name = namesById.get(id);
+                if (name != null && name.contains(query)) {
+                    result.add(id);
+                }
+            }
+            return firstIds(result, limit);
+        }
+
+        List<Long> searchPrefix(String query, int limit) {
+            List<Long> result = new ArrayList<>();
+            for (Long id : prefixes.subMap(query, true, query + Character.MAX_VALUE, true).values()) {
+                result.add(id);
+            }
+            return firstIds(result, limit);
+        }
+
+        List<Long> searchFuzzy(String query, int limit) {
+            if (query.length() < MAX_GRAM) {
+                return searchContains(query, limit);
+            }
+            // 短查询用bigram召回候选，避免单个错字导致与用户名没有任何公共trigram
+            int gramSize = query.length() <= 5 ? 2 : MAX_GRAM;
+            Set<Long> queryGrams = grams(query, gramSize, gramSize);
+            Map<Long, Integer> shared = new HashMap<>();
+            for (long gram : queryGrams) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    for (Long id : ids) {
+                        shared.merge(id, 1, Integer::sum);
+                    }
+                }
+            }
+            int required = (int) Math.ceil(queryGrams.size() * FUZZY_MIN_CONTAINMENT);
+            int maxEdits = query.length() <= 5 ? 1 : 2;
+            List<Map.Entry<Long, Integer>> matches = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entry : shared.entrySet()) {
+                String name = namesById.get(entry.getKey());
+                if (name == null) {
+                    continue;
+                }
+                // 查询大部分n-gram出现在用户名中，或与整个用户名的编辑距离足够小（如字符颠倒、错字）
+                if (entry.getValue() >= required || editDistance(query, name, maxEdits) <= maxEdits) {
+                    matches.add(entry);
+                }
+            }
+            matches.sort(Comparator.<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                    .thenComparing(e -> Math.abs(namesById.getOrDefault(e.getKey(), "").length() - query.length()))
+                    .thenComparing(Map.Entry::getKey));
+            List<Long> result = new ArrayList<>(Math.min(limit, matches.size()));
+            for (int i = 0; i < matches.size() && i < limit; i++) {
+                result.add(matches.get(i).getKey());
+            }
+            return result;
+        }
+
+        private static List<Long> firstIds(Collection<Long> ids, int limit) {
+            List<Long> sorted = new ArrayList<>(ids);
+            Collections.sort(sorted);
+            return sorted.size() > limit ? new ArrayList<>(sorted.subList(0, limit)) : sorted;
+        }
+
+        /**
+         * 计算受限Damerau-Levenshtein距离（相邻字符交换计为一次编辑），超过上限时提前返回
+         */
+        private static int editDistance(String a, String b, int maxEdits) {
+            if (Math.abs(a.length() - b.length()) > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[][] d = new int[a.length() + 1][b.length() + 1];
+            for (int i = 0; i <= a.length(); i++) {
+                d[i][0] = i;
+            }
+            for (int j = 0; j <= b.length(); j++) {
+                d[0][j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                int rowMin = Integer.MAX_VALUE;
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    int value = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                    if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                        value = Math.min(value, d[i - 2][j - 2] + 1);
+                    }
+                    d[i][j] = value;
+                    rowMin = Math.min(rowMin, value);
+                }
+                if (rowMin > maxEdits) {
+                    return maxEdits + 1;
+                }
+            }
+            return d[a.length()][b.length()];
+        }
+
+        private static String prefixKey(String name, Long id) {
+            return name + '\u0000' + id;
+        }
+
+        /**
+         * 提取长度在[minLen, maxLen]之间的所有n-gram，按字符打包为long：高位存长度，低48位存最多3个字符
+         */
+        private static Set<Long> grams(String text, int minLen, int maxLen) {
+            Set<Long> result = new HashSet<>();
+            for (int len = minLen; len <= maxLen; len++) {
+                for (int i = 0; i + len <= text.length(); i++) {
+                    long key = len;
+                    for (int j = 0; j < len; j++) {
+                        key = (key << 16) | text.charAt(i + j);
+                    }
+                    result.add(key);
+                }
+            }
+            return result;
+        }
+    }
+}
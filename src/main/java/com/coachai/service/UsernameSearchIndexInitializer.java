@@ -0,0 +1,39 @@
+package com.coachai.service;
+
+import com.coachai.repository.CoachAiUserRepository;
+import com.coachai.repository.projection.UsernameProjection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 应用启动后从数据库全量加载用户名，构建用户名搜索索引
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UsernameSearchIndexInitializer {
+
+    private final UsernameSearchIndex usernameSearchIndex;
+    private final CoachAiUserRepository coachAiUserRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        try {
+            usernameSearchIndex.rebuild(() -> {
+                Map<Long, String> usernames = new HashMap<>();
+                for (UsernameProjection user : coachAiUserRepository.findAllUsernames()) {
+                    usernames.put(user.getId(), user.getUsername());
+                }
+                return usernames;
+            });
+        } catch (Exception e) {
+            log.error("用户名搜索索引构建失败", e);
+        }
+    }
+}
@@ -1,47 +1,107 @@
 package com.coachai.service.impl;
 
 import com.coachai.config.AiWorkflowConfig;
+import com.coachai.deadline.Deadline;
+import com.coachai.deadline.DeadlineExceededException;
 import com.coachai.dto.AiWorkflowIssueRequest;
 import com.coachai.dto.AiWorkflowIssueResponse;
 import com.coachai.dto.AiWorkflowRequest;
 import com.coachai.dto.AiWorkflowResponse;
+import com.coachai.json.JsonCodec;
+import com.coachai.logging.LogPayloads;
+import com.coachai.metrics.AnalysisMetrics;
+import com.coachai.resilience.EndpointBalancer;
+import com.coachai.resilience.WorkflowCallPolicy;
 import com.coachai.service.AiWorkflowService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.coachai.tracing.Spans;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.*;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AI工作流服务实现
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AiWorkflowServiceImpl implements AiWorkflowService {
     
     private final AiWorkflowConfig aiWorkflowConfig;
-    private final ObjectMapper objectMapper;
-    private final RestTemplateBuilder restTemplateBuilder;
+    private final JsonCodec jsonCodec;
+    private final Tracer tracer;
+    private final WorkflowCallPolicy workflowCallPolicy;
+    private final EndpointBalancer endpointBalancer;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+
+    public AiWorkflowServiceImpl(AiWorkflowConfig aiWorkflowConfig,
+                                 JsonCodec jsonCodec,
+                                 RestTemplateBuilder restTemplateBuilder,
+                                 Tracer tracer,
+                                 WorkflowCallPolicy workflowCallPolicy,
+                                 EndpointBalancer endpointBalancer) {
+        this.aiWorkflowConfig = aiWorkflowConfig;
+        this.jsonCodec = jsonCodec;
+        this.tracer = tracer;
+        this.workflowCallPolicy = workflowCallPolicy;
+        this.endpointBalancer = endpointBalancer;
+        // 所有工作流调用共用一个连接池，连接数上限需覆盖最大并发分析数（虚拟线程模式下不再受Tomcat线程数限制）
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(aiWorkflowConfig.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(aiWorkflowConfig.getMaxConnections());
+        this.httpClient = HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .evictIdleConnections(60, TimeUnit.SECONDS)
+                .build();
+        // 分离的超时配置：连接超时60秒，读取超时5分钟，从连接池获取连接的等待时间与连接超时一致
+        this.restTemplate = restTemplateBuilder
+                .requestFactory(() -> {
+                    HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+                    requestFactory.setConnectionRequestTimeout(aiWorkflowConfig.getConnectionTimeout().intValue());
+                    requestFactory.setHttpContextFactory(this::deadlineContext);
+                    return requestFactory;
+                })
+                .setConnectTimeout(Duration.ofMillis(aiWorkflowConfig.getConnectionTimeout()))
+                .setReadTimeout(Duration.ofMillis(aiWorkflowConfig.getReadTimeout()))
+                .build();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
     
     @Override
     public AiWorkflowResponse callPoseAnalysisWorkflow(AiWorkflowRequest request) {
-        try {
+        Span span = workflowSpan("pose", request.getApiCode());
+        try (Scope ignored = span.makeCurrent()) {
             log.info("开始调用AI工作流，用户: {}, 运动: {}, 姿势: {}", 
                     request.getParamJson().getUsername(),
                     request.getParamJson().getSport(),
                     request.getParamJson().getPosture());
             
-            // 创建RestTemplate并设置分离的超时配置
-            RestTemplate restTemplate = restTemplateBuilder
-                    .setConnectTimeout(Duration.ofMillis(aiWorkflowConfig.getConnectionTimeout()))  // 连接超时60秒
-                    .setReadTimeout(Duration.ofMillis(aiWorkflowConfig.getReadTimeout()))           // 读取超时5分钟
-                    .build();
-            
             // 设置请求头
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -51,12 +111,16 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
             HttpEntity<AiWorkflowRequest> requestEntity = new HttpEntity<>(request, headers);
             
             // 发送请求
-            ResponseEntity<AiWorkflowResponse> responseEntity = restTemplate.exchange(
-                    aiWorkflowConfig.getBaseUrl(),
-                    HttpMethod.POST,
-                    requestEntity,
-                    AiWorkflowResponse.class
-            );
+            ResponseEntity<AiWorkflowResponse> responseEntity = workflowCallPolicy.executeBlocking(WorkflowCallPolicy.WORKFLOW_POSE,
+                    () -> endpointBalancer.execute(endpoint -> {
+                        span.setAttribute("ai.workflow.endpoint", endpoint.getName());
+                        return restTemplate.exchange(
+                                endpoint.getUrl(),
+                                HttpMethod.POST,
+                                requestEntity,
+                                AiWorkflowResponse.class
+                        );
+                    }));
             
             AiWorkflowResponse response = responseEntity.getBody();
             if (response == null) {
@@ -67,11 +131,57 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
             return response;
             
         } catch (Exception e) {
+            Spans.recordError(span, e);
+            DeadlineExceededException exceeded = deadlineExceeded(e);
+            if (exceeded != null) {
+                log.warn("AI工作流调用未在截止时间前完成: {}", exceeded.getMessage());
+                throw exceeded;
+            }
             log.error("调用AI工作流失败", e);
             throw new RuntimeException("调用AI工作流失败: " + e.getMessage(), e);
+        } finally {
+            span.end();
         }
     }
     
+    /**
+     * 请求带截止时间时，本次调用的读取超时收紧为剩余时间（扣除为解析和保存预留的部分）
+     * 在调用线程上创建请求时执行，截止时间从当前上下文获取
+     */
+    private HttpContext deadlineContext(HttpMethod method, URI uri) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return null;
+        }
+        Duration budget = deadline.budget(Duration.ofMillis(aiWorkflowConfig.getDeadlineReserve()),
+                Duration.ofMillis(aiWorkflowConfig.getReadTimeout()));
+        if (budget.isZero()) {
+            throw deadline.exceeded(AnalysisMetrics.STAGE_WORKFLOW_CALL);
+        }
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setConnectTimeout(aiWorkflowConfig.getConnectionTimeout().intValue())
+                .setConnectionRequestTimeout(aiWorkflowConfig.getConnectionTimeout().intValue())
+                .setSocketTimeout((int) budget.toMillis())
+                .build());
+        return context;
+    }
+
+    /**
+     * 截止时间已到导致的调用失败（包括按剩余时间收紧的读取超时）转为 DeadlineExceededException，其余返回 null
+     */
+    private DeadlineExceededException deadlineExceeded(Exception e) {
+        if (e instanceof DeadlineExceededException) {
+            return (DeadlineExceededException) e;
+        }
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.budget(Duration.ofMillis(aiWorkflowConfig.getDeadlineReserve()),
+                Duration.ofMillis(aiWorkflowConfig.getReadTimeout())).isZero()) {
+            return deadline.exceeded(AnalysisMetrics.STAGE_WORKFLOW_CALL);
+        }
+        return null;
+    }
+
     @Override
     public AiWorkflowResponse.FinalMessage parseWorkflowResponse(AiWorkflowResponse response) {
         try {
@@ -88,9 +198,9 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
             
             // 第一层解析：从 data.result 中解析出 ParsedResult
             String resultJson = response.getData().getResult();
-            log.debug("第一层JSON: {}", resultJson);
+            log.debug("第一层JSON: {}", LogPayloads.truncate(resultJson));
             
-            AiWorkflowResponse.ParsedResult parsedResult = objectMapper.readValue(resultJson, AiWorkflowResponse.ParsedResult.class);
+            AiWorkflowResponse.ParsedResult parsedResult = jsonCodec.readValue(resultJson, AiWorkflowResponse.ParsedResult.class);
             
             if (parsedResult == null || parsedResult.getData() == null || parsedResult.getData().getStructData() == null) {
                 throw new RuntimeException("解析第一层JSON失败，数据结构不正确");
@@ -118,19 +228,14 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
 
     @Override
     public AiWorkflowIssueResponse callIssueAnalysisWorkflow(AiWorkflowIssueRequest request) {
-        try {
+        Span span = workflowSpan("issue", request.getApiCode());
+        try (Scope ignored = span.makeCurrent()) {
             log.info("开始调用AI症状分析工作流，身体部位: {}, 运动: {}, 姿势: {}, 描述: {}",
                     request.getParamJson().getBodyParts(),
                     request.getParamJson().getSport(),
                     request.getParamJson().getPosture(),
                     request.getParamJson().getDescription());
 
-            // 创建RestTemplate并设置分离的超时配置
-            RestTemplate restTemplate = restTemplateBuilder
-                    .setConnectTimeout(Duration.ofMillis(aiWorkflowConfig.getConnectionTimeout()))  // 连接超时60秒
-                    .setReadTimeout(Duration.ofMillis(aiWorkflowConfig.getReadTimeout()))           // 读取超时5分钟
-                    .build();
-
             // 设置请求头
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -140,12 +245,16 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
             HttpEntity<AiWorkflowIssueRequest> requestEntity = new HttpEntity<>(request, headers);
 
             // 发送请求
-            ResponseEntity<AiWorkflowIssueResponse> responseEntity = restTemplate.exchange(
-                    aiWorkflowConfig.getBaseUrl(),
-                    HttpMethod.POST,
-                    requestEntity,
-                    AiWorkflowIssueResponse.class
-            );
+            ResponseEntity<AiWorkflowIssueResponse> responseEntity = workflowCallPolicy.executeBlocking(WorkflowCallPolicy.WORKFLOW_ISSUE,
+                    () -> endpointBalancer.execute(endpoint -> {
+                        span.setAttribute("ai.workflow.endpoint", endpoint.getName());
+                        return restTemplate.exchange(
+                                endpoint.getUrl(),
+                                HttpMethod.POST,
+                                requestEntity,
+                                AiWorkflowIssueResponse.class
+                        );
+                    }));
 
             AiWorkflowIssueResponse response = responseEntity.getBody();
             if (response == null) {
@@ -156,8 +265,16 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
             return response;
 
         } catch (Exception e) {
+            Spans.recordError(span, e);
+            DeadlineExceededException exceeded = deadlineExceeded(e);
+            if (exceeded != null) {
+                log.warn("AI工作流调用未在截止时间前完成: {}", exceeded.getMessage());
+                throw exceeded;
+            }
             log.error("调用AI工作流失败", e);
             throw new RuntimeException("调用AI工作流失败: " + e.getMessage(), e);
+        } finally {
+            span.end();
         }
     }
 
@@ -177,9 +294,9 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
 
             // 第一层解析：从 data.result 中解析出 ParsedResult
             String resultJson = response.getData().getResult();
-            log.debug("第一层JSON: {}", resultJson);
+            log.debug("第一层JSON: {}", LogPayloads.truncate(resultJson));
 
-            AiWorkflowIssueResponse.ParsedResult parsedResult = objectMapper.readValue(resultJson, AiWorkflowIssueResponse.ParsedResult.class);
+            AiWorkflowIssueResponse.ParsedResult parsedResult = jsonCodec.readValue(resultJson, AiWorkflowIssueResponse.ParsedResult.class);
 
             if (parsedResult == null || parsedResult.getData() == null || parsedResult.getData().getStructData() == null) {
                 throw new RuntimeException("解析第一层JSON失败，数据结构不正确");
@@ -212,9 +329,9 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
 
             // 从 message 字段解析出 DiagnosisData
             String messageJson = structData.getMessage();
-            log.debug("DiagnosisData JSON: {}", messageJson);
+            log.debug("DiagnosisData JSON: {}", LogPayloads.truncate(messageJson));
 
-            AiWorkflowIssueResponse.DiagnosisData diagnosisData = objectMapper.readValue(messageJson, AiWorkflowIssueResponse.DiagnosisData.class);
+            AiWorkflowIssueResponse.DiagnosisData diagnosisData = jsonCodec.readValue(messageJson, AiWorkflowIssueResponse.DiagnosisData.class);
 
             if (diagnosisData != null) {
                 log.info("DiagnosisData解析成功，运动: {}, 风险等级: {}, 主要诊断: {}, 置信度: {}, 是否正常: {}",
@@ -232,4 +349,70 @@ public class AiWorkflowServiceImpl implements AiWorkflowService {
             throw new RuntimeException("解析DiagnosisData失败: " + e.getMessage(), e);
         }
     }
+
+    @Override
+    public void attachMediaReferences(AiWorkflowIssueResponse.DiagnosisData diagnosisData, AiWorkflowIssueResponse.StructData structData) {
+        if (diagnosisData == null) {
+            return;
+        }
+
+        // 解析poseReference JSON字符串为结构体
+        List<AiWorkflowIssueResponse.PoseReference> parsedPoseReferences = new ArrayList<>();
+        if (structData.getPoseReference() != null) {
+            for (String poseRefJson : structData.getPoseReference()) {
+                try {
+                    // 先解析为JsonNode以便处理video字段
+                    JsonNode poseRefNode = jsonCodec.readTree(poseRefJson);
+                    AiWorkflowIssueResponse.PoseReference poseRef = AiWorkflowIssueResponse.PoseReference.builder()
+                            .name(poseRefNode.get("name").asText())
+                            .video(firstVideo(poseRefNode.get("video").asText()))
+                            .build();
+                    parsedPoseReferences.add(poseRef);
+                } catch (Exception e) {
+                    log.warn("解析poseReference失败: {}, JSON: {}", e.getMessage(), LogPayloads.truncate(poseRefJson));
+                }
+            }
+        }
+
+        // 解析rehabilitationVideos JSON字符串为结构体
+        List<AiWorkflowIssueResponse.RehabilitationVideo> parsedRehabVideos = new ArrayList<>();
+        if (structData.getRehabilitationVideos() != null) {
+            for (String rehabVideoJson : structData.getRehabilitationVideos()) {
+                try {
+                    JsonNode rehabVideoNode = jsonCodec.readTree(rehabVideoJson);
+                    AiWorkflowIssueResponse.RehabilitationVideo rehabVideo = AiWorkflowIssueResponse.RehabilitationVideo.builder()
+                            .name(rehabVideoNode.get("name").asText())
+                            .video(firstVideo(rehabVideoNode.get("video").asText()))
+                            .build();
+                    parsedRehabVideos.add(rehabVideo);
+                } catch (Exception e) {
+                    log.warn("解析rehabilitationVideo失败: {}, JSON: {}", e.getMessage(), LogPayloads.truncate(rehabVideoJson));
+                }
+            }
+        }
+
+        diagnosisData.setPoseReference(parsedPoseReferences);
+        diagnosisData.setRehabilitationVideos(parsedRehabVideos);
+    }
+
+    /**
+     * 将video字符串按"|"分割，只取第一个URL
+     */
+    private String firstVideo(String videoString) {
+        return Arrays.stream(videoString.split("\\|"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .findFirst()
+                .orElse("");
+    }
+
+    /**
+     * AI工作流调用Span，包含请求发送、等待及响应读取的完整耗时
+     */
+    private Span workflowSpan(String workflow, String apiCode) {
+        return tracer.spanBuilder("ai.workflow " + workflow)
+                .setAttribute("ai.workflow", workflow)
+                .setAttribute("ai.workflow.api_code", String.valueOf(apiCode))
+                .startSpan();
+    }
 }
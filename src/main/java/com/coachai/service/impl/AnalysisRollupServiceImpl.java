@@ -0,0 +1,888 @@
+package com.coachai.service.impl;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.config.AnalyticsRollupConfig;
+import com.coachai.dto.AiWorkflowResponse;
+import com.coachai.dto.AnalyticsDTO;
+import com.coachai.entity.AnalysisRollup;
+import com.coachai.entity.IssueAnalysisRecord;
+import com.coachai.entity.PoseAnalysisRecord;
+import com.coachai.json.JsonCodec;
+import com.coachai.repository.AnalysisRollupRepository;
+import com.coachai.repository.IssueAnalysisRecordRepository;
+import com.coachai.repository.PoseAnalysisRecordRepository;
+import com.coachai.repository.projection.IssueAnalysisRecordSummary;
+import com.coachai.service.AnalysisRollupService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.context.Context;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.time.DayOfWeek;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 分析记录预聚合服务实现类
+ *
+ * 新记录提交后按 天/周 两个粒度增量累加到 analysis_rollup；回填任务按自然周从原始记录重算并整体替换。
+ * 增量更新由单独的线程依次执行，不占用保存记录的线程，保存记录的事务最多只占用一个主库连接；
+ * 同一事务提交的记录（如批量分析）合并为一次更新。
+ * 重算某一周与增量更新互斥执行，重算完成后记录该周读到的最大记录ID，之后到达的增量更新跳过不超过该ID的记录，
+ * 避免重算已计入的记录再被累加一次。以下情况仍会产生偏差，由定期对账（重算最近几周及出现偏差的周）修复：
+ * 排队已满或执行失败而跳过的增量更新；重算读取时尚未提交、ID却不超过最大ID的记录；多实例部署时其他实例的增量更新（互斥只在实例内）。
+ */
+@Service
+@Slf4j
+public class AnalysisRollupServiceImpl implements AnalysisRollupService {
+
+    /**
+     * 趋势图每个时间桶返回的高频问题数
+     */
+    private static final int TOP_PROBLEMS_PER_BUCKET = 5;
+
+    /**
+     * 汇总统计返回的高频问题数
+     */
+    private static final int TOP_PROBLEMS_SUMMARY = 10;
+
+    /**
+     * 单个问题描述最大长度，超出部分截断
+     */
+    private static final int MAX_PROBLEM_LENGTH = 200;
+
+    /**
+     * 并发创建同一聚合行时的最大重试次数
+     */
+    private static final int MAX_UPSERT_ATTEMPTS = 3;
+
+    /**
+     * 增量更新聚合行的加锁顺序：先天级后周级，再按维度排序
+     */
+    private static final Comparator<RollupKey> LOCK_ORDER = Comparator.comparing(RollupKey::getGranularity)
+            .thenComparing(RollupKey::getType)
+            .thenComparingLong(RollupKey::getBucketStart)
+            .thenComparing(RollupKey::getUsername, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(RollupKey::getSport)
+            .thenComparing(RollupKey::getPosture);
+
+    /**
+     * 重算后的最大记录ID保留时间，只需覆盖重算时已提交、增量更新仍在排队的记录
+     */
+    private static final long FENCE_TTL_MS = Duration.ofHours(1).toMillis();
+
+    private static final TypeReference<LinkedHashMap<String, Long>> COUNTS_TYPE =
+            new TypeReference<LinkedHashMap<String, Long>>() {};
+
+    private final AnalysisRollupRepository analysisRollupRepository;
+    private final PoseAnalysisRecordRepository poseAnalysisRecordRepository;
+    private final IssueAnalysisRecordRepository issueAnalysisRecordRepository;
+    private final AnalyticsRollupConfig config;
+    private final JsonCodec jsonCodec;
+    private final TransactionTemplate requiresNewTransaction;
+    private final ZoneId zone;
+    private final ScheduledExecutorService backfillExecutor;
+    private final ThreadPoolExecutor incrementalExecutor;
+    private final Counter droppedCounter;
+    private final Counter fencedCounter;
+
+    /**
+     * 重算某一周与增量更新互斥，持有期间不会有其他线程写入聚合行
+     */
+    private final ReentrantLock rollupWriteLock = new ReentrantLock();
+
+    /**
+     * 各周最近一次重算读到的最大记录ID，只在持有 rollupWriteLock 时访问
+     */
+    private final Map<WeekKey, Fence> fences = new HashMap<>();
+
+    /**
+     * 增量更新被跳过或失败的周，下次对账时重算
+     */
+    private final Set<WeekKey> dirtyWeeks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 启动回填时需要查询数据起始时间，使用显式锁而非 synchronized，虚拟线程在查询期间可以让出载体线程
+     */
+    private final ReentrantLock backfillLock = new ReentrantLock();
+
+    private volatile BackfillProgress backfillProgress;
+
+    public AnalysisRollupServiceImpl(AnalysisRollupRepository analysisRollupRepository,
+                                     PoseAnalysisRecordRepository poseAnalysisRecordRepository,
+                                     IssueAnalysisRecordRepository issueAnalysisRecordRepository,
+                                     AnalyticsRollupConfig config,
+                                     JsonCodec jsonCodec,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry) {
+        this.analysisRollupRepository = analysisRollupRepository;
+        this.poseAnalysisRecordRepository = poseAnalysisRecordRepository;
+        this.issueAnalysisRecordRepository = issueAnalysisRecordRepository;
+        this.config = config;
+        this.jsonCodec = jsonCodec;
+        // 增量更新在 incrementalExecutor 中执行，回填在 backfillExecutor 中执行，均为各自独立的事务
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.zone = ZoneId.of(config.getZone());
+        // 回填与定期对账在同一线程中执行，不会同时进行
+        this.backfillExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "analysis-rollup-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.incrementalExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getIncrementalQueueSize()), r -> {
+            Thread thread = new Thread(r, "analysis-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.droppedCounter = Counter.builder("coachai.analytics.rollup.dropped")
+                .description("因排队已满而跳过的预聚合增量更新")
+                .register(meterRegistry);
+        this.fencedCounter = Counter.builder("coachai.analytics.rollup.fenced")
+                .description("已由重算计入而跳过的预聚合增量更新记录")
+                .register(meterRegistry);
+        Gauge.builder("coachai.analytics.rollup.pending", incrementalExecutor, e -> e.getQueue().size())
+                .description("等待执行的预聚合增量更新")
+                .register(meterRegistry);
+        Gauge.builder("coachai.analytics.rollup.dirty.weeks", dirtyWeeks, Set::size)
+                .description("等待对账重算的周数")
+                .register(meterRegistry);
+        if (config.getReconcileIntervalMinutes() > 0) {
+            backfillExecutor.scheduleWithFixedDelay(this::reconcile, config.getReconcileIntervalMinutes(),
+                    config.getReconcileIntervalMinutes(), TimeUnit.MINUTES);
+        }
+    }
+
+    @Override
+    public void onRecordsCreated(List<PoseAnalysisRecord> poseRecords, List<IssueAnalysisRecord> issueRecords) {
+        int count = poseRecords.size() + issueRecords.size();
+        if (count == 0) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                List<RollupDelta> deltas = new ArrayList<>(count);
+                poseRecords.forEach(record -> deltas.add(toDelta(record)));
+                issueRecords.forEach(record -> deltas.add(toDelta(record)));
+                applyDeltas(deltas);
+            } catch (Exception e) {
+                // 聚合失败不影响分析主流程，下次对账时重算
+                markDirty(poseRecords, issueRecords);
+                log.warn("更新分析预聚合失败: 姿态记录数={}, 症状记录数={}, error={}",
+                        poseRecords.size(), issueRecords.size(), e.getMessage(), e);
+            }
+        };
+        try {
+            incrementalExecutor.execute(Context.current().wrap(task));
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment(count);
+            markDirty(poseRecords, issueRecords);
+            log.warn("预聚合增量更新排队已满，跳过（下次对账时重算）: 记录数={}", count);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ApiResponse<List<AnalyticsDTO.ProgressPoint>> getProgress(String username, AnalysisRollup.AnalysisType type,
+                                                                    AnalysisRollup.Granularity granularity,
+                                                                    Long startTime, Long endTime,
+                                                                    String sport, String posture) {
+        log.info("查询分析趋势: username={}, type={}, granularity={}, startTime={}, endTime={}, sport={}, posture={}",
+                username, type, granularity, startTime, endTime, sport, posture);
+
+        long end = endTime != null ? endTime : System.currentTimeMillis();
+        long start = bucketStart(startTime != null ? startTime : defaultStartTime(end), granularity);
+
+        // 未指定运动类型/姿势时，同一时间桶内的多行聚合数据在此合并
+        Map<Long, RollupAccumulator> buckets = new TreeMap<>();
+        for (AnalysisRollup rollup : analysisRollupRepository.findForUser(
+                username, type, granularity, start, end, blankToNull(sport), blankToNull(posture))) {
+            buckets.computeIfAbsent(rollup.getBucketStart(), k -> new RollupAccumulator()).add(rollup, false);
+        }
+
+        List<AnalyticsDTO.ProgressPoint> points = buckets.entrySet().stream()
+                .map(entry -> {
+                    RollupAccumulator acc = entry.getValue();
+                    return AnalyticsDTO.ProgressPoint.builder()
+                            .bucketStart(entry.getKey())
+                            .recordCount(acc.recordCount)
+                            .averageScore(acc.averageScore())
+                            .minScore(acc.scoreMin)
+                            .maxScore(acc.scoreMax)
+                            .abnormalCount(acc.abnormalCount)
+                            .riskLevelCounts(acc.riskLevelCounts)
+                            .topProblems(acc.topProblems(TOP_PROBLEMS_PER_BUCKET))
+                            .build();
+                })
+                .collect(Collectors.toList());
+
+        return ApiResponse.success(points);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ApiResponse<AnalyticsDTO.Summary> getSummary(String username, AnalysisRollup.AnalysisType type,
+                                                        Long startTime, Long endTime,
+                                                        String sport, String posture) {
+        log.info("查询分析汇总: username={}, type={}, startTime={}, endTime={}, sport={}, posture={}",
+                username, type, startTime, endTime, sport, posture);
+
+        long end = endTime != null ? endTime : System.currentTimeMillis();
+        long start = bucketStart(startTime != null ? startTime : defaultStartTime(end), AnalysisRollup.Granularity.DAY);
+
+        RollupAccumulator acc = new RollupAccumulator();
+        for (AnalysisRollup rollup : analysisRollupRepository.findForUser(
+                username, type, AnalysisRollup.Granularity.DAY, start, end, blankToNull(sport), blankToNull(posture))) {
+            acc.add(rollup, false);
+        }
+
+        AnalyticsDTO.Summary summary = AnalyticsDTO.Summary.builder()
+                .username(username)
+                .analysisType(type)
+                .startTime(start)
+                .endTime(end)
+                .recordCount(acc.recordCount)
+                .averageScore(acc.averageScore())
+                .minScore(acc.scoreMin)
+                .maxScore(acc.scoreMax)
+                .abnormalCount(acc.abnormalCount)
+                .riskLevelCounts(acc.riskLevelCounts)
+                .topProblems(acc.topProblems(TOP_PROBLEMS_SUMMARY))
+                .build();
+
+        return ApiResponse.success(summary);
+    }
+
+    @Override
+    public ApiResponse<AnalyticsDTO.BackfillStatus> startBackfill(AnalysisRollup.AnalysisType type,
+                                                                  Long startTime, Long endTime) {
+        backfillLock.lock();
+        try {
+            if (backfillProgress != null && backfillProgress.running) {
+                return ApiResponse.error("回填任务正在执行中", backfillProgress.toStatus());
+            }
+
+            List<AnalysisRollup.AnalysisType> types = type != null
+                    ? Collections.singletonList(type)
+                    : Arrays.asList(AnalysisRollup.AnalysisType.values());
+
+            Long start = startTime != null ? startTime : findMinCreatedAt(types);
+            long end = endTime != null ? endTime : System.currentTimeMillis();
+            if (start == null || start >= end) {
+                return ApiResponse.error("回填时间范围内没有数据");
+            }
+
+            // 按整周重算，避免只替换半周数据
+            long alignedStart = bucketStart(start, AnalysisRollup.Granularity.WEEK);
+            long alignedEnd = nextWeekStart(bucketStart(end - 1, AnalysisRollup.Granularity.WEEK));
+            long weeks = Duration.ofMillis(alignedEnd - alignedStart).toDays() / 7;
+
+            BackfillProgress progress = new BackfillProgress(types, alignedStart, alignedEnd, weeks * types.size());
+            backfillProgress = progress;
+            backfillExecutor.execute(() -> runBackfill(progress));
+
+            log.info("预聚合回填任务已启动: types={}, startTime={}, endTime={}, weeks={}", types, alignedStart, alignedEnd, weeks);
+            return ApiResponse.success("回填任务已启动", progress.toStatus());
+        } finally {
+            backfillLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isAdminTokenValid(String token) {
+        String expected = config.getAdminToken();
+        if (!StringUtils.hasText(expected) || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public ApiResponse<AnalyticsDTO.BackfillStatus> getBackfillStatus() {
+        BackfillProgress progress = backfillProgress;
+        if (progress == null) {
+            return ApiResponse.error("尚未执行过回填任务");
+        }
+        return ApiResponse.success(progress.toStatus());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        backfillExecutor.shutdownNow();
+        // 已提交记录的增量更新尽量执行完，超时未完成的由回填任务修复
+        incrementalExecutor.shutdown();
+        if (!incrementalExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("预聚合增量更新未在停止前完成: pending={}", incrementalExecutor.shutdownNow().size());
+        }
+    }
+
+    private void runBackfill(BackfillProgress progress) {
+        try {
+            for (AnalysisRollup.AnalysisType type : progress.types) {
+                progress.currentType = type;
+                for (long weekStart = progress.startTime; weekStart < progress.endTime; weekStart = nextWeekStart(weekStart)) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException("回填任务被中断");
+                    }
+                    progress.currentWeekStart = weekStart;
+                    rebuildWeek(type, weekStart, nextWeekStart(weekStart), progress);
+                    progress.processedWeeks++;
+                }
+            }
+            log.info("预聚合回填任务完成: processedRecords={}", progress.processedRecords);
+        } catch (Exception e) {
+            log.error("预聚合回填任务失败", e);
+            progress.error = e.getMessage();
+        } finally {
+            progress.finishedAt = System.currentTimeMillis();
+            progress.running = false;
+        }
+    }
+
+    /**
+     * 定期对账：重算最近 reconcile-weeks 周以及增量更新被跳过或失败的周
+     */
+    private void reconcile() {
+        try {
+            Set<WeekKey> weeks = new LinkedHashSet<>();
+            long currentWeek = bucketStart(System.currentTimeMillis(), AnalysisRollup.Granularity.WEEK);
+            for (AnalysisRollup.AnalysisType type : AnalysisRollup.AnalysisType.values()) {
+                for (int i = 0; i < config.getReconcileWeeks(); i++) {
+                    weeks.add(new WeekKey(type, weeksBefore(currentWeek, i)));
+                }
+            }
+            for (WeekKey week : dirtyWeeks) {
+                if (dirtyWeeks.remove(week)) {
+                    weeks.add(week);
+                }
+            }
+
+            BackfillProgress progress = new BackfillProgress(Arrays.asList(AnalysisRollup.AnalysisType.values()),
+                    weeks.stream().mapToLong(WeekKey::getWeekStart).min().orElse(currentWeek),
+                    nextWeekStart(currentWeek), weeks.size());
+            for (WeekKey week : weeks) {
+                try {
+                    rebuildWeek(week.getType(), week.getWeekStart(), nextWeekStart(week.getWeekStart()), progress);
+                } catch (Exception e) {
+                    dirtyWeeks.add(week);
+                    throw e;
+                }
+            }
+            log.info("预聚合对账完成: weeks={}, processedRecords={}", weeks.size(), progress.processedRecords);
+        } catch (Exception e) {
+            // 异常会终止周期任务，只记录日志
+            log.warn("预聚合对账失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 重算一周内的全部聚合数据（该周的天级与周级时间桶）并整体替换
+     * 读取和写入期间持有 rollupWriteLock，增量更新在此期间等待，完成后按读到的最大记录ID跳过已计入的记录
+     */
+    private void rebuildWeek(AnalysisRollup.AnalysisType type, long weekStart, long weekEnd, BackfillProgress progress) {
+        rollupWriteLock.lock();
+        try {
+            long highWaterId = rebuildWeekLocked(type, weekStart, weekEnd, progress);
+            long now = System.currentTimeMillis();
+            fences.values().removeIf(fence -> now - fence.getCreatedAt() > FENCE_TTL_MS);
+            fences.put(new WeekKey(type, weekStart), new Fence(highWaterId, now));
+        } finally {
+            rollupWriteLock.unlock();
+        }
+    }
+
+    /**
+     * 返回读到的最大记录ID（记录按ID升序读取）
+     */
+    private long rebuildWeekLocked(AnalysisRollup.AnalysisType type, long weekStart, long weekEnd, BackfillProgress progress) {
+        Map<RollupKey, RollupAccumulator> aggregates = new HashMap<>();
+        PageRequest batch = PageRequest.of(0, config.getBackfillBatchSize());
+        long afterId = 0L;
+
+        while (true) {
+            List<RollupDelta> deltas = new ArrayList<>();
+            if (type == AnalysisRollup.AnalysisType.POSE) {
+                for (PoseAnalysisRecord record : poseAnalysisRecordRepository.findRollupBatch(weekStart, weekEnd, afterId, batch)) {
+                    deltas.add(toDelta(record));
+                    afterId = record.getId();
+                }
+            } else {
+                for (IssueAnalysisRecordSummary record : issueAnalysisRecordRepository.findRollupBatch(weekStart, weekEnd, afterId, batch)) {
+                    deltas.add(toDelta(record));
+                    afterId = record.getId();
+                }
+            }
+
+            for (RollupDelta delta : deltas) {
+                for (AnalysisRollup.Granularity granularity : AnalysisRollup.Granularity.values()) {
+                    aggregates.computeIfAbsent(keyOf(delta, granularity), k -> new RollupAccumulator()).add(delta);
+                }
+            }
+            progress.processedRecords += deltas.size();
+
+            if (deltas.size() < batch.getPageSize()) {
+                break;
+            }
+        }
+
+        List<AnalysisRollup> rollups = aggregates.entrySet().stream()
+                .map(entry -> {
+                    RollupKey key = entry.getKey();
+                    AnalysisRollup rollup = newRollup(type, key.getGranularity(), key.getBucketStart(),
+                            key.getUsername(), key.getSport(), key.getPosture());
+                    entry.getValue().writeTo(rollup);
+                    return rollup;
+                })
+                .collect(Collectors.toList());
+
+        requiresNewTransaction.executeWithoutResult(status -> {
+            analysisRollupRepository.deleteByTypeAndBucketRange(type, weekStart, weekEnd);
+            analysisRollupRepository.saveAll(rollups);
+        });
+        return afterId;
+    }
+
+    /**
+     * 在一个独立事务中将同一事务提交的记录累加到天级和周级聚合行，同一聚合行只读写一次；
+     * 并发首次创建同一行时重试（多实例部署时可能发生）
+     */
+    private void applyDeltas(List<RollupDelta> deltas) {
+        rollupWriteLock.lock();
+        try {
+            applyDeltasLocked(deltas);
+        } finally {
+            rollupWriteLock.unlock();
+        }
+    }
+
+    private void applyDeltasLocked(List<RollupDelta> deltas) {
+        Map<RollupKey, List<RollupDelta>> grouped = new TreeMap<>(LOCK_ORDER);
+        for (RollupDelta delta : deltas) {
+            if (isFenced(delta)) {
+                fencedCounter.increment();
+                continue;
+            }
+            for (AnalysisRollup.Granularity granularity : AnalysisRollup.Granularity.values()) {
+                grouped.computeIfAbsent(keyOf(delta, granularity), k -> new ArrayList<>()).add(delta);
+            }
+        }
+        if (grouped.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                requiresNewTransaction.executeWithoutResult(status -> {
+                    // 按 LOCK_ORDER 固定顺序加锁，避免多实例并发更新死锁
+                    for (Map.Entry<RollupKey, List<RollupDelta>> entry : grouped.entrySet()) {
+                        RollupKey key = entry.getKey();
+                        AnalysisRollup rollup = analysisRollupRepository.findForUpdate(key.getType(), key.getGranularity(),
+                                        key.getBucketStart(), key.getUsername(), key.getSport(), key.getPosture())
+                                .orElseGet(() -> newRollup(key.getType(), key.getGranularity(), key.getBucketStart(),
+                                        key.getUsername(), key.getSport(), key.getPosture()));
+                        RollupAccumulator acc = new RollupAccumulator();
+                        acc.add(rollup, true);
+                        entry.getValue().forEach(acc::add);
+                        acc.writeTo(rollup);
+                        analysisRollupRepository.save(rollup);
+                    }
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_UPSERT_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("聚合行并发创建冲突，重试: attempt={}", attempt);
+            }
+        }
+    }
+
+    /**
+     * 记录所在的周已重算，且记录ID不超过重算读到的最大ID，说明已计入重算结果
+     */
+    private boolean isFenced(RollupDelta delta) {
+        Fence fence = fences.get(new WeekKey(delta.getType(),
+                bucketStart(delta.getCreatedAt(), AnalysisRollup.Granularity.WEEK)));
+        return fence != null && delta.getRecordId() <= fence.getHighWaterId()
+                && System.currentTimeMillis() - fence.getCreatedAt() <= FENCE_TTL_MS;
+    }
+
+    private void markDirty(List<PoseAnalysisRecord> poseRecords, List<IssueAnalysisRecord> issueRecords) {
+        poseRecords.forEach(record -> markDirty(AnalysisRollup.AnalysisType.POSE, record.getCreatedAt()));
+        issueRecords.forEach(record -> markDirty(AnalysisRollup.AnalysisType.ISSUE, record.getCreatedAt()));
+    }
+
+    private void markDirty(AnalysisRollup.AnalysisType type, Long createdAt) {
+        if (createdAt != null) {
+            dirtyWeeks.add(new WeekKey(type, bucketStart(createdAt, AnalysisRollup.Granularity.WEEK)));
+        }
+    }
+
+    private RollupDelta toDelta(PoseAnalysisRecord record) {
+        List<String> problems = new ArrayList<>();
+        if (record.getAnalysisResults() != null && !record.getAnalysisResults().trim().isEmpty()) {
+            try {
+                AiWorkflowResponse.AnalysisResult[] results = jsonCodec.readValue(
+                        record.getAnalysisResults(), AiWorkflowResponse.AnalysisResult[].class);
+                for (AiWorkflowResponse.AnalysisResult result : results) {
+                    if (result != null && result.getProblem() != null && !result.getProblem().trim().isEmpty()) {
+                        problems.add(result.getProblem().trim());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("解析analysisResults失败，跳过问题统计: recordId={}, error={}", record.getId(), e.getMessage());
+            }
+        }
+
+        return RollupDelta.builder()
+                .recordId(record.getId())
+                .type(AnalysisRollup.AnalysisType.POSE)
+                .username(record.getUsername())
+                .sport(nullToEmpty(record.getSport()))
+                .posture(nullToEmpty(record.getPosture()))
+                .createdAt(record.getCreatedAt())
+                // overall_score 列上线前的历史记录为空，回填时只计次数不计评分
+                .score(record.getOverallScore())
+                .abnormal(false)
+                .problems(problems)
+                .build();
+    }
+
+    private RollupDelta toDelta(IssueAnalysisRecord record) {
+        return issueDelta(record.getId(), record.getUsername(), record.getSport(), record.getCreatedAt(),
+                record.getRiskLevel(), record.getIsNormal(), record.getPrimaryDiagnosis());
+    }
+
+    private RollupDelta toDelta(IssueAnalysisRecordSummary record) {
+        return issueDelta(record.getId(), record.getUsername(), record.getSport(), record.getCreatedAt(),
+                record.getRiskLevel(), record.getIsNormal(), record.getPrimaryDiagnosis());
+    }
+
+    private RollupDelta issueDelta(Long recordId, String username, String sport, Long createdAt,
+                                   String riskLevel, Boolean isNormal, String primaryDiagnosis) {
+        // 症状分析的姿势字段为JSON，不作为聚合维度
+        return RollupDelta.builder()
+                .recordId(recordId)
+                .type(AnalysisRollup.AnalysisType.ISSUE)
+                .username(username)
+                .sport(nullToEmpty(sport))
+                .posture(AnalysisRollup.ALL_POSTURES)
+                .createdAt(createdAt)
+                .riskLevel(riskLevel)
+                .abnormal(!Boolean.TRUE.equals(isNormal))
+                .problems(primaryDiagnosis != null && !primaryDiagnosis.trim().isEmpty()
+                        ? Collections.singletonList(primaryDiagnosis.trim())
+                        : Collections.emptyList())
+                .build();
+    }
+
+    private RollupKey keyOf(RollupDelta delta, AnalysisRollup.Granularity granularity) {
+        return new RollupKey(delta.getType(), granularity, bucketStart(delta.getCreatedAt(), granularity),
+                delta.getUsername(), delta.getSport(), delta.getPosture());
+    }
+
+    private AnalysisRollup newRollup(AnalysisRollup.AnalysisType type, AnalysisRollup.Granularity granularity,
+                                     long bucketStart, String username, String sport, String posture) {
+        return AnalysisRollup.builder()
+                .analysisType(type)
+                .granularity(granularity)
+                .bucketStart(bucketStart)
+                .username(username)
+                .sport(sport)
+                .posture(posture)
+                .recordCount(0L)
+                .scoreCount(0L)
+                .scoreSum(0L)
+                .abnormalCount(0L)
+                .build();
+    }
+
+    private Long findMinCreatedAt(List<AnalysisRollup.AnalysisType> types) {
+        Long min = null;
+        for (AnalysisRollup.AnalysisType type : types) {
+            Long value = type == AnalysisRollup.AnalysisType.POSE
+                    ? poseAnalysisRecordRepository.findMinCreatedAt()
+                    : issueAnalysisRecordRepository.findMinCreatedAt();
+            if (value != null && (min == null || value < min)) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * 计算时间戳所在时间桶的起始时间（自然日零点 / 周一零点）
+     */
+    private long bucketStart(long timestamp, AnalysisRollup.Granularity granularity) {
+        LocalDate date = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+        if (granularity == AnalysisRollup.Granularity.WEEK) {
+            date = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+        return date.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private long nextWeekStart(long weekStart) {
+        return Instant.ofEpochMilli(weekStart).atZone(zone).toLocalDate()
+                .plusWeeks(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private long weeksBefore(long weekStart, int weeks) {
+        return Instant.ofEpochMilli(weekStart).atZone(zone).toLocalDate()
+                .minusWeeks(weeks).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private long defaultStartTime(long endTime) {
+        return endTime - Duration.ofDays(config.getDefaultRangeDays()).toMillis();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 单条记录对聚合数据的贡献
+     */
+    @Value
+    @Builder
+    private static class RollupDelta {
+        long recordId;
+        AnalysisRollup.AnalysisType type;
+        String username;
+        String sport;
+        String posture;
+        long createdAt;
+        Integer score;
+        String riskLevel;
+        boolean abnormal;
+        List<String> problems;
+    }
+
+    /**
+     * 聚合行维度
+     */
+    @Value
+    private static class RollupKey {
+        AnalysisRollup.AnalysisType type;
+        AnalysisRollup.Granularity granularity;
+        long bucketStart;
+        String username;
+        String sport;
+        String posture;
+    }
+
+    /**
+     * 按类型区分的自然周
+     */
+    @Value
+    private static class WeekKey {
+        AnalysisRollup.AnalysisType type;
+        long weekStart;
+    }
+
+    /**
+     * 一次重算读到的最大记录ID
+     */
+    @Value
+    private static class Fence {
+        long highWaterId;
+        long createdAt;
+    }
+
+    /**
+     * 聚合计算的内存表示，负责与实体中的JSON字段相互转换
+     */
+    private class RollupAccumulator {
+        private long recordCount;
+        private long scoreCount;
+        private long scoreSum;
+        private Integer scoreMin;
+        private Integer scoreMax;
+        private long abnormalCount;
+        private final Map<String, Long> riskLevelCounts = new LinkedHashMap<>();
+        private final Map<String, Long> problemCounts = new HashMap<>();
+
+        void add(RollupDelta delta) {
+            recordCount++;
+            if (delta.getScore() != null) {
+                addScores(1, delta.getScore(), delta.getScore(), delta.getScore());
+            }
+            if (delta.isAbnormal()) {
+                abnormalCount++;
+            }
+            if (delta.getRiskLevel() != null) {
+                riskLevelCounts.merge(delta.getRiskLevel(), 1L, Long::sum);
+            }
+            for (String problem : delta.getProblems()) {
+                String key = problem.length() > MAX_PROBLEM_LENGTH ? problem.substring(0, MAX_PROBLEM_LENGTH) : problem;
+                incrementProblem(key, 1L, true);
+            }
+        }
+
+        /**
+         * 合并已有聚合行；bounded 为 true 时问题计数按容量上限保留（用于写回存储）
+         */
+        void add(AnalysisRollup rollup, boolean bounded) {
+            recordCount += rollup.getRecordCount();
+            if (rollup.getScoreCount() > 0) {
+                addScores(rollup.getScoreCount(), rollup.getScoreSum(), rollup.getScoreMin(), rollup.getScoreMax());
+            }
+            abnormalCount += rollup.getAbnormalCount();
+            readCounts(rollup.getRiskLevelCounts()).forEach((k, v) -> riskLevelCounts.merge(k, v, Long::sum));
+            readCounts(rollup.getProblemCounts()).forEach((k, v) -> incrementProblem(k, v, bounded));
+        }
+
+        void writeTo(AnalysisRollup rollup) {
+            rollup.setRecordCount(recordCount);
+            rollup.setScoreCount(scoreCount);
+            rollup.setScoreSum(scoreSum);
+            rollup.setScoreMin(scoreMin);
+            rollup.setScoreMax(scoreMax);
+            rollup.setAbnormalCount(abnormalCount);
+            rollup.setRiskLevelCounts(writeCounts(riskLevelCounts));
+            rollup.setProblemCounts(writeCounts(problemCounts));
+        }
+
+        Double averageScore() {
+            if (scoreCount == 0) {
+                return null;
+            }
+            return Math.round(scoreSum * 100.0 / scoreCount) / 100.0;
+        }
+
+        List<AnalyticsDTO.ProblemCount> topProblems(int limit) {
+            return problemCounts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> new AnalyticsDTO.ProblemCount(entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toList());
+        }
+
+        private void addScores(long count, long sum, Integer min, Integer max) {
+            scoreCount += count;
+            scoreSum += sum;
+            if (min != null) {
+                scoreMin = scoreMin == null ? min : Math.min(scoreMin, min);
+            }
+            if (max != null) {
+                scoreMax = scoreMax == null ? max : Math.max(scoreMax, max);
+            }
+        }
+
+        /**
+         * 问题种类超过容量时采用 Space-Saving 近似计数：替换计数最小的问题，并继承其计数
+         */
+        private void incrementProblem(String problem, long count, boolean bounded) {
+            if (!bounded || problemCounts.containsKey(problem) || problemCounts.size() < config.getMaxTrackedProblems()) {
+                problemCounts.merge(problem, count, Long::sum);
+                return;
+            }
+            Map.Entry<String, Long> min = Collections.min(problemCounts.entrySet(), Comparator.comparingLong(Map.Entry::getValue));
+            problemCounts.remove(min.getKey());
+            problemCounts.put(problem, min.getValue() + count);
+        }
+
+        private Map<String, Long> readCounts(String json) {
+            if (json == null || json.trim().isEmpty()) {
+                return Collections.emptyMap();
+            }
+            try {
+                return jsonCodec.readValue(json, COUNTS_TYPE);
+            } catch (Exception e) {
+                log.warn("解析聚合计数失败: {}", e.getMessage());
+                return Collections.emptyMap();
+            }
+        }
+
+        private String writeCounts(Map<String, Long> counts) {
+            try {
+                return jsonCodec.writeValueAsString(counts);
+            } catch (Exception e) {
+                throw new IllegalStateException("序列化聚合计数失败", e);
+            }
+        }
+    }
+
+    /**
+     * 回填任务进度（仅由回填线程写入）
+     */
+    private static class BackfillProgress {
+        private final List<AnalysisRollup.AnalysisType> types;
+        private final long startTime;
+        private final long endTime;
+        private final long totalWeeks;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile boolean running = true;
+        private volatile AnalysisRollup.AnalysisType currentType;
+        private volatile Long currentWeekStart;
+        private volatile long processedWeeks;
+        private volatile long processedRecords;
+        private volatile Long finishedAt;
+        private volatile String error;
+
+        BackfillProgress(List<AnalysisRollup.AnalysisType> types, long startTime, long endTime, long totalWeeks) {
+            this.types = types;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.totalWeeks = totalWeeks;
+        }
+
+        AnalyticsDTO.BackfillStatus toStatus() {
+            return AnalyticsDTO.BackfillStatus.builder()
+                    .running(running)
+                    .analysisTypes(types)
+                    .startTime(startTime)
+                    .endTime(endTime)
+                    .currentType(currentType)
+                    .currentWeekStart(currentWeekStart)
+                    .processedWeeks(processedWeeks)
+                    .totalWeeks(totalWeeks)
+                    .processedRecords(processedRecords)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.coachai.dto.CoachAiUserDTO;
 import com.coachai.entity.CoachAiUser;
 import com.coachai.repository.CoachAiUserRepository;
 import com.coachai.service.CoachAiUserService;
+import com.coachai.service.UsernameSearchIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.util.Base64;
@@ -12,7 +13,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +30,19 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     @Autowired
     private CoachAiUserRepository coachAiUserRepository;
 
+    @Autowired
+    private UsernameSearchIndex usernameSearchIndex;
+
+    /**
+     * 用户名搜索默认返回条数
+     */
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+
+    /**
+     * 用户名搜索最大返回条数
+     */
+    private static final int MAX_SEARCH_LIMIT = 200;
+
     /**
      * 将密码转换为Base64编码
      */
@@ -74,6 +92,7 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<CoachAiUserDTO.QueryResponse> getUserById(Long id) {
         log.info("根据ID查询用户: {}", id);
         
@@ -84,6 +103,7 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<CoachAiUserDTO.QueryResponse> getUserByUsername(String username) {
         log.info("根据用户名查询用户: {}", username);
         
@@ -94,6 +114,7 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<List<CoachAiUserDTO.QueryResponse>> getAllUsers() {
         log.info("查询所有用户");
         
@@ -106,6 +127,7 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<List<CoachAiUserDTO.QueryResponse>> getUsersByAgeRange(Integer minAge, Integer maxAge) {
         log.info("根据年龄范围查询用户: {} - {}", minAge, maxAge);
         
@@ -118,6 +140,7 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<List<CoachAiUserDTO.QueryResponse>> getUsersByPreferredSport(CoachAiUser.PreferredSport preferredSport) {
         log.info("根据运动类型查询用户: {}", preferredSport);
         
@@ -130,6 +153,7 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<List<CoachAiUserDTO.QueryResponse>> getUsersByGender(CoachAiUser.Gender gender) {
         log.info("根据性别查询用户: {}", gender);
         
@@ -142,11 +166,41 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<List<CoachAiUserDTO.QueryResponse>> searchUsersByUsername(String username) {
-        log.info("根据用户名模糊查询用户: {}", username);
+        return searchUsersByUsername(username, UsernameSearchIndex.Mode.CONTAINS, DEFAULT_SEARCH_LIMIT);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ApiResponse<List<CoachAiUserDTO.QueryResponse>> searchUsersByUsername(String username, UsernameSearchIndex.Mode mode, int limit) {
+        log.info("根据用户名搜索用户: keyword={}, mode={}, limit={}", username, mode, limit);
+        
+        int cappedLimit = Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+        
+        // 索引尚未构建完成时回退到数据库模糊查询
+        if (!usernameSearchIndex.isReady()) {
+            log.warn("用户名搜索索引尚未就绪，回退到数据库查询");
+            List<CoachAiUserDTO.QueryResponse> users = coachAiUserRepository.findByUsernameContaining(username)
+                    .stream()
+                    .limit(cappedLimit)
+                    .map(CoachAiUserDTO.QueryResponse::fromEntity)
+                    .collect(Collectors.toList());
+            return ApiResponse.success(users);
+        }
         
-        List<CoachAiUserDTO.QueryResponse> users = coachAiUserRepository.findByUsernameContaining(username)
+        List<Long> ids = usernameSearchIndex.search(username, mode, cappedLimit);
+        if (ids.isEmpty()) {
+            return ApiResponse.success(Collections.emptyList());
+        }
+        
+        // 按主键批量加载，并保持索引返回的顺序
+        Map<Long, CoachAiUser> usersById = coachAiUserRepository.findAllById(ids)
                 .stream()
+                .collect(Collectors.toMap(CoachAiUser::getId, Function.identity()));
+        List<CoachAiUserDTO.QueryResponse> users = ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
                 .map(CoachAiUserDTO.QueryResponse::fromEntity)
                 .collect(Collectors.toList());
         
@@ -199,6 +253,8 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    // 登录常紧随注册发生，使用读写事务走主库，避免副本延迟导致新用户登录失败
+    @Transactional
     public ApiResponse<CoachAiUserDTO.LoginResponse> loginUser(CoachAiUserDTO.LoginRequest loginRequest) {
         log.info("用户登录请求: {}", loginRequest.getUsername());
         
@@ -228,6 +284,7 @@ public class CoachAiUserServiceImpl implements CoachAiUserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<CoachAiUserDTO.UsernameResponse> getUsernameById(Long id) {
         log.info("根据ID查询用户名: {}", id);
         
@@ -1,21 +1,26 @@
 package com.coachai.service.impl;
 
 import com.coachai.common.ApiResponse;
+import com.coachai.common.PageResult;
 import com.coachai.dto.AiWorkflowIssueResponse;
 import com.coachai.dto.IssueAnalysisRecordDTO;
 import com.coachai.entity.IssueAnalysisRecord;
+import com.coachai.json.JsonCodec;
 import com.coachai.repository.IssueAnalysisRecordRepository;
+import com.coachai.repository.projection.IssueAnalysisRecordSummary;
 import com.coachai.service.IssueAnalysisRecordService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * 症状分析记录服务实现类
@@ -28,7 +33,12 @@ public class IssueAnalysisRecordServiceImpl implements IssueAnalysisRecordServic
     private IssueAnalysisRecordRepository issueAnalysisRecordRepository;
     
     @Autowired
-    private ObjectMapper objectMapper;
+    private JsonCodec jsonCodec;
+
+    /**
+     * 列表查询单页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Override
     @Transactional
@@ -86,86 +96,12 @@ public class IssueAnalysisRecordServiceImpl implements IssueAnalysisRecordServic
             
             IssueAnalysisRecord savedRecord = issueAnalysisRecordRepository.save(record);
             
-            // 2. 解析JSON字符串为结构体
-            List<String> parsedPosture = new ArrayList<>();
-            List<AiWorkflowIssueResponse.Symptom> parsedSymptoms = new ArrayList<>();
-            AiWorkflowIssueResponse.Treatment parsedTreatment = null;
-            List<AiWorkflowIssueResponse.PoseReference> parsedPoseReferences = new ArrayList<>();
-            List<AiWorkflowIssueResponse.RehabilitationVideo> parsedRehabVideos = new ArrayList<>();
-            
-            // 解析posture
-            if (savedRecord.getPosture() != null && !savedRecord.getPosture().trim().isEmpty()) {
-                try {
-                    String[] postureArray = objectMapper.readValue(savedRecord.getPosture(), String[].class);
-                    parsedPosture = List.of(postureArray);
-                } catch (Exception e) {
-                    log.warn("解析posture失败: {}", e.getMessage());
-                }
-            }
-            
-            // 解析symptoms
-            if (savedRecord.getSymptoms() != null && !savedRecord.getSymptoms().trim().isEmpty()) {
-                try {
-                    AiWorkflowIssueResponse.Symptom[] symptomsArray = objectMapper.readValue(
-                            savedRecord.getSymptoms(), AiWorkflowIssueResponse.Symptom[].class);
-                    parsedSymptoms = List.of(symptomsArray);
-                } catch (Exception e) {
-                    log.warn("解析symptoms失败: {}", e.getMessage());
-                }
-            }
-            
-            // 解析treatment
-            if (savedRecord.getTreatment() != null && !savedRecord.getTreatment().trim().isEmpty()) {
-                try {
-                    parsedTreatment = objectMapper.readValue(
-                            savedRecord.getTreatment(), AiWorkflowIssueResponse.Treatment.class);
-                } catch (Exception e) {
-                    log.warn("解析treatment失败: {}", e.getMessage());
-                }
-            }
-            
-            // 解析poseReference
-            if (savedRecord.getPoseReference() != null && !savedRecord.getPoseReference().trim().isEmpty()) {
-                try {
-                    AiWorkflowIssueResponse.PoseReference[] poseRefArray = objectMapper.readValue(
-                            savedRecord.getPoseReference(), AiWorkflowIssueResponse.PoseReference[].class);
-                    parsedPoseReferences = List.of(poseRefArray);
-                } catch (Exception e) {
-                    log.warn("解析poseReference失败: {}", e.getMessage());
-                }
-            }
-            
-            // 解析rehabilitationVideos
-            if (savedRecord.getRehabilitationVideos() != null && !savedRecord.getRehabilitationVideos().trim().isEmpty()) {
-                try {
-                    AiWorkflowIssueResponse.RehabilitationVideo[] rehabVideoArray = objectMapper.readValue(
-                            savedRecord.getRehabilitationVideos(), AiWorkflowIssueResponse.RehabilitationVideo[].class);
-                    parsedRehabVideos = List.of(rehabVideoArray);
-                } catch (Exception e) {
-                    log.warn("解析rehabilitationVideos失败: {}", e.getMessage());
-                }
-            }
-            
-            // 3. 构建API响应
-            IssueAnalysisRecordDTO.ApiResponse apiResponse = IssueAnalysisRecordDTO.ApiResponse.builder()
-                    .id(savedRecord.getId())
-                    .username(savedRecord.getUsername())
-                    .sport(savedRecord.getSport())
-                    .posture(parsedPosture)
-                    .riskLevel(savedRecord.getRiskLevel())
-                    .primaryDiagnosis(savedRecord.getPrimaryDiagnosis())
-                    .confidence(savedRecord.getConfidence())
-                    .isNormal(savedRecord.getIsNormal())
-                    .symptoms(parsedSymptoms)
-                    .treatment(parsedTreatment)
-                    .poseReference(parsedPoseReferences)
-                    .rehabilitationVideos(parsedRehabVideos)
-                    .createdAt(savedRecord.getCreatedAt())
-                    .updatedAt(savedRecord.getUpdatedAt())
-                    .build();
+            // 2. 解析JSON字符串为结构体并构建API响应
+            IssueAnalysisRecordDTO.ApiResponse apiResponse = toApiResponse(savedRecord);
             
             log.info("症状分析记录创建成功并解析完成: id={}, symptoms数量={}, poseReference数量={}, rehabilitationVideos数量={}", 
-                    savedRecord.getId(), parsedSymptoms.size(), parsedPoseReferences.size(), parsedRehabVideos.size());
+                    savedRecord.getId(), apiResponse.getSymptoms().size(), 
+                    apiResponse.getPoseReference().size(), apiResponse.getRehabilitationVideos().size());
             
             return ApiResponse.success("症状分析记录创建成功", apiResponse);
             
@@ -177,6 +113,7 @@ public class IssueAnalysisRecordServiceImpl implements IssueAnalysisRecordServic
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<IssueAnalysisRecordDTO.QueryResponse> getLatestRecordByUsernameAndSport(String username, String sport) {
         log.info("查询最新症状分析记录: username={}, sport={}", username, sport);
         
@@ -200,18 +137,28 @@ public class IssueAnalysisRecordServiceImpl implements IssueAnalysisRecordServic
     }
 
     @Override
-    public ApiResponse<List<IssueAnalysisRecordDTO.QueryResponse>> getRecordsByUsername(String username) {
-        log.info("查询用户所有症状分析记录: username={}", username);
+    @Transactional(readOnly = true)
+    public ApiResponse<IssueAnalysisRecordDTO.ApiResponse> getRecordById(Long id) {
+        log.info("查询症状分析记录详情: id={}", id);
+        
+        IssueAnalysisRecord record = issueAnalysisRecordRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("症状分析记录不存在"));
+        
+        return ApiResponse.success(toApiResponse(record));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>> getRecordsByUsername(String username, int page, int size) {
+        log.info("分页查询用户症状分析记录: username={}, page={}, size={}", username, page, size);
         
         try {
-            List<IssueAnalysisRecord> records = issueAnalysisRecordRepository.findByUsernameOrderByCreatedAtDesc(username);
-            
-            List<IssueAnalysisRecordDTO.QueryResponse> responses = records.stream()
-                    .map(IssueAnalysisRecordDTO.QueryResponse::fromEntity)
-                    .collect(Collectors.toList());
+            Page<IssueAnalysisRecordSummary> summaries = 
+                    issueAnalysisRecordRepository.findSummariesByUsername(username, pageRequest(page, size));
             
-            log.info("查询用户症状分析记录成功: username={}, 记录数量={}", username, responses.size());
-            return ApiResponse.success(responses);
+            log.info("查询用户症状分析记录成功: username={}, 本页数量={}, 总数={}", 
+                    username, summaries.getNumberOfElements(), summaries.getTotalElements());
+            return ApiResponse.success(PageResult.from(summaries, IssueAnalysisRecordDTO.SummaryResponse::fromProjection));
             
         } catch (Exception e) {
             log.error("查询用户症状分析记录失败: username={}, error={}", username, e.getMessage(), e);
@@ -220,18 +167,17 @@ public class IssueAnalysisRecordServiceImpl implements IssueAnalysisRecordServic
     }
 
     @Override
-    public ApiResponse<List<IssueAnalysisRecordDTO.QueryResponse>> getAbnormalRecords() {
-        log.info("查询所有异常症状分析记录");
+    @Transactional(readOnly = true)
+    public ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>> getAbnormalRecords(int page, int size) {
+        log.info("分页查询异常症状分析记录: page={}, size={}", page, size);
         
         try {
-            List<IssueAnalysisRecord> records = issueAnalysisRecordRepository.findAbnormalRecords();
+            Page<IssueAnalysisRecordSummary> summaries = 
+                    issueAnalysisRecordRepository.findAbnormalSummaries(pageRequest(page, size));
             
-            List<IssueAnalysisRecordDTO.QueryResponse> responses = records.stream()
-                    .map(IssueAnalysisRecordDTO.QueryResponse::fromEntity)
-                    .collect(Collectors.toList());
-            
-            log.info("查询异常症状分析记录成功: 记录数量={}", responses.size());
-            return ApiResponse.success(responses);
+            log.info("查询异常症状分析记录成功: 本页数量={}, 总数={}", 
+                    summaries.getNumberOfElements(), summaries.getTotalElements());
+            return ApiResponse.success(PageResult.from(summaries, IssueAnalysisRecordDTO.SummaryResponse::fromProjection));
             
         } catch (Exception e) {
             log.error("查询异常症状分析记录失败: error={}", e.getMessage(), e);
@@ -240,22 +186,109 @@ public class IssueAnalysisRecordServiceImpl implements IssueAnalysisRecordServic
     }
 
     @Override
-    public ApiResponse<List<IssueAnalysisRecordDTO.QueryResponse>> getRecordsByRiskLevel(String riskLevel) {
-        log.info("根据风险等级查询症状分析记录: riskLevel={}", riskLevel);
+    @Transactional(readOnly = true)
+    public ApiResponse<PageResult<IssueAnalysisRecordDTO.SummaryResponse>> getRecordsByRiskLevel(String riskLevel, int page, int size) {
+        log.info("根据风险等级分页查询症状分析记录: riskLevel={}, page={}, size={}", riskLevel, page, size);
         
         try {
-            List<IssueAnalysisRecord> records = issueAnalysisRecordRepository.findByRiskLevel(riskLevel);
-            
-            List<IssueAnalysisRecordDTO.QueryResponse> responses = records.stream()
-                    .map(IssueAnalysisRecordDTO.QueryResponse::fromEntity)
-                    .collect(Collectors.toList());
+            Page<IssueAnalysisRecordSummary> summaries = 
+                    issueAnalysisRecordRepository.findSummariesByRiskLevel(riskLevel, pageRequest(page, size));
             
-            log.info("根据风险等级查询症状分析记录成功: riskLevel={}, 记录数量={}", riskLevel, responses.size());
-            return ApiResponse.success(responses);
+            log.info("根据风险等级查询症状分析记录成功: riskLevel={}, 本页数量={}, 总数={}", 
+                    riskLevel, summaries.getNumberOfElements(), summaries.getTotalElements());
+            return ApiResponse.success(PageResult.from(summaries, IssueAnalysisRecordDTO.SummaryResponse::fromProjection));
             
         } catch (Exception e) {
             log.error("根据风险等级查询症状分析记录失败: riskLevel={}, error={}", riskLevel, e.getMessage(), e);
             return ApiResponse.error("根据风险等级查询症状分析记录失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 构建分页参数，限制单页最大条数
+     */
+    private Pageable pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    /**
+     * 将记录实体中的JSON字符串解析为结构体，构建API响应
+     */
+    private IssueAnalysisRecordDTO.ApiResponse toApiResponse(IssueAnalysisRecord record) {
+        List<String> parsedPosture = new ArrayList<>();
+        List<AiWorkflowIssueResponse.Symptom> parsedSymptoms = new ArrayList<>();
+        AiWorkflowIssueResponse.Treatment parsedTreatment = null;
+        List<AiWorkflowIssueResponse.PoseReference> parsedPoseReferences = new ArrayList<>();
+        List<AiWorkflowIssueResponse.RehabilitationVideo> parsedRehabVideos = new ArrayList<>();
+        
+        // 解析posture
+        if (record.getPosture() != null && !record.getPosture().trim().isEmpty()) {
+            try {
+                String[] postureArray = jsonCodec.readValue(record.getPosture(), String[].class);
+                parsedPosture = List.of(postureArray);
+            } catch (Exception e) {
+                log.warn("解析posture失败: {}", e.getMessage());
+            }
+        }
+        
+        // 解析symptoms
+        if (record.getSymptoms() != null && !record.getSymptoms().trim().isEmpty()) {
+            try {
+                AiWorkflowIssueResponse.Symptom[] symptomsArray = jsonCodec.readValue(
+                        record.getSymptoms(), AiWorkflowIssueResponse.Symptom[].class);
+                parsedSymptoms = List.of(symptomsArray);
+            } catch (Exception e) {
+                log.warn("解析symptoms失败: {}", e.getMessage());
+            }
+        }
+        
+        // 解析treatment
+        if (record.getTreatment() != null && !record.getTreatment().trim().isEmpty()) {
+            try {
+                parsedTreatment = jsonCodec.readValue(
+                        record.getTreatment(), AiWorkflowIssueResponse.Treatment.class);
+            } catch (Exception e) {
+                log.warn("解析treatment失败: {}", e.getMessage());
+            }
+        }
+        
+        // 解析poseReference
+        if (record.getPoseReference() != null && !record.getPoseReference().trim().isEmpty()) {
+            try {
+                AiWorkflowIssueResponse.PoseReference[] poseRefArray = jsonCodec.readValue(
+                        record.getPoseReference(), AiWorkflowIssueResponse.PoseReference[].class);
+                parsedPoseReferences = List.of(poseRefArray);
+            } catch (Exception e) {
+                log.warn("解析poseReference失败: {}", e.getMessage());
+            }
+        }
+        
+        // 解析rehabilitationVideos
+        if (record.getRehabilitationVideos() != null && !record.getRehabilitationVideos().trim().isEmpty()) {
+            try {
+                AiWorkflowIssueResponse.RehabilitationVideo[] rehabVideoArray = jsonCodec.readValue(
+                        record.getRehabilitationVideos(), AiWorkflowIssueResponse.RehabilitationVideo[].class);
+                parsedRehabVideos = List.of(rehabVideoArray);
+            } catch (Exception e) {
+                log.warn("解析rehabilitationVideos失败: {}", e.getMessage());
+            }
+        }
+        
+        return IssueAnalysisRecordDTO.ApiResponse.builder()
+                .id(record.getId())
+                .username(record.getUsername())
+                .sport(record.getSport())
+                .posture(parsedPosture)
+                .riskLevel(record.getRiskLevel())
+                .primaryDiagnosis(record.getPrimaryDiagnosis())
+                .confidence(record.getConfidence())
+                .isNormal(record.getIsNormal())
+                .symptoms(parsedSymptoms)
+                .treatment(parsedTreatment)
+                .poseReference(parsedPoseReferences)
+                .rehabilitationVideos(parsedRehabVideos)
+                .createdAt(record.getCreatedAt())
+                .updatedAt(record.getUpdatedAt())
+                .build();
+    }
 }
@@ -5,9 +5,9 @@ import com.coachai.dto.AiWorkflowRequest;
 import com.coachai.dto.AiWorkflowResponse;
 import com.coachai.dto.PoseAnalysisRecordDTO;
 import com.coachai.entity.PoseAnalysisRecord;
+import com.coachai.json.JsonCodec;
 import com.coachai.repository.PoseAnalysisRecordRepository;
 import com.coachai.service.PoseAnalysisRecordService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -29,7 +29,7 @@ public class PoseAnalysisRecordServiceImpl implements PoseAnalysisRecordService
     private PoseAnalysisRecordRepository poseAnalysisRecordRepository;
     
     @Autowired
-    private ObjectMapper objectMapper;
+    private JsonCodec jsonCodec;
 
     @Override
     @Transactional
@@ -46,6 +46,7 @@ public class PoseAnalysisRecordServiceImpl implements PoseAnalysisRecordService
                     .referencePoseImage(createRequest.getReferencePoseImage())
                     .analysisResults(createRequest.getAnalysisResults())
                     .improvementResults(createRequest.getImprovementResults())
+                    .overallScore(createRequest.getOverallScore())
                     .build();
             
             PoseAnalysisRecord savedRecord = poseAnalysisRecordRepository.save(record);
@@ -61,6 +62,7 @@ public class PoseAnalysisRecordServiceImpl implements PoseAnalysisRecordService
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ApiResponse<PoseAnalysisRecordDTO.QueryResponse> getLatestRecordByUsernameAndPosture(String username, String posture) {
         log.info("查询最新姿态分析记录: username={}, posture={}", username, posture);
         
@@ -84,6 +86,7 @@ public class PoseAnalysisRecordServiceImpl implements PoseAnalysisRecordService
     }
     
     @Override
+    @Transactional(readOnly = true)
     public List<AiWorkflowRequest.LastProblem> getLastProblemsForUser(String username, String posture) {
         log.info("获取用户上一次问题列表: username={}, posture={}", username, posture);
         
@@ -104,7 +107,7 @@ public class PoseAnalysisRecordServiceImpl implements PoseAnalysisRecordService
             }
             
             // 解析analysisResults JSON，提取问题和建议
-            AiWorkflowResponse.AnalysisResult[] analysisResults = objectMapper.readValue(
+            AiWorkflowResponse.AnalysisResult[] analysisResults = jsonCodec.readValue(
                     analysisResultsJson, AiWorkflowResponse.AnalysisResult[].class);
             
             List<AiWorkflowRequest.LastProblem> lastProblems = new ArrayList<>();
@@ -135,60 +138,13 @@ public class PoseAnalysisRecordServiceImpl implements PoseAnalysisRecordService
         
         try {
             // 1. 先创建记录（保持JSON字符串格式）
-            PoseAnalysisRecord record = PoseAnalysisRecord.builder()
-                    .username(createRequest.getUsername())
-                    .sport(createRequest.getSport())
-                    .posture(createRequest.getPosture())
-                    .userPoseImage(createRequest.getUserPoseImage())
-                    .referencePoseImage(createRequest.getReferencePoseImage())
-                    .analysisResults(createRequest.getAnalysisResults())
-                    .improvementResults(createRequest.getImprovementResults())
-                    .build();
+            PoseAnalysisRecord savedRecord = poseAnalysisRecordRepository.save(toEntity(createRequest));
             
-            PoseAnalysisRecord savedRecord = poseAnalysisRecordRepository.save(record);
-            
-            // 2. 解析JSON字符串为结构体
-            List<AiWorkflowResponse.AnalysisResult> parsedAnalysisResults = new ArrayList<>();
-            List<AiWorkflowResponse.ImprovementResult> parsedImprovementResults = new ArrayList<>();
-            
-            // 解析analysisResults
-            if (savedRecord.getAnalysisResults() != null && !savedRecord.getAnalysisResults().trim().isEmpty()) {
-                try {
-                    AiWorkflowResponse.AnalysisResult[] analysisArray = objectMapper.readValue(
-                            savedRecord.getAnalysisResults(), AiWorkflowResponse.AnalysisResult[].class);
-                    parsedAnalysisResults = List.of(analysisArray);
-                } catch (Exception e) {
-                    log.warn("解析analysisResults失败: {}", e.getMessage());
-                }
-            }
-            
-            // 解析improvementResults
-            if (savedRecord.getImprovementResults() != null && !savedRecord.getImprovementResults().trim().isEmpty()) {
-                try {
-                    AiWorkflowResponse.ImprovementResult[] improvementArray = objectMapper.readValue(
-                            savedRecord.getImprovementResults(), AiWorkflowResponse.ImprovementResult[].class);
-                    parsedImprovementResults = List.of(improvementArray);
-                } catch (Exception e) {
-                    log.warn("解析improvementResults失败: {}", e.getMessage());
-                }
-            }
-            
-            // 3. 构建API响应
-            PoseAnalysisRecordDTO.ApiResponse apiResponse = PoseAnalysisRecordDTO.ApiResponse.builder()
-                    .id(savedRecord.getId())
-                    .username(savedRecord.getUsername())
-                    .sport(savedRecord.getSport())
-                    .posture(savedRecord.getPosture())
-                    .userPoseImage(savedRecord.getUserPoseImage())
-                    .referencePoseImage(savedRecord.getReferencePoseImage())
-                    .analysisResults(parsedAnalysisResults)
-                    .improvementResults(parsedImprovementResults)
-                    .createdAt(savedRecord.getCreatedAt())
-                    .updatedAt(savedRecord.getUpdatedAt())
-                    .build();
+            // 2~3. 解析JSON字符串为结构体并构建API响应
+            PoseAnalysisRecordDTO.ApiResponse apiResponse = toApiResponse(savedRecord);
             
             log.info("姿态分析记录创建成功并解析完成: id={}, analysisResults数量={}, improvementResults数量={}", 
-                    savedRecord.getId(), parsedAnalysisResults.size(), parsedImprovementResults.size());
+                    savedRecord.getId(), apiResponse.getAnalysisResults().size(), apiResponse.getImprovementResults().size());
             
             return ApiResponse.success("姿态分析记录创建成功", apiResponse);
             
@@ -198,4 +154,82 @@ public class PoseAnalysisRecordServiceImpl implements PoseAnalysisRecordService
             return ApiResponse.error("创建姿态分析记录失败: " + e.getMessage());
         }
     }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public ApiResponse<List<PoseAnalysisRecordDTO.ApiResponse>> createRecordsWithParsedResults(List<PoseAnalysisRecordDTO.CreateRequest> createRequests) {
+        log.info("开始批量创建姿态分析记录: 数量={}", createRequests.size());
+
+        List<PoseAnalysisRecord> records = new ArrayList<>(createRequests.size());
+        for (PoseAnalysisRecordDTO.CreateRequest createRequest : createRequests) {
+            records.add(toEntity(createRequest));
+        }
+        // 异常直接抛出，由事务整体回滚
+        List<PoseAnalysisRecord> savedRecords = poseAnalysisRecordRepository.saveAll(records);
+
+        List<PoseAnalysisRecordDTO.ApiResponse> responses = new ArrayList<>(savedRecords.size());
+        for (PoseAnalysisRecord savedRecord : savedRecords) {
+            responses.add(toApiResponse(savedRecord));
+        }
+
+        log.info("批量创建姿态分析记录成功: 数量={}", responses.size());
+        return ApiResponse.success("姿态分析记录批量创建成功", responses);
+    }
+
+    private PoseAnalysisRecord toEntity(PoseAnalysisRecordDTO.CreateRequest createRequest) {
+        return PoseAnalysisRecord.builder()
+                .username(createRequest.getUsername())
+                .sport(createRequest.getSport())
+                .posture(createRequest.getPosture())
+                .userPoseImage(createRequest.getUserPoseImage())
+                .referencePoseImage(createRequest.getReferencePoseImage())
+                .analysisResults(createRequest.getAnalysisResults())
+                .improvementResults(createRequest.getImprovementResults())
+                .overallScore(createRequest.getOverallScore())
+                .build();
+    }
+
+    /**
+     * 将保存后的记录转换为API响应，analysisResults/improvementResults解析为结构体
+     */
+    private PoseAnalysisRecordDTO.ApiResponse toApiResponse(PoseAnalysisRecord savedRecord) {
+        List<AiWorkflowResponse.AnalysisResult> parsedAnalysisResults = new ArrayList<>();
+        List<AiWorkflowResponse.ImprovementResult> parsedImprovementResults = new ArrayList<>();
+        
+        // 解析analysisResults
+        if (savedRecord.getAnalysisResults() != null && !savedRecord.getAnalysisResults().trim().isEmpty()) {
+            try {
+                AiWorkflowResponse.AnalysisResult[] analysisArray = jsonCodec.readValue(
+                        savedRecord.getAnalysisResults(), AiWorkflowResponse.AnalysisResult[].class);
+                parsedAnalysisResults = List.of(analysisArray);
+            } catch (Exception e) {
+                log.warn("解析analysisResults失败: {}", e.getMessage());
+            }
+        }
+        
+        // 解析improvementResults
+        if (savedRecord.getImprovementResults() != null && !savedRecord.getImprovementResults().trim().isEmpty()) {
+            try {
+                AiWorkflowResponse.ImprovementResult[] improvementArray = jsonCodec.readValue(
+                        savedRecord.getImprovementResults(), AiWorkflowResponse.ImprovementResult[].class);
+                parsedImprovementResults = List.of(improvementArray);
+            } catch (Exception e) {
+                log.warn("解析improvementResults失败: {}", e.getMessage());
+            }
+        }
+        
+        return PoseAnalysisRecordDTO.ApiResponse.builder()
+                .id(savedRecord.getId())
+                .username(savedRecord.getUsername())
+                .sport(savedRecord.getSport())
+                .posture(savedRecord.getPosture())
+                .userPoseImage(savedRecord.getUserPoseImage())
+                .referencePoseImage(savedRecord.getReferencePoseImage())
+                .analysisResults(parsedAnalysisResults)
+                .improvementResults(parsedImprovementResults)
+                .overallScore(savedRecord.getOverallScore())
+                .createdAt(savedRecord.getCreatedAt())
+                .updatedAt(savedRecord.getUpdatedAt())
+                .build();
+    }
 }
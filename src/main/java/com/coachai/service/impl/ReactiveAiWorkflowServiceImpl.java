@@ -0,0 +1,174 @@
+package com.coachai.service.impl;
+
+import com.coachai.config.AiWorkflowConfig;
+import com.coachai.dto.AiWorkflowIssueRequest;
+import com.coachai.dto.AiWorkflowIssueResponse;
+import com.coachai.dto.AiWorkflowRequest;
+import com.coachai.deadline.Deadline;
+import com.coachai.deadline.DeadlineExceededException;
+import com.coachai.dto.AiWorkflowResponse;
+import com.coachai.metrics.AnalysisMetrics;
+import com.coachai.resilience.EndpointBalancer;
+import com.coachai.resilience.WorkflowCallPolicy;
+import com.coachai.service.ReactiveAiWorkflowService;
+import com.coachai.tracing.Spans;
+import io.netty.channel.ChannelOption;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * AI工作流非阻塞调用实现
+ * 使用 Reactor Netty 连接池，少量事件循环线程即可承载大量等待中的工作流调用
+ */
+@Service
+@Slf4j
+public class ReactiveAiWorkflowServiceImpl implements ReactiveAiWorkflowService {
+
+    private final AiWorkflowConfig aiWorkflowConfig;
+    private final OpenTelemetry openTelemetry;
+    private final Tracer tracer;
+    private final WorkflowCallPolicy workflowCallPolicy;
+    private final EndpointBalancer endpointBalancer;
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+
+    public ReactiveAiWorkflowServiceImpl(AiWorkflowConfig aiWorkflowConfig,
+                                         WebClient.Builder webClientBuilder,
+                                         OpenTelemetry openTelemetry,
+                                         Tracer tracer,
+                                         WorkflowCallPolicy workflowCallPolicy,
+                                         EndpointBalancer endpointBalancer) {
+        this.aiWorkflowConfig = aiWorkflowConfig;
+        this.openTelemetry = openTelemetry;
+        this.tracer = tracer;
+        this.workflowCallPolicy = workflowCallPolicy;
+        this.endpointBalancer = endpointBalancer;
+        // 连接数上限与阻塞实现一致，超出时排队等待空闲连接，等待时间与连接超时一致
+        this.connectionProvider = ConnectionProvider.builder("ai-workflow")
+                .maxConnections(aiWorkflowConfig.getMaxConnections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMillis(aiWorkflowConfig.getConnectionTimeout()))
+                .maxIdleTime(Duration.ofSeconds(60))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, aiWorkflowConfig.getConnectionTimeout().intValue())
+                .responseTimeout(Duration.ofMillis(aiWorkflowConfig.getReadTimeout()));
+        this.webClient = webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionProvider.dispose();
+    }
+
+    @Override
+    public Mono<AiWorkflowResponse> callPoseAnalysisWorkflow(AiWorkflowRequest request) {
+        log.info("开始调用AI工作流（非阻塞），用户: {}, 运动: {}, 姿势: {}",
+                request.getParamJson().getUsername(),
+                request.getParamJson().getSport(),
+                request.getParamJson().getPosture());
+        return workflowCallPolicy.executeReactive(WorkflowCallPolicy.WORKFLOW_POSE,
+                        () -> endpointBalancer.executeReactive(endpoint -> exchange("pose", endpoint, request.getApiCode(),
+                                aiWorkflowConfig.getPoseAnalysis().getAk(), request, AiWorkflowResponse.class)))
+                .doOnNext(response -> log.info("AI工作流调用成功，响应代码: {}, 成功: {}",
+                        response.getCode(), response.getSuccess()));
+    }
+
+    @Override
+    public Mono<AiWorkflowIssueResponse> callIssueAnalysisWorkflow(AiWorkflowIssueRequest request) {
+        log.info("开始调用AI症状分析工作流（非阻塞），身体部位: {}, 运动: {}, 姿势: {}",
+                request.getParamJson().getBodyParts(),
+                request.getParamJson().getSport(),
+                request.getParamJson().getPosture());
+        return workflowCallPolicy.executeReactive(WorkflowCallPolicy.WORKFLOW_ISSUE,
+                        () -> endpointBalancer.executeReactive(endpoint -> exchange("issue", endpoint, request.getApiCode(),
+                                aiWorkflowConfig.getIssueAnalysis().getAk(), request, AiWorkflowIssueResponse.class)))
+                .doOnNext(response -> log.info("AI症状分析工作流调用成功，响应代码: {}, 成功: {}",
+                        response.getCode(), response.getSuccess()));
+    }
+
+    /**
+     * 发送工作流请求
+     * 调用方线程上的追踪上下文在组装时捕获，订阅后在 Reactor 线程上作为 ai.workflow Span 的父上下文，
+     * 该Span即为CLIENT Span，同时负责向下游传播 traceparent。
+     * 上下文中带截止时间时，超过剩余时间（扣除为解析和保存预留的部分）或截止时间被取消（客户端断开）时
+     * 取消订阅，Reactor Netty 随之关闭连接，不再等待工作流结果
+     */
+    private <T> Mono<T> exchange(String workflow, EndpointBalancer.Endpoint endpoint, String apiCode, String ak,
+                                 Object body, Class<T> responseType) {
+        Context parent = Context.current();
+        Deadline deadline = Deadline.fromContext(parent);
+        URI uri = endpoint.getUri();
+        return Mono.defer(() -> {
+            Duration budget = null;
+            if (deadline != null) {
+                budget = deadline.budget(Duration.ofMillis(aiWorkflowConfig.getDeadlineReserve()),
+                        Duration.ofMillis(aiWorkflowConfig.getReadTimeout()));
+                if (budget.isZero()) {
+                    return Mono.error(deadline.exceeded(AnalysisMetrics.STAGE_WORKFLOW_CALL));
+                }
+            }
+            Span span = tracer.spanBuilder("ai.workflow " + workflow)
+                    .setParent(parent)
+                    .setSpanKind(SpanKind.CLIENT)
+                    .setAttribute("ai.workflow", workflow)
+                    .setAttribute("ai.workflow.api_code", String.valueOf(apiCode))
+                    .setAttribute("ai.workflow.endpoint", endpoint.getName())
+                    .setAttribute("http.method", "POST")
+                    .setAttribute("http.url", uri.getScheme() + "://" + uri.getAuthority() + uri.getPath())
+                    .startSpan();
+            Context spanContext = parent.with(span);
+            Mono<T> call = webClient.post()
+                    .uri(uri)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("ak", ak)
+                    .headers(headers -> openTelemetry.getPropagators().getTextMapPropagator()
+                            .inject(spanContext, headers, (carrier, key, value) -> carrier.set(key, value)))
+                    .bodyValue(body)
+                    .exchangeToMono(response -> {
+                        int status = response.rawStatusCode();
+                        span.setAttribute("http.status_code", (long) status);
+                        if (status >= 400) {
+                            span.setStatus(StatusCode.ERROR, "HTTP " + status);
+                            return response.createException().flatMap(Mono::error);
+                        }
+                        return response.bodyToMono(responseType);
+                    })
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("AI工作流返回空响应")));
+            if (deadline != null) {
+                call = Mono.firstWithSignal(
+                        call.timeout(budget, Mono.error(() -> deadline.exceeded(AnalysisMetrics.STAGE_WORKFLOW_CALL))),
+                        deadline.cancelled().then(Mono.error(() -> deadline.exceeded(AnalysisMetrics.STAGE_WORKFLOW_CALL))));
+            }
+            return call
+                    .onErrorMap(e -> {
+                        Spans.recordError(span, e);
+                        if (e instanceof DeadlineExceededException) {
+                            log.warn("AI工作流调用未在截止时间前完成，已取消: {}", e.getMessage());
+                            return e;
+                        }
+                        log.error("调用AI工作流失败", e);
+                        return new RuntimeException("调用AI工作流失败: " + e.getMessage(), e);
+                    })
+                    .doFinally(signal -> span.end());
+        });
+    }
+}
@@ -0,0 +1,482 @@
+package com.coachai.service.impl;
+
+import com.coachai.common.ApiResponse;
+import com.coachai.config.UsageConfig;
+import com.coachai.dto.UsageDTO;
+import com.coachai.entity.UserUsageDaily;
+import com.coachai.metrics.AnalysisMetrics;
+import com.coachai.repository.UserUsageDailyRepository;
+import com.coachai.service.UsageAccountingService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI工作流用量统计与配额服务实现
+ * 每次工作流调用的用量累加到内存中按 用户 + 工作流 + 自然日 划分的 LongAdder 计数器，并发记录互不阻塞；
+ * 后台线程定期将增量写入 user_usage_daily（按行加锁累加，多实例可同时写入），写入失败的增量留在内存中下次重试。
+ * 配额检查使用数据库中的当日用量（短时缓存）加上本实例尚未写入的部分
+ */
+@Service
+@Slf4j
+public class UsageAccountingServiceImpl implements UsageAccountingService {
+
+    /**
+     * 并发创建同一用量行时的最大重试次数
+     */
+    private static final int MAX_UPSERT_ATTEMPTS = 3;
+
+    /**
+     * 查询用量的最大天数
+     */
+    private static final int MAX_QUERY_DAYS = 90;
+
+    private static final double MICROS_PER_UNIT = 1_000_000d;
+
+    private static final String[] WORKFLOWS = {AnalysisMetrics.WORKFLOW_POSE, AnalysisMetrics.WORKFLOW_ISSUE};
+
+    private final UserUsageDailyRepository userUsageDailyRepository;
+    private final UsageConfig config;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate requiresNewTransaction;
+    private final ZoneId zone;
+    private final ScheduledExecutorService flushScheduler;
+
+    /**
+     * 尚未写入数据库的用量
+     */
+    private final Map<UsageKey, UsageAccumulator> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 数据库中用户当日的token合计
+     */
+    private Cache<UserDay, Long> flushedTokens;
+
+    /**
+     * 限流期间用户上次被允许发起分析的时间
+     */
+    private Cache<String, Long> lastAdmitted;
+
+    private Counter flushFailures;
+
+    public UsageAccountingServiceImpl(UserUsageDailyRepository userUsageDailyRepository,
+                                      UsageConfig config,
+                                      MeterRegistry meterRegistry,
+                                      PlatformTransactionManager transactionManager) {
+        this.userUsageDailyRepository = userUsageDailyRepository;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        // 用量写入与分析记录的事务无关，在独立的新事务中执行
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.zone = ZoneId.of(config.getZone());
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "usage-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        flushedTokens = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(config.getQuotaCacheMs()))
+                .build();
+        lastAdmitted = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(config.getQuota().getThrottleIntervalSeconds()))
+                .build();
+        flushFailures = meterRegistry.counter("coachai.usage.flush.failures");
+        Gauge.builder("coachai.usage.pending", pending, Map::size)
+                .description("尚未写入数据库的用量条目数")
+                .register(meterRegistry);
+        if (config.isEnabled()) {
+            long interval = config.getFlushIntervalMs();
+            flushScheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flushScheduler.shutdownNow();
+        // 停止前写入剩余用量
+        flush();
+    }
+
+    @Override
+    public void record(String username, String workflow, Integer usage, Object usageMap) {
+        if (!config.isEnabled() || !StringUtils.hasText(username)) {
+            return;
+        }
+        TokenCounts counts = TokenCounts.of(usage, usageMap);
+        long costMicros = costMicros(counts);
+        LocalDate today = LocalDate.now(zone);
+        pending.computeIfAbsent(new UsageKey(username, workflow, today), key -> new UsageAccumulator())
+                .add(1, counts.getInput(), counts.getOutput(), counts.getTotal(), costMicros);
+
+        tokenCounter(workflow, "input").increment(counts.getInput());
+        tokenCounter(workflow, "output").increment(counts.getOutput());
+        tokenCounter(workflow, "unclassified").increment(counts.getUnclassified());
+        meterRegistry.counter("coachai.usage.cost", "workflow", workflow).increment(costMicros / MICROS_PER_UNIT);
+        log.debug("记录工作流用量: username={}, workflow={}, tokens={}, cost={}",
+                username, workflow, counts.getTotal(), costMicros / MICROS_PER_UNIT);
+    }
+
+    @Override
+    public UsageDTO.QuotaDecision checkQuota(String username) {
+        long limit = limitFor(username);
+        if (!config.isEnabled() || limit <= 0 || !StringUtils.hasText(username)) {
+            return decision(UsageDTO.Decision.ALLOWED, 0, limit, 0, null);
+        }
+        long used;
+        try {
+            used = usedTokens(username, LocalDate.now(zone));
+        } catch (Exception e) {
+            // 配额检查失败不影响分析
+            log.warn("查询用户当日用量失败，跳过配额检查: username={}, error={}", username, e.getMessage());
+            return decision(UsageDTO.Decision.ALLOWED, 0, limit, 0, null);
+        }
+
+        if (used >= limit) {
+            long retryAfter = Duration.between(ZonedDateTime.now(zone),
+                    LocalDate.now(zone).plusDays(1).atStartOfDay(zone)).getSeconds() + 1;
+            return rejected(UsageDTO.Decision.EXCEEDED, used, limit, retryAfter, "今日AI分析额度已用完，请明天再试");
+        }
+
+        if (used >= limit * config.getQuota().getThrottleRatio()) {
+            long now = System.currentTimeMillis();
+            long intervalMs = TimeUnit.SECONDS.toMillis(config.getQuota().getThrottleIntervalSeconds());
+            AtomicLong previous = new AtomicLong(-1);
+            lastAdmitted.asMap().compute(username, (key, last) -> {
+                if (last != null && now - last < intervalMs) {
+                    previous.set(last);
+                    return last;
+                }
+                return now;
+            });
+            if (previous.get() >= 0) {
+                long retryAfter = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(previous.get() + intervalMs - now + 999));
+                return rejected(UsageDTO.Decision.THROTTLED, used, limit, retryAfter,
+                        "今日AI分析用量接近上限，请" + retryAfter + "秒后再试");
+            }
+        }
+        return decision(UsageDTO.Decision.ALLOWED, used, limit, 0, null);
+    }
+
+    @Override
+    public ApiResponse<UsageDTO.UserUsage> getUserUsage(String username, int days) {
+        LocalDate today = LocalDate.now(zone);
+        LocalDate startDate = today.minusDays(Math.max(1, Math.min(days, MAX_QUERY_DAYS)) - 1L);
+
+        Map<UsageKey, UsageSnapshot> merged = new TreeMap<>(Comparator.comparing(UsageKey::getDay)
+                .thenComparing(UsageKey::getWorkflow));
+        for (UserUsageDaily row : userUsageDailyRepository
+                .findByUsernameAndUsageDateBetweenOrderByUsageDateAscWorkflowAsc(username, startDate, today)) {
+            merged.put(new UsageKey(username, row.getWorkflow(), row.getUsageDate()), new UsageSnapshot(
+                    row.getRequestCount(), row.getInputTokens(), row.getOutputTokens(), row.getTotalTokens(), row.getCostMicros()));
+        }
+        pending.forEach((key, accumulator) -> {
+            if (key.getUsername().equals(username) && !key.getDay().isBefore(startDate)) {
+                merged.merge(key, accumulator.snapshot(), UsageSnapshot::plus);
+            }
+        });
+
+        List<UsageDTO.DailyUsage> daily = new ArrayList<>();
+        long usedToday = 0;
+        long costToday = 0;
+        for (Map.Entry<UsageKey, UsageSnapshot> entry : merged.entrySet()) {
+            UsageSnapshot usage = entry.getValue();
+            daily.add(UsageDTO.DailyUsage.builder()
+                    .date(entry.getKey().getDay())
+                    .workflow(entry.getKey().getWorkflow())
+                    .requestCount(usage.getRequests())
+                    .inputTokens(usage.getInputTokens())
+                    .outputTokens(usage.getOutputTokens())
+                    .totalTokens(usage.getTotalTokens())
+                    .cost(usage.getCostMicros() / MICROS_PER_UNIT)
+                    .build());
+            if (entry.getKey().getDay().equals(today)) {
+                usedToday += usage.getTotalTokens();
+                costToday += usage.getCostMicros();
+            }
+        }
+
+        return ApiResponse.success(UsageDTO.UserUsage.builder()
+                .username(username)
+                .today(today)
+                .usedTokensToday(usedToday)
+                .limitTokens(limitFor(username))
+                .costToday(costToday / MICROS_PER_UNIT)
+                .daily(daily)
+                .build());
+    }
+
+    /**
+     * 将内存中的用量增量写入数据库
+     * 已过去的自然日不会再有新增用量，写入后从内存中移除
+     */
+    void flush() {
+        LocalDate today = LocalDate.now(zone);
+        int failed = 0;
+        for (Map.Entry<UsageKey, UsageAccumulator> entry : pending.entrySet()) {
+            UsageKey key = entry.getKey();
+            UsageAccumulator accumulator = entry.getValue();
+            if (key.getDay().isBefore(today)) {
+                pending.remove(key, accumulator);
+            }
+            UsageSnapshot delta = accumulator.drain();
+            if (delta.getRequests() == 0 && delta.getTotalTokens() == 0) {
+                continue;
+            }
+            try {
+                applyDelta(key, delta);
+                flushedTokens.invalidate(new UserDay(key.getUsername(), key.getDay()));
+            } catch (Exception e) {
+                failed++;
+                // 增量放回内存，下次写入时重试
+                pending.computeIfAbsent(key, k -> new UsageAccumulator()).add(delta);
+                if (failed == 1) {
+                    log.warn("写入用量统计失败，下次重试: key={}, error={}", key, e.getMessage());
+                }
+            }
+        }
+        if (failed > 0) {
+            flushFailures.increment(failed);
+        }
+    }
+
+    /**
+     * 在独立事务中将增量累加到用量行；并发首次创建同一行时重试
+     */
+    private void applyDelta(UsageKey key, UsageSnapshot delta) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                requiresNewTransaction.executeWithoutResult(status -> {
+                    UserUsageDaily row = userUsageDailyRepository.findForUpdate(key.getUsername(), key.getWorkflow(), key.getDay())
+                            .orElseGet(() -> UserUsageDaily.builder()
+                                    .username(key.getUsername())
+                                    .workflow(key.getWorkflow())
+                                    .usageDate(key.getDay())
+                                    .requestCount(0L)
+                                    .inputTokens(0L)
+                                    .outputTokens(0L)
+                                    .totalTokens(0L)
+                                    .costMicros(0L)
+                                    .build());
+                    row.setRequestCount(row.getRequestCount() + delta.getRequests());
+                    row.setInputTokens(row.getInputTokens() + delta.getInputTokens());
+                    row.setOutputTokens(row.getOutputTokens() + delta.getOutputTokens());
+                    row.setTotalTokens(row.getTotalTokens() + delta.getTotalTokens());
+                    row.setCostMicros(row.getCostMicros() + delta.getCostMicros());
+                    row.setUpdatedAt(System.currentTimeMillis());
+                    userUsageDailyRepository.save(row);
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_UPSERT_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("用量行并发创建冲突，重试: attempt={}", attempt);
+            }
+        }
+    }
+
+    /**
+     * 用户当日已用token：数据库部分（短时缓存）加本实例尚未写入的部分
+     */
+    private long usedTokens(String username, LocalDate day) {
+        long used = flushedTokens.get(new UserDay(username, day),
+                key -> userUsageDailyRepository.sumTotalTokens(key.getUsername(), key.getDay()));
+        for (String workflow : WORKFLOWS) {
+            UsageAccumulator accumulator = pending.get(new UsageKey(username, workflow, day));
+            if (accumulator != null) {
+                used += accumulator.totalTokens.sum();
+            }
+        }
+        return used;
+    }
+
+    private long limitFor(String username) {
+        Long override = username != null ? config.getQuota().getOverrides().get(username) : null;
+        return override != null ? override : config.getQuota().getDailyTokens();
+    }
+
+    private long costMicros(TokenCounts counts) {
+        UsageConfig.PricingConfig pricing = config.getPricing();
+        // 单价为每百万token的费用，换算为百万分之一元后恰好等于 token数 * 单价
+        return Math.round((counts.getInput() + counts.getUnclassified()) * pricing.getInputPerMillion()
+                + counts.getOutput() * pricing.getOutputPerMillion());
+    }
+
+    private UsageDTO.QuotaDecision rejected(UsageDTO.Decision decision, long used, long limit,
+                                            long retryAfterSeconds, String message) {
+        meterRegistry.counter("coachai.usage.quota.rejections", "decision", decision.name().toLowerCase(Locale.ROOT))
+                .increment();
+        log.info("用户用量超出配额，拒绝分析: decision={}, used={}, limit={}", decision, used, limit);
+        return decision(decision, used, limit, retryAfterSeconds, message);
+    }
+
+    private static UsageDTO.QuotaDecision decision(UsageDTO.Decision decision, long used, long limit,
+                                                   long retryAfterSeconds, String message) {
+        return UsageDTO.QuotaDecision.builder()
+                .decision(decision)
+                .usedTokens(used)
+                .limitTokens(limit)
+                .retryAfterSeconds(retryAfterSeconds)
+                .message(message)
+                .build();
+    }
+
+    private Counter tokenCounter(String workflow, String type) {
+        return meterRegistry.counter("coachai.usage.tokens", "workflow", workflow, "type", type);
+    }
+
+    /**
+     * 用量统计键
+     */
+    @Value
+    private static class UsageKey {
+        String username;
+        String workflow;
+        LocalDate day;
+    }
+
+    /**
+     * 用户当日用量缓存键
+     */
+    @Value
+    private static class UserDay {
+        String username;
+        LocalDate day;
+    }
+
+    /**
+     * 用量计数器，各字段为独立的 LongAdder，写入时逐个取出并清零，期间的新增计入下一次写入
+     */
+    private static final class UsageAccumulator {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final LongAdder totalTokens = new LongAdder();
+        private final LongAdder costMicros = new LongAdder();
+
+        void add(long requestCount, long input, long output, long total, long cost) {
+            requests.add(requestCount);
+            inputTokens.add(input);
+            outputTokens.add(output);
+            totalTokens.add(total);
+            costMicros.add(cost);
+        }
+
+        void add(UsageSnapshot snapshot) {
+            add(snapshot.getRequests(), snapshot.getInputTokens(), snapshot.getOutputTokens(),
+                    snapshot.getTotalTokens(), snapshot.getCostMicros());
+        }
+
+        UsageSnapshot drain() {
+            return new UsageSnapshot(requests.sumThenReset(), inputTokens.sumThenReset(), outputTokens.sumThenReset(),
+                    totalTokens.sumThenReset(), costMicros.sumThenReset());
+        }
+
+        UsageSnapshot snapshot() {
+            return new UsageSnapshot(requests.sum(), inputTokens.sum(), outputTokens.sum(),
+                    totalTokens.sum(), costMicros.sum());
+        }
+    }
+
+    /**
+     * 某一时刻的用量
+     */
+    @Value
+    private static class UsageSnapshot {
+        long requests;
+        long inputTokens;
+        long outputTokens;
+        long totalTokens;
+        long costMicros;
+
+        UsageSnapshot plus(UsageSnapshot other) {
+            return new UsageSnapshot(requests + other.requests, inputTokens + other.inputTokens,
+                    outputTokens + other.outputTokens, totalTokens + other.totalTokens, costMicros + other.costMicros);
+        }
+    }
+
+    /**
+     * 工作流响应中的token数
+     * usageMap 中输入、输出token的字段名随模型供应商不同（inputTokens / prompt_tokens 等），
+     * 按节点或模型嵌套时逐层累加；usage 为空时总数取输入与输出之和
+     */
+    @Value
+    static class TokenCounts {
+        long input;
+        long output;
+        long total;
+
+        long getUnclassified() {
+            return Math.max(0, total - input - output);
+        }
+
+        static TokenCounts of(Integer usage, Object usageMap) {
+            long[] counts = new long[2];
+            collect(usageMap, counts, 0);
+            long total = Math.max(usage != null ? usage : 0, counts[0] + counts[1]);
+            return new TokenCounts(counts[0], counts[1], total);
+        }
+
+        private static void collect(Object node, long[] counts, int depth) {
+            if (depth > 4) {
+                return;
+            }
+            if (node instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+                    Object value = entry.getValue();
+                    if (value instanceof Number) {
+                        String key = String.valueOf(entry.getKey()).replace("_", "").toLowerCase(Locale.ROOT);
+                        if (key.equals("inputtokens") || key.equals("prompttokens")) {
+                            counts[0] += Math.max(0, ((Number) value).longValue());
+                        } else if (key.equals("outputtokens") || key.equals("completiontokens")) {
+                            counts[1] += Math.max(0, ((Number) value).longValue());
+                        }
+                    } else {
+                        collect(value, counts, depth + 1);
+                    }
+                }
+            } else if (node instanceof Collection) {
+                for (Object item : (Collection<?>) node) {
+                    collect(item, counts, depth + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.coachai.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 内存Span导出器
+ * 保留最近导出的Span（超过容量时丢弃最早的），用于本地测试和压测环境按链路查看各依赖耗时
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int maxSpans;
+    private final Deque<SpanData> spans = new ArrayDeque<>();
+
+    public InMemorySpanExporter(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        if (maxSpans <= 0) {
+            return CompletableResultCode.ofSuccess();
+        }
+        for (SpanData span : batch) {
+            if (spans.size() >= maxSpans) {
+                spans.pollFirst();
+            }
+            spans.addLast(span);
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * 所有已导出的Span，按导出顺序
+     */
+    public synchronized List<SpanData> getFinishedSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * 指定链路的Span，按开始时间排序
+     */
+    public synchronized List<SpanData> getTrace(String traceId) {
+        return spans.stream()
+                .filter(span -> span.getTraceId().equals(traceId))
+                .sorted((a, b) -> Long.compare(a.getStartEpochNanos(), b.getStartEpochNanos()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按链路分组的Span，最近导出的链路在前
+     */
+    public synchronized Map<String, List<SpanData>> getTraces() {
+        Map<String, List<SpanData>> traces = new LinkedHashMap<>();
+        spans.descendingIterator().forEachRemaining(span ->
+                traces.computeIfAbsent(span.getTraceId(), id -> new ArrayList<>()).add(span));
+        return traces;
+    }
+
+    public synchronized void reset() {
+        spans.clear();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
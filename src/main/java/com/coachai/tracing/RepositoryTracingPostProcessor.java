@@ -0,0 +1,61 @@
+package com.coachai.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA Repository 方法追踪
+ * 在 Repository 工厂创建代理时加入拦截器，每次 Repository 方法调用生成一个CLIENT Span（如 CoachAiUserRepository.findByUsername）
+ */
+@Component
+public class RepositoryTracingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<Tracer> tracer;
+
+    /**
+     * BeanPostProcessor 需尽早创建，Tracer 延迟获取，避免提前初始化追踪相关Bean
+     */
+    public RepositoryTracingPostProcessor(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                            proxyFactory.addAdvice(tracingInterceptor(
+                                    repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private MethodInterceptor tracingInterceptor(String repositoryName) {
+        return invocation -> {
+            String methodName = invocation.getMethod().getName();
+            // Object 方法（toString/hashCode 等）不追踪
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            Span span = tracer.getObject().spanBuilder(repositoryName + "." + methodName)
+                    .setSpanKind(SpanKind.CLIENT)
+                    .setAttribute("db.operation", methodName)
+                    .startSpan();
+            try (Scope ignored = span.makeCurrent()) {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                Spans.recordError(span, e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.coachai.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Span工具方法
+ */
+public final class Spans {
+
+    private Spans() {
+    }
+
+    /**
+     * 在Span内执行，结束时关闭Span，抛出异常时记录异常并标记为错误
+     */
+    public static <T> T call(Span span, Callable<T> body) throws Exception {
+        try (Scope ignored = span.makeCurrent()) {
+            return body.call();
+        } catch (Exception e) {
+            recordError(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    public static void recordError(Span span, Throwable e) {
+        span.recordException(e);
+        span.setStatus(StatusCode.ERROR, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,284 @@
+package com.coachai.tracing;
+
+import com.coachai.config.TracingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 尾部采样Span处理器
+ * 同一链路的Span在内存中缓冲，本服务内的根Span（无父Span或父Span来自上游服务）结束时做采样决策：
+ * 出错或耗时达到慢链路阈值的链路全部保留，其余按比例保留，保留的链路整体交给导出处理器。
+ * 根Span之后才结束的Span（异步任务等）按该链路已做出的决策处理。
+ */
+@Slf4j
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final int MAX_REMEMBERED_DECISIONS = 4096;
+
+    private final SpanProcessor delegate;
+    private final long slowThresholdNanos;
+    private final double ratio;
+    private final int maxPendingTraces;
+    private final long pendingTimeoutNanos;
+
+    private final Map<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> decisions = Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(256, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_REMEMBERED_DECISIONS;
+                }
+            });
+
+    private volatile long lastSweepNanos = System.nanoTime();
+
+    private final Counter keptSlow;
+    private final Counter keptError;
+    private final Counter keptSampled;
+    private final Counter dropped;
+    private final Counter overflow;
+
+    public TailSamplingSpanProcessor(SpanProcessor delegate, TracingConfig.SamplingConfig config, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowThresholdMs());
+        this.ratio = config.getRatio();
+        this.maxPendingTraces = config.getMaxPendingTraces();
+        this.pendingTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getPendingTimeoutMs());
+        this.keptSlow = decisionCounter(meterRegistry, "slow");
+        this.keptError = decisionCounter(meterRegistry, "error");
+        this.keptSampled = decisionCounter(meterRegistry, "sampled");
+        this.dropped = decisionCounter(meterRegistry, "dropped");
+        this.overflow = decisionCounter(meterRegistry, "overflow");
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        String traceId = span.getSpanContext().getTraceId();
+
+        Boolean decided = decisions.get(traceId);
+        if (decided != null) {
+            if (decided) {
+                delegate.onEnd(span);
+            }
+            return;
+        }
+
+        if (isLocalRoot(span)) {
+            endTrace(traceId, span);
+            sweepExpired();
+            return;
+        }
+
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null) {
+            if (pending.size() >= maxPendingTraces) {
+                overflow.increment();
+                return;
+            }
+            trace = pending.computeIfAbsent(traceId, id -> new PendingTrace());
+        }
+        Boolean closedDecision = trace.add(span);
+        if (closedDecision != null) {
+            // 根Span已取走链路中的Span，按它的决策处理
+            if (closedDecision) {
+                delegate.onEnd(span);
+            }
+            return;
+        }
+        // 读取决策之后、加入链路之前根Span可能已结束，此时加入的是根Span之后新建的链路
+        decided = decisions.get(traceId);
+        if (decided != null) {
+            settleLate(traceId, decided);
+        }
+    }
+
+    /**
+     * 根Span结束：取走链路中已结束的Span并关闭链路，做出决策，先记录决策再移除链路
+     */
+    private void endTrace(String traceId, ReadableSpan root) {
+        PendingTrace trace = pending.get(traceId);
+        List<ReadableSpan> spans;
+        boolean keep;
+        if (trace == null) {
+            spans = new ArrayList<>(1);
+            spans.add(root);
+            keep = decide(root, spans);
+        } else {
+            synchronized (trace) {
+                if (trace.decision != null) {
+                    // 同一上游链路的另一个根Span已做出决策
+                    keep = trace.decision;
+                    spans = Collections.singletonList(root);
+                } else {
+                    spans = new ArrayList<>(trace.spans);
+                    spans.add(root);
+                    keep = decide(root, spans);
+                    trace.close(keep);
+                }
+            }
+        }
+        decisions.put(traceId, keep);
+        if (trace != null) {
+            pending.remove(traceId, trace);
+        }
+        if (keep) {
+            spans.forEach(delegate::onEnd);
+        }
+        settleLate(traceId, keep);
+    }
+
+    /**
+     * 处理决策做出时仍在等待中的链路：并发结束的Span在根Span读取之后新建的链路
+     */
+    private void settleLate(String traceId, boolean keep) {
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null) {
+            return;
+        }
+        List<ReadableSpan> spans = trace.close(keep);
+        pending.remove(traceId, trace);
+        if (keep) {
+            spans.forEach(delegate::onEnd);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        pending.clear();
+        return delegate.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    /**
+     * 本服务内的根Span：没有父Span，或父Span来自上游服务（通过traceparent传入）
+     */
+    private static boolean isLocalRoot(ReadableSpan span) {
+        SpanContext parent = span.getParentSpanContext();
+        return !parent.isValid() || parent.isRemote();
+    }
+
+    private boolean decide(ReadableSpan root, List<ReadableSpan> spans) {
+        for (ReadableSpan span : spans) {
+            if (span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR) {
+                keptError.increment();
+                return true;
+            }
+        }
+        if (root.getLatencyNanos() >= slowThresholdNanos) {
+            keptSlow.increment();
+            return true;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < ratio) {
+            keptSampled.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * 清理根Span长时间未结束的链路，每分钟最多执行一次
+     */
+    private void sweepExpired() {
+        long now = System.nanoTime();
+        if (now - lastSweepNanos < TimeUnit.MINUTES.toNanos(1)) {
+            return;
+        }
+        lastSweepNanos = now;
+        int before = pending.size();
+        pending.values().removeIf(trace -> {
+            if (now - trace.createdNanos <= pendingTimeoutNanos) {
+                return false;
+            }
+            trace.close(false);
+            return true;
+        });
+        int removed = before - pending.size();
+        if (removed > 0) {
+            log.debug("清理超时未完成的链路: {}", removed);
+        }
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String decision) {
+        return Counter.builder("coachai.tracing.traces")
+                .description("尾部采样决策次数")
+                .tag("decision", decision)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 等待决策的链路数
+     */
+    int pendingTraceCount() {
+        return pending.size();
+    }
+
+    /**
+     * 等待采样决策的链路
+     * 关闭后不再缓冲，之后结束的Span由调用方按关闭时的决策处理
+     */
+    private static class PendingTrace {
+        private final long createdNanos = System.nanoTime();
+        private final List<ReadableSpan> spans = new ArrayList<>();
+        private Boolean decision;
+
+        /**
+         * @return 链路未关闭时返回 null，Span已缓冲；已关闭时返回关闭时的决策
+         */
+        synchronized Boolean add(ReadableSpan span) {
+            if (decision != null) {
+                return decision;
+            }
+            spans.add(span);
+            return null;
+        }
+
+        /**
+         * 关闭链路并取走缓冲的Span，已关闭时返回空列表
+         */
+        synchronized List<ReadableSpan> close(boolean keep) {
+            if (decision != null) {
+                return Collections.emptyList();
+            }
+            decision = keep;
+            List<ReadableSpan> drained = new ArrayList<>(spans);
+            spans.clear();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.coachai.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * 入站请求追踪
+ * 从请求头（W3C traceparent）提取上游追踪上下文，为每个请求创建SERVER Span，
+ * 追踪ID写入日志MDC（traceId）和响应头 X-Trace-Id，便于按链路排查慢请求
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private static final TextMapGetter<HttpServletRequest> GETTER = new TextMapGetter<HttpServletRequest>() {
+        @Override
+        public Iterable<String> keys(HttpServletRequest request) {
+            return Collections.list(request.getHeaderNames());
+        }
+
+        @Override
+        public String get(HttpServletRequest request, String key) {
+            return request != null ? request.getHeader(key) : null;
+        }
+    };
+
+    private final OpenTelemetry openTelemetry;
+    private final Tracer tracer;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // 监控端点抓取频繁、链路查询接口本身，不追踪
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/actuator") || path.startsWith("/internal/traces");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Context parent = openTelemetry.getPropagators().getTextMapPropagator()
+                .extract(Context.root(), request, GETTER);
+        Span span = tracer.spanBuilder("HTTP " + request.getMethod())
+                .setParent(parent)
+                .setSpanKind(SpanKind.SERVER)
+                .setAttribute("http.method", request.getMethod())
+                .setAttribute("http.target", request.getRequestURI())
+                .startSpan();
+
+        SpanContext spanContext = span.getSpanContext();
+        if (spanContext.isValid()) {
+            response.setHeader(TRACE_ID_HEADER, spanContext.getTraceId());
+        }
+
+        MDC.put("traceId", spanContext.getTraceId());
+        MDC.put("spanId", spanContext.getSpanId());
+        boolean async = false;
+        try (Scope ignored = span.makeCurrent()) {
+            filterChain.doFilter(request, response);
+            // 异步请求（返回 Mono/DeferredResult 的接口）在响应真正完成时结束Span
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new SpanEndingListener(span, request, response));
+                async = true;
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            Spans.recordError(span, e);
+            throw e;
+        } finally {
+            if (!async) {
+                endSpan(span, request, response);
+            }
+            MDC.remove("traceId");
+            MDC.remove("spanId");
+        }
+    }
+
+    private static void endSpan(Span span, HttpServletRequest request, HttpServletResponse response) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            span.updateName(request.getMethod() + " " + route);
+            span.setAttribute("http.route", route.toString());
+        }
+        int status = response.getStatus();
+        span.setAttribute("http.status_code", (long) status);
+        if (status >= 500) {
+            span.setStatus(StatusCode.ERROR, "HTTP " + status);
+        }
+        span.end();
+    }
+
+    /**
+     * 异步请求完成、超时或出错时结束SERVER Span
+     */
+    private static final class SpanEndingListener implements AsyncListener {
+        private final Span span;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        private SpanEndingListener(Span span, HttpServletRequest request, HttpServletResponse response) {
+            this.span = span;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            endSpan(span, request, response);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            span.setStatus(StatusCode.ERROR, "异步请求超时");
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            if (event.getThrowable() != null) {
+                Spans.recordError(span, event.getThrowable());
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
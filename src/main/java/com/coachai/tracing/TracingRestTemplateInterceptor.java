@@ -0,0 +1,63 @@
+package com.coachai.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * RestTemplate 出站请求追踪
+ * 为每次请求创建CLIENT Span，并将追踪上下文写入请求头（W3C traceparent）传播给下游服务
+ */
+public class TracingRestTemplateInterceptor implements ClientHttpRequestInterceptor {
+
+    private final OpenTelemetry openTelemetry;
+    private final Tracer tracer;
+
+    public TracingRestTemplateInterceptor(OpenTelemetry openTelemetry, Tracer tracer) {
+        this.openTelemetry = openTelemetry;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        URI uri = request.getURI();
+        Span span = tracer.spanBuilder("HTTP " + request.getMethodValue())
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute("http.method", request.getMethodValue())
+                // 不记录查询参数，避免签名等敏感信息进入追踪数据
+                .setAttribute("http.url", uri.getScheme() + "://" + uri.getAuthority() + uri.getPath())
+                .setAttribute("net.peer.name", String.valueOf(uri.getHost()))
+                .setAttribute("http.request_content_length", (long) body.length)
+                .startSpan();
+
+        try (Scope ignored = span.makeCurrent()) {
+            openTelemetry.getPropagators().getTextMapPropagator().inject(Context.current(), request.getHeaders(),
+                    (headers, key, value) -> headers.set(key, value));
+
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getRawStatusCode();
+            span.setAttribute("http.status_code", (long) status);
+            if (status >= 500) {
+                span.setStatus(StatusCode.ERROR, "HTTP " + status);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            Spans.recordError(span, e);
+            throw e;
+        } finally {
+            // 响应体由调用方读取，Span耗时为收到响应头为止
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.coachai.util;
+
+/**
+ * Base64图片数据解析
+ * 支持 data URI（data:image/png;base64,...）和不带前缀的纯Base64内容
+ */
+public final class Base64DataUri {
+
+    private static final String DEFAULT_MIME_TYPE = "image/jpeg";
+
+    private Base64DataUri() {
+    }
+
+    /**
+     * 解析base64数据，提取MIME类型和内容
+     *
+     * @return [MIME类型, Base64内容]，无法识别MIME类型时为 image/jpeg
+     */
+    public static String[] parse(String base64Data) {
+        if (base64Data.startsWith("data:")) {
+            // 格式: data:image/jpeg;base64,/9j/4AAQSkZJRgABAQAAAQ...
+            int commaIndex = base64Data.indexOf(",");
+            if (commaIndex != -1) {
+                String header = base64Data.substring(5, commaIndex); // 去掉"data:"
+                String content = base64Data.substring(commaIndex + 1);
+
+                // 提取MIME类型
+                String mimeType = DEFAULT_MIME_TYPE;
+                if (header.contains(";")) {
+                    mimeType = header.substring(0, header.indexOf(";"));
+                }
+
+                return new String[]{mimeType, content};
+            }
+        }
+
+        // 如果不是标准格式，假设是纯base64内容
+        return new String[]{DEFAULT_MIME_TYPE, base64Data};
+    }
+}
@@ -0,0 +1,232 @@
+package com.coachai.admission;
+
+import com.coachai.config.UserAdmissionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UserAdmission 测试：限速与进行中上限、加权公平排队、排队请求超时/取消后的完成时间撤销、状态清除与申请并发
+ */
+class UserAdmissionTest {
+
+    private final UserAdmissionConfig config = new UserAdmissionConfig();
+    private UserAdmission admission;
+
+    @AfterEach
+    void tearDown() {
+        if (admission != null) {
+            admission.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsWhenRateLimited() {
+        config.setRatePerSecond(1.0);
+        config.setBurst(2);
+        start();
+
+        admission.acquire("a").release();
+        admission.acquire("a").release();
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> admission.acquire("a"));
+
+        assertEquals("rate_limited", rejected.getReason());
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        // 其他用户不受影响
+        admission.acquire("b").release();
+    }
+
+    @Test
+    void rejectsWhenMaxInFlightReached() {
+        config.setRatePerSecond(1000.0);
+        config.setBurst(100);
+        config.setMaxInFlight(2);
+        start();
+
+        UserAdmission.Permit first = admission.acquire("a");
+        UserAdmission.Permit second = admission.acquire("a");
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> admission.acquire("a"));
+        assertEquals("concurrency_limited", rejected.getReason());
+
+        first.release();
+        // 重复释放不会多归还名额
+        first.release();
+        admission.acquire("a");
+        assertThrows(AdmissionRejectedException.class, () -> admission.acquire("a"));
+        second.release();
+    }
+
+    @Test
+    void interleavesQueuedUsersFairly() throws InterruptedException {
+        startSingleSlot(5000L);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        UserAdmission.Permit holder = admission.acquire("x");
+
+        // a 先排入三个请求，b 之后排入一个，b 不必等 a 的全部请求
+        admit("a", "a1", order);
+        admit("a", "a2", order);
+        admit("a", "a3", order);
+        admit("b", "b1", order);
+        holder.release();
+
+        awaitSize(order, 4);
+        assertEquals(Arrays.asList("a1", "b1", "a2", "a3"), order);
+    }
+
+    @Test
+    void restoresLaterTagsWhenWaiterIsCancelled() throws InterruptedException {
+        startSingleSlot(5000L);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        UserAdmission.Permit holder = admission.acquire("x");
+
+        Disposable a1 = admit("a", "a1", order);
+        admit("a", "a2", order);
+        admit("a", "a3", order);
+        a1.dispose();
+        admit("b", "b1", order);
+        admit("b", "b2", order);
+        holder.release();
+
+        // a1 撤销后 a2、a3 的完成时间前移，与 b 交替出队
+        awaitSize(order, 4);
+        assertEquals(Arrays.asList("a2", "b1", "a3", "b2"), order);
+    }
+
+    @Test
+    void restoresLaterTagsWhenWaiterTimesOut() throws InterruptedException {
+        startSingleSlot(300L);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Throwable> timedOut = new AtomicReference<>();
+        UserAdmission.Permit holder = admission.acquire("x");
+
+        admission.admit("a", () -> Mono.fromRunnable(() -> order.add("a1")))
+                .subscribe(null, timedOut::set);
+        TimeUnit.MILLISECONDS.sleep(200);
+        admit("a", "a2", order);
+        admit("b", "b1", order);
+
+        // a1 排队超时后 a2 的完成时间与 b1 相同，先入队的 a2 先出队
+        awaitCondition(() -> timedOut.get() != null);
+        holder.release();
+
+        awaitSize(order, 2);
+        assertEquals(Arrays.asList("a2", "b1"), order);
+        assertTrue(timedOut.get() instanceof AdmissionRejectedException);
+        assertEquals("queue_timeout", ((AdmissionRejectedException) timedOut.get()).getReason());
+    }
+
+    @Test
+    void evictIdleRacingWithReserveKeepsInFlightLimit() throws Exception {
+        config.setRatePerSecond(1_000_000.0);
+        config.setBurst(1_000_000);
+        config.setMaxInFlight(2);
+        config.setIdleEvictMs(0L);
+        start();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger held = new AtomicInteger();
+        AtomicInteger maxHeld = new AtomicInteger();
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                workers.add(executor.submit(() -> {
+                    started.countDown();
+                    while (running.get()) {
+                        UserAdmission.Permit permit;
+                        try {
+                            permit = admission.acquire("a");
+                        } catch (AdmissionRejectedException e) {
+                            assertEquals("concurrency_limited", e.getReason());
+                            continue;
+                        }
+                        int now = held.incrementAndGet();
+                        maxHeld.accumulateAndGet(now, Math::max);
+                        admitted.incrementAndGet();
+                        held.decrementAndGet();
+                        permit.release();
+                    }
+                    return null;
+                }));
+            }
+            workers.add(executor.submit(() -> {
+                started.await();
+                while (running.get()) {
+                    admission.evictIdle();
+                }
+                return null;
+            }));
+
+            TimeUnit.MILLISECONDS.sleep(500);
+            running.set(false);
+            for (Future<?> worker : workers) {
+                worker.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(admitted.get() > 0);
+        assertTrue(maxHeld.get() <= 2, "maxHeld=" + maxHeld.get());
+        // 并发结束后状态一致：进行中名额全部归还，用户仍可正常申请到上限
+        UserAdmission.Permit first = admission.acquire("a");
+        UserAdmission.Permit second = admission.acquire("a");
+        assertThrows(AdmissionRejectedException.class, () -> admission.acquire("a"));
+        first.release();
+        second.release();
+        admission.evictIdle();
+        assertNotNull(admission.acquire("a"));
+    }
+
+    private void start() {
+        admission = new UserAdmission(config, new SimpleMeterRegistry());
+        admission.init();
+    }
+
+    private void startSingleSlot(long queueTimeoutMs) {
+        config.setMaxConcurrent(1);
+        config.setRatePerSecond(1000.0);
+        config.setBurst(100);
+        config.setQueueTimeoutMs(queueTimeoutMs);
+        start();
+    }
+
+    private Disposable admit(String username, String label, List<String> order) {
+        return admission.admit(username, () -> Mono.fromRunnable(() -> order.add(label))).subscribe();
+    }
+
+    private static void awaitSize(List<String> order, int size) throws InterruptedException {
+        awaitCondition(() -> order.size() >= size);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not met within 5s");
+    }
+}
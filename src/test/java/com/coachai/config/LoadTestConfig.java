@@ -0,0 +1,158 @@
+package com.coachai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测环境配置
+ * 仅在 loadtest Profile 下生效，配置内嵌的AI工作流桩服务和本地对象存储
+ */
+@Configuration
+@Profile("loadtest")
+@ConfigurationProperties(prefix = "loadtest")
+@Data
+public class LoadTestConfig {
+
+    /**
+     * AI工作流桩服务配置
+     */
+    private WorkflowStubConfig workflow = new WorkflowStubConfig();
+
+    /**
+     * 本地对象存储配置
+     */
+    private ObjectStoreConfig objectStore = new ObjectStoreConfig();
+
+    @Data
+    public static class WorkflowStubConfig {
+        /**
+         * 监听端口
+         */
+        private Integer port = 18081;
+
+        /**
+         * 处理请求的线程数，延迟等待期间不占用线程
+         */
+        private Integer maxThreads = 16;
+
+        /**
+         * 姿态分析工作流录制响应
+         */
+        private String posePayload = "classpath:loadtest/workflow/pose-workflow-response.json";
+
+        /**
+         * 症状分析工作流录制响应
+         */
+        private String issuePayload = "classpath:loadtest/workflow/issue-workflow-response.json";
+
+        /**
+         * 姿态分析工作流响应延迟
+         */
+        private LatencyConfig poseLatency = new LatencyConfig();
+
+        /**
+         * 症状分析工作流响应延迟
+         */
+        private LatencyConfig issueLatency = new LatencyConfig();
+
+        /**
+         * 注入失败的比例 (0-1)，失败时返回HTTP 500
+         */
+        private Double errorRate = 0.0;
+
+        /**
+         * 额外的桩服务实例，配合 ai.workflow.endpoints 验证多地址负载均衡
+         */
+        private List<StubInstanceConfig> instances = new ArrayList<>();
+    }
+
+    @Data
+    public static class StubInstanceConfig {
+        /**
+         * 监听端口
+         */
+        private Integer port;
+
+        /**
+         * 延迟倍数，模拟更远的网关/地域
+         */
+        private Double latencyFactor = 1.0;
+
+        /**
+         * 注入失败的比例 (0-1)，为空时与主实例相同
+         */
+        private Double errorRate;
+    }
+
+    @Data
+    public static class LatencyConfig {
+        /**
+         * 延迟分布类型
+         */
+        private LatencyDistribution distribution = LatencyDistribution.LOGNORMAL;
+
+        /**
+         * FIXED：固定延迟（毫秒）
+         */
+        private Long fixedMs = 0L;
+
+        /**
+         * UNIFORM：最小延迟（毫秒）
+         */
+        private Long minMs = 0L;
+
+        /**
+         * UNIFORM：最大延迟（毫秒）
+         */
+        private Long maxMs = 0L;
+
+        /**
+         * LOGNORMAL：中位数延迟（毫秒）
+         */
+        private Long medianMs = 3000L;
+
+        /**
+         * LOGNORMAL：P99延迟（毫秒）
+         */
+        private Long p99Ms = 12000L;
+
+        /**
+         * 延迟上限（毫秒），避免长尾超过客户端读取超时
+         */
+        private Long capMs = 120000L;
+    }
+
+    public enum LatencyDistribution {
+        FIXED,
+        UNIFORM,
+        LOGNORMAL
+    }
+
+    @Data
+    public static class ObjectStoreConfig {
+        /**
+         * 监听端口
+         */
+        private Integer port = 18082;
+
+        /**
+         * 处理请求的最大线程数
+         */
+        private Integer maxThreads = 64;
+
+        /**
+         * 对象数据存放目录，为空时使用系统临时目录
+         */
+        private String dataDir;
+
+        /**
+         * 关闭时是否删除对象数据
+         */
+        private Boolean cleanupOnShutdown = true;
+    }
+}
@@ -0,0 +1,124 @@
+package com.coachai.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * JsonFieldExtractor 测试：与改为流式提取前 DataController 基于 JsonNode 的实现逐个输入对比
+ */
+class JsonFieldExtractorTest {
+
+    private static final String MISSING = "<missing>";
+    private static final String ERROR = "<error>";
+
+    private static final JsonFieldExtractor ANSWER_OR_TOP_LEVEL =
+            JsonFieldExtractor.compile("answer.userPoseImageInstructions", "userPoseImageInstructions");
+    private static final JsonFieldExtractor TOP_LEVEL = JsonFieldExtractor.compile("nextNodeImageInstructions");
+
+    private final JsonCodec jsonCodec = new JsonCodec(Jackson2ObjectMapperBuilder.json().build());
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // answer 中有字段
+            "{\"answer\":{\"userPoseImageInstructions\":\"标出膝盖\"},\"userPoseImageInstructions\":\"顶层\"}",
+            // answer 存在但没有该字段：不退回顶层
+            "{\"answer\":{\"other\":\"x\"},\"userPoseImageInstructions\":\"顶层\"}",
+            "{\"userPoseImageInstructions\":\"顶层\",\"answer\":{}}",
+            // answer 为 null、字符串、数组
+            "{\"answer\":null,\"userPoseImageInstructions\":\"顶层\"}",
+            "{\"answer\":\"{\\\"userPoseImageInstructions\\\":\\\"x\\\"}\",\"userPoseImageInstructions\":\"顶层\"}",
+            "{\"answer\":[{\"userPoseImageInstructions\":\"x\"}],\"userPoseImageInstructions\":\"顶层\"}",
+            // 没有 answer 时取顶层
+            "{\"userPoseImageInstructions\":\"顶层\"}",
+            "{\"other\":{\"userPoseImageInstructions\":\"嵌套在其他字段中\"}}",
+            // 顶层不是对象、空内容
+            "[{\"userPoseImageInstructions\":\"x\"}]",
+            "\"userPoseImageInstructions\"",
+            "42",
+            "null",
+            "",
+            "   ",
+            // 字段值为 null、对象、数组、数字、布尔
+            "{\"answer\":{\"userPoseImageInstructions\":null}}",
+            "{\"answer\":{\"userPoseImageInstructions\":{\"text\":\"x\"}}}",
+            "{\"answer\":{\"userPoseImageInstructions\":[\"x\"]}}",
+            "{\"userPoseImageInstructions\":42}",
+            "{\"userPoseImageInstructions\":-0}",
+            "{\"userPoseImageInstructions\":12345678901234567890}",
+            "{\"userPoseImageInstructions\":1.50}",
+            "{\"userPoseImageInstructions\":1e2}",
+            "{\"userPoseImageInstructions\":true}",
+            "{\"userPoseImageInstructions\":\"转义\\n\\\"引号\\\" \\u4e2d\"}",
+            // 重复的键：以最后出现的为准
+            "{\"answer\":{\"userPoseImageInstructions\":\"第一个\",\"userPoseImageInstructions\":\"第二个\"}}",
+            "{\"userPoseImageInstructions\":\"第一个\",\"userPoseImageInstructions\":\"第二个\"}",
+            "{\"answer\":{\"userPoseImageInstructions\":\"第一个\"},\"answer\":{\"other\":\"x\"}}",
+            "{\"answer\":{\"other\":\"x\"},\"answer\":{\"userPoseImageInstructions\":\"第二个\"}}",
+            "{\"answer\":{\"userPoseImageInstructions\":\"第一个\"},\"answer\":null,\"userPoseImageInstructions\":\"顶层\"}",
+            "{\"answer\":\"x\",\"answer\":{\"userPoseImageInstructions\":\"第二个\"}}",
+            // 格式错误，包括错误出现在字段之后
+            "{\"answer\":{\"userPoseImageInstructions\":\"x\"",
+            "{\"answer\":{\"userPoseImageInstructions\":\"x\"},\"other\":]",
+            "{\"userPoseImageInstructions\":\"x\",}",
+            // 顶层值之后的内容不读取
+            "{\"userPoseImageInstructions\":\"x\"} trailing"
+    })
+    void matchesJsonNodeImplementation(String json) {
+        assertEquals(legacyAnswerOrTopLevel(json, "userPoseImageInstructions"), extract(json, ANSWER_OR_TOP_LEVEL), json);
+        assertEquals(legacyTopLevel(json, "userPoseImageInstructions"),
+                extract(json, JsonFieldExtractor.compile("userPoseImageInstructions")), json);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"nextNodeImageInstructions\":\"下一步\"}",
+            "{\"answer\":{\"nextNodeImageInstructions\":\"x\"}}",
+            "{\"nextNodeImageInstructions\":null}",
+            "{\"nextNodeImageInstructions\":\"第一个\",\"nextNodeImageInstructions\":\"第二个\"}",
+            "[]",
+            ""
+    })
+    void matchesJsonNodeImplementationForTopLevelField(String json) {
+        assertEquals(legacyTopLevel(json, "nextNodeImageInstructions"), extract(json, TOP_LEVEL), json);
+    }
+
+    private String extract(String json, JsonFieldExtractor extractor) {
+        try {
+            String value = jsonCodec.extract(json, extractor);
+            return value == null ? MISSING : value;
+        } catch (Exception e) {
+            return ERROR;
+        }
+    }
+
+    /**
+     * 改为流式提取前 extractInstructionsByType 的实现：有 answer 字段时只在 answer 中查找，否则在顶层查找
+     */
+    private String legacyAnswerOrTopLevel(String json, String field) {
+        try {
+            JsonNode jsonNode = jsonCodec.readTree(json);
+            JsonNode answerNode = jsonNode.get("answer");
+            JsonNode targetNode = answerNode != null ? answerNode : jsonNode;
+            JsonNode instructionsNode = targetNode.get(field);
+            return instructionsNode == null ? MISSING : instructionsNode.asText();
+        } catch (Exception e) {
+            return ERROR;
+        }
+    }
+
+    /**
+     * 改为流式提取前 extractNextNodeImageInstructions 的实现
+     */
+    private String legacyTopLevel(String json, String field) {
+        try {
+            JsonNode instructionsNode = jsonCodec.readTree(json).get(field);
+            return instructionsNode == null ? MISSING : instructionsNode.asText();
+        } catch (Exception e) {
+            return ERROR;
+        }
+    }
+}
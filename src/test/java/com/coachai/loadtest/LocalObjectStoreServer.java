@@ -0,0 +1,250 @@
+package com.coachai.loadtest;
+
+import com.coachai.config.LoadTestConfig;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地对象存储
+ * 压测时替代阿里云OSS：实现OSS协议中 OssFileStorageService 用到的对象级接口（PUT/GET/HEAD/DELETE），
+ * 使用路径风格访问（/{bucket}/{object}），不校验签名。应用仍通过 OSS SDK 和 OssFileStorageService 访问，
+ * 压测覆盖真实的上传、压缩和代理下载链路。对象数据写入本地目录，元数据保存在内存中。
+ */
+@Component
+@Profile("loadtest")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalObjectStoreServer {
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final LoadTestConfig loadTestConfig;
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Path dataDir;
+
+    @PostConstruct
+    public void start() throws IOException {
+        LoadTestConfig.ObjectStoreConfig config = loadTestConfig.getObjectStore();
+        dataDir = config.getDataDir() != null && !config.getDataDir().trim().isEmpty()
+                ? Files.createDirectories(Paths.get(config.getDataDir()))
+                : Files.createTempDirectory("coach-ai-loadtest-oss");
+
+        executor = Executors.newFixedThreadPool(config.getMaxThreads(),
+                StubWorkflowServer.daemonThreadFactory("object-store-handler"));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.getPort()), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+
+        log.info("本地对象存储已启动: port={}, dataDir={}", config.getPort(), dataDir);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (dataDir != null && Boolean.TRUE.equals(loadTestConfig.getObjectStore().getCleanupOnShutdown())) {
+            FileSystemUtils.deleteRecursively(dataDir);
+        }
+        log.info("本地对象存储已停止: objects={}", objects.size());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String requestId = UUID.randomUUID().toString().replace("-", "").toUpperCase();
+        try {
+            exchange.getResponseHeaders().set("x-oss-request-id", requestId);
+
+            // 路径风格：/{bucket}/{object}
+            String path = exchange.getRequestURI().getPath();
+            int slash = path.indexOf('/', 1);
+            if (slash < 0 || slash == path.length() - 1) {
+                sendError(exchange, 501, "NotImplemented", "Bucket operations are not supported.", requestId, null);
+                return;
+            }
+            String bucket = path.substring(1, slash);
+            String key = path.substring(slash + 1);
+            Path file = dataDir.resolve(bucket).resolve(key).normalize();
+            if (!file.startsWith(dataDir)) {
+                sendError(exchange, 400, "InvalidObjectName", "The specified object name is invalid.", requestId, key);
+                return;
+            }
+            String objectKey = bucket + "/" + key;
+
+            switch (exchange.getRequestMethod().toUpperCase()) {
+                case "PUT":
+                    putObject(exchange, objectKey, file);
+                    break;
+                case "GET":
+                    getObject(exchange, objectKey, file, true, requestId);
+                    break;
+                case "HEAD":
+                    getObject(exchange, objectKey, file, false, requestId);
+                    break;
+                case "DELETE":
+                    objects.remove(objectKey);
+                    Files.deleteIfExists(file);
+                    exchange.sendResponseHeaders(204, -1);
+                    break;
+                default:
+                    sendError(exchange, 405, "MethodNotAllowed", "The specified method is not allowed.", requestId, key);
+            }
+        } catch (Exception e) {
+            log.warn("本地对象存储处理请求失败: {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            sendError(exchange, 500, "InternalError", e.getMessage(), requestId, null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void putObject(HttpExchange exchange, String objectKey, Path file) throws IOException {
+        byte[] content;
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            content = StreamUtils.copyToByteArray(inputStream);
+        }
+
+        // 先写临时文件再原子替换，避免并发读到写了一半的对象
+        Files.createDirectories(file.getParent());
+        Path tempFile = Files.createTempFile(file.getParent(), ".upload-", ".tmp");
+        Files.write(tempFile, content);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Headers requestHeaders = exchange.getRequestHeaders();
+        String etag = "\"" + DigestUtils.md5DigestAsHex(content).toUpperCase() + "\"";
+        objects.put(objectKey, new StoredObject(
+                content.length,
+                etag,
+                Instant.now(),
+                requestHeaders.getFirst("Content-Type"),
+                requestHeaders.getFirst("Cache-Control"),
+                requestHeaders.getFirst("Content-Disposition")));
+
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void getObject(HttpExchange exchange, String objectKey, Path file, boolean withBody, String requestId) throws IOException {
+        StoredObject object = objects.get(objectKey);
+        if (object == null || !Files.exists(file)) {
+            if (withBody) {
+                sendError(exchange, 404, "NoSuchKey", "The specified key does not exist.", requestId,
+                        objectKey.substring(objectKey.indexOf('/') + 1));
+            } else {
+                exchange.getResponseHeaders().set("Connection", "close");
+                exchange.sendResponseHeaders(404, -1);
+            }
+            return;
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", object.etag);
+        headers.set("Last-Modified", HTTP_DATE.format(object.lastModified));
+        headers.set("Content-Type", object.contentType != null ? object.contentType : "application/octet-stream");
+        if (object.cacheControl != null) {
+            headers.set("Cache-Control", object.cacheControl);
+        }
+        if (object.contentDisposition != null) {
+            headers.set("Content-Disposition", object.contentDisposition);
+        }
+
+        if (!withBody) {
+            // HEAD请求无响应体，对象大小通过手动设置的 Content-Length 返回；
+            // JDK HttpServer 在HEAD响应后会关闭连接，显式告知客户端不要复用，避免下一次请求失败重试
+            headers.set("Content-Length", String.valueOf(object.size));
+            headers.set("Connection", "close");
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        exchange.sendResponseHeaders(200, object.size);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            Files.copy(file, outputStream);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String code, String message, String requestId, String key) throws IOException {
+        StringBuilder xml = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<Error>\n")
+                .append("  <Code>").append(code).append("</Code>\n")
+                .append("  <Message>").append(escapeXml(message)).append("</Message>\n")
+                .append("  <RequestId>").append(requestId).append("</RequestId>\n")
+                .append("  <HostId>127.0.0.1</HostId>\n");
+        if (key != null) {
+            xml.append("  <Key>").append(escapeXml(key)).append("</Key>\n");
+        }
+        xml.append("</Error>\n");
+
+        byte[] body = xml.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static String escapeXml(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * 对象元数据
+     */
+    private static class StoredObject {
+        private final long size;
+        private final String etag;
+        private final Instant lastModified;
+        private final String contentType;
+        private final String cacheControl;
+        private final String contentDisposition;
+
+        StoredObject(long size, String etag, Instant lastModified, String contentType,
+                     String cacheControl, String contentDisposition) {
+            this.size = size;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.cacheControl = cacheControl;
+            this.contentDisposition = contentDisposition;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.coachai.loadtest;
+
+import com.coachai.config.AiWorkflowConfig;
+import com.coachai.config.LoadTestConfig;
+import com.coachai.json.JsonCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI工作流桩服务
+ * 压测时替代apaas工作流接口：按请求中的apiCode回放录制的响应，并按配置的延迟分布延迟返回。
+ * 延迟通过定时任务实现，等待期间不占用处理线程，可模拟大量并发的长耗时工作流调用。
+ */
+@Component
+@Profile("loadtest")
+@RequiredArgsConstructor
+@Slf4j
+public class StubWorkflowServer {
+
+    /**
+     * 对数正态分布中P99对应的标准正态分位数
+     */
+    private static final double Z_99 = 2.3263;
+
+    private static final String INJECTED_ERROR_BODY =
+            "{\"code\":500,\"success\":false,\"message\":\"loadtest injected failure\"}";
+
+    private final LoadTestConfig loadTestConfig;
+    private final AiWorkflowConfig aiWorkflowConfig;
+    private final JsonCodec jsonCodec;
+    private final ResourceLoader resourceLoader;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private ExecutorService handlerExecutor;
+    private ScheduledExecutorService responseScheduler;
+    private byte[] posePayload;
+    private byte[] issuePayload;
+
+    @PostConstruct
+    public void start() throws IOException {
+        LoadTestConfig.WorkflowStubConfig config = loadTestConfig.getWorkflow();
+        posePayload = loadPayload(config.getPosePayload());
+        issuePayload = loadPayload(config.getIssuePayload());
+
+        handlerExecutor = Executors.newFixedThreadPool(config.getMaxThreads(), daemonThreadFactory("workflow-stub-handler"));
+        responseScheduler = Executors.newScheduledThreadPool(2, daemonThreadFactory("workflow-stub-responder"));
+
+        startServer(config.getPort(), 1.0, config.getErrorRate());
+        for (LoadTestConfig.StubInstanceConfig instance : config.getInstances()) {
+            startServer(instance.getPort(), instance.getLatencyFactor(),
+                    instance.getErrorRate() != null ? instance.getErrorRate() : config.getErrorRate());
+        }
+
+        log.info("AI工作流桩服务已启动: port={}, poseLatency={}, issueLatency={}, errorRate={}, instances={}",
+                config.getPort(), config.getPoseLatency(), config.getIssueLatency(), config.getErrorRate(),
+                config.getInstances());
+    }
+
+    private void startServer(int port, double latencyFactor, double errorRate) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext("/", exchange -> handle(exchange, latencyFactor, errorRate));
+        server.setExecutor(handlerExecutor);
+        server.start();
+        servers.add(server);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+        if (responseScheduler != null) {
+            responseScheduler.shutdownNow();
+        }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdownNow();
+        }
+        log.info("AI工作流桩服务已停止: requests={}, injectedErrors={}", requestCount.get(), errorCount.get());
+    }
+
+    private void handle(HttpExchange exchange, double latencyFactor, double errorRate) throws IOException {
+        requestCount.incrementAndGet();
+
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{\"code\":405,\"success\":false,\"message\":\"method not allowed\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        String apiCode;
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            JsonNode request = jsonCodec.readTree(inputStream);
+            apiCode = request.path("apiCode").asText(null);
+        } catch (Exception e) {
+            respond(exchange, 400, "{\"code\":400,\"success\":false,\"message\":\"invalid request body\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        byte[] payload;
+        LoadTestConfig.LatencyConfig latency;
+        if (aiWorkflowConfig.getPoseAnalysis().getApiCode().equals(apiCode)) {
+            payload = posePayload;
+            latency = loadTestConfig.getWorkflow().getPoseLatency();
+        } else if (aiWorkflowConfig.getIssueAnalysis().getApiCode().equals(apiCode)) {
+            payload = issuePayload;
+            latency = loadTestConfig.getWorkflow().getIssueLatency();
+        } else {
+            respond(exchange, 404, "{\"code\":404,\"success\":false,\"message\":\"unknown apiCode\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean injectError = random.nextDouble() < errorRate;
+        int status = injectError ? 500 : 200;
+        byte[] body = injectError ? INJECTED_ERROR_BODY.getBytes(StandardCharsets.UTF_8) : payload;
+        if (injectError) {
+            errorCount.incrementAndGet();
+        }
+
+        long delayMs = Math.round(sampleLatency(latency, random) * latencyFactor);
+        if (delayMs <= 0) {
+            respond(exchange, status, body);
+            return;
+        }
+        // 延迟返回，交换对象在响应写出前保持打开
+        responseScheduler.schedule(() -> {
+            try {
+                respond(exchange, status, body);
+            } catch (IOException e) {
+                log.debug("工作流桩响应写出失败: {}", e.getMessage());
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 按配置的分布采样一次延迟（毫秒）
+     */
+    private static long sampleLatency(LoadTestConfig.LatencyConfig latency, ThreadLocalRandom random) {
+        long delay;
+        switch (latency.getDistribution()) {
+            case FIXED:
+                delay = latency.getFixedMs();
+                break;
+            case UNIFORM:
+                delay = latency.getMaxMs() > latency.getMinMs()
+                        ? random.nextLong(latency.getMinMs(), latency.getMaxMs() + 1)
+                        : latency.getMinMs();
+                break;
+            case LOGNORMAL:
+            default:
+                // 由中位数和P99反推对数正态分布参数：mu = ln(median)，sigma = ln(p99 / median) / z99
+                double median = Math.max(1, latency.getMedianMs());
+                double p99 = Math.max(median, latency.getP99Ms());
+                double sigma = Math.log(p99 / median) / Z_99;
+                delay = Math.round(Math.exp(Math.log(median) + sigma * random.nextGaussian()));
+                break;
+        }
+        return Math.max(0, Math.min(delay, latency.getCapMs()));
+    }
+
+    private byte[] loadPayload(String location) throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream inputStream = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(inputStream);
+        }
+    }
+
+    static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,219 @@
+package com.coachai.resilience;
+
+import com.coachai.config.AiWorkflowConfig;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EndpointBalancer 测试：两个本地桩服务，分别控制延迟和返回的状态码
+ */
+class EndpointBalancerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final AiWorkflowConfig config = new AiWorkflowConfig();
+
+    private StubServer first;
+    private StubServer second;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        first = new StubServer();
+        second = new StubServer();
+        config.setEndpoints(Arrays.asList(first.url(), second.url()));
+        AiWorkflowConfig.BalancerConfig balancer = config.getBalancer();
+        balancer.setInitialLatency(50L);
+        balancer.setConsecutiveFailures(3);
+        balancer.setBaseEjectionTime(10000L);
+        balancer.setMaxEjectionPercent(50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.stop();
+        second.stop();
+    }
+
+    @Test
+    void prefersFasterEndpoint() throws Exception {
+        first.delayMs.set(2);
+        second.delayMs.set(60);
+        EndpointBalancer balancer = new EndpointBalancer(config, meterRegistry);
+
+        for (int i = 0; i < 50; i++) {
+            call(balancer);
+        }
+
+        // 两个地址各被采样后，每次比较都选择延迟较低的地址
+        assertTrue(first.hits.get() >= 45, "fast=" + first.hits.get() + ", slow=" + second.hits.get());
+        assertTrue(second.hits.get() <= 2, "slow=" + second.hits.get());
+    }
+
+    @Test
+    void ejectsEndpointAfterConsecutiveFailures() throws Exception {
+        // 失败的地址快速返回500，延迟估计保持初始值，比正常地址的实际延迟低，会一直被选中直到摘除
+        first.status.set(500);
+        second.delayMs.set(200);
+        EndpointBalancer balancer = new EndpointBalancer(config, meterRegistry);
+
+        for (int i = 0; i < 10 && ejections() == 0; i++) {
+            call(balancer);
+        }
+        assertEquals(1, ejections());
+        assertEquals(3, first.hits.get());
+        assertTrue(endpoint(balancer, first).isEjected(System.nanoTime()));
+
+        for (int i = 0; i < 5; i++) {
+            call(balancer);
+        }
+        assertEquals(3, first.hits.get());
+    }
+
+    @Test
+    void doesNotEjectMoreThanMaxEjectionPercent() throws Exception {
+        first.status.set(500);
+        second.status.set(500);
+        EndpointBalancer balancer = new EndpointBalancer(config, meterRegistry);
+
+        for (int i = 0; i < 30; i++) {
+            call(balancer);
+        }
+
+        // 两个地址的50%为一个，另一个失败的地址保留可用
+        assertEquals(1, ejections());
+        long now = System.nanoTime();
+        assertEquals(1, balancer.getEndpoints().stream().filter(e -> e.isEjected(now)).count());
+    }
+
+    @Test
+    void doesNotEjectWhenMaxEjectionPercentIsZero() throws Exception {
+        config.getBalancer().setMaxEjectionPercent(0);
+        first.status.set(500);
+        second.status.set(500);
+        EndpointBalancer balancer = new EndpointBalancer(config, meterRegistry);
+
+        for (int i = 0; i < 30; i++) {
+            call(balancer);
+        }
+
+        assertEquals(0, ejections());
+    }
+
+    @Test
+    void recoversWithSlowStart() throws Exception {
+        AiWorkflowConfig.BalancerConfig balancerConfig = config.getBalancer();
+        balancerConfig.setBaseEjectionTime(200L);
+        balancerConfig.setSlowStart(1000L);
+        balancerConfig.setSlowStartMinWeight(0.1);
+        first.status.set(500);
+        second.delayMs.set(200);
+        EndpointBalancer balancer = new EndpointBalancer(config, meterRegistry);
+        EndpointBalancer.Endpoint recovering = endpoint(balancer, first);
+
+        for (int i = 0; i < 10 && ejections() == 0; i++) {
+            call(balancer);
+        }
+        assertEquals(1, ejections());
+        first.status.set(200);
+        first.delayMs.set(5);
+
+        TimeUnit.MILLISECONDS.sleep(250);
+        long recoveredAt = System.nanoTime();
+        assertFalse(recovering.isEjected(recoveredAt));
+        double weight = recovering.weight(recoveredAt, balancerConfig);
+        assertTrue(weight < 0.3, "weight=" + weight);
+
+        // 慢启动初期权重低，初始延迟估计按权重放大后高于正常地址，流量仍走正常地址
+        int hitsBefore = first.hits.get();
+        call(balancer);
+        assertEquals(hitsBefore, first.hits.get());
+
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertEquals(1.0, recovering.weight(System.nanoTime(), balancerConfig));
+        for (int i = 0; i < 5; i++) {
+            call(balancer);
+        }
+        assertTrue(first.hits.get() > hitsBefore, "recovered endpoint received no traffic");
+    }
+
+    private void call(EndpointBalancer balancer) throws Exception {
+        try {
+            balancer.execute(endpoint -> restTemplate.getForObject(endpoint.getUrl(), String.class));
+        } catch (HttpServerErrorException e) {
+            // 失败由负载均衡计入地址状态
+        }
+    }
+
+    private double ejections() {
+        return meterRegistry.find("coachai.workflow.endpoint.ejections").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static EndpointBalancer.Endpoint endpoint(EndpointBalancer balancer, StubServer server) {
+        return balancer.getEndpoints().stream()
+                .filter(e -> e.getUrl().equals(server.url()))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    /**
+     * 按设置的延迟返回设置的状态码，并统计收到的请求数
+     */
+    private static final class StubServer {
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final AtomicInteger status = new AtomicInteger(200);
+        private final AtomicInteger delayMs = new AtomicInteger();
+        private final AtomicInteger hits = new AtomicInteger();
+
+        private StubServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", exchange -> {
+                hits.incrementAndGet();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delayMs.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status.get(), body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        private String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        }
+
+        private void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.coachai.tracing;
+
+import com.coachai.config.TracingConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TailSamplingSpanProcessor 测试：导出到内存导出器，检查保留、丢弃的链路和根Span结束前后并发结束的Span
+ */
+class TailSamplingSpanProcessorTest {
+
+    private final TracingConfig.SamplingConfig config = new TracingConfig.SamplingConfig();
+    private final InMemorySpanExporter exporter = new InMemorySpanExporter(100_000);
+
+    private TailSamplingSpanProcessor processor;
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+
+    @AfterEach
+    void tearDown() {
+        if (tracerProvider != null) {
+            tracerProvider.close();
+        }
+    }
+
+    @Test
+    void keepsWholeTraceWhenAnySpanFails() {
+        config.setRatio(0.0);
+        start();
+
+        Span root = tracer.spanBuilder("root").startSpan();
+        Span child = child(root, "child");
+        child.setStatus(StatusCode.ERROR);
+        child.end();
+        assertTrue(exporter.getFinishedSpans().isEmpty());
+        root.end();
+
+        assertEquals(2, exporter.getTrace(traceId(root)).size());
+        assertEquals(0, processor.pendingTraceCount());
+    }
+
+    @Test
+    void dropsFastTraceWhenNotSampled() {
+        config.setRatio(0.0);
+        start();
+
+        Span root = tracer.spanBuilder("root").startSpan();
+        child(root, "child").end();
+        root.end();
+        // 根Span之后结束的Span按已做出的决策丢弃
+        child(root, "late").end();
+
+        assertTrue(exporter.getFinishedSpans().isEmpty());
+        assertEquals(0, processor.pendingTraceCount());
+    }
+
+    @Test
+    void forwardsSpansEndingAfterRootByDecision() {
+        config.setRatio(1.0);
+        start();
+
+        Span root = tracer.spanBuilder("root").startSpan();
+        Span late = child(root, "late");
+        root.end();
+        late.end();
+
+        assertEquals(2, exporter.getTrace(traceId(root)).size());
+        assertEquals(0, processor.pendingTraceCount());
+    }
+
+    @Test
+    void keepsSpansEndingConcurrentlyWithRoot() throws Exception {
+        config.setRatio(1.0);
+        start();
+        int traces = 500;
+        int childrenPerTrace = 3;
+        ExecutorService executor = Executors.newFixedThreadPool(childrenPerTrace + 1);
+        try {
+            for (int i = 0; i < traces; i++) {
+                Span root = tracer.spanBuilder("root").startSpan();
+                List<Span> children = new ArrayList<>();
+                for (int j = 0; j < childrenPerTrace; j++) {
+                    children.add(child(root, "child-" + j));
+                }
+                CyclicBarrier barrier = new CyclicBarrier(childrenPerTrace + 1);
+                List<Future<?>> ends = new ArrayList<>();
+                for (Span span : children) {
+                    ends.add(executor.submit(() -> {
+                        barrier.await();
+                        span.end();
+                        return null;
+                    }));
+                }
+                ends.add(executor.submit(() -> {
+                    barrier.await();
+                    root.end();
+                    return null;
+                }));
+                for (Future<?> end : ends) {
+                    end.get(5, TimeUnit.SECONDS);
+                }
+                assertEquals(childrenPerTrace + 1, exporter.getTrace(traceId(root)).size(), "trace " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(traces * (childrenPerTrace + 1), exporter.getFinishedSpans().size());
+        assertEquals(0, processor.pendingTraceCount());
+    }
+
+    private void start() {
+        config.setSlowThresholdMs(60_000L);
+        processor = new TailSamplingSpanProcessor(SimpleSpanProcessor.create(exporter), config, new SimpleMeterRegistry());
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        tracer = tracerProvider.get("test");
+    }
+
+    private Span child(Span parent, String name) {
+        return tracer.spanBuilder(name).setParent(Context.current().with(parent)).startSpan();
+    }
+
+    private static String traceId(Span span) {
+        return span.getSpanContext().getTraceId();
+    }
+}
@@ -0,0 +1,24 @@
+-- 压测环境H2初始化脚本
+-- H2 会把绑定到 JSON 类型列的字符串参数当作 JSON 字符串值再次转义，读出后无法解析。
+-- 这里预先以 VARCHAR 创建各表的 JSON 列，其余列由 Hibernate ddl-auto 补齐。
+
+CREATE TABLE IF NOT EXISTS pose_analysis_record_flat (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    analysis_results VARCHAR NOT NULL,
+    improvement_results VARCHAR
+);
+
+CREATE TABLE IF NOT EXISTS issue_analysis_record (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    posture VARCHAR NOT NULL,
+    symptoms VARCHAR NOT NULL,
+    treatment VARCHAR NOT NULL,
+    pose_reference VARCHAR,
+    rehabilitation_videos VARCHAR
+);
+
+CREATE TABLE IF NOT EXISTS analysis_rollup (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    risk_level_counts VARCHAR,
+    problem_counts VARCHAR
+);